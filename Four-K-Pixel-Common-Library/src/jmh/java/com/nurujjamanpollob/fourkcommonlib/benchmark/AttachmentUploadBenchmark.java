@@ -0,0 +1,134 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.benchmark;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentUploader;
+import com.nurujjamanpollob.fourkcommonlib.storage.UploadedAttachment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Measure throughput of {@link AttachmentUploader} with 200 concurrent uploads of a 4MB image.
+ * Run with the GC profiler, <code>gc.alloc.rate.norm</code> is the heap allocated per upload,
+ * which should stay a few kilobytes, far below upload size, as the body is streamed through pooled direct buffers.
+ * Every stored file is deleted right after upload, so the disk does not fill up during measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(200)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx256m"})
+public class AttachmentUploadBenchmark {
+
+    private static final int UPLOAD_SIZE = 4 * 1024 * 1024;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    private Path uploadDirectory;
+    private AttachmentUploader uploader;
+    private byte[] body;
+
+    @Setup
+    public void createUploader() throws IOException {
+
+        uploadDirectory = Files.createTempDirectory("upload-benchmark");
+        uploader = new AttachmentUploader(uploadDirectory);
+
+        body = new byte[UPLOAD_SIZE];
+        new Random(BenchmarkDatasets.SEED).nextBytes(body);
+        System.arraycopy(PNG_SIGNATURE, 0, body, 0, PNG_SIGNATURE.length);
+    }
+
+    @TearDown
+    public void deleteUploads() throws IOException {
+        BenchmarkDatasets.deleteDirectory(uploadDirectory);
+    }
+
+    @Benchmark
+    public long upload() throws IOException, UploadRejectedException {
+
+        // The body is shared, only the stream over it is per upload
+        UploadedAttachment uploaded = uploader.upload(new ByteArrayInputStream(body));
+        Files.delete(Path.of(uploaded.location()));
+
+        return uploaded.size();
+    }
+}
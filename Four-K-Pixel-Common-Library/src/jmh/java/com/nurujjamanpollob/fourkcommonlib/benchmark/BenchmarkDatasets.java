@@ -0,0 +1,358 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.benchmark;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Deterministic datasets shared by benchmarks of this package.
+ * Every dataset is created from a fixed seed, so runs on different machines or commits measure the same input,
+ * and mixes valid and invalid input in roughly the proportion seen by the API.
+ */
+final class BenchmarkDatasets {
+
+    /**
+     * Fixed seed of every dataset
+     */
+    static final long SEED = 42;
+
+    /**
+     * Cost factor to pre-encode passwords in datasets, the cost of stored hash is not checked by validation
+     */
+    private static final int DATASET_BCRYPT_COST = 4;
+
+    private static final String[] FIRST_NAMES = {"Nurujjaman", "Ayesha", "Rahim", "Karim", "Fatema", "John", "Maria", "Sakura", "Ahmed", "Elena"};
+    private static final String[] LAST_NAMES = {"Pollob", "Rahman", "Hossain", "Akter", "Smith", "Garcia", "Tanaka", "Khan", "Ivanova", "Islam"};
+    private static final String[] CITIES = {"Dinajpur", "Dhaka", "Chattogram", "Rajshahi", "New York", "Madrid", "Tokyo", "Berlin", "Cairo", "Moscow"};
+    private static final String[] COUNTRIES = {"Bangladesh", "USA", "Spain", "Japan", "Germany", "Egypt", "Russia", "India", "Canada", "Brazil"};
+    private static final String[] TAGS = {"nature", "city", "portrait", "landscape", "night", "street", "macro", "wildlife", "sky", "travel"};
+
+    /**
+     * Common upload dimensions, from phone screenshot to 4K
+     */
+    private static final int[][] IMAGE_DIMENSIONS = {{640, 480}, {1080, 1920}, {1280, 720}, {1920, 1080}, {2560, 1440}, {3840, 2160}};
+
+    private BenchmarkDatasets() {
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create users, about one of every five users is invalid.
+     * Passwords of valid users are already encoded, like users loaded from database,
+     * so validation measures field checks without bcrypt.
+     * @param count number of users
+     * @return users in fixed order
+     */
+    static User[] users(int count) {
+
+        Random random = new Random(SEED);
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(DATASET_BCRYPT_COST);
+        User[] users = new User[count];
+
+        for (int i = 0; i < count; i++) {
+
+            boolean valid = random.nextInt(5) != 0;
+            String password = encoder.encode("password of user " + i);
+
+            users[i] = new User(
+                    valid ? userName(random, i) : "Invalid User " + i,
+                    password,
+                    pick(random, FIRST_NAMES),
+                    pick(random, LAST_NAMES),
+                    "House " + random.nextInt(200) + ", Road " + random.nextInt(50),
+                    random.nextBoolean() ? "Block " + (char) ('A' + random.nextInt(26)) : null,
+                    pick(random, CITIES),
+                    pick(random, COUNTRIES),
+                    sentence(random, 15, 200),
+                    sentence(random, 2, 100),
+                    sentence(random, 12, 40),
+                    sentence(random, 12, 80),
+                    1950 + random.nextInt(55),
+                    1 + random.nextInt(12),
+                    1 + random.nextInt(28),
+                    (int) (System.currentTimeMillis() / 1000),
+                    random.nextInt(10) == 0,
+                    random.nextInt(4) == 0,
+                    random.nextBoolean(),
+                    true);
+        }
+
+        return users;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create usernames with length between 3 - 20, like <code>nurujjamanpollob</code>
+     * @param count number of usernames
+     * @return usernames in fixed order
+     */
+    static String[] userNames(int count) {
+
+        Random random = new Random(SEED);
+        String[] userNames = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            userNames[i] = userName(random, i);
+        }
+
+        return userNames;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create stored password values, half of them are bcrypt hashes and half are plain text,
+     * like passwords before and after encoding.
+     * @param count number of passwords
+     * @return passwords in fixed order
+     */
+    static String[] passwords(int count) {
+
+        Random random = new Random(SEED);
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(DATASET_BCRYPT_COST);
+        String[] passwords = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            String plain = sentence(random, 6, 64);
+            passwords[i] = random.nextBoolean() ? encoder.encode(plain) : plain;
+        }
+
+        return passwords;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create post creation times spread over last year, in milliseconds
+     * @param count number of times
+     * @return epoch times in fixed order
+     */
+    static long[] epochTimes(int count) {
+
+        Random random = new Random(SEED);
+        long now = System.currentTimeMillis();
+        long year = 365L * 24 * 60 * 60 * 1000;
+        long[] times = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            times[i] = now - (long) (random.nextDouble() * year);
+        }
+
+        return times;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create post creation times of a feed page, newest first over last three days
+     * @param count number of times
+     * @return epoch times, newest first
+     */
+    static long[] feedPageTimes(int count) {
+
+        Random random = new Random(SEED);
+        long time = System.currentTimeMillis();
+        long averageGap = 3L * 24 * 60 * 60 * 1000 / count;
+        long[] times = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            times[i] = time;
+            time -= (long) (random.nextDouble() * 2 * averageGap);
+        }
+
+        return times;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Write real PNG and JPEG images with common dimensions into directory,
+     * the last file is a text file, so detection also sees a non image upload.
+     * @param directory the directory to write into
+     * @param count number of files, including the text file
+     * @return absolute paths of written files
+     * @throws IOException if a file can't be written
+     */
+    static String[] imageFiles(Path directory, int count) throws IOException {
+
+        Random random = new Random(SEED);
+        String[] paths = new String[count];
+
+        for (int i = 0; i < count - 1; i++) {
+
+            int[] dimension = IMAGE_DIMENSIONS[random.nextInt(IMAGE_DIMENSIONS.length)];
+            String format = random.nextBoolean() ? "png" : "jpg";
+            Path file = directory.resolve("image-" + i + "." + format);
+
+            ImageIO.write(noisyGradient(random, dimension[0], dimension[1]), format, file.toFile());
+            paths[i] = file.toAbsolutePath().toString();
+        }
+
+        Path textFile = directory.resolve("not-a-image-file.png");
+        try (OutputStream outputStream = Files.newOutputStream(textFile)) {
+            outputStream.write(sentence(random, 1000, 2000).getBytes(StandardCharsets.UTF_8));
+        }
+        paths[count - 1] = textFile.toAbsolutePath().toString();
+
+        return paths;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create posts with 1 - 4 attachments from given files, the last file is expected to be invalid,
+     * so posts including it are rejected by attachment validation.
+     * @param files files from {@link BenchmarkDatasets#imageFiles(Path, int)}
+     * @param count number of posts
+     * @return posts in fixed order
+     */
+    static Post[] posts(String[] files, int count) {
+
+        Random random = new Random(SEED);
+        Post[] posts = new Post[count];
+
+        for (int i = 0; i < count; i++) {
+
+            String[] attachments = new String[1 + random.nextInt(4)];
+            for (int a = 0; a < attachments.length; a++) {
+                attachments[a] = files[random.nextInt(files.length)];
+            }
+
+            posts[i] = new Post(
+                    userName(random, i),
+                    sentence(random, 1, 150),
+                    random.nextBoolean() ? sentence(random, 0, 2000) : null,
+                    attachments,
+                    pick(random, TAGS) + "," + pick(random, TAGS),
+                    System.currentTimeMillis());
+        }
+
+        return posts;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete directory created for a dataset, with its content
+     * @param directory the directory to delete
+     * @throws IOException if a file can't be deleted
+     */
+    static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static String userName(Random random, int index) {
+
+        String name = pick(random, FIRST_NAMES).toLowerCase() + index;
+        return name.length() > 20 ? name.substring(0, 20) : name;
+    }
+
+    private static String sentence(Random random, int minLength, int maxLength) {
+
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder builder = new StringBuilder(length);
+
+        while (builder.length() < length) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(pick(random, TAGS));
+        }
+
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Gradient with noise, compresses like a photo rather than like a flat color
+     */
+    private static BufferedImage noisyGradient(Random random, int width, int height) {
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = (x * 255 / width + random.nextInt(32)) & 0xFF;
+                int green = (y * 255 / height + random.nextInt(32)) & 0xFF;
+                int blue = random.nextInt(256);
+                image.setRGB(x, y, (red << 16) | (green << 8) | blue);
+            }
+        }
+
+        return image;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.benchmark;
+
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageMimeSniffer;
+import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
+import net.sf.jmimemagic.Magic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Compare header only {@link ImageMimeSniffer} with the previous jmimemagic path of
+ * {@link UtilityCollection#fileMimeTypeFromPath(String)}, on a 15MB file with PNG signature,
+ * which is the size limit of a single upload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MimeTypeDetectionBenchmark {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+
+    private Path imageFile;
+
+    @Setup
+    public void createImageFile() throws IOException {
+
+        imageFile = Files.createTempFile("mime-benchmark", ".png");
+
+        byte[] chunk = new byte[1024 * 1024];
+        new Random(42).nextBytes(chunk);
+        System.arraycopy(PNG_SIGNATURE, 0, chunk, 0, PNG_SIGNATURE.length);
+
+        try (OutputStream outputStream = Files.newOutputStream(imageFile)) {
+            for (int i = 0; i < 15; i++) {
+                outputStream.write(chunk);
+                // Only the first chunk starts with signature
+                Arrays.fill(chunk, 0, PNG_SIGNATURE.length, (byte) 0);
+            }
+        }
+    }
+
+    @TearDown
+    public void deleteImageFile() throws IOException {
+        Files.deleteIfExists(imageFile);
+    }
+
+    @Benchmark
+    public String headerSniffer() throws IOException {
+        return ImageMimeSniffer.sniff(imageFile);
+    }
+
+    @Benchmark
+    public String jmimemagic() throws Exception {
+        return Magic.getMagicMatch(new File(imageFile.toString()), false).getMimeType();
+    }
+
+    @Benchmark
+    public String fileMimeTypeFromPath() throws IOException {
+        return UtilityCollection.fileMimeTypeFromPath(imageFile.toString());
+    }
+}
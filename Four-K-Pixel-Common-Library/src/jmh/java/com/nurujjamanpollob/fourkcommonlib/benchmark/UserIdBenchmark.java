@@ -0,0 +1,109 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.benchmark;
+
+import com.nurujjamanpollob.fourkcommonlib.id.SnowflakeIdGenerator;
+import com.nurujjamanpollob.fourkcommonlib.id.UsernameHash;
+import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Compare user identifier strategies with the previous {@link UtilityCollection#stringToBigIntegerConverter(String)} path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserIdBenchmark {
+
+    @Param({"abc", "nurujjamanpollob", "abcdefghij0123456789"})
+    public String userName;
+
+    private final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+
+    @Benchmark
+    public int legacyBigIntegerConverter() {
+        return UtilityCollection.stringToBigIntegerConverter(userName).intValue();
+    }
+
+    @Benchmark
+    public long usernameHash() {
+        return UsernameHash.hash(userName);
+    }
+
+    @Benchmark
+    public long snowflake() {
+        return generator.nextId();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.benchmark;
+
+import com.nurujjamanpollob.fourkcommonlib.utility.EpochTimeFormatter;
+import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Measure methods of {@link UtilityCollection} that are called on request path:
+ * password hash detection, username to number conversion, file mime type detection and time formatting.
+ * Each invocation takes next item of a fixed dataset, see {@link BenchmarkDatasets}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilityCollectionBenchmark {
+
+    /**
+     * Posts rendered on a feed page
+     */
+    private static final int FEED_PAGE_SIZE = 100;
+
+    @Param({"1024"})
+    public int datasetSize;
+
+    private String[] passwords;
+    private String[] userNames;
+    private long[] epochTimes;
+    private long[] feedPageTimes;
+    private final String[] feedPageOutput = new String[FEED_PAGE_SIZE];
+    private String[] files;
+    private Path fileDirectory;
+    private int next;
+
+    @Setup
+    public void createDatasets() throws IOException {
+
+        passwords = BenchmarkDatasets.passwords(datasetSize);
+        userNames = BenchmarkDatasets.userNames(datasetSize);
+        epochTimes = BenchmarkDatasets.epochTimes(datasetSize);
+        feedPageTimes = BenchmarkDatasets.feedPageTimes(FEED_PAGE_SIZE);
+
+        fileDirectory = Files.createTempDirectory("utility-benchmark");
+        files = BenchmarkDatasets.imageFiles(fileDirectory, 16);
+    }
+
+    @TearDown
+    public void deleteFiles() throws IOException {
+        BenchmarkDatasets.deleteDirectory(fileDirectory);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) % datasetSize;
+        return next;
+    }
+
+    @Benchmark
+    public boolean isPasswordEncodedWithBcryptPasswordEncryptor() {
+        return UtilityCollection.isPasswordEncodedWithBcryptPasswordEncryptor(passwords[nextIndex()]);
+    }
+
+    @Benchmark
+    public BigInteger stringToBigIntegerConverter() {
+        return UtilityCollection.stringToBigIntegerConverter(userNames[nextIndex()]);
+    }
+
+    @Benchmark
+    public String unixEpochTimeToHumanReadableTimeConverter() {
+        return UtilityCollection.unixEpochTimeToHumanReadableTimeConverter(epochTimes[nextIndex()]);
+    }
+
+    /**
+     * Timestamps of a feed page one by one, to compare with {@link UtilityCollectionBenchmark#formatFeedPage()}
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String[] formatFeedPageOneByOne() {
+
+        for (int i = 0; i < feedPageTimes.length; i++) {
+            feedPageOutput[i] = UtilityCollection.unixEpochTimeToHumanReadableTimeConverter(feedPageTimes[i]);
+        }
+
+        return feedPageOutput;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String[] formatFeedPage() {
+        return EpochTimeFormatter.getDefault().formatAll(feedPageTimes, feedPageOutput);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String fileMimeTypeFromPath() throws IOException {
+        return UtilityCollection.fileMimeTypeFromPath(files[nextIndex() % files.length]);
+    }
+}
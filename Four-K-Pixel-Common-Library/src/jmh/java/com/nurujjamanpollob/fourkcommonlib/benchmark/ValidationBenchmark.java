@@ -0,0 +1,168 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.benchmark;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.InvalidPostException;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.User;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidation;
+import com.nurujjamanpollob.fourkcommonlib.validation.UserValidation;
+import com.nurujjamanpollob.fourkcommonlib.validation.UserValidationResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Measure {@link UserValidation#validateUser()} and {@link PostValidation#validatePost()},
+ * which are called on every sign up and every post upload.
+ * Each invocation takes next item of a fixed dataset, so branch prediction and caches see a realistic mix
+ * of valid and invalid input rather than a single repeated object.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"1024"})
+    public int datasetSize;
+
+    private User[] users;
+    private Post[] posts;
+    private Path attachmentDirectory;
+    private final UserValidationResult result = new UserValidationResult();
+    private int nextUser;
+    private int nextPost;
+
+    @Setup
+    public void createDatasets() throws IOException {
+
+        users = BenchmarkDatasets.users(datasetSize);
+
+        attachmentDirectory = Files.createTempDirectory("validation-benchmark");
+        String[] files = BenchmarkDatasets.imageFiles(attachmentDirectory, 16);
+        posts = BenchmarkDatasets.posts(files, datasetSize);
+    }
+
+    @TearDown
+    public void deleteAttachments() throws IOException {
+        BenchmarkDatasets.deleteDirectory(attachmentDirectory);
+    }
+
+    /**
+     * Exception free path, every violation of the user is collected
+     */
+    @Benchmark
+    public boolean validateUser() {
+
+        User user = users[nextUser];
+        nextUser = (nextUser + 1) % users.length;
+
+        return new UserValidation(user).validateUser(result).isValid();
+    }
+
+    /**
+     * Throwing path used by the user constructor with pre validation, invalid users throw their first violation
+     */
+    @Benchmark
+    public Object validateUserThrowing() {
+
+        User user = users[nextUser];
+        nextUser = (nextUser + 1) % users.length;
+
+        try {
+            new UserValidation(user).validateUser();
+            return user;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object validatePost() {
+
+        Post post = posts[nextPost];
+        nextPost = (nextPost + 1) % posts.length;
+
+        try {
+            new PostValidation(post).validatePost();
+            return post;
+        } catch (InvalidPostException e) {
+            return e;
+        }
+    }
+}
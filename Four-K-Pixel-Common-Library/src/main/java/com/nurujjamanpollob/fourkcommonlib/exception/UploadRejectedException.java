@@ -0,0 +1,140 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.exception;
+
+/**
+ * @apiNote This used to reject an attachment upload while it's streamed to disk,
+ * like by {@link com.nurujjamanpollob.fourkcommonlib.storage.AttachmentUploader}
+ * or {@link com.nurujjamanpollob.fourkcommonlib.storage.ResumableUploadManager}.
+ * The reason tells the caller which response to send, nothing of a rejected upload is kept on disk.
+ */
+public class UploadRejectedException extends Exception {
+
+    /**
+     * @apiNote Why an upload is rejected
+     */
+    public enum Reason {
+
+        /**
+         * The upload has no content
+         */
+        EMPTY,
+
+        /**
+         * The upload is larger than size limit
+         */
+        TOO_LARGE,
+
+        /**
+         * The first bytes of upload are not an accepted image header
+         */
+        NOT_AN_IMAGE,
+
+        /**
+         * No upload buffer became free in time, the caller should retry later
+         */
+        BUSY,
+
+        /**
+         * No resumable upload has the identifier, it's finished, cancelled or expired
+         */
+        UNKNOWN_UPLOAD,
+
+        /**
+         * A chunk does not start at the current offset of its resumable upload, or another chunk is being written
+         */
+        OFFSET_MISMATCH,
+
+        /**
+         * A resumable upload is finalized before all of its bytes are received
+         */
+        INCOMPLETE,
+
+        /**
+         * The user has no storage quota left for the upload, see {@link com.nurujjamanpollob.fourkcommonlib.storage.StorageQuota}
+         */
+        QUOTA_EXCEEDED,
+
+        /**
+         * The upload is not accounted to an existing user, anonymous uploads are not accepted
+         */
+        UNKNOWN_USER
+    }
+
+    private final Reason reason;
+
+    /**
+     * @author  Nurujjaman Pollob
+     * @param reason why the upload is rejected
+     * @param errorMessage the error message to show in stacktrace
+     */
+    public UploadRejectedException(Reason reason, String errorMessage){
+        super(errorMessage);
+        this.reason = reason;
+    }
+
+    /**
+     * @author  Nurujjaman Pollob
+     * @return why the upload is rejected
+     */
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.id;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Lock-free generator of time ordered 64 bit identifiers, in <a href="https://en.wikipedia.org/wiki/Snowflake_ID">Snowflake</a> layout:
+ * <pre>
+ *     <code>0 | 41 bit milliseconds since epoch | 10 bit node id | 12 bit sequence</code>
+ * </pre>
+ * Identifiers of one generator are strictly increasing, and identifiers of different nodes never collide.
+ * Up to 4096 identifiers are created per millisecond per node, when the sequence is exhausted,
+ * or the clock moves backwards, the generator continues on the next millisecond of its own time instead of waiting,
+ * so a caller never blocks, and the time part may run a little ahead of the wall clock under heavy load.
+ * The 41 bit time part covers about 69 years from {@link SnowflakeIdGenerator#DEFAULT_EPOCH_MILLIS}.
+ */
+public final class SnowflakeIdGenerator {
+
+    /**
+     * 2022-01-01T00:00:00Z, the start of time part
+     */
+    public static final long DEFAULT_EPOCH_MILLIS = 1640995200000L;
+
+    public static final int NODE_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+
+    /**
+     * System property to configure node id of default generator, should be unique per application instance
+     */
+    public static final String NODE_ID_PROPERTY = "fourkpixel.node-id";
+
+    /**
+     * Environment variable to configure node id of default generator, used if system property is absent
+     */
+    public static final String NODE_ID_ENVIRONMENT_VARIABLE = "FOURK_PIXEL_NODE_ID";
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_ID_BITS + SEQUENCE_BITS;
+
+    private static volatile SnowflakeIdGenerator defaultGenerator;
+
+    private final int nodeId;
+    private final long epochMillis;
+    private final LongSupplier clock;
+
+    /**
+     * Last used absolute millisecond and sequence, packed as <code>millis &lt;&lt; 12 | sequence</code>
+     */
+    private final AtomicLong lastState = new AtomicLong();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create generator for a node with {@link SnowflakeIdGenerator#DEFAULT_EPOCH_MILLIS} and system clock.
+     * @param nodeId the unique id of this application instance, between 0 - 1023
+     */
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, DEFAULT_EPOCH_MILLIS, System::currentTimeMillis);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create generator for a node with custom epoch and clock, mainly for tests.
+     * @param nodeId the unique id of this application instance, between 0 - 1023
+     * @param epochMillis the start of time part, in unix milliseconds
+     * @param clock the source of current unix milliseconds
+     * @throws IllegalArgumentException if node id is out of range
+     */
+    public SnowflakeIdGenerator(int nodeId, long epochMillis, LongSupplier clock) {
+
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 - " + MAX_NODE_ID);
+        }
+
+        this.nodeId = nodeId;
+        this.epochMillis = epochMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get shared generator of this application instance, used to create {@link com.nurujjamanpollob.fourkcommonlib.model.Post} identifiers.
+     * It's created on first use with node id from {@link SnowflakeIdGenerator#NODE_ID_PROPERTY} system property,
+     * or {@link SnowflakeIdGenerator#NODE_ID_ENVIRONMENT_VARIABLE} environment variable, or 0 if none is set,
+     * unless replaced by {@link SnowflakeIdGenerator#setDefault(SnowflakeIdGenerator)}
+     * @return the shared generator
+     * @throws IllegalArgumentException if configured node id is not a number between 0 - 1023
+     */
+    public static SnowflakeIdGenerator getDefault() {
+
+        SnowflakeIdGenerator current = defaultGenerator;
+
+        if (current == null) {
+            synchronized (SnowflakeIdGenerator.class) {
+                current = defaultGenerator;
+                if (current == null) {
+                    current = new SnowflakeIdGenerator(configuredNodeId());
+                    defaultGenerator = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace shared generator, for example with node id from application configuration.
+     * @param generator the new shared generator
+     */
+    public static void setDefault(SnowflakeIdGenerator generator) {
+
+        if (generator == null) {
+            throw new IllegalArgumentException("Id generator can't be null");
+        }
+
+        synchronized (SnowflakeIdGenerator.class) {
+            defaultGenerator = generator;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read node id from system property or environment variable
+     */
+    private static int configuredNodeId() {
+
+        String nodeId = System.getProperty(NODE_ID_PROPERTY, System.getenv(NODE_ID_ENVIRONMENT_VARIABLE));
+
+        if (nodeId == null || nodeId.isBlank()) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(nodeId.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Node id must be a number between 0 - " + MAX_NODE_ID, e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create next identifier, safe to call from many threads at once.
+     * @return next identifier, greater than every identifier created before by this generator
+     */
+    public long nextId() {
+
+        long now = clock.getAsLong();
+
+        while (true) {
+
+            long last = lastState.get();
+            long lastMillis = last >>> SEQUENCE_BITS;
+            long next;
+
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Same millisecond, or clock moved backwards
+                next = last + 1;
+            } else {
+                // Sequence exhausted, borrow the next millisecond
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+
+            if (lastState.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) - epochMillis) << TIMESTAMP_SHIFT
+                        | (long) nodeId << SEQUENCE_BITS
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the node id of this generator
+     */
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get the creation time of an identifier of this generator's epoch.
+     * @param id the identifier
+     * @return unix milliseconds of the time part
+     */
+    public long extractTimestampMillis(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + epochMillis;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get the smallest identifier of any node that can be created at given time,
+     * useful as an exclusive or inclusive bound of a time range query on identifiers.
+     * @param time the time
+     * @return the smallest identifier of that millisecond
+     */
+    public long smallestIdAt(Instant time) {
+        return (time.toEpochMilli() - epochMillis) << TIMESTAMP_SHIFT;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Extract node id of an identifier
+     * @param id the identifier
+     * @return the node id part
+     */
+    public static int extractNodeId(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.id;
+
+import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Strategy to create {@link com.nurujjamanpollob.fourkcommonlib.model.User} identifier when a user is constructed.
+ * MongoDb do not generate numeric identifiers, so the identifier is computed locally without a database round trip.
+ * The strategy used by {@link com.nurujjamanpollob.fourkcommonlib.model.User} constructors is {@link UserIdStrategy#getDefault()},
+ * and the same strategy finds a stored user by username, so the default must be deterministic.
+ */
+@FunctionalInterface
+public interface UserIdStrategy {
+
+    /**
+     * Deterministic 64 bit hash of username, the same username always get the same identifier, see {@link UsernameHash}
+     */
+    UserIdStrategy USERNAME_HASH = UsernameHash::hash;
+
+    /**
+     * Previous algorithm, {@link UtilityCollection#stringToBigIntegerConverter(String)} truncated to 32 bit.
+     * It allocates on every call and collides between usernames, it's the default until stored users are re-keyed
+     * to {@link UserIdStrategy#USERNAME_HASH}, because every existing user document is keyed by it.
+     */
+    UserIdStrategy LEGACY_BIG_INTEGER = userName -> UtilityCollection.stringToBigIntegerConverter(userName).intValue();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create identifier for a user
+     * @param userName the username of the user
+     * @return the user identifier
+     */
+    long generateUserId(String userName);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Check if this strategy always creates the same identifier for the same username,
+     * only such a strategy can find a stored user by username
+     * @return true, unless overridden by a strategy which ignores username
+     */
+    default boolean isDeterministic() {
+        return true;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Time ordered strategy, ignores username and takes next identifier of the generator,
+     * so identifiers are unique per node and sorted by creation time.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * The strategy is not deterministic, so it can't be the default, a user keyed by it can't be found by username.
+     * @param generator the generator of this application node
+     * @return the strategy
+     */
+    static UserIdStrategy timeOrdered(SnowflakeIdGenerator generator) {
+
+        return new UserIdStrategy() {
+
+            @Override
+            public long generateUserId(String userName) {
+                return generator.nextId();
+            }
+
+            @Override
+            public boolean isDeterministic() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get the strategy used by user constructors, and to look up a user by username
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Default is {@link UserIdStrategy#LEGACY_BIG_INTEGER}, so users saved before are found by the identifier computed from username.
+     * Switch with {@link UserIdStrategy#setDefault(UserIdStrategy)} only after every stored user is re-keyed.
+     * @return the strategy used by user constructors, {@link UserIdStrategy#LEGACY_BIG_INTEGER} unless replaced
+     */
+    static UserIdStrategy getDefault() {
+        return UserIdStrategies.defaultStrategy;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace the strategy used by user constructors, for example at application start.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * The default also finds users by username, like profile lookup and storage quota of a post,
+     * so a strategy which is not {@link UserIdStrategy#isDeterministic()} is rejected.
+     * @param strategy the new default strategy
+     * @throws IllegalArgumentException if strategy is null or not deterministic
+     */
+    static void setDefault(UserIdStrategy strategy) {
+
+        if (strategy == null) {
+            throw new IllegalArgumentException("User id strategy can't be null");
+        }
+
+        if (!strategy.isDeterministic()) {
+            throw new IllegalArgumentException("Default user id strategy must be deterministic, users are looked up by username");
+        }
+
+        UserIdStrategies.defaultStrategy = strategy;
+    }
+}
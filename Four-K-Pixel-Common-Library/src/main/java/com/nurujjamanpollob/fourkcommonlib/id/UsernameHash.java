@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.id;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Allocation free 64 bit hash of a username, used by {@link UserIdStrategy#USERNAME_HASH}.
+ * Characters are folded with 64 bit <a href="https://en.wikipedia.org/wiki/Fowler%E2%80%93Noll%E2%80%93Vo_hash_function">FNV-1a</a>,
+ * then mixed with the MurmurHash3 64 bit finalizer, so similar usernames spread over the whole range.
+ * The sign bit is cleared, identifiers are always positive.
+ * The result must never change, identifiers are stored in database.
+ */
+public final class UsernameHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Suppress default constructor
+     */
+    private UsernameHash() {
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param userName the username to hash
+     * @return positive 63 bit hash of the username
+     * @throws NullPointerException if username is null
+     */
+    public static long hash(String userName) {
+
+        long hash = FNV_OFFSET_BASIS;
+
+        for (int i = 0, length = userName.length(); i < length; i++) {
+            hash ^= userName.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        // MurmurHash3 fmix64
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash & Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Encoder of BlurHash placeholders, a blurred image of a few cosine components packed in about 30 ASCII characters,
+ * which clients decode and paint before any image is downloaded.
+ * The format is the one of <a href="https://github.com/woltapp/blurhash">woltapp/blurhash</a>,
+ * so any client decoder of it can paint these placeholders.
+ * This class should not accept constructor.
+ */
+public final class BlurHash {
+
+    /**
+     * Default components, 4 across and 3 down, a 28 characters hash
+     */
+    public static final int DEFAULT_COMPONENTS_X = 4;
+    public static final int DEFAULT_COMPONENTS_Y = 3;
+
+    private static final String BASE83 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Suppress default constructor
+     */
+    private BlurHash() {
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Encode an image with {@link BlurHash#DEFAULT_COMPONENTS_X} and {@link BlurHash#DEFAULT_COMPONENTS_Y}
+     * @param image the image, better already scaled down to a few dozen pixels, every pixel is read
+     * @return the BlurHash
+     */
+    public static String encode(BufferedImage image) {
+        return encode(image, DEFAULT_COMPONENTS_X, DEFAULT_COMPONENTS_Y);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Encode an image, transparency is ignored
+     * @param image the image, better already scaled down to a few dozen pixels, every pixel is read
+     * @param componentsX number of horizontal components, 1 to 9
+     * @param componentsY number of vertical components, 1 to 9
+     * @return the BlurHash, 4 + 2 * componentsX * componentsY characters
+     * @throws IllegalArgumentException if a component count is out of range
+     */
+    public static String encode(BufferedImage image, int componentsX, int componentsY) {
+
+        if (componentsX < 1 || componentsX > 9 || componentsY < 1 || componentsY > 9) {
+            throw new IllegalArgumentException("BlurHash components must be between 1 and 9");
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+
+        // Pixels in linear light, converted once instead of once per component
+        double[] linear = new double[pixels.length * 3];
+
+        for (int i = 0; i < pixels.length; i++) {
+            linear[i * 3] = srgbToLinear((pixels[i] >> 16) & 0xFF);
+            linear[i * 3 + 1] = srgbToLinear((pixels[i] >> 8) & 0xFF);
+            linear[i * 3 + 2] = srgbToLinear(pixels[i] & 0xFF);
+        }
+
+        double[][] factors = new double[componentsX * componentsY][];
+
+        for (int j = 0; j < componentsY; j++) {
+            for (int i = 0; i < componentsX; i++) {
+                factors[j * componentsX + i] = component(linear, width, height, i, j);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder(4 + 2 * factors.length);
+        appendBase83(hash, (componentsX - 1) + (componentsY - 1) * 9, 1);
+
+        double maximumValue = 1;
+
+        if (factors.length > 1) {
+
+            double actualMaximum = 0;
+
+            for (int k = 1; k < factors.length; k++) {
+                for (double value : factors[k]) {
+                    actualMaximum = Math.max(actualMaximum, Math.abs(value));
+                }
+            }
+
+            int quantisedMaximum = (int) Math.max(0, Math.min(82, Math.floor(actualMaximum * 166 - 0.5)));
+            maximumValue = (quantisedMaximum + 1) / 166.0;
+            appendBase83(hash, quantisedMaximum, 1);
+        } else {
+            appendBase83(hash, 0, 1);
+        }
+
+        double[] dc = factors[0];
+        appendBase83(hash, (linearToSrgb(dc[0]) << 16) + (linearToSrgb(dc[1]) << 8) + linearToSrgb(dc[2]), 4);
+
+        for (int k = 1; k < factors.length; k++) {
+
+            double[] ac = factors[k];
+            int value = quantiseAc(ac[0], maximumValue) * 19 * 19 + quantiseAc(ac[1], maximumValue) * 19 + quantiseAc(ac[2], maximumValue);
+            appendBase83(hash, value, 2);
+        }
+
+        return hash.toString();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return average red, green and blue of an image in linear light, weighted by a cosine of i half waves across and j down
+     */
+    private static double[] component(double[] linear, int width, int height, int i, int j) {
+
+        double[] cosX = new double[width];
+
+        for (int x = 0; x < width; x++) {
+            cosX[x] = Math.cos(Math.PI * i * x / width);
+        }
+
+        double r = 0;
+        double g = 0;
+        double b = 0;
+
+        for (int y = 0; y < height; y++) {
+
+            double cosY = Math.cos(Math.PI * j * y / height);
+            int offset = y * width * 3;
+
+            for (int x = 0; x < width; x++) {
+
+                double basis = cosX[x] * cosY;
+                int index = offset + x * 3;
+                r += basis * linear[index];
+                g += basis * linear[index + 1];
+                b += basis * linear[index + 2];
+            }
+        }
+
+        double scale = (i == 0 && j == 0 ? 1.0 : 2.0) / (width * height);
+        return new double[]{r * scale, g * scale, b * scale};
+    }
+
+    private static int quantiseAc(double value, double maximumValue) {
+
+        double normalised = value / maximumValue;
+        double signedRoot = Math.copySign(Math.sqrt(Math.abs(normalised)), normalised);
+        return (int) Math.max(0, Math.min(18, Math.floor(signedRoot * 9 + 9.5)));
+    }
+
+    private static double srgbToLinear(int value) {
+
+        double v = value / 255.0;
+        return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+    }
+
+    private static int linearToSrgb(double value) {
+
+        double v = Math.max(0, Math.min(1, value));
+        return v <= 0.0031308
+                ? (int) (v * 12.92 * 255 + 0.5)
+                : (int) ((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255 + 0.5);
+    }
+
+    private static void appendBase83(StringBuilder hash, int value, int length) {
+
+        for (int i = length - 1; i >= 0; i--) {
+            int digit = (value / (int) Math.pow(83, i)) % 83;
+            hash.append(BASE83.charAt(digit));
+        }
+    }
+}
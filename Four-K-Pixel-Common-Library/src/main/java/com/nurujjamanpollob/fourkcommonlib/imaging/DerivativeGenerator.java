@@ -0,0 +1,631 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadataCache;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.utility.Variables;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Asynchronous generation of {@link DerivativeSize} derivatives of accepted images,
+ * so clients download a thumbnail or a screen sized image instead of the 4K original.
+ *
+ * Images are processed on a bounded pool, one thread per processor by default, below normal priority,
+ * so generation never takes request threads and never runs more decodes than the machine has cores.
+ * Each image is decoded once with source subsampling for the largest needed size,
+ * then every smaller derivative is scaled from the previous one, see {@link ImageScaling}.
+ *
+ * Derivatives are cached on disk by content hash of source, at <code>ab/cd/&lt;sha256&gt;/&lt;size&gt;.jpg</code> under cache directory.
+ * A set is written in a staging directory and moved into place at once, so a cache directory is always complete,
+ * and the same image posted again, or referenced by many posts, is generated only once.
+ * Time spent in decode, resize and encode stages is recorded, see {@link DerivativeGenerator#getMetrics()}.
+ *
+ * Updated by Nurujjaman Pollob 2022
+ * A {@link BlurHash} placeholder is computed from the smallest derivative in the same pass,
+ * and cached with the set as <code>placeholder.blurhash</code>, see {@link DerivativeSet#placeholder()}.
+ *
+ * Updated by Nurujjaman Pollob 2022
+ * Placeholders never change for a content, so found ones are also kept in memory,
+ * and a post read for a response gets placeholders generated after it was saved, see {@link DerivativeGenerator#fillPlaceholders(Post)}.
+ */
+public final class DerivativeGenerator implements AutoCloseable {
+
+    /**
+     * Maximum number of images waiting in queue, more requests are rejected
+     */
+    public static final int QUEUE_CAPACITY = 1024;
+
+    /**
+     * Longer edge in pixels of the image a placeholder is computed from, a blur needs no more
+     */
+    private static final int PLACEHOLDER_EDGE = 32;
+
+    private static final String PLACEHOLDER_FILE_NAME = "placeholder.blurhash";
+
+    /**
+     * Maximum number of placeholders kept in memory, a placeholder is about 30 bytes
+     */
+    private static final int PLACEHOLDER_CACHE_CAPACITY = 65536;
+
+    private static final AtomicInteger GENERATOR_NUMBER = new AtomicInteger();
+
+    private static volatile DerivativeGenerator defaultGenerator;
+
+    private final Path cacheDirectory;
+    private final Path stagingDirectory;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, CompletableFuture<DerivativeSet>> running = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> placeholders = new ConcurrentHashMap<>();
+    private final AtomicLong stagingNumber = new AtomicLong();
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder joinedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder generatedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder derivativeCount = new LongAdder();
+    private final LongAdder totalDecodeNanos = new LongAdder();
+    private final LongAdder totalResizeNanos = new LongAdder();
+    private final LongAdder totalEncodeNanos = new LongAdder();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create generator with one worker thread per available processor
+     * @param cacheDirectory the directory of cached derivatives, created if missing
+     * @throws IOException if the directory can't be created
+     */
+    public DerivativeGenerator(Path cacheDirectory) throws IOException {
+        this(cacheDirectory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param cacheDirectory the directory of cached derivatives, created if missing
+     * @param threads the number of worker threads, at least 1
+     * @throws IOException if the directory can't be created
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public DerivativeGenerator(Path cacheDirectory, int threads) throws IOException {
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("Derivative generator needs at least one thread");
+        }
+
+        this.cacheDirectory = Files.createDirectories(cacheDirectory).toAbsolutePath().normalize();
+        this.stagingDirectory = Files.createDirectories(this.cacheDirectory.resolve(".staging"));
+
+        int number = GENERATOR_NUMBER.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "derivative-generator-" + number + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get shared generator, it's created on first use at {@link Variables#DERIVATIVE_CACHE_DIRECTORY},
+     * unless replaced by {@link DerivativeGenerator#setDefault(DerivativeGenerator)}
+     * @return the shared generator
+     * @throws UncheckedIOException if the directory can't be created
+     */
+    public static DerivativeGenerator getDefault() {
+
+        DerivativeGenerator current = defaultGenerator;
+
+        if (current == null) {
+            synchronized (DerivativeGenerator.class) {
+                current = defaultGenerator;
+                if (current == null) {
+                    try {
+                        current = new DerivativeGenerator(Path.of(Variables.DERIVATIVE_CACHE_DIRECTORY));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    defaultGenerator = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace shared generator, for example with a configured one at application start.
+     * The previous generator is not closed by this method.
+     * @param generator the new shared generator
+     */
+    public static void setDefault(DerivativeGenerator generator) {
+
+        synchronized (DerivativeGenerator.class) {
+            defaultGenerator = generator;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Queue an image for derivative generation, this method never blocks.
+     * A request for an image already queued or running shares the same future.
+     * @param location the content identifier or file path of the image, see {@link ContentStore#resolve(String)}
+     * @return future of generated or cached derivatives, completed exceptionally with {@link RejectedExecutionException}
+     * if the queue is full or generator is closed, or with {@link IOException} if the image can't be read
+     */
+    public CompletableFuture<DerivativeSet> submit(String location) {
+
+        Objects.requireNonNull(location, "location");
+
+        CompletableFuture<DerivativeSet> future = new CompletableFuture<>();
+        CompletableFuture<DerivativeSet> existing = running.putIfAbsent(location, future);
+
+        if (existing != null) {
+            joinedCount.increment();
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> run(location, future));
+            submittedCount.increment();
+        } catch (RejectedExecutionException e) {
+            running.remove(location, future);
+            rejectedCount.increment();
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find cached derivative of an image by its content hash, without generating it
+     * @param key the content hash of source image
+     * @param size the derivative size
+     * @return the derivative file, or null if it's not generated or the image already fits this size
+     */
+    public Path findCached(String key, DerivativeSize size) {
+
+        if (!ContentStore.isContentId(key)) {
+            return null;
+        }
+
+        Path directory = directoryOf(key);
+
+        for (String extension : new String[]{"jpg", "png"}) {
+
+            Path file = directory.resolve(size.getName() + "." + extension);
+
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find cached placeholder of an image by its content hash, without generating it
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Read from memory if it was found or generated before, so filling a feed costs no disk read per image.
+     * @param key the content hash of source image
+     * @return the {@link BlurHash} of image, or null if it's not generated
+     */
+    public String findPlaceholder(String key) {
+
+        if (!ContentStore.isContentId(key)) {
+            return null;
+        }
+
+        String placeholder = placeholders.get(key);
+
+        if (placeholder == null) {
+            placeholder = readPlaceholder(directoryOf(key));
+            rememberPlaceholder(key, placeholder);
+        }
+
+        return placeholder;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Fill missing placeholders of a post from cache, like when it's read for a response,
+     * so a placeholder generated after the post was saved is still sent to clients.
+     * Only attachments stored by content identifier are filled, nothing is generated and the post is not saved.
+     * @param post the post to fill
+     * @return the same post
+     */
+    public Post fillPlaceholders(Post post) {
+
+        String[] locations = post.getImageFilesLocation();
+
+        if (locations == null) {
+            return post;
+        }
+
+        String[] filled = post.getImagePlaceholders();
+
+        if (filled == null || filled.length != locations.length) {
+            filled = filled == null ? new String[locations.length] : Arrays.copyOf(filled, locations.length);
+        }
+
+        for (int i = 0; i < locations.length; i++) {
+            if (filled[i] == null && locations[i] != null) {
+                filled[i] = findPlaceholder(locations[i]);
+            }
+        }
+
+        post.setImagePlaceholders(filled);
+        return post;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the directory of cached derivatives
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return snapshot of counters and stage timings
+     */
+    public DerivativeGeneratorMetrics getMetrics() {
+
+        return new DerivativeGeneratorMetrics(
+                submittedCount.sum(),
+                joinedCount.sum(),
+                rejectedCount.sum(),
+                cacheHitCount.sum(),
+                generatedCount.sum(),
+                failedCount.sum(),
+                derivativeCount.sum(),
+                executor.getQueue().size(),
+                totalDecodeNanos.sum(),
+                totalResizeNanos.sum(),
+                totalEncodeNanos.sum());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stop accepting requests, queued images are still generated
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Generate derivatives on a worker thread and complete the future of request
+     */
+    private void run(String location, CompletableFuture<DerivativeSet> future) {
+
+        try {
+            DerivativeSet derivatives = generate(location);
+            rememberPlaceholder(derivatives.key(), derivatives.placeholder());
+            running.remove(location, future);
+            future.complete(derivatives);
+        } catch (Throwable e) {
+            failedCount.increment();
+            running.remove(location, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read derivatives from cache, or decode, resize and encode them into a staging directory,
+     * then move the directory into cache
+     */
+    private DerivativeSet generate(String location) throws IOException {
+
+        Path source = ContentStore.resolve(location);
+        String key = ContentStore.isContentId(location)
+                ? location
+                : AttachmentMetadataCache.getDefault().getWithContentHash(source).contentHash();
+        Path directory = directoryOf(key);
+
+        if (Files.isDirectory(directory)) {
+            cacheHitCount.increment();
+            return readCached(key, directory);
+        }
+
+        long started = System.nanoTime();
+        ImageScaling.Decoded decoded = ImageScaling.decode(source, DerivativeGenerator::decodeTarget);
+        long decodeNanos = System.nanoTime() - started;
+
+        Path staging = stagingDirectory.resolve(key + "-" + stagingNumber.incrementAndGet());
+        Map<DerivativeSize, Path> files = new EnumMap<>(DerivativeSize.class);
+        long resizeNanos = 0;
+        long encodeNanos = 0;
+        String placeholder;
+
+        try {
+            Files.createDirectory(staging);
+
+            BufferedImage image = decoded.image();
+
+            // Largest first, each smaller derivative is scaled from the previous one
+            for (DerivativeSize size : sizesLargestFirst()) {
+
+                int[] dimensions = size.fit(decoded.sourceWidth(), decoded.sourceHeight());
+
+                if (dimensions == null) {
+                    continue;
+                }
+
+                started = System.nanoTime();
+                image = ImageScaling.resize(image, dimensions[0], dimensions[1]);
+                resizeNanos += System.nanoTime() - started;
+
+                started = System.nanoTime();
+                Path file = staging.resolve(size.getName() + "." + ImageScaling.extensionOf(image));
+                ImageScaling.write(image, file);
+                encodeNanos += System.nanoTime() - started;
+
+                files.put(size, directory.resolve(file.getFileName()));
+            }
+
+            // From the smallest image at hand, so the placeholder costs no extra decode
+            started = System.nanoTime();
+            int[] placeholderDimensions = fitPlaceholder(image.getWidth(), image.getHeight());
+            placeholder = BlurHash.encode(ImageScaling.resize(image, placeholderDimensions[0], placeholderDimensions[1]));
+            Files.writeString(staging.resolve(PLACEHOLDER_FILE_NAME), placeholder, StandardCharsets.US_ASCII);
+            encodeNanos += System.nanoTime() - started;
+
+            Files.createDirectories(directory.getParent());
+
+            try {
+                Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // Generated concurrently from another location of same content, keep the first
+                deleteDirectory(staging);
+                cacheHitCount.increment();
+                return readCached(key, directory);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteDirectory(staging);
+            throw e;
+        }
+
+        generatedCount.increment();
+        derivativeCount.add(files.size());
+        totalDecodeNanos.add(decodeNanos);
+        totalResizeNanos.add(resizeNanos);
+        totalEncodeNanos.add(encodeNanos);
+
+        return new DerivativeSet(key, files, placeholder, decodeNanos, resizeNanos, encodeNanos);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return dimensions of largest derivative of an image, or of its placeholder if the image fits every size
+     */
+    private static int[] decodeTarget(int width, int height) {
+
+        int[] dimensions = largestDerivative(width, height);
+        return dimensions != null ? dimensions : fitPlaceholder(width, height);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return dimensions of an image scaled down to fit {@link DerivativeGenerator#PLACEHOLDER_EDGE}, never scaled up
+     */
+    private static int[] fitPlaceholder(int width, int height) {
+
+        int longEdge = Math.max(width, height);
+
+        if (longEdge <= PLACEHOLDER_EDGE) {
+            return new int[]{width, height};
+        }
+
+        return new int[]{
+                Math.max(1, Math.round((float) width * PLACEHOLDER_EDGE / longEdge)),
+                Math.max(1, Math.round((float) height * PLACEHOLDER_EDGE / longEdge))};
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return dimensions of largest derivative of an image, or null if the image fits every size
+     */
+    private static int[] largestDerivative(int width, int height) {
+
+        for (DerivativeSize size : sizesLargestFirst()) {
+
+            int[] dimensions = size.fit(width, height);
+
+            if (dimensions != null) {
+                return dimensions;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return every size, from largest bounding box to smallest
+     */
+    private static List<DerivativeSize> sizesLargestFirst() {
+
+        List<DerivativeSize> sizes = new ArrayList<>(List.of(DerivativeSize.values()));
+        sizes.sort(Comparator.comparingInt(DerivativeSize::getLongEdge).reversed());
+        return sizes;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return cache directory of an image, <code>ab/cd/key</code> under cache directory
+     */
+    private Path directoryOf(String key) {
+        return cacheDirectory.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote List derivatives of a complete cache directory
+     */
+    private static DerivativeSet readCached(String key, Path directory) throws IOException {
+
+        Map<DerivativeSize, Path> files = new EnumMap<>(DerivativeSize.class);
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+
+            for (Path file : stream) {
+
+                String name = file.getFileName().toString();
+                int dot = name.lastIndexOf('.');
+                DerivativeSize size = dot < 0 ? null : DerivativeSize.fromName(name.substring(0, dot));
+
+                if (size != null) {
+                    files.put(size, file);
+                }
+            }
+        }
+
+        return new DerivativeSet(key, files, readPlaceholder(directory), 0, 0, 0);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Keep a placeholder in memory, a full cache keeps only the placeholders already in it
+     */
+    private void rememberPlaceholder(String key, String placeholder) {
+
+        if (placeholder != null && placeholders.size() < PLACEHOLDER_CACHE_CAPACITY) {
+            placeholders.putIfAbsent(key, placeholder);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read placeholder of a cache directory
+     * @return the placeholder, or null if the directory or placeholder file does not exist
+     */
+    private static String readPlaceholder(Path directory) {
+
+        try {
+            return Files.readString(directory.resolve(PLACEHOLDER_FILE_NAME), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete a staging directory with its files, quietly
+     */
+    private static void deleteDirectory(Path directory) {
+
+        if (!Files.exists(directory)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(directory)) {
+
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // Left behind in staging directory, it holds nothing referenced
+                }
+            });
+        } catch (IOException e) {
+            // Same as above
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Point in time snapshot of {@link DerivativeGenerator} counters and stage timings.
+ * @param submittedCount number of accepted requests
+ * @param joinedCount number of requests joined to a request of same image already running
+ * @param rejectedCount number of requests rejected because the queue was full or generator was closed
+ * @param cacheHitCount number of requests whose derivatives were already in cache
+ * @param generatedCount number of images whose derivatives were generated
+ * @param failedCount number of requests failed, like an unreadable or missing image
+ * @param derivativeCount number of written derivative files
+ * @param queueDepth number of requests waiting in queue at snapshot time
+ * @param totalDecodeNanos sum of time to read and decode source images
+ * @param totalResizeNanos sum of time to scale derivatives
+ * @param totalEncodeNanos sum of time to encode and write derivatives
+ */
+public record DerivativeGeneratorMetrics(
+        long submittedCount,
+        long joinedCount,
+        long rejectedCount,
+        long cacheHitCount,
+        long generatedCount,
+        long failedCount,
+        long derivativeCount,
+        int queueDepth,
+        long totalDecodeNanos,
+        long totalResizeNanos,
+        long totalEncodeNanos) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return average decode time of a generated image in nanoseconds, 0 if nothing is generated
+     */
+    public long averageDecodeNanos() {
+        return generatedCount == 0 ? 0 : totalDecodeNanos / generatedCount;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return average time to scale all derivatives of a generated image in nanoseconds, 0 if nothing is generated
+     */
+    public long averageResizeNanos() {
+        return generatedCount == 0 ? 0 : totalResizeNanos / generatedCount;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return average time to write all derivatives of a generated image in nanoseconds, 0 if nothing is generated
+     */
+    public long averageEncodeNanos() {
+        return generatedCount == 0 ? 0 : totalEncodeNanos / generatedCount;
+    }
+}
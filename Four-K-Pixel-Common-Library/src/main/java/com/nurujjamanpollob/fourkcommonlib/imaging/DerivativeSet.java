@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Derivatives of one image in cache of {@link DerivativeGenerator}, and time spent in each stage to generate them.
+ * Stage times are 0 if the derivatives were found in cache.
+ * @param key the content hash of source image, which names its cache directory
+ * @param files derivative files by size, a size is missing if the image already fits it
+ * @param placeholder the {@link BlurHash} of image, or null if the set was cached before placeholders were generated
+ * @param decodeNanos time to read and decode source image
+ * @param resizeNanos time to scale all derivatives
+ * @param encodeNanos time to encode and write all derivatives
+ */
+public record DerivativeSet(
+        String key,
+        Map<DerivativeSize, Path> files,
+        String placeholder,
+        long decodeNanos,
+        long resizeNanos,
+        long encodeNanos) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Copy files into an unmodifiable map
+     */
+    public DerivativeSet {
+
+        files = files.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new EnumMap<>(files));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param size the derivative size
+     * @return the derivative file, or null if the source image already fits this size
+     */
+    public Path get(DerivativeSize size) {
+        return files.get(size);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true if the derivatives were found in cache, without generating them
+     */
+    public boolean isCached() {
+        return decodeNanos == 0 && resizeNanos == 0 && encodeNanos == 0;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Fixed sizes generated by {@link DerivativeGenerator} for every accepted image.
+ * Each size is a bounding box, the image is scaled down to fit it with aspect ratio kept,
+ * and the box is turned for portrait images, so a portrait 720p is at most 720 wide and 1280 high.
+ * Images already fitting a box have no derivative of that size, they are never scaled up.
+ */
+public enum DerivativeSize {
+
+    THUMBNAIL("thumb", 320, 320),
+    HD_720("720p", 1280, 720),
+    FULL_HD_1080("1080p", 1920, 1080),
+    QHD_1440("1440p", 2560, 1440);
+
+    private final String name;
+    private final int longEdge;
+    private final int shortEdge;
+
+    DerivativeSize(String name, int longEdge, int shortEdge) {
+        this.name = name;
+        this.longEdge = longEdge;
+        this.shortEdge = shortEdge;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the name of this size in file names and urls, like <code>720p</code>
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the long edge of bounding box in pixels
+     */
+    public int getLongEdge() {
+        return longEdge;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the short edge of bounding box in pixels
+     */
+    public int getShortEdge() {
+        return shortEdge;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find a size by its name
+     * @param name the name, like <code>thumb</code> or <code>1080p</code>
+     * @return the size, or null if no size has this name
+     */
+    public static DerivativeSize fromName(String name) {
+
+        for (DerivativeSize size : values()) {
+            if (size.name.equals(name)) {
+                return size;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Compute dimensions of an image scaled down to fit this size
+     * @param width the image width
+     * @param height the image height
+     * @return width and height of derivative, or null if the image already fits and needs no derivative
+     */
+    public int[] fit(int width, int height) {
+
+        int boxWidth = width >= height ? longEdge : shortEdge;
+        int boxHeight = width >= height ? shortEdge : longEdge;
+
+        double scale = Math.min((double) boxWidth / width, (double) boxHeight / height);
+
+        if (scale >= 1) {
+            return null;
+        }
+
+        return new int[]{
+                Math.max(1, (int) Math.round(width * scale)),
+                Math.max(1, (int) Math.round(height * scale))};
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadata;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadataCache;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote On demand resizing of stored images to a requested width.
+ * A requested width is rounded up to one of {@link ImageResizer#WIDTH_BUCKETS}, so clients asking for many widths
+ * share a few cached files, and an image is never smaller than asked.
+ * Images not wider than the bucket are answered with the original, they are never scaled up.
+ *
+ * Resized images are cached on disk at <code>ab/cd/&lt;contentId&gt;/w&lt;bucket&gt;.jpg</code> under cache directory.
+ * Generation is single flight, concurrent requests for the same image and bucket share one job,
+ * so a popular image requested by hundreds of clients at once is decoded only once.
+ * Jobs run on a bounded pool, one thread per processor by default.
+ */
+public final class ImageResizer implements AutoCloseable {
+
+    /**
+     * Allowed widths of resized images, ascending
+     */
+    public static final int[] WIDTH_BUCKETS = {160, 320, 480, 640, 800, 1080, 1280, 1600, 1920, 2560, 3840};
+
+    /**
+     * Maximum number of generations waiting in queue, more requests are rejected
+     */
+    public static final int QUEUE_CAPACITY = 256;
+
+    private static final AtomicInteger RESIZER_NUMBER = new AtomicInteger();
+
+    private final ContentStore contentStore;
+    private final Path cacheDirectory;
+    private final Path stagingDirectory;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, CompletableFuture<ResizedImage>> running = new ConcurrentHashMap<>();
+    private final AtomicLong stagingNumber = new AtomicLong();
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder originalCount = new LongAdder();
+    private final LongAdder joinedCount = new LongAdder();
+    private final LongAdder generatedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder totalGenerationNanos = new LongAdder();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create resizer with one worker thread per available processor
+     * @param contentStore the store of original images
+     * @param cacheDirectory the directory of resized images, created if missing
+     * @throws IOException if the directory can't be created
+     */
+    public ImageResizer(ContentStore contentStore, Path cacheDirectory) throws IOException {
+        this(contentStore, cacheDirectory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param contentStore the store of original images
+     * @param cacheDirectory the directory of resized images, created if missing
+     * @param threads the number of worker threads, at least 1
+     * @throws IOException if the directory can't be created
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public ImageResizer(ContentStore contentStore, Path cacheDirectory, int threads) throws IOException {
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("Image resizer needs at least one thread");
+        }
+
+        this.contentStore = Objects.requireNonNull(contentStore, "contentStore");
+        this.cacheDirectory = Files.createDirectories(cacheDirectory).toAbsolutePath().normalize();
+        this.stagingDirectory = Files.createDirectories(this.cacheDirectory.resolve(".staging"));
+
+        int number = RESIZER_NUMBER.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "image-resizer-" + number + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Round a requested width up to the nearest allowed bucket, widths above the largest bucket get the largest bucket
+     * @param width the requested width
+     * @return the width bucket
+     * @throws IllegalArgumentException if width is not positive
+     */
+    public static int bucketOf(int width) {
+
+        if (width < 1) {
+            throw new IllegalArgumentException("Width must be positive");
+        }
+
+        for (int bucket : WIDTH_BUCKETS) {
+            if (bucket >= width) {
+                return bucket;
+            }
+        }
+
+        return WIDTH_BUCKETS[WIDTH_BUCKETS.length - 1];
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get a stored image resized to the bucket of requested width.
+     * A cached image or the original is returned as a completed future without queueing anything,
+     * otherwise the image is generated once, and every concurrent request of same image and bucket gets the same future.
+     * @param contentId the content identifier of original image
+     * @param width the requested width
+     * @return future of resized image, completed exceptionally with {@link RejectedExecutionException}
+     * if the queue is full or resizer is closed, or with {@link IOException} if the image can't be read
+     * @throws IllegalArgumentException if contentId is not a content identifier or width is not positive
+     */
+    public CompletableFuture<ResizedImage> resize(String contentId, int width) {
+
+        Path source = contentStore.pathOf(contentId);
+        int bucket = bucketOf(width);
+
+        requestCount.increment();
+
+        AttachmentMetadata metadata;
+
+        try {
+            metadata = AttachmentMetadataCache.getDefault().get(source);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // Dimensions are read from header once and cached, so no job is queued for images already small enough
+        if (metadata.hasDimensions() && metadata.width() <= bucket) {
+            originalCount.increment();
+            return CompletableFuture.completedFuture(new ResizedImage(source, metadata.mimeType(), metadata.width(), true));
+        }
+
+        ResizedImage cached = findCached(contentId, bucket);
+
+        if (cached != null) {
+            cacheHitCount.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        String key = contentId + "/" + bucket;
+        CompletableFuture<ResizedImage> future = new CompletableFuture<>();
+        CompletableFuture<ResizedImage> existing = running.putIfAbsent(key, future);
+
+        if (existing != null) {
+            joinedCount.increment();
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> run(key, contentId, source, bucket, future));
+        } catch (RejectedExecutionException e) {
+            running.remove(key, future);
+            rejectedCount.increment();
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the directory of resized images
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return snapshot of counters
+     */
+    public ImageResizerMetrics getMetrics() {
+
+        return new ImageResizerMetrics(
+                requestCount.sum(),
+                cacheHitCount.sum(),
+                originalCount.sum(),
+                joinedCount.sum(),
+                generatedCount.sum(),
+                rejectedCount.sum(),
+                failedCount.sum(),
+                executor.getQueue().size(),
+                totalGenerationNanos.sum());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stop accepting requests, queued generations still complete
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Generate on a worker thread, complete the shared future and let the next request start a new job
+     */
+    private void run(String key, String contentId, Path source, int bucket, CompletableFuture<ResizedImage> future) {
+
+        try {
+            ResizedImage resized = generate(contentId, source, bucket);
+            running.remove(key, future);
+            future.complete(resized);
+        } catch (Throwable e) {
+            failedCount.increment();
+            running.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Decode with subsampling, resize and write into cache with an atomic move
+     */
+    private ResizedImage generate(String contentId, Path source, int bucket) throws IOException {
+
+        // A job finished between cache lookup and queueing of this one
+        ResizedImage cached = findCached(contentId, bucket);
+
+        if (cached != null) {
+            cacheHitCount.increment();
+            return cached;
+        }
+
+        long started = System.nanoTime();
+
+        ImageScaling.Decoded decoded = ImageScaling.decode(source, (width, height) -> dimensionsOf(width, height, bucket));
+        int[] dimensions = dimensionsOf(decoded.sourceWidth(), decoded.sourceHeight(), bucket);
+
+        if (dimensions == null) {
+            originalCount.increment();
+            return new ResizedImage(source, AttachmentMetadataCache.getDefault().get(source).mimeType(), decoded.sourceWidth(), true);
+        }
+
+        BufferedImage image = ImageScaling.resize(decoded.image(), dimensions[0], dimensions[1]);
+        String extension = ImageScaling.extensionOf(image);
+        Path staging = stagingDirectory.resolve(contentId + "-w" + bucket + "-" + stagingNumber.incrementAndGet() + "." + extension);
+        Path target = directoryOf(contentId).resolve("w" + bucket + "." + extension);
+
+        try {
+            ImageScaling.write(image, staging);
+            Files.createDirectories(target.getParent());
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staging);
+            throw e;
+        }
+
+        generatedCount.increment();
+        totalGenerationNanos.add(System.nanoTime() - started);
+
+        return new ResizedImage(target, mimeTypeOf(extension), bucket, false);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return dimensions of an image scaled to bucket width, or null if the image is not wider than bucket
+     */
+    private static int[] dimensionsOf(int width, int height, int bucket) {
+
+        if (width <= bucket) {
+            return null;
+        }
+
+        return new int[]{bucket, Math.max(1, (int) Math.round((double) height * bucket / width))};
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return cached resized image, or null if it's not generated
+     */
+    private ResizedImage findCached(String contentId, int bucket) {
+
+        Path directory = directoryOf(contentId);
+
+        for (String extension : new String[]{"jpg", "png"}) {
+
+            Path file = directory.resolve("w" + bucket + "." + extension);
+
+            if (Files.isRegularFile(file)) {
+                return new ResizedImage(file, mimeTypeOf(extension), bucket, false);
+            }
+        }
+
+        return null;
+    }
+
+    private Path directoryOf(String contentId) {
+        return cacheDirectory.resolve(contentId.substring(0, 2)).resolve(contentId.substring(2, 4)).resolve(contentId);
+    }
+
+    private static String mimeTypeOf(String extension) {
+        return extension.equals("png") ? "image/png" : "image/jpeg";
+    }
+}
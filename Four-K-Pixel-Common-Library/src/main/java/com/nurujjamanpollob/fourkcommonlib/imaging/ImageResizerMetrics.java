@@ -0,0 +1,93 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Point in time snapshot of {@link ImageResizer} counters.
+ * @param requestCount number of resize requests
+ * @param cacheHitCount number of requests answered from cache
+ * @param originalCount number of requests answered with the original image, which is not wider than the bucket
+ * @param joinedCount number of requests joined to a running generation of same image and bucket
+ * @param generatedCount number of generated images
+ * @param rejectedCount number of requests rejected because the queue was full or resizer was closed
+ * @param failedCount number of failed generations, like an unreadable image
+ * @param queueDepth number of generations waiting in queue at snapshot time
+ * @param totalGenerationNanos sum of time to decode, resize and write generated images
+ */
+public record ImageResizerMetrics(
+        long requestCount,
+        long cacheHitCount,
+        long originalCount,
+        long joinedCount,
+        long generatedCount,
+        long rejectedCount,
+        long failedCount,
+        int queueDepth,
+        long totalGenerationNanos) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return average time to generate an image in nanoseconds, 0 if nothing is generated
+     */
+    public long averageGenerationNanos() {
+        return generatedCount == 0 ? 0 : totalGenerationNanos / generatedCount;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.function.BiFunction;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Pure Java image decoding, scaling and encoding used to generate derivatives.
+ * Streams are opened on files directly, so ImageIO never copies an image into its temporary cache file.
+ */
+final class ImageScaling {
+
+    /**
+     * Quality of written JPEG derivatives
+     */
+    static final float JPEG_QUALITY = 0.85f;
+
+    /**
+     * @apiNote Suppress default constructor
+     */
+    private ImageScaling() {}
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Decoded image, with dimensions of source before subsampling
+     * @param image the decoded image, or null if no pixel was needed
+     * @param sourceWidth width of source image
+     * @param sourceHeight height of source image
+     */
+    record Decoded(BufferedImage image, int sourceWidth, int sourceHeight) {
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Decode an image with source subsampling, so a 4K image needed at 720p is never decoded at full size.
+     * Dimensions are read from the header first, then every n-th pixel is decoded, with n chosen so the decoded image
+     * is still at least as large as the target. Remaining scaling is filtered by {@link ImageScaling#resize}.
+     * @param file the image file
+     * @param target computes largest needed width and height from source width and height, or null if no pixel is needed
+     * @return the decoded image
+     * @throws IOException if the file can't be read or is not a supported image
+     */
+    static Decoded decode(Path file, BiFunction<Integer, Integer, int[]> target) throws IOException {
+
+        try (ImageInputStream input = new FileImageInputStream(file.toFile())) {
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+
+            if (!readers.hasNext()) {
+                throw new IOException("No image reader found for " + file);
+            }
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(input, true, true);
+
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int[] size = target.apply(width, height);
+
+                if (size == null) {
+                    return new Decoded(null, width, height);
+                }
+
+                int subsampling = Math.max(1, Math.min(width / size[0], height / size[1]));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+                return new Decoded(reader.read(0, param), width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Scale an image down with bilinear filtering, halving at most each step,
+     * so large reductions are averaged over every source pixel instead of skipping them.
+     * The result is always an integer RGB or ARGB image, which is the fast path of Java 2D and JPEG writer.
+     * @param source the image to scale
+     * @param width the target width
+     * @param height the target height
+     * @return the scaled image
+     */
+    static BufferedImage resize(BufferedImage source, int width, int height) {
+
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D graphics = next.createGraphics();
+
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+
+        return current;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param image the image
+     * @return file extension of its derivative, <code>png</code> if the image has transparency, otherwise <code>jpg</code>
+     */
+    static String extensionOf(BufferedImage image) {
+        return image.getColorModel().hasAlpha() ? "png" : "jpg";
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Write an image as JPEG of {@link ImageScaling#JPEG_QUALITY}, or as PNG if it has transparency,
+     * see {@link ImageScaling#extensionOf(BufferedImage)}
+     * @param image the image
+     * @param file the file to write
+     * @throws IOException if the file can't be written
+     */
+    static void write(BufferedImage image, Path file) throws IOException {
+
+        boolean jpeg = extensionOf(image).equals("jpg");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(jpeg ? "jpeg" : "png").next();
+
+        try (ImageOutputStream output = new FileImageOutputStream(file.toFile())) {
+
+            ImageWriteParam param = writer.getDefaultWriteParam();
+
+            if (jpeg) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
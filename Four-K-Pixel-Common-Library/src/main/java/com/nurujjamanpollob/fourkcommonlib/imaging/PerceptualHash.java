@@ -0,0 +1,176 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote 64 bit difference hash (dHash) of an image, which is almost unchanged by re-encoding, resizing,
+ * or small color and compression changes, unlike a content hash which changes with any byte.
+ * The image is reduced to 9x8 luminance, and each bit tells if a pixel is brighter than its right neighbour.
+ * Copies of an image have hashes a few bits apart, see {@link PerceptualHash#distance(long, long)} and {@link PerceptualHashIndex}.
+ * This class should not accept constructor.
+ */
+public final class PerceptualHash {
+
+    /**
+     * Smallest decoded size, source subsampling never decodes below it,
+     * so every hash pixel is averaged over many source pixels instead of picking single pixels
+     */
+    private static final int DECODE_WIDTH = 72;
+    private static final int DECODE_HEIGHT = 64;
+
+    /**
+     * Hash grid, 9 columns give 8 horizontal differences per row
+     */
+    private static final int HASH_WIDTH = 9;
+    private static final int HASH_HEIGHT = 8;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Suppress default constructor
+     */
+    private PerceptualHash() {
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Compute hash of an image file, decoded with source subsampling, so a 4K image is never decoded at full size
+     * @param file the image file
+     * @return the 64 bit hash
+     * @throws IOException if the file can't be read or is not a supported image
+     */
+    public static long dHash(Path file) throws IOException {
+
+        ImageScaling.Decoded decoded = ImageScaling.decode(file,
+                (width, height) -> new int[]{Math.min(width, DECODE_WIDTH), Math.min(height, DECODE_HEIGHT)});
+
+        return dHash(decoded.image());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Compute hash of a decoded image. Luminance is averaged over every pixel of each 9x8 cell,
+     * so the hash doesn't depend on where a resampling filter happens to pick pixels
+     * @param image the image
+     * @return the 64 bit hash, first bit is the top left pixel pair
+     */
+    public static long dHash(BufferedImage image) {
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long[] sums = new long[HASH_WIDTH * HASH_HEIGHT];
+        long[] counts = new long[HASH_WIDTH * HASH_HEIGHT];
+        int[] row = new int[width];
+
+        for (int y = 0; y < height; y++) {
+
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int cellRow = y * HASH_HEIGHT / height * HASH_WIDTH;
+
+            for (int x = 0; x < width; x++) {
+                int cell = cellRow + x * HASH_WIDTH / width;
+                sums[cell] += luminance(row[x]);
+                counts[cell]++;
+            }
+        }
+
+        long hash = 0;
+
+        for (int y = 0; y < HASH_HEIGHT; y++) {
+
+            long left = average(sums, counts, y * HASH_WIDTH);
+
+            for (int x = 1; x < HASH_WIDTH; x++) {
+
+                long right = average(sums, counts, y * HASH_WIDTH + x);
+                hash = (hash << 1) | (left > right ? 1 : 0);
+                left = right;
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param first a hash
+     * @param second another hash
+     * @return number of different bits, 0 for same image, up to 64
+     */
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return ITU-R BT.601 luma of an RGB pixel, scaled by 1000
+     */
+    private static int luminance(int rgb) {
+        return 299 * ((rgb >> 16) & 0xFF) + 587 * ((rgb >> 8) & 0xFF) + 114 * (rgb & 0xFF);
+    }
+
+    private static long average(long[] sums, long[] counts, int cell) {
+        return counts[cell] == 0 ? 0 : sums[cell] / counts[cell];
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote In memory multi-index hash table of {@link PerceptualHash} values, to find near duplicate images by Hamming distance
+ * without comparing against every stored image.
+ *
+ * Each 64 bit hash is split into four 16 bit chunks, and every chunk has a table from chunk value to images.
+ * If two hashes are at most r bits apart, at least one chunk of them is at most r/4 bits apart,
+ * so a search probes only chunk values within r/4 bits in each table, then checks the full distance of found candidates.
+ * Up to radius {@link PerceptualHashIndex#MAX_RADIUS} a search probes at most 548 buckets,
+ * which takes microseconds even with millions of images.
+ *
+ * Searches run concurrently, adding and removing take an exclusive lock.
+ */
+public final class PerceptualHashIndex {
+
+    /**
+     * Largest supported search radius, 2 bits per chunk
+     */
+    public static final int MAX_RADIUS = 11;
+
+    private static final int CHUNKS = 4;
+    private static final int CHUNK_BITS = 16;
+    private static final int BUCKETS = 1 << CHUNK_BITS;
+    private static final int[] EMPTY = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Slots of images by chunk and chunk value, only first bucketSizes entries are used
+     */
+    private final int[][][] buckets = new int[CHUNKS][BUCKETS][];
+    private final int[][] bucketSizes = new int[CHUNKS][BUCKETS];
+
+    private final Map<String, Integer> slotOfKey = new HashMap<>();
+    private long[] hashes = new long[1024];
+    private String[] keys = new String[1024];
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int slotCount;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Add an image, or replace the hash of an image already added
+     * @param key the key of image, like its content identifier
+     * @param hash the perceptual hash of image
+     */
+    public void add(String key, long hash) {
+
+        Objects.requireNonNull(key, "key");
+
+        lock.writeLock().lock();
+
+        try {
+            Integer existing = slotOfKey.get(key);
+
+            if (existing != null) {
+
+                if (hashes[existing] == hash) {
+                    return;
+                }
+
+                removeSlot(existing);
+            }
+
+            int slot = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : nextSlot();
+            hashes[slot] = hash;
+            keys[slot] = key;
+            slotOfKey.put(key, slot);
+
+            for (int chunk = 0; chunk < CHUNKS; chunk++) {
+                append(chunk, chunkOf(hash, chunk), slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Remove an image, like after its content is deleted
+     * @param key the key of image
+     * @return true if the image was in this index
+     */
+    public boolean remove(String key) {
+
+        lock.writeLock().lock();
+
+        try {
+            Integer slot = slotOfKey.get(key);
+
+            if (slot == null) {
+                return false;
+            }
+
+            removeSlot(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param key the key of image
+     * @return the hash of image, or null if it's not in this index
+     */
+    public Long get(String key) {
+
+        lock.readLock().lock();
+
+        try {
+            Integer slot = slotOfKey.get(key);
+            return slot == null ? null : hashes[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of images in this index
+     */
+    public int size() {
+
+        lock.readLock().lock();
+
+        try {
+            return slotOfKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find every image within a Hamming distance of a hash, including an image of exactly the same hash
+     * @param hash the perceptual hash to search
+     * @param radius the maximum number of different bits, 0 to {@link PerceptualHashIndex#MAX_RADIUS}
+     * @return found images, nearest first, then by key
+     * @throws IllegalArgumentException if radius is out of range
+     */
+    public List<NearDuplicate> search(long hash, int radius) {
+
+        if (radius < 0 || radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("Search radius must be between 0 and " + MAX_RADIUS);
+        }
+
+        int chunkRadius = radius / CHUNKS;
+        List<NearDuplicate> found = new ArrayList<>();
+
+        lock.readLock().lock();
+
+        try {
+            for (int chunk = 0; chunk < CHUNKS; chunk++) {
+                probe(hash, radius, chunkRadius, chunk, chunkOf(hash, chunk), 0, chunkRadius, found);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        found.sort(Comparator.comparingInt(NearDuplicate::distance).thenComparing(NearDuplicate::key));
+        return found;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Visit the bucket of a chunk value, then every value with one more flipped bit from firstBit on,
+     * so each value within flipsLeft bits is visited exactly once
+     */
+    private void probe(long hash, int radius, int chunkRadius, int chunk, int value, int firstBit, int flipsLeft, List<NearDuplicate> found) {
+
+        int[] slots = buckets[chunk][value];
+        int size = bucketSizes[chunk][value];
+
+        for (int i = 0; i < size; i++) {
+
+            long candidate = hashes[slots[i]];
+
+            if (PerceptualHash.distance(hash, candidate) <= radius && !foundInEarlierChunk(hash, candidate, chunk, chunkRadius)) {
+                found.add(new NearDuplicate(keys[slots[i]], candidate, PerceptualHash.distance(hash, candidate)));
+            }
+        }
+
+        if (flipsLeft == 0) {
+            return;
+        }
+
+        for (int bit = firstBit; bit < CHUNK_BITS; bit++) {
+            probe(hash, radius, chunkRadius, chunk, value ^ (1 << bit), bit + 1, flipsLeft - 1, found);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true if a candidate was already probed in an earlier chunk table, so it's reported once
+     */
+    private static boolean foundInEarlierChunk(long hash, long candidate, int chunk, int chunkRadius) {
+
+        for (int earlier = 0; earlier < chunk; earlier++) {
+            if (Integer.bitCount(chunkOf(hash, earlier) ^ chunkOf(candidate, earlier)) <= chunkRadius) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int chunkOf(long hash, int chunk) {
+        return (int) (hash >>> (chunk * CHUNK_BITS)) & (BUCKETS - 1);
+    }
+
+    private void append(int chunk, int value, int slot) {
+
+        int[] slots = buckets[chunk][value];
+        int size = bucketSizes[chunk][value];
+
+        if (slots == null || size == slots.length) {
+            slots = slots == null ? new int[4] : Arrays.copyOf(slots, size * 2);
+            buckets[chunk][value] = slots;
+        }
+
+        slots[size] = slot;
+        bucketSizes[chunk][value] = size + 1;
+    }
+
+    private void removeSlot(int slot) {
+
+        long hash = hashes[slot];
+
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+
+            int value = chunkOf(hash, chunk);
+            int[] slots = buckets[chunk][value];
+            int size = bucketSizes[chunk][value];
+
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    // Order in a bucket does not matter, move the last entry into the gap
+                    slots[i] = slots[size - 1];
+                    bucketSizes[chunk][value] = size - 1;
+                    break;
+                }
+            }
+
+            if (size == 1) {
+                buckets[chunk][value] = null;
+            }
+        }
+
+        slotOfKey.remove(keys[slot]);
+        keys[slot] = null;
+
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private int nextSlot() {
+
+        if (slotCount == hashes.length) {
+            hashes = Arrays.copyOf(hashes, slotCount * 2);
+            keys = Arrays.copyOf(keys, slotCount * 2);
+        }
+
+        return slotCount++;
+    }
+}
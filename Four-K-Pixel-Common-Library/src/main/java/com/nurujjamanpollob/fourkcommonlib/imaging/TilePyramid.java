@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import java.nio.file.Path;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Deep Zoom tile pyramid of one image in cache of {@link TilePyramidGenerator}.
+ * The descriptor is a DZI file, tiles are beside it in <code>image_files/&lt;level&gt;/&lt;column&gt;_&lt;row&gt;.&lt;format&gt;</code>.
+ * @param key the content hash of source image, which names its cache directory
+ * @param width the full image width
+ * @param height the full image height
+ * @param maxLevel the level of full size tiles, level 0 is a single pixel
+ * @param format the tile format, <code>jpg</code> or <code>png</code>
+ * @param descriptor the DZI descriptor file
+ * @param generateNanos time to decode the image and write every tile, 0 if the pyramid was found in cache
+ */
+public record TilePyramid(
+        String key,
+        int width,
+        int height,
+        int maxLevel,
+        String format,
+        Path descriptor,
+        long generateNanos) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true if the pyramid was found in cache, without generating it
+     */
+    public boolean isCached() {
+        return generateNanos == 0;
+    }
+}
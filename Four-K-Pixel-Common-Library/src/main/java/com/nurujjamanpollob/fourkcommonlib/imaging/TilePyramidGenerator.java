@@ -0,0 +1,523 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadata;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadataCache;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.utility.Variables;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Asynchronous generation of Deep Zoom (DZI) tile pyramids of large accepted images,
+ * so a zoomed view downloads only its visible {@link TilePyramidWriter#TILE_SIZE} pixel tiles instead of the whole original.
+ * Only images with a longer edge than the largest {@link DerivativeSize} get a pyramid, smaller ones are served whole.
+ *
+ * The image is decoded once, then its rows are streamed into {@link TilePyramidWriter},
+ * which keeps one band of rows per level, so the raster is never copied per level.
+ * Images are processed on a bounded pool below normal priority, one request per image is running at a time.
+ *
+ * Pyramids are cached on disk by content hash of source, at <code>ab/cd/&lt;sha256&gt;/image.dzi</code> under cache directory,
+ * with tiles in <code>image_files</code> beside it. A pyramid is written in a staging directory and moved into place at once,
+ * so a cache directory always holds every tile of its descriptor.
+ */
+public final class TilePyramidGenerator implements AutoCloseable {
+
+    /**
+     * Maximum number of images waiting in queue, more requests are rejected
+     */
+    public static final int QUEUE_CAPACITY = 256;
+
+    /**
+     * Width and height of a full tile in pixels
+     */
+    public static final int TILE_SIZE = TilePyramidWriter.TILE_SIZE;
+
+    /**
+     * Images with a longer edge up to this are not tiled, the largest derivative already shows them whole
+     */
+    public static final int MAX_UNTILED_LONG_EDGE = DerivativeSize.QHD_1440.getLongEdge();
+
+    private static final String DESCRIPTOR_FILE_NAME = "image.dzi";
+    private static final String TILES_DIRECTORY_NAME = "image_files";
+
+    /**
+     * Rows copied out of the decoded image at once
+     */
+    private static final int ROWS_PER_READ = 16;
+
+    private static final Pattern DESCRIPTOR_PATTERN = Pattern.compile(
+            "Format=\"(jpg|png)\".*Width=\"(\\d+)\"\\s+Height=\"(\\d+)\"", Pattern.DOTALL);
+
+    private static final AtomicInteger GENERATOR_NUMBER = new AtomicInteger();
+
+    private static volatile TilePyramidGenerator defaultGenerator;
+
+    private final Path cacheDirectory;
+    private final Path stagingDirectory;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, CompletableFuture<TilePyramid>> running = new ConcurrentHashMap<>();
+    private final AtomicLong stagingNumber = new AtomicLong();
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder joinedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder cacheHitCount = new LongAdder();
+    private final LongAdder skippedCount = new LongAdder();
+    private final LongAdder generatedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder tileCount = new LongAdder();
+    private final LongAdder totalGenerateNanos = new LongAdder();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create generator with one worker thread per two available processors,
+     * a full size decode takes more memory than a derivative decode
+     * @param cacheDirectory the directory of cached pyramids, created if missing
+     * @throws IOException if the directory can't be created
+     */
+    public TilePyramidGenerator(Path cacheDirectory) throws IOException {
+        this(cacheDirectory, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param cacheDirectory the directory of cached pyramids, created if missing
+     * @param threads the number of worker threads, at least 1
+     * @throws IOException if the directory can't be created
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public TilePyramidGenerator(Path cacheDirectory, int threads) throws IOException {
+
+        if (threads < 1) {
+            throw new IllegalArgumentException("Tile pyramid generator needs at least one thread");
+        }
+
+        this.cacheDirectory = Files.createDirectories(cacheDirectory).toAbsolutePath().normalize();
+        this.stagingDirectory = Files.createDirectories(this.cacheDirectory.resolve(".staging"));
+
+        int number = GENERATOR_NUMBER.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "tile-pyramid-generator-" + number + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get shared generator, it's created on first use at {@link Variables#TILE_CACHE_DIRECTORY},
+     * unless replaced by {@link TilePyramidGenerator#setDefault(TilePyramidGenerator)}
+     * @return the shared generator
+     * @throws UncheckedIOException if the directory can't be created
+     */
+    public static TilePyramidGenerator getDefault() {
+
+        TilePyramidGenerator current = defaultGenerator;
+
+        if (current == null) {
+            synchronized (TilePyramidGenerator.class) {
+                current = defaultGenerator;
+                if (current == null) {
+                    try {
+                        current = new TilePyramidGenerator(Path.of(Variables.TILE_CACHE_DIRECTORY));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    defaultGenerator = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace shared generator, for example with a configured one at application start.
+     * The previous generator is not closed by this method.
+     * @param generator the new shared generator
+     */
+    public static void setDefault(TilePyramidGenerator generator) {
+
+        synchronized (TilePyramidGenerator.class) {
+            defaultGenerator = generator;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Queue an image for pyramid generation, this method never blocks.
+     * A request for an image already queued or running shares the same future.
+     * @param location the content identifier or file path of the image, see {@link ContentStore#resolve(String)}
+     * @return future of generated or cached pyramid, completed with null if the image is not larger than {@link TilePyramidGenerator#MAX_UNTILED_LONG_EDGE},
+     * or exceptionally with {@link RejectedExecutionException} if the queue is full or generator is closed,
+     * or with {@link IOException} if the image can't be read
+     */
+    public CompletableFuture<TilePyramid> submit(String location) {
+
+        Objects.requireNonNull(location, "location");
+
+        CompletableFuture<TilePyramid> future = new CompletableFuture<>();
+        CompletableFuture<TilePyramid> existing = running.putIfAbsent(location, future);
+
+        if (existing != null) {
+            joinedCount.increment();
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> run(location, future));
+            submittedCount.increment();
+        } catch (RejectedExecutionException e) {
+            running.remove(location, future);
+            rejectedCount.increment();
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find cached pyramid of an image by its content hash, without generating it
+     * @param key the content hash of source image
+     * @return the pyramid, or null if it's not generated
+     */
+    public TilePyramid findCached(String key) {
+
+        if (!ContentStore.isContentId(key)) {
+            return null;
+        }
+
+        try {
+            return readCached(key, directoryOf(key));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find a cached tile of an image by its content hash
+     * @param key the content hash of source image
+     * @param level the pyramid level
+     * @param column the tile column, from left
+     * @param row the tile row, from top
+     * @return the tile file, or null if the pyramid is not generated or has no such tile
+     */
+    public Path findTile(String key, int level, int column, int row) {
+
+        if (!ContentStore.isContentId(key) || level < 0 || column < 0 || row < 0) {
+            return null;
+        }
+
+        Path levelDirectory = directoryOf(key).resolve(TILES_DIRECTORY_NAME).resolve(Integer.toString(level));
+
+        for (String extension : new String[]{"jpg", "png"}) {
+
+            Path file = levelDirectory.resolve(column + "_" + row + "." + extension);
+
+            if (Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the directory of cached pyramids
+     */
+    public Path getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return snapshot of counters and timings
+     */
+    public TilePyramidGeneratorMetrics getMetrics() {
+
+        return new TilePyramidGeneratorMetrics(
+                submittedCount.sum(),
+                joinedCount.sum(),
+                rejectedCount.sum(),
+                cacheHitCount.sum(),
+                skippedCount.sum(),
+                generatedCount.sum(),
+                failedCount.sum(),
+                tileCount.sum(),
+                executor.getQueue().size(),
+                totalGenerateNanos.sum());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stop accepting requests, queued images are still generated
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Generate pyramid on a worker thread and complete the future of request
+     */
+    private void run(String location, CompletableFuture<TilePyramid> future) {
+
+        try {
+            TilePyramid pyramid = generate(location);
+            running.remove(location, future);
+            future.complete(pyramid);
+        } catch (Throwable e) {
+            failedCount.increment();
+            running.remove(location, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read pyramid from cache, or decode the image and stream its rows into a staging directory,
+     * then move the directory into cache
+     */
+    private TilePyramid generate(String location) throws IOException {
+
+        Path source = ContentStore.resolve(location);
+        AttachmentMetadata metadata = ContentStore.isContentId(location)
+                ? AttachmentMetadataCache.getDefault().get(source)
+                : AttachmentMetadataCache.getDefault().getWithContentHash(source);
+        String key = ContentStore.isContentId(location) ? location : metadata.contentHash();
+        Path directory = directoryOf(key);
+
+        if (Files.isDirectory(directory)) {
+            cacheHitCount.increment();
+            return readCached(key, directory);
+        }
+
+        // Dimensions from header, so a small image is skipped without decoding
+        if (metadata.hasDimensions() && !isTiled(metadata.width(), metadata.height())) {
+            skippedCount.increment();
+            return null;
+        }
+
+        long started = System.nanoTime();
+        ImageScaling.Decoded decoded = ImageScaling.decode(source,
+                (width, height) -> isTiled(width, height) ? new int[]{width, height} : null);
+
+        if (decoded.image() == null) {
+            skippedCount.increment();
+            return null;
+        }
+
+        BufferedImage image = decoded.image();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Path staging = stagingDirectory.resolve(key + "-" + stagingNumber.incrementAndGet());
+        TilePyramidWriter writer;
+
+        try {
+            Files.createDirectory(staging);
+
+            writer = new TilePyramidWriter(staging.resolve(TILES_DIRECTORY_NAME), width, height, image.getColorModel().hasAlpha());
+            int[] rows = new int[width * ROWS_PER_READ];
+
+            for (int y = 0; y < height; y += ROWS_PER_READ) {
+
+                int count = Math.min(ROWS_PER_READ, height - y);
+                image.getRGB(0, y, width, count, rows, 0, width);
+
+                for (int row = 0; row < count; row++) {
+                    writer.addRow(rows, row * width);
+                }
+            }
+
+            Files.writeString(staging.resolve(DESCRIPTOR_FILE_NAME), descriptorOf(width, height, writer.getFormat()), StandardCharsets.UTF_8);
+            Files.createDirectories(directory.getParent());
+
+            try {
+                Files.move(staging, directory, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // Generated concurrently from another location of same content, keep the first
+                deleteDirectory(staging);
+                cacheHitCount.increment();
+                return readCached(key, directory);
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteDirectory(staging);
+            throw e;
+        }
+
+        long generateNanos = Math.max(1, System.nanoTime() - started);
+
+        generatedCount.increment();
+        tileCount.add(writer.getTileCount());
+        totalGenerateNanos.add(generateNanos);
+
+        return new TilePyramid(key, width, height, TilePyramidWriter.maxLevelOf(width, height), writer.getFormat(),
+                directory.resolve(DESCRIPTOR_FILE_NAME), generateNanos);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param width the image width
+     * @param height the image height
+     * @return true if an image of these dimensions gets a pyramid
+     */
+    public static boolean isTiled(int width, int height) {
+        return Math.max(width, height) > MAX_UNTILED_LONG_EDGE;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return DZI descriptor of an image, without tile overlap
+     */
+    private static String descriptorOf(int width, int height, String format) {
+
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<Image xmlns=\"http://schemas.microsoft.com/deepzoom/2008\" TileSize=\"" + TILE_SIZE + "\" Overlap=\"0\" Format=\"" + format + "\">\n"
+                + "  <Size Width=\"" + width + "\" Height=\"" + height + "\"/>\n"
+                + "</Image>\n";
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return cache directory of an image, <code>ab/cd/key</code> under cache directory
+     */
+    private Path directoryOf(String key) {
+        return cacheDirectory.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read pyramid of a complete cache directory from its descriptor
+     * @throws NoSuchFileException if the pyramid is not generated
+     */
+    private static TilePyramid readCached(String key, Path directory) throws IOException {
+
+        Path descriptor = directory.resolve(DESCRIPTOR_FILE_NAME);
+        Matcher matcher = DESCRIPTOR_PATTERN.matcher(Files.readString(descriptor, StandardCharsets.UTF_8));
+
+        if (!matcher.find()) {
+            throw new IOException("Tile pyramid descriptor " + descriptor + " is not readable");
+        }
+
+        int width = Integer.parseInt(matcher.group(2));
+        int height = Integer.parseInt(matcher.group(3));
+
+        return new TilePyramid(key, width, height, TilePyramidWriter.maxLevelOf(width, height), matcher.group(1), descriptor, 0);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete a staging directory with its files, quietly
+     */
+    private static void deleteDirectory(Path directory) {
+
+        if (!Files.exists(directory)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.walk(directory)) {
+
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // Left behind in staging directory, it holds nothing referenced
+                }
+            });
+        } catch (IOException e) {
+            // Same as above
+        }
+    }
+}
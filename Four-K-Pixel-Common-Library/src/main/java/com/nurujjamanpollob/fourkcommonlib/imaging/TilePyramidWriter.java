@@ -0,0 +1,273 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.imaging;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Streaming writer of a Deep Zoom tile pyramid, fed with rows of the full size image from top to bottom.
+ *
+ * Every level keeps only one band of {@link TilePyramidWriter#TILE_SIZE} rows. When a band is full its tiles are written,
+ * and every pair of rows is averaged into one row of the next smaller level as it arrives,
+ * so no level is ever held as a whole image, and the source is read once.
+ * Level n is the image scaled by 2^(maxLevel - n), level 0 is a single pixel, following the DZI layout
+ * <code>&lt;level&gt;/&lt;column&gt;_&lt;row&gt;.&lt;format&gt;</code>, without overlap.
+ */
+final class TilePyramidWriter {
+
+    /**
+     * Width and height of a full tile in pixels
+     */
+    static final int TILE_SIZE = 256;
+
+    private final Path directory;
+    private final boolean alpha;
+    private final String format;
+    private final Level[] levels;
+    private long tileCount;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param directory the directory to write level directories into, it must exist
+     * @param width the full image width
+     * @param height the full image height
+     * @param alpha true to keep transparency, tiles are written as PNG then
+     */
+    TilePyramidWriter(Path directory, int width, int height, boolean alpha) {
+
+        this.directory = directory;
+        this.alpha = alpha;
+        this.format = alpha ? "png" : "jpg";
+
+        int maxLevel = maxLevelOf(width, height);
+        this.levels = new Level[maxLevel + 1];
+
+        for (int level = maxLevel; level >= 0; level--) {
+            int shift = maxLevel - level;
+            levels[level] = new Level(level, ceilShift(width, shift), ceilShift(height, shift));
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the highest level of an image, where the image is at full size
+     */
+    static int maxLevelOf(int width, int height) {
+
+        int longEdge = Math.max(width, height);
+        return longEdge <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(longEdge - 1);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return tile format, <code>png</code> if tiles keep transparency, otherwise <code>jpg</code>
+     */
+    String getFormat() {
+        return format;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of tiles written so far
+     */
+    long getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Add the next row of full size image
+     * @param argb the row pixels, at least image width of them from offset
+     * @param offset index of first pixel of the row
+     * @throws IOException if a tile can't be written
+     */
+    void addRow(int[] argb, int offset) throws IOException {
+        addRow(levels.length - 1, argb, offset);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Add a row to a level, write its band if complete, and pass averaged rows down to the next level
+     */
+    private void addRow(int levelNumber, int[] argb, int offset) throws IOException {
+
+        Level level = levels[levelNumber];
+
+        System.arraycopy(argb, offset, level.band, level.bandRows * level.width, level.width);
+        level.bandRows++;
+        level.receivedRows++;
+
+        boolean lastRow = level.receivedRows == level.height;
+
+        if (level.bandRows == TILE_SIZE || lastRow) {
+            writeBand(level);
+        }
+
+        if (levelNumber == 0) {
+            return;
+        }
+
+        if (!level.hasPendingRow) {
+
+            System.arraycopy(argb, offset, level.pendingRow, 0, level.width);
+            level.hasPendingRow = true;
+
+            if (lastRow) {
+                // Odd height, the last row is averaged with itself
+                halve(level.pendingRow, level.pendingRow, level.width, level.halvedRow);
+                level.hasPendingRow = false;
+                addRow(levelNumber - 1, level.halvedRow, 0);
+            }
+
+            return;
+        }
+
+        halve(level.pendingRow, 0, argb, offset, level.width, level.halvedRow);
+        level.hasPendingRow = false;
+        addRow(levelNumber - 1, level.halvedRow, 0);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Write every tile of the band of a level, then start its next band
+     */
+    private void writeBand(Level level) throws IOException {
+
+        Path levelDirectory = Files.createDirectories(directory.resolve(Integer.toString(level.number)));
+
+        for (int column = 0, x = 0; x < level.width; column++, x += TILE_SIZE) {
+
+            int tileWidth = Math.min(TILE_SIZE, level.width - x);
+            BufferedImage tile = new BufferedImage(tileWidth, level.bandRows, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            tile.setRGB(0, 0, tileWidth, level.bandRows, level.band, x, level.width);
+
+            ImageScaling.write(tile, levelDirectory.resolve(column + "_" + level.bandNumber + "." + format));
+            tileCount++;
+        }
+
+        level.bandNumber++;
+        level.bandRows = 0;
+    }
+
+    private static void halve(int[] first, int[] second, int width, int[] halved) {
+        halve(first, 0, second, 0, width, halved);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Average each 2x2 block of two rows into one pixel, an odd last column is averaged with itself
+     */
+    private static void halve(int[] first, int firstOffset, int[] second, int secondOffset, int width, int[] halved) {
+
+        for (int x = 0, out = 0; x < width; x += 2, out++) {
+
+            int right = Math.min(x + 1, width - 1);
+            halved[out] = average(first[firstOffset + x], first[firstOffset + right], second[secondOffset + x], second[secondOffset + right]);
+        }
+    }
+
+    private static int average(int a, int b, int c, int d) {
+
+        int pixel = 0;
+
+        for (int shift = 0; shift < 32; shift += 8) {
+            int sum = ((a >>> shift) & 0xFF) + ((b >>> shift) & 0xFF) + ((c >>> shift) & 0xFF) + ((d >>> shift) & 0xFF);
+            pixel |= ((sum + 2) >> 2) << shift;
+        }
+
+        return pixel;
+    }
+
+    private static int ceilShift(int value, int shift) {
+        return (int) ((value + (1L << shift) - 1) >> shift);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Band and row buffers of one pyramid level
+     */
+    private static final class Level {
+
+        private final int number;
+        private final int width;
+        private final int height;
+        private final int[] band;
+        private final int[] pendingRow;
+        private final int[] halvedRow;
+        private int bandRows;
+        private int bandNumber;
+        private int receivedRows;
+        private boolean hasPendingRow;
+
+        private Level(int number, int width, int height) {
+
+            this.number = number;
+            this.width = width;
+            this.height = height;
+            this.band = new int[Math.min(TILE_SIZE, height) * width];
+            this.pendingRow = new int[width];
+            this.halvedRow = new int[(width + 1) / 2];
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Perceptual hash of a stored image, saved in No-SQL database,
+ * so the near duplicate index is loaded at startup without decoding any image again,
+ * see {@link com.nurujjamanpollob.fourkcommonlib.imaging.PerceptualHashIndex}
+ */
+@Document(collection = "imageFingerprints")
+@NoArgsConstructor
+@Getter
+@Setter
+public class ImageFingerprint {
+
+    /**
+     * Content identifier of {@link com.nurujjamanpollob.fourkcommonlib.storage.ContentStore}
+     */
+    @Id
+    private String contentId;
+    /**
+     * 64 bit difference hash, see {@link com.nurujjamanpollob.fourkcommonlib.imaging.PerceptualHash}
+     */
+    private long perceptualHash;
+    private Long fingerprintTime;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Constructor parameter to create a fingerprint and save in No-SQL database
+     */
+    public ImageFingerprint(String contentId, long perceptualHash, Long fingerprintTime) {
+
+        this.contentId = contentId;
+        this.perceptualHash = perceptualHash;
+        this.fingerprintTime = fingerprintTime;
+    }
+}
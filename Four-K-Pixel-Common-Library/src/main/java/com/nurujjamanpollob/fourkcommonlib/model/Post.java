@@ -59,25 +59,83 @@
 
 package com.nurujjamanpollob.fourkcommonlib.model;
 
-import lombok.AllArgsConstructor;
+import com.nurujjamanpollob.fourkcommonlib.id.SnowflakeIdGenerator;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageHeader;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-@Document(collation = "posts")
+@Document(collection = "posts")
+@CompoundIndex(name = Post.TIMELINE_INDEX, def = "{'siteUsername': 1, 'postCreationTime': -1, '_id': -1}")
 @NoArgsConstructor
 @Getter
 @Setter
-@AllArgsConstructor
 public class Post {
 
+    /**
+     * Index of timeline of a user, newest first. Post identifier orders posts created at the same time,
+     * so a {@link TimelineCursor} always points to one position of the index.
+     */
+    public static final String TIMELINE_INDEX = "siteUsername_postCreationTime_id";
+
+    /**
+     * Time ordered identifier, so the _id index serves both lookup and newest first pagination.
+     * It's assigned by the constructor with parameters, or right before first save if the post is made another way,
+     * like read from a request body.
+     */
+    @Id
+    private Long postId;
     private String siteUsername;
     private String postTitle;
     private String postDescription;
+    /**
+     * Content identifiers of {@link com.nurujjamanpollob.fourkcommonlib.storage.ContentStore},
+     * or file paths of attachments stored before it, see {@link com.nurujjamanpollob.fourkcommonlib.storage.ContentStore#resolve(String)}
+     */
     private String[] imageFilesLocation;
+    /**
+     * Width, height, bit depth and orientation of each attachment, in order of {@link Post#imageFilesLocation},
+     * read from image headers when the post is accepted by {@link com.nurujjamanpollob.fourkcommonlib.validation.PostValidation},
+     * so clients can lay out a feed before any image is downloaded. An entry is null if its header can't be parsed.
+     */
+    private ImageHeader[] imageHeaders;
+    /**
+     * BlurHash placeholder of each attachment, in order of {@link Post#imageFilesLocation},
+     * computed with derivatives by {@link com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator},
+     * so clients paint a feed before any thumbnail is downloaded.
+     * An entry is null if its derivatives were not generated when the post was saved, a post read for a response
+     * gets it filled in from cache of generated ones, see {@link com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator#fillPlaceholders(Post)}.
+     * It stays null if generation is skipped or failed, or the attachment is not stored by content identifier.
+     */
+    private String[] imagePlaceholders;
     private String postTags;
     private Long postCreationTime;
 
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Constructor parameter to create a post and save in No-SQL database.
+     * The post identifier is assigned from {@link SnowflakeIdGenerator#getDefault()},
+     * identifiers of later posts are greater, so sorting by identifier is sorting by creation order.
+     */
+    public Post(
+            String siteUsername,
+            String postTitle,
+            String postDescription,
+            String[] imageFilesLocation,
+            String postTags,
+            Long postCreationTime
+    ) {
+
+        this.postId = SnowflakeIdGenerator.getDefault().nextId();
+        this.siteUsername = siteUsername;
+        this.postTitle = postTitle;
+        this.postDescription = postDescription;
+        this.imageFilesLocation = imageFilesLocation;
+        this.postTags = postTags;
+        this.postCreationTime = postCreationTime;
+    }
 
 }
@@ -0,0 +1,98 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Bytes and number of files stored by a user, saved in No-SQL database.
+ * Counters are only changed with atomic increments, never read and written back,
+ * see {@link com.nurujjamanpollob.fourkcommonlib.storage.StorageUsageStore}
+ */
+@Document(collection = "storageUsage")
+@NoArgsConstructor
+@Getter
+@Setter
+public class StorageUsage {
+
+    /**
+     * Identifier of the user, see {@link com.nurujjamanpollob.fourkcommonlib.id.UserIdStrategy}
+     */
+    @Id
+    private Long userId;
+    private long usedBytes;
+    private long usedFiles;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Constructor parameter to create usage of a user
+     */
+    public StorageUsage(Long userId, long usedBytes, long usedFiles) {
+
+        this.userId = userId;
+        this.usedBytes = usedBytes;
+        this.usedFiles = usedFiles;
+    }
+}
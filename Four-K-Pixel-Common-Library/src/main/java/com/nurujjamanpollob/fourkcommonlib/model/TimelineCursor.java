@@ -0,0 +1,129 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.model;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Position in a timeline of posts, the creation time and identifier of the last post of a page.
+ * The next page starts right after it, with an index range scan, so a deep page costs the same as the first one,
+ * unlike skip and limit, which reads and drops every post before the page.
+ * Clients get it as an opaque URL safe token, see {@link TimelineCursor#encode()}.
+ * @param postCreationTime the creation time of last post of a page
+ * @param postId the identifier of last post of a page, it orders posts created at the same time
+ */
+public record TimelineCursor(long postCreationTime, long postId) {
+
+    /**
+     * Leading byte of a token, so the format can change without misreading old tokens
+     */
+    private static final byte VERSION = 1;
+
+    private static final int TOKEN_BYTES = 1 + 2 * Long.BYTES;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param post the last post of a page, it must have a creation time
+     * @return cursor after the post
+     * @throws IllegalArgumentException if the post has no creation time
+     */
+    public static TimelineCursor after(Post post) {
+
+        if (post.getPostCreationTime() == null) {
+            throw new IllegalArgumentException("Post " + post.getPostId() + " has no creation time");
+        }
+
+        return new TimelineCursor(post.getPostCreationTime(), post.getPostId());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return URL safe token of this cursor
+     */
+    public String encode() {
+
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES)
+                .put(VERSION)
+                .putLong(postCreationTime)
+                .putLong(postId);
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param token the token of {@link TimelineCursor#encode()}
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is not a cursor token
+     */
+    public static TimelineCursor decode(String token) {
+
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+
+        if (bytes.length != TOKEN_BYTES || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Not a timeline cursor");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, 2 * Long.BYTES);
+        return new TimelineCursor(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.model;
+
+import java.util.List;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote A page of a timeline, newest post first
+ * @param posts the posts of page
+ * @param next the token of {@link TimelineCursor} to request the next page with, or null if this is the last page
+ */
+public record TimelinePage(List<Post> posts, String next) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Make a page from posts read with one more than the limit, the extra post only tells a next page exists
+     * @param fetched the posts read, up to limit plus one
+     * @param limit the number of posts of a page
+     * @return the page
+     */
+    public static TimelinePage of(List<Post> fetched, int limit) {
+
+        if (fetched.size() <= limit) {
+            return new TimelinePage(fetched, null);
+        }
+
+        List<Post> posts = fetched.subList(0, limit);
+        return new TimelinePage(List.copyOf(posts), TimelineCursor.after(posts.get(limit - 1)).encode());
+    }
+}
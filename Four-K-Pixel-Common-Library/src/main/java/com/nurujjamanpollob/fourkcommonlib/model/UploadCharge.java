@@ -0,0 +1,118 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Uploads of a content charged to storage quota of a user, saved in No-SQL database,
+ * so the charge can be given back to the same user when the content is released or reclaimed.
+ * A content has the same length on every upload, so one document per content and user holds every upload of it.
+ * Counters are only changed with atomic increments, see {@link com.nurujjamanpollob.fourkcommonlib.storage.StorageUsageStore}
+ */
+@Document(collection = "uploadCharges")
+@NoArgsConstructor
+@Getter
+@Setter
+public class UploadCharge {
+
+    /**
+     * Content identifier and user identifier, see {@link UploadCharge#idOf(String, long)}
+     */
+    @Id
+    private String id;
+    @Indexed
+    private String contentId;
+    private long userId;
+    /**
+     * Byte length of the content, charged once per upload
+     */
+    private long bytes;
+    private long uploads;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Constructor parameter to create charge of uploads of a content by a user
+     */
+    public UploadCharge(String contentId, long userId, long bytes, long uploads) {
+
+        this.id = idOf(contentId, userId);
+        this.contentId = contentId;
+        this.userId = userId;
+        this.bytes = bytes;
+        this.uploads = uploads;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param contentId the content identifier
+     * @param userId the user identifier
+     * @return identifier of the charge of a content to a user
+     */
+    public static String idOf(String contentId, long userId) {
+        return contentId + ":" + userId;
+    }
+}
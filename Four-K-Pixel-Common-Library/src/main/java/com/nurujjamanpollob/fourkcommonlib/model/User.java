@@ -60,7 +60,7 @@
 package com.nurujjamanpollob.fourkcommonlib.model;
 
 import com.nurujjamanpollob.fourkcommonlib.exception.InvalidUserException;
-import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
+import com.nurujjamanpollob.fourkcommonlib.id.UserIdStrategy;
 import com.nurujjamanpollob.fourkcommonlib.validation.UserValidation;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -68,9 +68,9 @@ import lombok.Setter;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
-import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
 
-@Document(collation = "users")
+@Document(collection = "users")
 @NoArgsConstructor
 @Getter
 @Setter
@@ -97,7 +97,7 @@ public class User {
     private String userBio;
     private String userShortDescription;
     @Id
-    private Integer userId;
+    private Long userId;
 
 
 
@@ -151,20 +151,24 @@ public class User {
         this.isUserActive = isUserActive;
         /*
         MongoBd do not generate automatic ID,
-        so our objective is to convert username to Big Integer,
-        and get its Integer Value
+        so the ID is computed locally by the configured UserIdStrategy,
         So that it will be able to save a lot of database operations, increment and insertion,
         which is not optimal for performance.
 
-        Using UTC time Integer conversion may lead to duplicated ID, if user creating at the same time.
+        Default strategy is still the legacy algorithm, so existing users are found by the same identifier,
+        until stored users are re-keyed to the 64 bit hash of username, see UserIdStrategy
          */
-       this.userId = UtilityCollection.stringToBigIntegerConverter(userName).intValue();
+        this.userId = UserIdStrategy.getDefault().generateUserId(userName);
 
     }
 
     /**
      * @author Nurujjaman Pollob
      * @apiNote Constructor parameter to create a user and save in No-SQL database with automatic validation
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * The password is encoded on {@link com.nurujjamanpollob.fourkcommonlib.security.PasswordHashingExecutor},
+     * and this constructor waits for it. To not block the caller, use {@link User#createWithPreValidationAsync}
      */
     @SuppressWarnings({"unused"})
     public User(
@@ -213,18 +217,75 @@ public class User {
         this.isUserActive = isUserActive;
         /*
         MongoBd do not generate automatic ID,
-        so our objective is to convert username to Big Integer,
-        and get its Integer Value
+        so the ID is computed locally by the configured UserIdStrategy,
         So that it will be able to save a lot of database operations, increment and insertion,
         which is not optimal for performance.
 
-        Using UTC time Integer conversion may lead to duplicated ID, if user creating at the same time.
+        Default strategy is still the legacy algorithm, so existing users are found by the same identifier,
+        until stored users are re-keyed to the 64 bit hash of username, see UserIdStrategy
          */
-        this.userId = UtilityCollection.stringToBigIntegerConverter(userName).intValue();
+        this.userId = UserIdStrategy.getDefault().generateUserId(userName);
 
         if(isUsePreValidation){
             new UserValidation(this).validateUser();
         }
 
     }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create a user with automatic validation, same as the constructor with <code>isUsePreValidation</code>,
+     * but the password is encoded asynchronously, so the caller thread is never busy in bcrypt.
+     * The returned future is completed exceptionally with {@link InvalidUserException} if the user is invalid,
+     * or with {@link com.nurujjamanpollob.fourkcommonlib.exception.PasswordHashingRejectedException} if the hashing queue is full.
+     * @return future of validated user, with encoded password
+     */
+    @SuppressWarnings({"unused"})
+    public static CompletableFuture<User> createWithPreValidationAsync(
+            String userName,
+            String password,
+            String firstName,
+            String lastName,
+            String addressLineOne,
+            String addressLineTwo,
+            String city,
+            String country,
+            String userShortDescription,
+            String userBio,
+            String hobby,
+            String userRecoveryQuestion,
+            Integer birthYear,
+            Integer birthMonth,
+            Integer birthDay,
+            Integer userCreationTime,
+            Boolean isBusiness,
+            Boolean isPremium,
+            Boolean isTwoFactorEnabled,
+            Boolean isUserActive
+    ) {
+
+        User user = new User(
+                userName,
+                password,
+                firstName,
+                lastName,
+                addressLineOne,
+                addressLineTwo,
+                city,
+                country,
+                userShortDescription,
+                userBio,
+                hobby,
+                userRecoveryQuestion,
+                birthYear,
+                birthMonth,
+                birthDay,
+                userCreationTime,
+                isBusiness,
+                isPremium,
+                isTwoFactorEnabled,
+                isUserActive);
+
+        return new UserValidation(user).validateUserAsync();
+    }
 }
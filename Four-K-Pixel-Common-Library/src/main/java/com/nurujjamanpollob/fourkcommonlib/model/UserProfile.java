@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.model;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Public profile of a {@link User}, sent to clients instead of the user document,
+ * so password, recovery question, birth date and address are never serialized
+ */
+public record UserProfile(
+        String userName,
+        String userFirstName,
+        String userLastname,
+        String userCityName,
+        String userCountryName,
+        String userShortDescription,
+        String userBio,
+        String userHobby,
+        boolean isBusiness,
+        boolean isPremium,
+        Integer userCreationTime
+) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param user the user
+     * @return public profile of the user
+     */
+    public static UserProfile of(User user) {
+
+        return new UserProfile(
+                user.getUserName(),
+                user.getUserFirstName(),
+                user.getUserLastname(),
+                user.getUserCityName(),
+                user.getUserCountryName(),
+                user.getUserShortDescription(),
+                user.getUserBio(),
+                user.getUserHobby(),
+                user.isBusiness(),
+                user.isPremium(),
+                user.getUserCreationTime());
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.security;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.PasswordHashingRejectedException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Dedicated, size bounded executor to encode passwords with {@link BCryptPasswordEncoder}.
+ * BCrypt is slow by design, running it on request threads let a signup spike occupy every servlet worker.
+ * This executor runs hashing on a fixed number of daemon threads with a bounded queue,
+ * and a request that does not fit in queue is rejected immediately with {@link PasswordHashingRejectedException}.
+ *
+ * One {@link BCryptPasswordEncoder} with configured cost factor is shared by all workers, it's thread safe.
+ * Queue wait and hash time can be read from {@link PasswordHashingExecutor#getMetrics()}.
+ */
+public final class PasswordHashingExecutor implements AutoCloseable {
+
+    /**
+     * Cost factor used by {@link BCryptPasswordEncoder#BCryptPasswordEncoder()}
+     */
+    public static final int DEFAULT_COST_FACTOR = 10;
+
+    /**
+     * Default maximum number of requests waiting for a worker
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private static volatile PasswordHashingExecutor defaultExecutor;
+
+    private final ThreadPoolExecutor executor;
+    private final BCryptPasswordEncoder encoder;
+    private final int costFactor;
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder totalHashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create executor with fixed workers, bounded queue and bcrypt cost factor.
+     * @param threads number of hashing threads
+     * @param queueCapacity maximum number of requests waiting for a worker, more requests are rejected
+     * @param costFactor the bcrypt log rounds, between 4 - 31
+     * @throws IllegalArgumentException if any argument is out of range
+     */
+    public PasswordHashingExecutor(int threads, int queueCapacity, int costFactor) {
+
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Threads and queue capacity must be at least 1");
+        }
+
+        if (costFactor < 4 || costFactor > 31) {
+            throw new IllegalArgumentException("BCrypt cost factor must be between 4 - 31");
+        }
+
+        this.costFactor = costFactor;
+        this.encoder = new BCryptPasswordEncoder(costFactor);
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get shared executor, it's created on first use with one thread per processor,
+     * {@link PasswordHashingExecutor#DEFAULT_QUEUE_CAPACITY} and {@link PasswordHashingExecutor#DEFAULT_COST_FACTOR},
+     * unless replaced by {@link PasswordHashingExecutor#setDefault(PasswordHashingExecutor)}
+     * @return the shared executor
+     */
+    public static PasswordHashingExecutor getDefault() {
+
+        PasswordHashingExecutor current = defaultExecutor;
+
+        if (current == null) {
+            synchronized (PasswordHashingExecutor.class) {
+                current = defaultExecutor;
+                if (current == null) {
+                    current = new PasswordHashingExecutor(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY, DEFAULT_COST_FACTOR);
+                    defaultExecutor = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace shared executor, for example with a configured one at application start.
+     * The previous executor is not closed by this method.
+     * @param executor the new shared executor
+     */
+    public static void setDefault(PasswordHashingExecutor executor) {
+
+        synchronized (PasswordHashingExecutor.class) {
+            defaultExecutor = executor;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Encode a raw password on this executor.
+     * This method never blocks, if the queue is full the returned future is already completed exceptionally.
+     * @param rawPassword the password to encode
+     * @return future of encoded password, completed exceptionally with {@link PasswordHashingRejectedException} if rejected
+     */
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        long submittedAt = System.nanoTime();
+
+        // count before handing over, the worker may finish before execute() returns
+        submittedCount.increment();
+
+        try {
+            executor.execute(() -> encode(rawPassword, submittedAt, future));
+        } catch (RejectedExecutionException e) {
+            submittedCount.decrement();
+            rejectedCount.increment();
+            future.completeExceptionally(new PasswordHashingRejectedException("Password hashing queue is full, try again later"));
+        }
+
+        return future;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the bcrypt cost factor of this executor
+     */
+    public int getCostFactor() {
+        return costFactor;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return snapshot of queue wait and hash time counters
+     */
+    public PasswordHashingMetrics getMetrics() {
+
+        return new PasswordHashingMetrics(
+                submittedCount.sum(),
+                rejectedCount.sum(),
+                completedCount.sum(),
+                executor.getQueue().size(),
+                totalQueueWaitNanos.sum(),
+                maxQueueWaitNanos.get(),
+                totalHashNanos.sum(),
+                maxHashNanos.get());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stop accepting requests, queued requests are still encoded.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Worker side of {@link PasswordHashingExecutor#encodeAsync(CharSequence)}, record metrics and complete the future.
+     */
+    private void encode(CharSequence rawPassword, long submittedAt, CompletableFuture<String> future) {
+
+        long startedAt = System.nanoTime();
+        long queueWait = startedAt - submittedAt;
+        totalQueueWaitNanos.add(queueWait);
+        maxQueueWaitNanos.accumulate(queueWait);
+
+        String encoded = null;
+        RuntimeException failure = null;
+
+        try {
+            encoded = encoder.encode(rawPassword);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        // record metrics before completing, so callers observing the future see them
+        long hashTime = System.nanoTime() - startedAt;
+        totalHashNanos.add(hashTime);
+        maxHashNanos.accumulate(hashTime);
+        completedCount.increment();
+
+        if (failure != null) {
+            future.completeExceptionally(failure);
+        } else {
+            future.complete(encoded);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create named daemon threads, so hashing workers never block JVM shutdown
+     */
+    private static final class HashingThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+        private final int poolNumber = POOL_NUMBER.incrementAndGet();
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+
+            Thread thread = new Thread(runnable, "password-hashing-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.security;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Point in time snapshot of {@link PasswordHashingExecutor} counters.
+ * @param submittedCount number of accepted hashing requests
+ * @param rejectedCount number of requests rejected because the queue was full or executor was shut down
+ * @param completedCount number of finished hashing, successful or failed
+ * @param queueDepth number of requests waiting in queue at snapshot time
+ * @param totalQueueWaitNanos sum of time requests spent in queue before a worker picked them
+ * @param maxQueueWaitNanos longest time a request spent in queue
+ * @param totalHashNanos sum of time spent in bcrypt
+ * @param maxHashNanos longest single bcrypt run
+ */
+public record PasswordHashingMetrics(
+        long submittedCount,
+        long rejectedCount,
+        long completedCount,
+        int queueDepth,
+        long totalQueueWaitNanos,
+        long maxQueueWaitNanos,
+        long totalHashNanos,
+        long maxHashNanos) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return average queue wait in nanoseconds, 0 if nothing is completed
+     */
+    public long averageQueueWaitNanos() {
+        return completedCount == 0 ? 0 : totalQueueWaitNanos / completedCount;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return average bcrypt time in nanoseconds, 0 if nothing is completed
+     */
+    public long averageHashNanos() {
+        return completedCount == 0 ? 0 : totalHashNanos / completedCount;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageHeader;
+
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Facts about an attachment file, cached by {@link AttachmentMetadataCache}.
+ * The facts are valid as long as size, last modified time and file key of the file are unchanged.
+ * @param size byte length of the file
+ * @param lastModifiedTime last modified time of the file when facts were read
+ * @param fileKey the file key, like device and inode, or null if the file system has none
+ * @param mimeType the mime type, or null if it can't be determined
+ * @param width image width in pixels, or -1 if unknown
+ * @param height image height in pixels, or -1 if unknown
+ * @param bitDepth bits per channel sample, or -1 if unknown
+ * @param orientation EXIF orientation 1 to 8, 1 if the image has none or it's unknown
+ * @param contentHash lower case hex SHA-256 of file content, or null if not computed yet
+ */
+public record AttachmentMetadata(
+        long size,
+        FileTime lastModifiedTime,
+        Object fileKey,
+        String mimeType,
+        int width,
+        int height,
+        int bitDepth,
+        int orientation,
+        String contentHash) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Check if these facts still describe a file with given attributes
+     * @param size current byte length of the file
+     * @param lastModifiedTime current last modified time of the file
+     * @param fileKey current file key of the file
+     * @return true if the file is unchanged since facts were read
+     */
+    public boolean isSameFile(long size, FileTime lastModifiedTime, Object fileKey) {
+        return this.size == size && this.lastModifiedTime.equals(lastModifiedTime) && Objects.equals(this.fileKey, fileKey);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true if both dimensions are known
+     */
+    public boolean hasDimensions() {
+        return width >= 0 && height >= 0;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param contentHash the content hash
+     * @return copy of this facts with content hash
+     */
+    public AttachmentMetadata withContentHash(String contentHash) {
+        return new AttachmentMetadata(size, lastModifiedTime, fileKey, mimeType, width, height, bitDepth, orientation, contentHash);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the image facts of this attachment, or null if dimensions are unknown
+     */
+    public ImageHeader toImageHeader() {
+        return hasDimensions() ? new ImageHeader(mimeType, width, height, bitDepth, orientation) : null;
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageHeader;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageHeaderReader;
+import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Bounded in-memory cache of {@link AttachmentMetadata}, keyed by absolute path of the file.
+ * Every lookup reads size, last modified time and file key of the file, which is a single stat,
+ * and the cached facts are used only if they are unchanged, so a modified or replaced file is read again.
+ * Mime type sniffing, dimension reading and content hashing, which read the file, are skipped on a hit.
+ *
+ * The cache is split into segments, each a small least recently used map with its own lock,
+ * so concurrent attachment checks of a gallery rarely wait for each other.
+ */
+public final class AttachmentMetadataCache {
+
+    /**
+     * Default maximum number of cached files
+     */
+    public static final int DEFAULT_CAPACITY = 16384;
+
+    private static final int SEGMENTS = 16;
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private static volatile AttachmentMetadataCache defaultCache;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Least recently used map, guarded by itself
+     */
+    private static final class Segment extends LinkedHashMap<Path, AttachmentMetadata> {
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, AttachmentMetadata> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create cache of given capacity
+     * @param capacity maximum number of cached files, rounded up to a multiple of segment count
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public AttachmentMetadataCache(int capacity) {
+
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        int segmentCapacity = (capacity + SEGMENTS - 1) / SEGMENTS;
+
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get shared cache, it's created on first use with {@link AttachmentMetadataCache#DEFAULT_CAPACITY},
+     * unless replaced by {@link AttachmentMetadataCache#setDefault(AttachmentMetadataCache)}
+     * @return the shared cache
+     */
+    public static AttachmentMetadataCache getDefault() {
+
+        AttachmentMetadataCache current = defaultCache;
+
+        if (current == null) {
+            synchronized (AttachmentMetadataCache.class) {
+                current = defaultCache;
+                if (current == null) {
+                    current = new AttachmentMetadataCache(DEFAULT_CAPACITY);
+                    defaultCache = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace shared cache
+     * @param cache the new shared cache
+     */
+    public static void setDefault(AttachmentMetadataCache cache) {
+
+        synchronized (AttachmentMetadataCache.class) {
+            defaultCache = cache;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get size, mime type and dimensions of a file, from cache if the file is unchanged.
+     * The content hash is included only if it was computed before, see {@link AttachmentMetadataCache#getWithContentHash(Path)}
+     * @param file the file
+     * @return facts of the file
+     * @throws IOException if the file is not found or can't be read
+     */
+    public AttachmentMetadata get(Path file) throws IOException {
+        return get(file, false);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Same as {@link AttachmentMetadataCache#get(Path)}, and the content hash is computed if it's not cached,
+     * which reads the whole file once.
+     * @param file the file
+     * @return facts of the file, with content hash
+     * @throws IOException if the file is not found or can't be read
+     */
+    public AttachmentMetadata getWithContentHash(Path file) throws IOException {
+        return get(file, true);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Remove cached facts of a file, like after it's deleted
+     * @param file the file
+     */
+    public void invalidate(Path file) {
+
+        Path key = file.toAbsolutePath().normalize();
+        Segment segment = segmentOf(key);
+
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of lookups answered from cache
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of lookups which read the file
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of cached files
+     */
+    public int size() {
+
+        int size = 0;
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    private AttachmentMetadata get(Path file, boolean withContentHash) throws IOException {
+
+        Path key = file.toAbsolutePath().normalize();
+        Segment segment = segmentOf(key);
+        BasicFileAttributes attributes;
+
+        try {
+            attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // Missing or unreadable, drop stale facts
+            synchronized (segment) {
+                segment.remove(key);
+            }
+            throw e;
+        }
+
+        AttachmentMetadata cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+
+        if (cached != null && cached.isSameFile(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey())
+                && (!withContentHash || cached.contentHash() != null)) {
+            hitCount.increment();
+            return cached;
+        }
+
+        missCount.increment();
+
+        AttachmentMetadata metadata;
+
+        // Only content hash is missing
+        if (cached != null && cached.isSameFile(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey())) {
+            metadata = cached.withContentHash(contentHash(key));
+        } else {
+            metadata = readMetadata(key, attributes, withContentHash);
+        }
+
+        // Cache only if the file did not change while it was read
+        BasicFileAttributes after = Files.readAttributes(key, BasicFileAttributes.class);
+
+        if (metadata.isSameFile(after.size(), after.lastModifiedTime(), after.fileKey())) {
+            synchronized (segment) {
+                segment.put(key, metadata);
+            }
+        }
+
+        return metadata;
+    }
+
+    private Segment segmentOf(Path key) {
+
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read facts of a file, dimensions are read from image header only
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Dimensions, bit depth and orientation are parsed by {@link ImageHeaderReader},
+     * ImageIO reader is only used for other image formats, which have unknown bit depth.
+     */
+    private static AttachmentMetadata readMetadata(Path file, BasicFileAttributes attributes, boolean withContentHash) throws IOException {
+
+        String mimeType = UtilityCollection.fileMimeTypeFromPath(file.toString());
+        int width = -1;
+        int height = -1;
+        int bitDepth = -1;
+        int orientation = 1;
+
+        ImageHeader header = mimeType != null && mimeType.startsWith("image/") ? ImageHeaderReader.read(file) : null;
+
+        if (header != null) {
+            width = header.width();
+            height = header.height();
+            bitDepth = header.bitDepth();
+            orientation = header.orientation();
+        } else if (mimeType != null && mimeType.startsWith("image/")) {
+
+            try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+
+                Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+
+                if (readers != null && readers.hasNext()) {
+
+                    ImageReader reader = readers.next();
+
+                    try {
+                        reader.setInput(input, true, true);
+                        width = reader.getWidth(0);
+                        height = reader.getHeight(0);
+                    } finally {
+                        reader.dispose();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Corrupted or unsupported header, dimensions are unknown
+                width = -1;
+                height = -1;
+            }
+        }
+
+        return new AttachmentMetadata(
+                attributes.size(),
+                attributes.lastModifiedTime(),
+                attributes.fileKey(),
+                mimeType,
+                width,
+                height,
+                bitDepth,
+                orientation,
+                withContentHash ? contentHash(file) : null);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Compute lower case hex SHA-256 of file content
+     */
+    private static String contentHash(Path file) throws IOException {
+
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform must support SHA-256
+            throw new IllegalStateException(e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,686 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Background deletion of attachment files, so request threads never wait for the disk to delete a file.
+ * Delete requests are queued by {@link AttachmentReaper#submit(Path)}, and a single daemon worker deletes them in batches
+ * with {@link Files#deleteIfExists(Path)}. A failed deletion is attempted again with exponential backoff,
+ * up to {@link AttachmentReaper#MAX_ATTEMPTS} times.
+ *
+ * If upload directories are given, the directories are swept periodically and every file older than grace period,
+ * which is not referenced by {@link ReferencedAttachments}, is queued for deletion.
+ * This reclaims attachments of abandoned uploads, and of deletions given up or lost on restart.
+ * The age of an orphan is checked again right before it's deleted, so a file touched after the sweep is kept.
+ * If the reaper is given a {@link ContentStore}, its content files are deleted by {@link ContentStore#reclaim(String, long, Consumer)},
+ * which checks age and reference count under lock of the content, so a content uploaded again after the sweep is kept.
+ * Staging files and files of any other directory are deleted directly.
+ *
+ * Deleted files, reclaimed bytes and deletion latency can be read from {@link AttachmentReaper#getMetrics()}.
+ */
+public final class AttachmentReaper implements AutoCloseable {
+
+    /**
+     * Maximum number of requests waiting in queue, more requests are rejected
+     */
+    public static final int QUEUE_CAPACITY = 65536;
+
+    /**
+     * Maximum number of files deleted in one batch
+     */
+    public static final int BATCH_SIZE = 128;
+
+    /**
+     * Attempts of a deletion before it's given up, a sweep may find the file again later
+     */
+    public static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * Delay before second attempt, doubled for every next attempt
+     */
+    public static final long INITIAL_BACKOFF_MILLIS = 200;
+
+    /**
+     * Upper bound of delay between attempts
+     */
+    public static final long MAX_BACKOFF_MILLIS = 30000;
+
+    private static final AtomicInteger REAPER_NUMBER = new AtomicInteger();
+
+    private static volatile AttachmentReaper defaultReaper;
+
+    private final List<Path> uploadDirectories;
+    private final ReferencedAttachments referencedAttachments;
+    private final long orphanGraceMillis;
+    private final ContentStore contentStore;
+    private final Consumer<String> contentReclaimedListener;
+
+    private final LinkedBlockingQueue<Deletion> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Thread worker;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * Accepted requests not yet deleted, missing or given up, including requests waiting for retry
+     */
+    private final AtomicLong outstanding = new AtomicLong();
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder deletedCount = new LongAdder();
+    private final LongAdder missingCount = new LongAdder();
+    private final LongAdder retriedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder reclaimedBytes = new LongAdder();
+    private final LongAdder totalDeletionLatencyNanos = new LongAdder();
+    private final LongAccumulator maxDeletionLatencyNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder sweepCount = new LongAdder();
+    private final LongAdder orphanCount = new LongAdder();
+
+    /**
+     * A queued delete request
+     * @param path the file to delete
+     * @param submittedAt {@link System#nanoTime()} when request was accepted
+     * @param attempt number of this attempt, starting at 1
+     * @param cutoff the file is kept if it's modified at or after this epoch millisecond, {@link Long#MAX_VALUE} for a submitted file
+     */
+    private record Deletion(Path path, long submittedAt, int attempt, long cutoff) {
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create reaper which only deletes submitted files, without sweeping any directory
+     */
+    public AttachmentReaper() {
+        this(List.of(), null, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create reaper which also sweeps upload directory for orphaned attachments.
+     * @param uploadDirectory the directory attachments are uploaded into, or null to not sweep
+     * @param referencedAttachments source of attachments still referenced by posts, required if uploadDirectory is given
+     * @param sweepInterval delay between sweeps, first sweep runs after this delay
+     * @param orphanGracePeriod minimum age of an unreferenced file to be deleted,
+     *                          so an uploaded file is not deleted before its post is saved
+     * @throws IllegalArgumentException if sweep interval is not positive or grace period is negative, while uploadDirectory is given
+     */
+    public AttachmentReaper(Path uploadDirectory, ReferencedAttachments referencedAttachments,
+                            Duration sweepInterval, Duration orphanGracePeriod) {
+        this(uploadDirectory == null ? List.of() : List.of(uploadDirectory), referencedAttachments, sweepInterval, orphanGracePeriod);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create reaper which sweeps every upload directory for orphaned attachments, in one sweep,
+     * like root and staging directory of {@link ContentStore} and a directory of legacy attachment files.
+     * A directory inside another given directory is swept once.
+     * @param uploadDirectories the directories attachments are uploaded into, empty to not sweep
+     * @param referencedAttachments source of attachments still referenced by posts, required if a directory is given
+     * @param sweepInterval delay between sweeps, first sweep runs after this delay
+     * @param orphanGracePeriod minimum age of an unreferenced file to be deleted,
+     *                          so an uploaded file is not deleted before its post is saved
+     * @throws IllegalArgumentException if sweep interval is not positive or grace period is negative, while a directory is given
+     */
+    public AttachmentReaper(List<Path> uploadDirectories, ReferencedAttachments referencedAttachments,
+                            Duration sweepInterval, Duration orphanGracePeriod) {
+        this(uploadDirectories, null, referencedAttachments, sweepInterval, orphanGracePeriod, null);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create reaper which sweeps every upload directory, deletes content files of a store through the store,
+     * and tells every reclaimed orphan content to a listener, like to give back storage quota charged for it,
+     * see {@link StorageQuota#freeAll(String)}. The listener is called on the worker thread under lock of the content,
+     * so a new upload of same content is not stored and charged until it returns. A listener failure does not stop the worker.
+     * @param uploadDirectories the directories attachments are uploaded into, empty to not sweep
+     * @param contentStore the store whose content files are deleted by {@link ContentStore#reclaim(String, long, Consumer)}, or null
+     * @param referencedAttachments source of attachments still referenced by posts, required if a directory is given
+     * @param sweepInterval delay between sweeps, first sweep runs after this delay
+     * @param orphanGracePeriod minimum age of an unreferenced file to be deleted
+     * @param contentReclaimedListener called with identifier of every orphan content reclaimed from the store, or null
+     * @throws IllegalArgumentException if sweep interval is not positive or grace period is negative, while a directory is given
+     */
+    public AttachmentReaper(List<Path> uploadDirectories, ContentStore contentStore, ReferencedAttachments referencedAttachments,
+                            Duration sweepInterval, Duration orphanGracePeriod, Consumer<String> contentReclaimedListener) {
+
+        if (!uploadDirectories.isEmpty()) {
+
+            Objects.requireNonNull(referencedAttachments, "referencedAttachments");
+
+            if (sweepInterval.isZero() || sweepInterval.isNegative() || orphanGracePeriod.isNegative()) {
+                throw new IllegalArgumentException("Sweep interval must be positive and grace period must not be negative");
+            }
+        }
+
+        this.uploadDirectories = outermost(uploadDirectories);
+        this.referencedAttachments = referencedAttachments;
+        this.orphanGraceMillis = orphanGracePeriod.toMillis();
+        this.contentStore = contentStore;
+        this.contentReclaimedListener = contentReclaimedListener;
+
+        int number = REAPER_NUMBER.incrementAndGet();
+
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "attachment-reaper-" + number + "-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+
+        this.worker = new Thread(this::runWorker, "attachment-reaper-" + number);
+        this.worker.setDaemon(true);
+        this.worker.start();
+
+        if (!this.uploadDirectories.isEmpty()) {
+            long interval = sweepInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::sweepQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get shared reaper, it's created on first use without sweeping,
+     * unless replaced by {@link AttachmentReaper#setDefault(AttachmentReaper)}
+     * @return the shared reaper
+     */
+    public static AttachmentReaper getDefault() {
+
+        AttachmentReaper current = defaultReaper;
+
+        if (current == null) {
+            synchronized (AttachmentReaper.class) {
+                current = defaultReaper;
+                if (current == null) {
+                    current = new AttachmentReaper();
+                    defaultReaper = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace shared reaper, for example with one sweeping the upload directory at application start.
+     * The previous reaper is not closed by this method.
+     * @param reaper the new shared reaper
+     */
+    public static void setDefault(AttachmentReaper reaper) {
+
+        synchronized (AttachmentReaper.class) {
+            defaultReaper = reaper;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Queue a file for deletion, this method never blocks.
+     * @param path the file to delete
+     * @return true if accepted, false if the queue is full or reaper is closed
+     */
+    public boolean submit(Path path) {
+
+        Objects.requireNonNull(path, "path");
+
+        return enqueue(path, Long.MAX_VALUE);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Queue a file for deletion, if it's not modified at or after the cutoff when it's deleted
+     */
+    private boolean enqueue(Path path, long cutoff) {
+
+        if (closed) {
+            rejectedCount.increment();
+            return false;
+        }
+
+        // count before queueing, the worker may finish before offer() returns
+        outstanding.incrementAndGet();
+
+        if (!queue.offer(new Deletion(path, System.nanoTime(), 1, cutoff))) {
+            outstanding.decrementAndGet();
+            rejectedCount.increment();
+            return false;
+        }
+
+        submittedCount.increment();
+        return true;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Queue files for deletion, like attachments of a rejected post, null entries are skipped.
+     * @param filePaths the files to delete
+     * @return true if every file is accepted, false if at least one file is rejected
+     */
+    public boolean submit(String[] filePaths) {
+
+        boolean acceptedAll = true;
+
+        for (String filePath : filePaths) {
+            if (filePath != null && !submit(Path.of(filePath))) {
+                acceptedAll = false;
+            }
+        }
+
+        return acceptedAll;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Sweep upload directory now, queue every file older than grace period which is not referenced.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Every upload directory is swept, a missing directory is skipped.
+     * Only one sweep runs at a time, a call while another sweep is running returns 0 immediately.
+     * @return number of orphaned files queued for deletion
+     * @throws IOException if referenced attachments can't be loaded or upload directory can't be read
+     * @throws IllegalStateException if this reaper has no upload directory
+     */
+    public int sweep() throws IOException {
+
+        if (uploadDirectories.isEmpty()) {
+            throw new IllegalStateException("This reaper has no upload directory to sweep");
+        }
+
+        if (!sweeping.compareAndSet(false, true)) {
+            return 0;
+        }
+
+        try {
+            Set<Path> referenced = referencedAttachments.load();
+            long cutoff = System.currentTimeMillis() - orphanGraceMillis;
+            int[] orphans = {0};
+
+            for (Path uploadDirectory : uploadDirectories) {
+
+                if (!Files.isDirectory(uploadDirectory)) {
+                    continue;
+                }
+
+                Files.walkFileTree(uploadDirectory, new SimpleFileVisitor<>() {
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+
+                        if (attributes.isRegularFile()
+                                && attributes.lastModifiedTime().toMillis() < cutoff
+                                && !referenced.contains(file)
+                                && enqueue(file, cutoff)) {
+                            orphans[0]++;
+                        }
+
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exception) {
+                        // A file deleted while walking, or unreadable, is checked again in next sweep
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            }
+
+            sweepCount.increment();
+            orphanCount.add(orphans[0]);
+            return orphans[0];
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Wait until every accepted request is deleted, found missing or given up,
+     * including requests waiting for a retry.
+     * @param timeout maximum time to wait
+     * @return true if nothing is outstanding, false if timeout elapsed first
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        while (outstanding.get() > 0) {
+
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+
+        return true;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return snapshot of deletion and sweep counters
+     */
+    public AttachmentReaperMetrics getMetrics() {
+
+        return new AttachmentReaperMetrics(
+                submittedCount.sum(),
+                rejectedCount.sum(),
+                deletedCount.sum(),
+                missingCount.sum(),
+                retriedCount.sum(),
+                failedCount.sum(),
+                reclaimedBytes.sum(),
+                queue.size(),
+                totalDeletionLatencyNanos.sum(),
+                maxDeletionLatencyNanos.get(),
+                sweepCount.sum(),
+                orphanCount.sum());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stop accepting requests and sweeping, queued requests are still deleted,
+     * but requests waiting for retry are dropped, next sweep after restart finds them again.
+     */
+    @Override
+    public void close() {
+
+        closed = true;
+        scheduler.shutdownNow();
+        worker.interrupt();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Worker loop, wait for a request, then take every waiting request up to {@link AttachmentReaper#BATCH_SIZE}
+     * and delete them together, until closed and queue is empty.
+     */
+    private void runWorker() {
+
+        List<Deletion> batch = new ArrayList<>(BATCH_SIZE);
+
+        while (!closed || !queue.isEmpty()) {
+
+            try {
+                Deletion first = closed ? queue.poll() : queue.take();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // Interrupted by close(), drain what is left
+                continue;
+            }
+
+            queue.drainTo(batch, BATCH_SIZE - 1);
+
+            for (Deletion deletion : batch) {
+                delete(deletion);
+            }
+
+            batch.clear();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete a single file, record its outcome, and schedule a retry if it failed
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * A content file of the store is deleted through the store, only staging and other files are deleted here.
+     */
+    private void delete(Deletion deletion) {
+
+        String contentId = contentStore == null ? null : contentStore.contentIdOf(deletion.path());
+
+        if (contentId != null) {
+            reclaim(deletion, contentId);
+            return;
+        }
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(deletion.path(), BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+            // Attachments are files, never delete a directory or follow a link
+            if (!attributes.isRegularFile()) {
+                failedCount.increment();
+                outstanding.decrementAndGet();
+                return;
+            }
+
+            // An orphan modified after its sweep is in use again
+            if (attributes.lastModifiedTime().toMillis() >= deletion.cutoff()) {
+                missingCount.increment();
+                outstanding.decrementAndGet();
+                return;
+            }
+
+            if (Files.deleteIfExists(deletion.path())) {
+                recordDeleted(deletion, attributes.size());
+            } else {
+                missingCount.increment();
+            }
+
+            outstanding.decrementAndGet();
+
+        } catch (NoSuchFileException e) {
+            missingCount.increment();
+            outstanding.decrementAndGet();
+        } catch (IOException | SecurityException e) {
+            retry(deletion);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete a content file through the store, a content referenced or touched after the sweep is counted as missing
+     */
+    private void reclaim(Deletion deletion, String contentId) {
+
+        Consumer<String> listener = deletion.cutoff() == Long.MAX_VALUE ? null : this::notifyContentReclaimed;
+
+        try {
+            long size = contentStore.reclaim(contentId, deletion.cutoff(), listener);
+
+            if (size >= 0) {
+                recordDeleted(deletion, size);
+            } else {
+                missingCount.increment();
+            }
+
+            outstanding.decrementAndGet();
+
+        } catch (IOException | SecurityException e) {
+            retry(deletion);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Count a deleted file with its size and latency
+     */
+    private void recordDeleted(Deletion deletion, long size) {
+
+        long latency = System.nanoTime() - deletion.submittedAt();
+        deletedCount.increment();
+        reclaimedBytes.add(size);
+        totalDeletionLatencyNanos.add(latency);
+        maxDeletionLatencyNanos.accumulate(latency);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Tell the listener about a reclaimed orphan content, called under lock of the content
+     */
+    private void notifyContentReclaimed(String contentId) {
+
+        if (contentReclaimedListener == null) {
+            return;
+        }
+
+        try {
+            contentReclaimedListener.accept(contentId);
+        } catch (RuntimeException ignored) {
+            // The file is deleted anyway, the listener must not stop the worker
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Queue a failed deletion again after backoff, or give it up after {@link AttachmentReaper#MAX_ATTEMPTS}
+     */
+    private void retry(Deletion deletion) {
+
+        if (deletion.attempt() >= MAX_ATTEMPTS || closed) {
+            failedCount.increment();
+            outstanding.decrementAndGet();
+            return;
+        }
+
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << (deletion.attempt() - 1));
+        Deletion next = new Deletion(deletion.path(), deletion.submittedAt(), deletion.attempt() + 1, deletion.cutoff());
+
+        try {
+            scheduler.schedule(() -> requeue(next), backoff, TimeUnit.MILLISECONDS);
+            retriedCount.increment();
+        } catch (RejectedExecutionException e) {
+            failedCount.increment();
+            outstanding.decrementAndGet();
+        }
+    }
+
+    private void requeue(Deletion deletion) {
+
+        if (closed || !queue.offer(deletion)) {
+            failedCount.increment();
+            outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Normalize directories and drop every directory inside another one, so no file is visited twice in a sweep
+     */
+    private static List<Path> outermost(List<Path> directories) {
+
+        List<Path> normalized = new ArrayList<>(directories.size());
+        for (Path directory : directories) {
+            normalized.add(directory.toAbsolutePath().normalize());
+        }
+
+        List<Path> outermost = new ArrayList<>(normalized.size());
+        for (Path directory : normalized) {
+
+            boolean nested = false;
+            for (Path other : normalized) {
+                if (!other.equals(directory) && directory.startsWith(other)) {
+                    nested = true;
+                    break;
+                }
+            }
+
+            if (!nested && !outermost.contains(directory)) {
+                outermost.add(directory);
+            }
+        }
+
+        return List.copyOf(outermost);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Scheduled sweep, a failed sweep is attempted again on next schedule
+     */
+    private void sweepQuietly() {
+
+        try {
+            sweep();
+        } catch (IOException | RuntimeException ignored) {
+            // Reference source or directory is not available now, try on next schedule
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Point in time snapshot of {@link AttachmentReaper} counters.
+ * @param submittedCount number of accepted delete requests, including requests from sweeps
+ * @param rejectedCount number of delete requests rejected because the queue was full or reaper was closed
+ * @param deletedCount number of deleted files
+ * @param missingCount number of requests whose file was already gone
+ * @param retriedCount number of failed attempts scheduled again with backoff
+ * @param failedCount number of requests given up after last attempt, or which are not a regular file
+ * @param reclaimedBytes sum of size of deleted files
+ * @param queueDepth number of requests waiting in queue at snapshot time
+ * @param totalDeletionLatencyNanos sum of time from submit to deletion of deleted files, including retries
+ * @param maxDeletionLatencyNanos longest time from submit to deletion
+ * @param sweepCount number of finished sweeps of upload directory
+ * @param orphanCount number of orphaned files found by sweeps
+ */
+public record AttachmentReaperMetrics(
+        long submittedCount,
+        long rejectedCount,
+        long deletedCount,
+        long missingCount,
+        long retriedCount,
+        long failedCount,
+        long reclaimedBytes,
+        int queueDepth,
+        long totalDeletionLatencyNanos,
+        long maxDeletionLatencyNanos,
+        long sweepCount,
+        long orphanCount) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return average time from submit to deletion in nanoseconds, 0 if nothing is deleted
+     */
+    public long averageDeletionLatencyNanos() {
+        return deletedCount == 0 ? 0 : totalDeletionLatencyNanos / deletedCount;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.id.SnowflakeIdGenerator;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageMimeSniffer;
+import com.nurujjamanpollob.fourkcommonlib.utility.Variables;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Stream an uploaded image from a channel to upload directory, without holding the file in Java heap.
+ * The upload is read into a pooled direct buffer, the first bytes are sniffed with {@link ImageMimeSniffer},
+ * and a non image is rejected before anything is written to disk.
+ * Then the upload is written to a staging file, and rejected as soon as it's larger than size limit.
+ * An accepted staging file is moved into upload directory atomically, so a reader never sees a partial file.
+ *
+ * Staging files are kept in <code>.staging</code> directory inside upload directory, so the move never crosses a file system.
+ * A staging file left by a crash is reclaimed by {@link AttachmentReaper} sweep of upload directory.
+ *
+ * If created with a {@link ContentStore}, the upload is hashed with SHA-256 while it's streamed,
+ * and added to the store, so an image uploaded many times is stored once.
+ */
+public final class AttachmentUploader {
+
+    /**
+     * Default size of pooled buffers
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Default maximum number of uploads streaming at a time, each holds one buffer
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_UPLOADS = 256;
+
+    /**
+     * Maximum time to wait for a free buffer, before the upload is rejected as busy
+     */
+    private static final long BUFFER_WAIT_SECONDS = 5;
+
+    private final Path uploadDirectory;
+    private final Path stagingDirectory;
+    private final ContentStore contentStore;
+    private final DirectBufferPool bufferPool;
+    private final long maxSize;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create uploader with default buffer pool and {@link Variables#UPLOAD_FILE_MAX_SIZE}
+     * @param uploadDirectory the directory to store accepted uploads into, it's created if missing
+     * @throws IOException if upload or staging directory can't be created
+     */
+    public AttachmentUploader(Path uploadDirectory) throws IOException {
+        this(uploadDirectory, new DirectBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_CONCURRENT_UPLOADS), Variables.UPLOAD_FILE_MAX_SIZE);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create uploader
+     * @param uploadDirectory the directory to store accepted uploads into, it's created if missing
+     * @param bufferPool the pool of buffers to stream uploads through, buffers must be at least {@link ImageMimeSniffer#HEADER_SIZE}
+     * @param maxSize maximum byte length of an upload
+     * @throws IOException if upload or staging directory can't be created
+     * @throws IllegalArgumentException if buffers are smaller than sniffed header
+     */
+    public AttachmentUploader(Path uploadDirectory, DirectBufferPool bufferPool, long maxSize) throws IOException {
+        this(Files.createDirectories(uploadDirectory), Files.createDirectories(uploadDirectory.resolve(".staging")), null, bufferPool, maxSize);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create uploader which adds uploads to a content store, with default buffer pool and {@link Variables#UPLOAD_FILE_MAX_SIZE}
+     * @param contentStore the store to add accepted uploads to
+     */
+    public AttachmentUploader(ContentStore contentStore) {
+        this(contentStore, new DirectBufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_CONCURRENT_UPLOADS), Variables.UPLOAD_FILE_MAX_SIZE);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create uploader which adds uploads to a content store, the location of an upload is its content identifier
+     * @param contentStore the store to add accepted uploads to
+     * @param bufferPool the pool of buffers to stream uploads through, buffers must be at least {@link ImageMimeSniffer#HEADER_SIZE}
+     * @param maxSize maximum byte length of an upload
+     * @throws IllegalArgumentException if buffers are smaller than sniffed header
+     */
+    public AttachmentUploader(ContentStore contentStore, DirectBufferPool bufferPool, long maxSize) {
+        this(contentStore.getRoot(), contentStore.getStagingDirectory(), contentStore, bufferPool, maxSize);
+    }
+
+    private AttachmentUploader(Path uploadDirectory, Path stagingDirectory, ContentStore contentStore, DirectBufferPool bufferPool, long maxSize) {
+
+        if (bufferPool.getBufferSize() < ImageMimeSniffer.HEADER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be at least " + ImageMimeSniffer.HEADER_SIZE);
+        }
+
+        this.uploadDirectory = uploadDirectory;
+        this.stagingDirectory = stagingDirectory;
+        this.contentStore = contentStore;
+        this.bufferPool = bufferPool;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Same as {@link AttachmentUploader#upload(ReadableByteChannel)}, for a request body stream.
+     * The stream is not closed by this method.
+     * @param source the uploaded content
+     * @return the stored upload
+     * @throws UploadRejectedException if the upload is empty, too large or not an image, or no buffer is free
+     * @throws IOException if the upload can't be read or stored
+     */
+    public UploadedAttachment upload(InputStream source) throws UploadRejectedException, IOException {
+        return upload(Channels.newChannel(source));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stream an upload to a staging file, and move it into upload directory if it's an image within size limit.
+     * The stored file is named by {@link SnowflakeIdGenerator#getDefault()} with extension of its mime type,
+     * or if this uploader has a content store, the upload is added to the store and its location is the content identifier.
+     * Nothing is kept on disk if the upload is rejected or fails. The channel is not closed by this method.
+     * @param source the uploaded content
+     * @return the stored upload
+     * @throws UploadRejectedException if the upload is empty, too large or not an image, or no buffer is free
+     * @throws IOException if the upload can't be read or stored
+     */
+    public UploadedAttachment upload(ReadableByteChannel source) throws UploadRejectedException, IOException {
+
+        long startedAt = System.nanoTime();
+        ByteBuffer buffer;
+
+        try {
+            buffer = bufferPool.acquire(BUFFER_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UploadRejectedException(UploadRejectedException.Reason.BUSY, "Upload is interrupted while waiting for a buffer");
+        }
+
+        if (buffer == null) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.BUSY, "Too many uploads in progress, please try again later");
+        }
+
+        Path staging = null;
+
+        try {
+            // Header first, a non image is rejected before a file is created
+            boolean endOfStream = fill(source, buffer, ImageMimeSniffer.HEADER_SIZE);
+
+            if (buffer.position() == 0) {
+                throw new UploadRejectedException(UploadRejectedException.Reason.EMPTY, "The upload is empty");
+            }
+
+            String mimeType = ImageMimeSniffer.sniff(buffer.duplicate().flip());
+
+            if (mimeType == null) {
+                throw new UploadRejectedException(UploadRejectedException.Reason.NOT_AN_IMAGE, "It seems this file is not an image file");
+            }
+
+            staging = Files.createTempFile(stagingDirectory, "upload-", ".part");
+            MessageDigest digest = contentStore == null ? null : sha256();
+            long size = 0;
+
+            try (FileChannel target = FileChannel.open(staging, StandardOpenOption.WRITE)) {
+
+                while (true) {
+
+                    if (!endOfStream) {
+                        endOfStream = fill(source, buffer, buffer.capacity());
+                    }
+
+                    buffer.flip();
+                    size += buffer.remaining();
+
+                    // Stop reading as soon as limit is crossed, the rest of upload is never read
+                    if (size > maxSize) {
+                        throw new UploadRejectedException(UploadRejectedException.Reason.TOO_LARGE,
+                                "The image length is more than " + maxSize + " bytes");
+                    }
+
+                    // Hash the chunk before it's written, then write it from start
+                    if (digest != null) {
+                        int start = buffer.position();
+                        digest.update(buffer);
+                        buffer.position(start);
+                    }
+
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+
+                    buffer.clear();
+
+                    if (endOfStream) {
+                        break;
+                    }
+                }
+            }
+
+            String location;
+
+            if (contentStore != null) {
+                location = contentStore.add(staging, digest.digest());
+            } else {
+                Path stored = uploadDirectory.resolve(SnowflakeIdGenerator.getDefault().nextId() + extensionOf(mimeType));
+                Files.move(staging, stored, StandardCopyOption.ATOMIC_MOVE);
+                location = stored.toString();
+            }
+
+            staging = null;
+
+            return new UploadedAttachment(location, size, mimeType, System.nanoTime() - startedAt);
+
+        } finally {
+            bufferPool.release(buffer);
+
+            if (staging != null) {
+                Files.deleteIfExists(staging);
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the directory accepted uploads are stored into
+     */
+    public Path getUploadDirectory() {
+        return uploadDirectory;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return maximum byte length of an upload
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    private static MessageDigest sha256() {
+
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read from source until buffer position reaches minimum, or the stream ends
+     * @return true if the stream ended
+     */
+    private static boolean fill(ReadableByteChannel source, ByteBuffer buffer, int minimum) throws IOException {
+
+        while (buffer.position() < minimum) {
+            if (source.read(buffer) < 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote File extension of a mime type recognised by {@link ImageMimeSniffer}
+     */
+    private static String extensionOf(String mimeType) {
+
+        return switch (mimeType) {
+            case ImageMimeSniffer.MIME_PNG -> ".png";
+            case ImageMimeSniffer.MIME_JPEG -> ".jpg";
+            case ImageMimeSniffer.MIME_GIF -> ".gif";
+            case ImageMimeSniffer.MIME_WEBP -> ".webp";
+            case ImageMimeSniffer.MIME_TIFF -> ".tif";
+            case ImageMimeSniffer.MIME_DNG -> ".dng";
+            case ImageMimeSniffer.MIME_HEIC -> ".heic";
+            case ImageMimeSniffer.MIME_HEIF -> ".heif";
+            default -> "";
+        };
+    }
+}
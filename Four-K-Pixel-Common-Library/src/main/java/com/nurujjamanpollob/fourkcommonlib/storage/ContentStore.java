@@ -0,0 +1,494 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.utility.Variables;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Content addressed store of attachment files, each distinct content is stored once.
+ * The content identifier is lower case hex SHA-256 of the file, and the file is stored at
+ * <code>ab/cd/&lt;sha256&gt;</code> under root directory, where <code>ab</code> and <code>cd</code> are first two bytes of the hash,
+ * so no directory holds more than a few thousand files.
+ *
+ * Posts reference content identifiers in {@link Post#getImageFilesLocation()}, the same image uploaded by many users
+ * is one file on disk and one copy in page cache. Every reference is counted,
+ * and the file is deleted when its last reference is released.
+ * Counts are kept in memory, {@link ContentStore#rebuildReferenceCounts(Iterable)} restores them from posts at startup,
+ * before the application accepts any request. A content whose count is unknown is never deleted by {@link ContentStore#release(String)},
+ * and content left unreferenced, like an upload whose post is never saved, is reclaimed by {@link AttachmentReaper} sweep
+ * of the root directory, configured by the application.
+ *
+ * Adding and deleting a content are serialized by a lock of the content, so a new upload of same content
+ * never links to a file being deleted. An orphan found by the sweep is deleted by {@link ContentStore#reclaim(String, long, Consumer)}
+ * under the same lock, after its count and age are checked again.
+ */
+public final class ContentStore {
+
+    /**
+     * Length of a content identifier, hex of 32 bytes
+     */
+    public static final int CONTENT_ID_LENGTH = 64;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static volatile ContentStore defaultStore;
+
+    private final Path root;
+    private final Path stagingDirectory;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final ConcurrentHashMap<String, Long> referenceCounts = new ConcurrentHashMap<>();
+
+    private final LongAdder storedCount = new LongAdder();
+    private final LongAdder deduplicatedCount = new LongAdder();
+    private final LongAdder deduplicatedBytes = new LongAdder();
+    private final LongAdder deletedCount = new LongAdder();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create store, root and staging directory are created if missing
+     * @param root the root directory of stored content
+     * @throws IOException if a directory can't be created
+     */
+    public ContentStore(Path root) throws IOException {
+
+        this.root = Files.createDirectories(root).toAbsolutePath().normalize();
+        this.stagingDirectory = Files.createDirectories(this.root.resolve(".staging"));
+
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get shared store, it's created on first use at {@link Variables#CONTENT_STORE_DIRECTORY},
+     * unless replaced by {@link ContentStore#setDefault(ContentStore)}
+     * @return the shared store
+     * @throws UncheckedIOException if the directory can't be created
+     */
+    public static ContentStore getDefault() {
+
+        ContentStore current = defaultStore;
+
+        if (current == null) {
+            synchronized (ContentStore.class) {
+                current = defaultStore;
+                if (current == null) {
+                    try {
+                        current = new ContentStore(Path.of(Variables.CONTENT_STORE_DIRECTORY));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    defaultStore = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace shared store, for example with a configured one at application start
+     * @param store the new shared store
+     */
+    public static void setDefault(ContentStore store) {
+
+        synchronized (ContentStore.class) {
+            defaultStore = store;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Check if an attachment location is a content identifier, which is 64 lower case hex characters
+     * @param location the attachment location
+     * @return true if it's a content identifier, false if it's a file path
+     */
+    public static boolean isContentId(String location) {
+
+        if (location == null || location.length() != CONTENT_ID_LENGTH) {
+            return false;
+        }
+
+        for (int i = 0; i < CONTENT_ID_LENGTH; i++) {
+            char c = location.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Resolve an attachment location of a post to a file, a content identifier is resolved in {@link ContentStore#getDefault()},
+     * and any other location is a file path, like attachments stored before the content store.
+     * @param location the attachment location
+     * @return the attachment file
+     */
+    public static Path resolve(String location) {
+        return isContentId(location) ? getDefault().pathOf(location) : Path.of(location);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get file of a content
+     * @param contentId the content identifier
+     * @return path of the content file, <code>root/ab/cd/contentId</code>
+     * @throws IllegalArgumentException if contentId is not a content identifier
+     */
+    public Path pathOf(String contentId) {
+
+        if (!isContentId(contentId)) {
+            throw new IllegalArgumentException("Not a content identifier: " + contentId);
+        }
+
+        return root.resolve(contentId.substring(0, 2)).resolve(contentId.substring(2, 4)).resolve(contentId);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return directory for files being written, on same file system as stored content
+     */
+    public Path getStagingDirectory() {
+        return stagingDirectory;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return root directory of stored content
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Add a completely written file with its SHA-256, and take one reference to it.
+     * If the content is already stored, the file is deleted and the stored content is shared,
+     * otherwise the file is moved into place atomically.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * A stored content added again gets current modification time, so {@link AttachmentReaper} sweep
+     * does not reclaim it as an old orphan while its new post is being saved.
+     * @param stagingFile the written file, inside {@link ContentStore#getStagingDirectory()}
+     * @param sha256 SHA-256 of the file content
+     * @return the content identifier
+     * @throws IOException if the file can't be moved or deleted
+     */
+    public String add(Path stagingFile, byte[] sha256) throws IOException {
+
+        String contentId = HexFormat.of().formatHex(sha256);
+        Path target = pathOf(contentId);
+
+        synchronized (lockOf(contentId)) {
+
+            if (Files.exists(target)) {
+
+                long size = Files.size(stagingFile);
+                Files.delete(stagingFile);
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                deduplicatedCount.increment();
+                deduplicatedBytes.add(size);
+            } else {
+
+                Files.createDirectories(target.getParent());
+
+                try {
+                    Files.move(stagingFile, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Some file systems refuse to replace with atomic move, content of same hash is same content
+                    Files.delete(stagingFile);
+                }
+
+                storedCount.increment();
+            }
+
+            referenceCounts.merge(contentId, 1L, Long::sum);
+        }
+
+        return contentId;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Take one more reference to a stored content, like a post sharing an existing attachment
+     * @param contentId the content identifier
+     * @return true if the content is stored and referenced, false if it's not stored
+     */
+    public boolean retain(String contentId) {
+
+        Path file = pathOf(contentId);
+
+        synchronized (lockOf(contentId)) {
+
+            if (!Files.exists(file)) {
+                return false;
+            }
+
+            referenceCounts.merge(contentId, 1L, Long::sum);
+            return true;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Give back one reference of a content, the file is deleted when its last reference is released
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * A content without a counted reference is never deleted, its count is unknown,
+     * like a content referenced only by posts saved before {@link ContentStore#rebuildReferenceCounts(Iterable)}.
+     * @param contentId the content identifier
+     * @return true if the content file is deleted
+     * @throws IOException if the file can't be deleted, the content is still released and reclaimed by a later sweep
+     */
+    public boolean release(String contentId) throws IOException {
+
+        Path file = pathOf(contentId);
+
+        synchronized (lockOf(contentId)) {
+
+            Long count = referenceCounts.get(contentId);
+
+            if (count == null || count < 1) {
+                return false;
+            }
+
+            if (count > 1) {
+                referenceCounts.put(contentId, count - 1);
+                return false;
+            }
+
+            referenceCounts.remove(contentId);
+
+            boolean deleted = Files.deleteIfExists(file);
+            if (deleted) {
+                deletedCount.increment();
+            }
+
+            return deleted;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete an unreferenced content found by {@link AttachmentReaper} sweep.
+     * Reference count and modification time are read again under lock of the content, so a content added
+     * or retained after the sweep is kept, and an upload of same content waits until the file is gone and stores it again.
+     * @param contentId the content identifier
+     * @param cutoff the content is kept if it's modified at or after this epoch millisecond
+     * @param reclaimedListener called with the content identifier under lock of the content after the file is deleted, or null,
+     *                          like to give back storage quota before a new upload of same content can be charged
+     * @return size of deleted file, or -1 if the content is kept, missing or not a regular file
+     * @throws IOException if the file can't be read or deleted
+     */
+    public long reclaim(String contentId, long cutoff, Consumer<String> reclaimedListener) throws IOException {
+
+        Path file = pathOf(contentId);
+
+        synchronized (lockOf(contentId)) {
+
+            if (getReferenceCount(contentId) > 0) {
+                return -1;
+            }
+
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (NoSuchFileException e) {
+                return -1;
+            }
+
+            if (!attributes.isRegularFile() || attributes.lastModifiedTime().toMillis() >= cutoff || !Files.deleteIfExists(file)) {
+                return -1;
+            }
+
+            deletedCount.increment();
+
+            if (reclaimedListener != null) {
+                reclaimedListener.accept(contentId);
+            }
+
+            return attributes.size();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get content identifier of a stored content file, the staging directory and any other file has none
+     * @param file a file, like one found by {@link AttachmentReaper} sweep
+     * @return the content identifier, or null if the file is not a content file of this store
+     */
+    public String contentIdOf(Path file) {
+
+        Path fileName = file.getFileName();
+        if (fileName == null || !isContentId(fileName.toString())) {
+            return null;
+        }
+
+        String contentId = fileName.toString();
+        return pathOf(contentId).equals(file.toAbsolutePath().normalize()) ? contentId : null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param contentId the content identifier
+     * @return number of references to a content, 0 if it's not referenced
+     */
+    public long getReferenceCount(String contentId) {
+        return referenceCounts.getOrDefault(contentId, 0L);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get every content with a counted reference, like uploads whose post is not saved yet,
+     * so {@link AttachmentReaper} sweep keeps them
+     * @return snapshot of referenced content identifiers
+     */
+    public Set<String> getReferencedContentIds() {
+        return Set.copyOf(referenceCounts.keySet());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace every reference count with counts of attachments of posts, at startup before any upload.
+     * Locations of posts which are not content identifiers are ignored.
+     * @param posts every post, like streamed from database with only <code>imageFilesLocation</code> field projected
+     */
+    public void rebuildReferenceCounts(Iterable<Post> posts) {
+
+        Map<String, Long> counts = new HashMap<>();
+
+        for (Post post : posts) {
+
+            String[] locations = post.getImageFilesLocation();
+            if (locations == null) {
+                continue;
+            }
+
+            for (String location : locations) {
+                if (isContentId(location)) {
+                    counts.merge(location, 1L, Long::sum);
+                }
+            }
+        }
+
+        referenceCounts.clear();
+        referenceCounts.putAll(counts);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of distinct contents added to disk
+     */
+    public long getStoredCount() {
+        return storedCount.sum();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of added files which were already stored
+     */
+    public long getDeduplicatedCount() {
+        return deduplicatedCount.sum();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return bytes not written to store because the content was already stored
+     */
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes.sum();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of contents deleted after last reference was released, or reclaimed as orphans
+     */
+    public long getDeletedCount() {
+        return deletedCount.sum();
+    }
+
+    private Object lockOf(String contentId) {
+        return locks[(contentId.hashCode() & 0x7fffffff) % LOCK_STRIPES];
+    }
+}
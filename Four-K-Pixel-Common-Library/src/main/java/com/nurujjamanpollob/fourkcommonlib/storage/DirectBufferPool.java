@@ -0,0 +1,170 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Bounded pool of direct {@link ByteBuffer} of same size, for IO between a channel and a file.
+ * A direct buffer is written to disk without a copy into native memory, and it's not part of Java heap,
+ * but it's expensive to allocate and slow to be freed, so buffers are allocated on first use and reused.
+ *
+ * At most <code>maxBuffers</code> buffers exist at a time, so the direct memory used is bounded,
+ * and {@link DirectBufferPool#acquire(long, TimeUnit)} waits while every buffer is in use.
+ */
+public final class DirectBufferPool {
+
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<ByteBuffer> idleBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger allocatedCount = new AtomicInteger();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create pool, no buffer is allocated until it's acquired
+     * @param bufferSize capacity of each buffer in bytes
+     * @param maxBuffers maximum number of buffers
+     * @throws IllegalArgumentException if any argument is less than 1
+     */
+    public DirectBufferPool(int bufferSize, int maxBuffers) {
+
+        if (bufferSize < 1 || maxBuffers < 1) {
+            throw new IllegalArgumentException("Buffer size and maximum buffers must be at least 1");
+        }
+
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.permits = new Semaphore(maxBuffers);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Take a cleared buffer, waiting while every buffer is in use.
+     * The buffer must be given back with {@link DirectBufferPool#release(ByteBuffer)}, and not used after.
+     * @param timeout maximum time to wait
+     * @param unit unit of timeout
+     * @return a cleared buffer, or null if no buffer became free in time
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public ByteBuffer acquire(long timeout, TimeUnit unit) throws InterruptedException {
+
+        if (!permits.tryAcquire(timeout, unit)) {
+            return null;
+        }
+
+        ByteBuffer buffer = idleBuffers.poll();
+
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+            allocatedCount.incrementAndGet();
+        }
+
+        return buffer.clear();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Give back a buffer taken by {@link DirectBufferPool#acquire(long, TimeUnit)}
+     * @param buffer the buffer to give back
+     */
+    public void release(ByteBuffer buffer) {
+
+        idleBuffers.offer(buffer);
+        permits.release();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return capacity of each buffer in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return maximum number of buffers
+     */
+    public int getMaxBuffers() {
+        return maxBuffers;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of buffers allocated so far, never more than maximum
+     */
+    public int getAllocatedCount() {
+        return allocatedCount.get();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of buffers in use now
+     */
+    public int getInUseCount() {
+        return maxBuffers - permits.availablePermits();
+    }
+}
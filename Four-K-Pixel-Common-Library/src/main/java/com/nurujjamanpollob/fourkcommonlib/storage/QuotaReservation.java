@@ -0,0 +1,160 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Bytes and a file reserved by {@link StorageQuota#reserve(long, QuotaTier, long)} for one upload.
+ * When the upload is stored, {@link QuotaReservation#commit(String, long)} records its length in usage of the user,
+ * otherwise {@link QuotaReservation#close()} gives the reservation back. Closing a committed reservation does nothing,
+ * so it can be used in try-with-resources around the upload.
+ */
+public final class QuotaReservation implements AutoCloseable {
+
+    private final StorageQuota quota;
+    private final StorageQuota.Account account;
+    private final long bytes;
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    QuotaReservation(StorageQuota quota, StorageQuota.Account account, long bytes) {
+
+        this.quota = quota;
+        this.account = account;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return identifier of the user
+     */
+    public long getUserId() {
+        return account.getUserId();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return reserved bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Add the stored length and a file to usage of the user with one increment,
+     * bytes reserved beyond the stored length are given back.
+     * If the increment fails, the reservation stays open, to be committed again or closed.
+     * @param usedBytes the stored length, up to the reserved bytes
+     * @throws IllegalArgumentException if stored length is negative or more than reserved bytes
+     * @throws IllegalStateException if the reservation is committed or closed already
+     */
+    public void commit(long usedBytes) {
+        commit(null, usedBytes);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Add the stored length and a file to usage of the user, like {@link QuotaReservation#commit(long)},
+     * and record the upload as charge of the content to the user, so it's given back when the content is released or reclaimed.
+     * @param contentId the content identifier of the stored upload, or null to not record a charge
+     * @param usedBytes the stored length, up to the reserved bytes
+     * @throws IllegalArgumentException if stored length is negative or more than reserved bytes
+     * @throws IllegalStateException if the reservation is committed or closed already
+     */
+    public void commit(String contentId, long usedBytes) {
+
+        if (usedBytes < 0 || usedBytes > bytes) {
+            throw new IllegalArgumentException("Stored length must be between 0 and " + bytes + " reserved bytes");
+        }
+
+        if (!finished.compareAndSet(false, true)) {
+            throw new IllegalStateException("The reservation is committed or closed already");
+        }
+
+        try {
+            quota.commit(account, bytes, usedBytes, contentId);
+        } catch (RuntimeException e) {
+            finished.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true if committed or closed
+     */
+    public boolean isFinished() {
+        return finished.get();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Give back the reserved bytes and file, if not committed
+     */
+    @Override
+    public void close() {
+
+        if (finished.compareAndSet(false, true)) {
+            quota.release(account, bytes);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import com.nurujjamanpollob.fourkcommonlib.model.User;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Storage quota of an account, the bytes and number of files it can store.
+ * A business account gets the business tier even if it's also premium.
+ */
+public enum QuotaTier {
+
+    FREE(5L << 30, 2_000),
+    PREMIUM(100L << 30, 50_000),
+    BUSINESS(1L << 40, 500_000);
+
+    private final long maxBytes;
+    private final long maxFiles;
+
+    QuotaTier(long maxBytes, long maxFiles) {
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param isPremium true if the account is premium
+     * @param isBusiness true if the account is business
+     * @return tier of the account
+     */
+    public static QuotaTier of(boolean isPremium, boolean isBusiness) {
+
+        if (isBusiness) {
+            return BUSINESS;
+        }
+
+        return isPremium ? PREMIUM : FREE;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param user the user, or null for an account without user document
+     * @return tier of the user, {@link QuotaTier#FREE} if null
+     */
+    public static QuotaTier of(User user) {
+        return user == null ? FREE : of(user.isPremium(), user.isBusiness());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return maximum bytes an account of this tier can store
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return maximum number of files an account of this tier can store
+     */
+    public long getMaxFiles() {
+        return maxFiles;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Source of attachment files which are still referenced, used by {@link AttachmentReaper#sweep()}
+ * to decide which files of upload directory are orphaned.
+ */
+@FunctionalInterface
+public interface ReferencedAttachments {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Load every referenced attachment, it's called once per sweep.
+     * Paths must be absolute and normalized, see {@link ReferencedAttachments#normalize(String)}
+     * @return set of referenced attachment paths
+     * @throws IOException if references can't be loaded, the sweep is skipped then
+     */
+    Set<Path> load() throws IOException;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create source from {@link Post#getImageFilesLocation()} of posts,
+     * like posts streamed from database with only <code>imageFilesLocation</code> field projected.
+     * @param posts supplier of posts, called once per sweep
+     * @return source of referenced attachments
+     */
+    static ReferencedAttachments fromPosts(Supplier<? extends Iterable<Post>> posts) {
+
+        return () -> {
+
+            Set<Path> referenced = new HashSet<>();
+
+            for (Post post : posts.get()) {
+
+                String[] locations = post.getImageFilesLocation();
+                if (locations == null) {
+                    continue;
+                }
+
+                for (String location : locations) {
+                    if (location != null) {
+                        referenced.add(normalize(location));
+                    }
+                }
+            }
+
+            return referenced;
+        };
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Convert a stored attachment location to the form compared by sweep,
+     * a content identifier is resolved to its file by {@link ContentStore#resolve(String)}
+     * @param location the attachment location
+     * @return absolute and normalized path
+     */
+    static Path normalize(String location) {
+        return ContentStore.resolve(location).toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,562 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.id.SnowflakeIdGenerator;
+import com.nurujjamanpollob.fourkcommonlib.validation.AttachmentValidator;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidationOptions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Resumable uploads of attachments, so a client on a weak network continues an upload after a dropped connection
+ * instead of sending it again from the first byte.
+ *
+ * An upload is created with its byte length, which is checked against the size limit at once,
+ * and a staging file of that length is allocated in staging directory of {@link ContentStore}.
+ * Chunks are appended at the current offset with positional writes, streamed through a pooled direct buffer,
+ * and every byte written before a connection drops is kept, see {@link ResumableUploadManager#getStatus(String)}.
+ * Chunks arrive in order, so the SHA-256 of the upload is updated as they are written, and the file is never read again to hash it.
+ *
+ * Finalizing runs the size and mime type checks of post validation once on the assembled file,
+ * see {@link AttachmentValidator#isValidImageWithinSizeLimit(String, PostValidationOptions)}, then adds it to the content store.
+ * Uploads are kept in memory, an upload without a chunk for the expiry time is dropped with its staging file.
+ * An upload can hold a {@link QuotaReservation} of its length, committed when it's stored and closed when it's dropped.
+ */
+public final class ResumableUploadManager {
+
+    /**
+     * Default time an upload is kept without a chunk
+     */
+    public static final long DEFAULT_EXPIRE_AFTER_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * Default maximum number of unfinished uploads, each has a staging file up to size limit
+     */
+    public static final int DEFAULT_MAX_UPLOADS = 1024;
+
+    /**
+     * Maximum time to wait for a free buffer, before a chunk is rejected as busy
+     */
+    private static final long BUFFER_WAIT_SECONDS = 5;
+
+    /**
+     * Minimum time between two sweeps of expired uploads
+     */
+    private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ContentStore contentStore;
+    private final DirectBufferPool bufferPool;
+    private final PostValidationOptions options;
+    private final long expireAfterMillis;
+    private final int maxUploads;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepMillis = new AtomicLong();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create manager with default buffer pool, {@link PostValidationOptions#defaults()} and default limits
+     * @param contentStore the store to add finalized uploads to
+     */
+    public ResumableUploadManager(ContentStore contentStore) {
+        this(contentStore,
+                new DirectBufferPool(AttachmentUploader.DEFAULT_BUFFER_SIZE, AttachmentUploader.DEFAULT_MAX_CONCURRENT_UPLOADS),
+                PostValidationOptions.defaults(),
+                DEFAULT_EXPIRE_AFTER_MILLIS,
+                DEFAULT_MAX_UPLOADS);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param contentStore the store to add finalized uploads to
+     * @param bufferPool the pool of buffers to stream chunks through
+     * @param options the size limit and accepted mime types checked on finalize
+     * @param expireAfterMillis time an upload is kept without a chunk
+     * @param maxUploads maximum number of unfinished uploads
+     * @throws IllegalArgumentException if expiry time or maximum uploads is less than 1
+     */
+    public ResumableUploadManager(ContentStore contentStore, DirectBufferPool bufferPool, PostValidationOptions options,
+                                  long expireAfterMillis, int maxUploads) {
+
+        if (expireAfterMillis < 1 || maxUploads < 1) {
+            throw new IllegalArgumentException("Upload expiry time and maximum uploads must be positive");
+        }
+
+        this.contentStore = contentStore;
+        this.bufferPool = bufferPool;
+        this.options = options;
+        this.expireAfterMillis = expireAfterMillis;
+        this.maxUploads = maxUploads;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Start an upload, its staging file is allocated at full length
+     * @param length the byte length of the whole upload
+     * @return status of the new upload, at offset 0
+     * @throws UploadRejectedException if the length is 0 or larger than size limit, or too many uploads are unfinished
+     * @throws IOException if the staging file can't be created
+     */
+    public ResumableUploadStatus create(long length) throws UploadRejectedException, IOException {
+        return create(length, null);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Start an upload holding a quota reservation of its length, see {@link ResumableUploadManager#create(long)}.
+     * The reservation is committed when the upload is stored, and closed if it's rejected, cancelled or expired.
+     * If the upload can't be created, the reservation is closed before this method throws.
+     * @param length the byte length of the whole upload
+     * @param reservation the quota reservation of at least the length, or null to not account the upload
+     * @return status of the new upload, at offset 0
+     * @throws UploadRejectedException if the length is 0 or larger than size limit, or too many uploads are unfinished
+     * @throws IOException if the staging file can't be created
+     */
+    public ResumableUploadStatus create(long length, QuotaReservation reservation) throws UploadRejectedException, IOException {
+
+        try {
+            return open(length, reservation);
+        } catch (UploadRejectedException | IOException | RuntimeException e) {
+            if (reservation != null) {
+                reservation.close();
+            }
+            throw e;
+        }
+    }
+
+    private ResumableUploadStatus open(long length, QuotaReservation reservation) throws UploadRejectedException, IOException {
+
+        if (length < 1) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.EMPTY, "The upload is empty");
+        }
+
+        if (length > options.maxAttachmentSize()) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.TOO_LARGE,
+                    "The image length is more than " + options.maxAttachmentSize() + " bytes");
+        }
+
+        if (reservation != null && reservation.getBytes() < length) {
+            throw new IllegalArgumentException("The quota reservation is smaller than the upload length");
+        }
+
+        sweepExpired(false);
+
+        if (sessions.size() >= maxUploads) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.BUSY, "Too many uploads in progress, please try again later");
+        }
+
+        String uploadId = Long.toString(SnowflakeIdGenerator.getDefault().nextId());
+        Path staging = contentStore.getStagingDirectory().resolve("resumable-" + uploadId + ".part");
+
+        try (FileChannel channel = FileChannel.open(staging, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            // A byte at the end sets the length, the file system allocates the rest as chunks are written
+            channel.write(ByteBuffer.allocate(1), length - 1);
+        }
+
+        Session session = new Session(uploadId, staging, length, sha256(), reservation);
+        sessions.put(uploadId, session);
+
+        return session.status(expireAfterMillis);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Same as {@link ResumableUploadManager#append(String, long, ReadableByteChannel)}, for a request body stream.
+     * The stream is not closed by this method.
+     */
+    public ResumableUploadStatus append(String uploadId, long offset, InputStream source) throws UploadRejectedException, IOException {
+        return append(uploadId, offset, Channels.newChannel(source));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Write a chunk at the current offset of an upload, until the source ends.
+     * If the source fails, like a dropped connection, bytes written before it are kept,
+     * and the client continues from the offset of {@link ResumableUploadManager#getStatus(String)}.
+     * The channel is not closed by this method.
+     * @param uploadId the upload identifier
+     * @param offset the offset the chunk starts at, it must be the current offset
+     * @param source the chunk content
+     * @return status after the chunk
+     * @throws UploadRejectedException if the upload is unknown, the offset is not current or another chunk is being written,
+     * the chunk goes past the declared length, or no buffer is free
+     * @throws IOException if the chunk can't be read or written
+     */
+    public ResumableUploadStatus append(String uploadId, long offset, ReadableByteChannel source) throws UploadRejectedException, IOException {
+
+        Session session = sessionOf(uploadId);
+
+        if (!session.lock.tryLock()) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.OFFSET_MISMATCH, "Another chunk of this upload is being written");
+        }
+
+        try {
+            if (!sessions.containsKey(uploadId)) {
+                throw new UploadRejectedException(UploadRejectedException.Reason.UNKNOWN_UPLOAD, "No upload " + uploadId);
+            }
+
+            if (offset != session.offset) {
+                throw new UploadRejectedException(UploadRejectedException.Reason.OFFSET_MISMATCH,
+                        "The chunk must start at offset " + session.offset);
+            }
+
+            ByteBuffer buffer = acquireBuffer();
+
+            try (FileChannel target = FileChannel.open(session.staging, StandardOpenOption.WRITE)) {
+
+                while (source.read(buffer) >= 0) {
+
+                    if (buffer.position() < buffer.capacity()) {
+                        continue;
+                    }
+
+                    write(session, target, buffer);
+                }
+
+                write(session, target, buffer);
+            } finally {
+                session.touch();
+                bufferPool.release(buffer);
+            }
+
+            return session.status(expireAfterMillis);
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param uploadId the upload identifier
+     * @return current status of the upload
+     * @throws UploadRejectedException if the upload is unknown
+     */
+    public ResumableUploadStatus getStatus(String uploadId) throws UploadRejectedException {
+        return sessionOf(uploadId).status(expireAfterMillis);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Check the assembled file once with the size and mime type checks of post validation,
+     * and add it to the content store. The upload is finished either way, a rejected file is deleted.
+     * @param uploadId the upload identifier
+     * @return the stored upload, its location is the content identifier
+     * @throws UploadRejectedException if the upload is unknown, not complete, a chunk is being written, or the file is not an accepted image
+     * @throws IOException if the file can't be stored
+     */
+    public UploadedAttachment finish(String uploadId) throws UploadRejectedException, IOException {
+
+        Session session = sessionOf(uploadId);
+
+        if (!session.lock.tryLock()) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.OFFSET_MISMATCH, "A chunk of this upload is being written");
+        }
+
+        try {
+            if (!sessions.containsKey(uploadId)) {
+                throw new UploadRejectedException(UploadRejectedException.Reason.UNKNOWN_UPLOAD, "No upload " + uploadId);
+            }
+
+            if (session.offset != session.length) {
+                throw new UploadRejectedException(UploadRejectedException.Reason.INCOMPLETE,
+                        "Only " + session.offset + " of " + session.length + " bytes are received");
+            }
+
+            sessions.remove(uploadId);
+
+            try {
+                if (!AttachmentValidator.isValidImageWithinSizeLimit(session.staging.toString(), options)) {
+                    throw new UploadRejectedException(UploadRejectedException.Reason.NOT_AN_IMAGE,
+                            "It seems this file is not an accepted image file");
+                }
+
+                String mimeType = AttachmentMetadataCache.getDefault().get(session.staging).mimeType();
+                String location = contentStore.add(session.staging, session.digest.digest());
+                session.commitQuota(location);
+
+                return new UploadedAttachment(location, session.length, mimeType, System.nanoTime() - session.createdNanos);
+            } finally {
+                session.closeQuota();
+                Files.deleteIfExists(session.staging);
+            }
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Drop an unfinished upload with its staging file
+     * @param uploadId the upload identifier
+     * @return true if the upload was unfinished
+     * @throws IOException if the staging file can't be deleted
+     */
+    public boolean cancel(String uploadId) throws IOException {
+
+        Session session = sessions.get(uploadId);
+
+        if (session == null) {
+            return false;
+        }
+
+        // Waits for a chunk being written, so the staging file is not deleted under it
+        session.lock.lock();
+
+        try {
+            if (!sessions.remove(uploadId, session)) {
+                return false;
+            }
+
+            session.closeQuota();
+            Files.deleteIfExists(session.staging);
+            return true;
+        } finally {
+            session.lock.unlock();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Drop every upload without a chunk for the expiry time. It's also run when an upload is created,
+     * at most once a minute.
+     * @param force true to run even if the last sweep was less than a minute ago
+     * @return number of dropped uploads
+     */
+    public int sweepExpired(boolean force) {
+
+        long now = System.currentTimeMillis();
+        long last = lastSweepMillis.get();
+
+        if (!force && (now - last < SWEEP_INTERVAL_MILLIS || !lastSweepMillis.compareAndSet(last, now))) {
+            return 0;
+        }
+
+        lastSweepMillis.set(now);
+        int dropped = 0;
+
+        for (Session session : sessions.values()) {
+
+            if (now - session.lastActivityMillis < expireAfterMillis || !session.lock.tryLock()) {
+                continue;
+            }
+
+            try {
+                if (sessions.remove(session.uploadId, session)) {
+                    session.closeQuota();
+                    Files.deleteIfExists(session.staging);
+                    dropped++;
+                }
+            } catch (IOException e) {
+                // Left in staging directory, like a staging file of a crash
+            } finally {
+                session.lock.unlock();
+            }
+        }
+
+        return dropped;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of unfinished uploads
+     */
+    public int getUploadCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return maximum byte length of an upload
+     */
+    public long getMaxSize() {
+        return options.maxAttachmentSize();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Write filled part of buffer at offset of upload, hash it, and move the offset past it
+     */
+    private static void write(Session session, FileChannel target, ByteBuffer buffer) throws UploadRejectedException, IOException {
+
+        buffer.flip();
+
+        if (session.offset + buffer.remaining() > session.length) {
+            buffer.clear();
+            throw new UploadRejectedException(UploadRejectedException.Reason.TOO_LARGE,
+                    "The chunk goes past the upload length of " + session.length + " bytes");
+        }
+
+        int start = buffer.position();
+        session.digest.update(buffer);
+        buffer.position(start);
+
+        long position = session.offset;
+
+        while (buffer.hasRemaining()) {
+            position += target.write(buffer, position);
+        }
+
+        session.offset = position;
+        buffer.clear();
+    }
+
+    private Session sessionOf(String uploadId) throws UploadRejectedException {
+
+        Session session = uploadId == null ? null : sessions.get(uploadId);
+
+        if (session == null) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.UNKNOWN_UPLOAD, "No upload " + uploadId);
+        }
+
+        return session;
+    }
+
+    private ByteBuffer acquireBuffer() throws UploadRejectedException {
+
+        ByteBuffer buffer;
+
+        try {
+            buffer = bufferPool.acquire(BUFFER_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UploadRejectedException(UploadRejectedException.Reason.BUSY, "Upload is interrupted while waiting for a buffer");
+        }
+
+        if (buffer == null) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.BUSY, "Too many uploads in progress, please try again later");
+        }
+
+        return buffer;
+    }
+
+    private static MessageDigest sha256() {
+
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote State of one unfinished upload, offset and digest are changed only while the lock is held
+     */
+    private static final class Session {
+
+        private final String uploadId;
+        private final Path staging;
+        private final long length;
+        private final MessageDigest digest;
+        private final QuotaReservation reservation;
+        private final long createdNanos = System.nanoTime();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile long offset;
+        private volatile long lastActivityMillis = System.currentTimeMillis();
+
+        private Session(String uploadId, Path staging, long length, MessageDigest digest, QuotaReservation reservation) {
+
+            this.uploadId = uploadId;
+            this.staging = staging;
+            this.length = length;
+            this.digest = digest;
+            this.reservation = reservation;
+        }
+
+        private void commitQuota(String location) {
+
+            if (reservation != null) {
+                reservation.commit(location, length);
+            }
+        }
+
+        private void closeQuota() {
+
+            if (reservation != null) {
+                reservation.close();
+            }
+        }
+
+        private void touch() {
+            lastActivityMillis = System.currentTimeMillis();
+        }
+
+        private ResumableUploadStatus status(long expireAfterMillis) {
+            return new ResumableUploadStatus(uploadId, offset, length, lastActivityMillis + expireAfterMillis);
+        }
+    }
+}
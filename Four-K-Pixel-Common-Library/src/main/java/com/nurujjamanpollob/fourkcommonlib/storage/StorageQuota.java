@@ -0,0 +1,545 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.model.StorageUsage;
+import com.nurujjamanpollob.fourkcommonlib.model.UploadCharge;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Per user storage quota, in bytes and number of files, see {@link QuotaTier}.
+ *
+ * Usage is kept in a {@link StorageUsageStore} and changed with atomic increments, once per stored file.
+ * Before an upload starts, its bytes and file are reserved against local headroom of the account,
+ * so concurrent uploads of the same user never store more than the quota, without a database round trip for the reservation.
+ * Byte headroom is split in stripes, a thread takes bytes from its own stripe with compare and set,
+ * and refills it from the shared pool of the account in grants, so threads of one account rarely touch the same counter.
+ *
+ * An account is loaded from the store when its first reservation opens, and dropped when its last one is closed,
+ * so each upload sees increments made by other servers before it. Near the limit, a reservation racing with others
+ * may be rejected while headroom is moved between stripes, but a reservation is never accepted past the quota of a server.
+ *
+ * Every upload is charged its full length to its uploader, also when {@link ContentStore} already holds the same content
+ * and stores it once, so usage of a user never depends on uploads of other users, and never tells that a content exists.
+ * The charge is recorded as {@link UploadCharge}, and given back to the same user when the reference of that upload is released,
+ * see {@link StorageQuota#free(String, long)}, or when the unreferenced content is reclaimed, see {@link StorageQuota#freeAll(String)}.
+ */
+public final class StorageQuota {
+
+    /**
+     * Byte headroom moved from pool to a stripe at once, beyond the reserved bytes
+     */
+    private static final long GRANT_BYTES = 64L << 20;
+
+    /**
+     * Array slots between two stripes, so stripes are on different cache lines
+     */
+    private static final int STRIPE_PADDING = 8;
+
+    /**
+     * Pin count of an account dropped from the map, it's never pinned again
+     */
+    private static final int EVICTED = Integer.MIN_VALUE;
+
+    private static volatile StorageQuota defaultQuota;
+
+    private final StorageUsageStore store;
+    private final int stripeCount;
+    private final ConcurrentHashMap<Long, Account> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create quota with a stripe per processor
+     * @param store the durable counters of usage
+     */
+    public StorageQuota(StorageUsageStore store) {
+        this(store, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param store the durable counters of usage
+     * @param stripeCount the number of byte headroom stripes of each account, a power of two
+     * @throws IllegalArgumentException if stripe count is not a positive power of two
+     */
+    public StorageQuota(StorageUsageStore store, int stripeCount) {
+
+        if (store == null) {
+            throw new IllegalArgumentException("Storage usage store can't be null");
+        }
+
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a positive power of two");
+        }
+
+        this.store = store;
+        this.stripeCount = stripeCount;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get shared quota, there is no quota without a durable store,
+     * so it's null until set by {@link StorageQuota#setDefault(StorageQuota)}, and nothing is given back then
+     * @return the shared quota, or null
+     */
+    public static StorageQuota getDefault() {
+        return defaultQuota;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Replace shared quota, like with a configured one at application start,
+     * so rejected posts give back the quota of their uploads
+     * @param quota the new shared quota
+     */
+    public static void setDefault(StorageQuota quota) {
+
+        synchronized (StorageQuota.class) {
+            defaultQuota = quota;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Reserve bytes and a file for an upload of a user. The reservation must be committed with the stored length,
+     * or closed to give it back, see {@link QuotaReservation}.
+     * @param userId the user identifier
+     * @param tier the current tier of the user, if it changed since the account was loaded, the headroom is changed with it
+     * @param bytes the bytes to reserve, like the declared length of upload
+     * @return the open reservation
+     * @throws UploadRejectedException with {@link UploadRejectedException.Reason#QUOTA_EXCEEDED} if the user has no headroom left
+     * @throws IllegalArgumentException if bytes is negative
+     */
+    public QuotaReservation reserve(long userId, QuotaTier tier, long bytes) throws UploadRejectedException {
+
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Reserved bytes can't be negative");
+        }
+
+        Account account = pin(userId, tier);
+
+        if (!account.reserveFile()) {
+            unpin(account);
+            throw new UploadRejectedException(UploadRejectedException.Reason.QUOTA_EXCEEDED,
+                    "The account can't store more than " + tier.getMaxFiles() + " files");
+        }
+
+        if (!account.reserveBytes(bytes)) {
+            account.files.incrementAndGet();
+            unpin(account);
+            throw new UploadRejectedException(UploadRejectedException.Reason.QUOTA_EXCEEDED,
+                    "The account can't store more than " + tier.getMaxBytes() + " bytes");
+        }
+
+        return new QuotaReservation(this, account, bytes);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Give back quota of deleted files of a user
+     * @param userId the user identifier
+     * @param tier the current tier of the user
+     * @param bytes the bytes of deleted files
+     * @param files the number of deleted files
+     */
+    public void free(long userId, QuotaTier tier, long bytes, long files) {
+
+        Account account = pin(userId, tier);
+
+        try {
+            store.increment(userId, -bytes, -files);
+            account.releaseBytes(bytes);
+            account.files.addAndGet(files);
+        } finally {
+            unpin(account);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Give back the charge of one upload of a content by a user, when the reference of that upload is released
+     * @param contentId the content identifier
+     * @param userId the user identifier
+     * @return true if a charge is given back, false if the user has no charged upload of the content
+     */
+    public boolean free(String contentId, long userId) {
+
+        UploadCharge charge = store.removeCharge(contentId, userId);
+
+        if (charge == null) {
+            return false;
+        }
+
+        freeCharged(userId, charge.getBytes(), 1);
+        return true;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Give back every charge of a content, when its file is reclaimed because nothing references it
+     * @param contentId the content identifier
+     * @return number of uploads given back
+     */
+    public long freeAll(String contentId) {
+
+        long uploads = 0;
+
+        for (UploadCharge charge : store.removeCharges(contentId)) {
+
+            if (charge.getUploads() > 0) {
+                freeCharged(charge.getUserId(), charge.getBytes() * charge.getUploads(), charge.getUploads());
+                uploads += charge.getUploads();
+            }
+        }
+
+        return uploads;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param userId the user identifier
+     * @return stored usage of the user, without open reservations
+     */
+    public StorageUsage getUsage(long userId) {
+
+        StorageUsage usage = store.find(userId);
+        return usage == null ? new StorageUsage(userId, 0, 0) : usage;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of accounts with an open reservation
+     */
+    public int getOpenAccountCount() {
+        return accounts.size();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Record used bytes and a file of a reservation, and give back the unused bytes
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * If a content identifier is given, the upload is also recorded as {@link UploadCharge} of the user,
+     * after usage is counted, so a failed record only leaves usage which is never given back, never usage given back twice.
+     * The reservation is finished once usage is counted, so a failed record is not thrown to the uploader.
+     */
+    void commit(Account account, long reservedBytes, long usedBytes, String contentId) {
+
+        store.increment(account.userId, usedBytes, 1);
+        account.releaseBytes(reservedBytes - usedBytes);
+        unpin(account);
+
+        if (contentId != null) {
+            try {
+                store.addCharge(contentId, account.userId, usedBytes);
+            } catch (RuntimeException ignored) {
+                // The upload is stored and counted, its usage is only never given back
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Give back all bytes and the file of a reservation
+     */
+    void release(Account account, long reservedBytes) {
+
+        account.releaseBytes(reservedBytes);
+        account.files.incrementAndGet();
+        unpin(account);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Give back usage of a user, and headroom of its account if a reservation holds it loaded.
+     * The account is pinned before usage is decreased, so it was loaded with the old usage and gets headroom once.
+     * An account loaded meanwhile may miss the headroom until it's dropped, never gets it twice.
+     */
+    private void freeCharged(long userId, long bytes, long files) {
+
+        Account account = pinLoaded(userId);
+
+        try {
+            store.increment(userId, -bytes, -files);
+
+            if (account != null) {
+                account.releaseBytes(bytes);
+                account.files.addAndGet(files);
+            }
+        } finally {
+            if (account != null) {
+                unpin(account);
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Pin the account of a user only if a reservation holds it, without loading it
+     * @return the pinned account, or null if it's not loaded
+     */
+    private Account pinLoaded(long userId) {
+
+        while (true) {
+
+            Account account = accounts.get(userId);
+
+            if (account == null) {
+                return null;
+            }
+
+            int pins = account.pins.get();
+
+            if (pins == EVICTED) {
+                accounts.remove(userId, account);
+                continue;
+            }
+
+            if (pins == 0) {
+                return null;
+            }
+
+            if (account.pins.compareAndSet(pins, pins + 1)) {
+                return account;
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get the account of a user, loaded if no reservation is open, and hold it in the map until unpinned
+     */
+    private Account pin(long userId, QuotaTier tier) {
+
+        while (true) {
+
+            Account account = accounts.get(userId);
+
+            if (account == null) {
+                Account loaded = new Account(userId, tier, store.find(userId), stripeCount);
+                account = accounts.putIfAbsent(userId, loaded);
+
+                if (account == null) {
+                    account = loaded;
+                }
+            }
+
+            int pins = account.pins.get();
+
+            if (pins == EVICTED) {
+                accounts.remove(userId, account);
+                continue;
+            }
+
+            if (account.pins.compareAndSet(pins, pins + 1)) {
+                account.changeTier(tier);
+                return account;
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Drop the account when nothing holds it, every increment of its reservations is stored already
+     */
+    private void unpin(Account account) {
+
+        if (account.pins.decrementAndGet() == 0 && account.pins.compareAndSet(0, EVICTED)) {
+            accounts.remove(account.userId, account);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Headroom of one user, the quota minus stored usage minus open reservations.
+     * Byte headroom is the pool plus every stripe, the pool is negative after a downgrade of tier.
+     */
+    static final class Account {
+
+        private final long userId;
+        private final AtomicReference<QuotaTier> tier;
+        private final AtomicLong pool;
+        private final AtomicLongArray stripes;
+        private final int stripeMask;
+        private final AtomicLong files;
+        private final AtomicInteger pins = new AtomicInteger();
+
+        private Account(long userId, QuotaTier tier, StorageUsage usage, int stripeCount) {
+
+            long usedBytes = usage == null ? 0 : usage.getUsedBytes();
+            long usedFiles = usage == null ? 0 : usage.getUsedFiles();
+
+            this.userId = userId;
+            this.tier = new AtomicReference<>(tier);
+            this.pool = new AtomicLong(tier.getMaxBytes() - usedBytes);
+            this.stripes = new AtomicLongArray(stripeCount * STRIPE_PADDING);
+            this.stripeMask = stripeCount - 1;
+            this.files = new AtomicLong(tier.getMaxFiles() - usedFiles);
+        }
+
+        long getUserId() {
+            return userId;
+        }
+
+        private void changeTier(QuotaTier newTier) {
+
+            QuotaTier current = tier.get();
+
+            if (current != newTier && tier.compareAndSet(current, newTier)) {
+                pool.addAndGet(newTier.getMaxBytes() - current.getMaxBytes());
+                files.addAndGet(newTier.getMaxFiles() - current.getMaxFiles());
+            }
+        }
+
+        private boolean reserveFile() {
+
+            long left;
+
+            while ((left = files.get()) >= 1) {
+
+                if (files.compareAndSet(left, left - 1)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private boolean reserveBytes(long bytes) {
+
+            int stripe = stripeOfCurrentThread();
+
+            if (take(stripe, bytes) || (grant(stripe, bytes) && take(stripe, bytes))) {
+                return true;
+            }
+
+            // The headroom may be held by stripes of other threads, gather it in pool and try once more
+            for (int i = 0; i < stripes.length(); i += STRIPE_PADDING) {
+
+                long held = stripes.getAndSet(i, 0);
+
+                if (held != 0) {
+                    pool.addAndGet(held);
+                }
+            }
+
+            return grant(stripe, bytes) && take(stripe, bytes);
+        }
+
+        private void releaseBytes(long bytes) {
+
+            if (bytes != 0) {
+                stripes.addAndGet(stripeOfCurrentThread(), bytes);
+            }
+        }
+
+        private boolean take(int stripe, long bytes) {
+
+            long held;
+
+            while ((held = stripes.get(stripe)) >= bytes) {
+
+                if (stripes.compareAndSet(stripe, held, held - bytes)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Move headroom from pool to a stripe, the missing bytes and a grant if the pool has it,
+         * nothing is moved if the pool can't cover the missing bytes
+         */
+        private boolean grant(int stripe, long bytes) {
+
+            long missing = Math.max(0, bytes - stripes.get(stripe));
+
+            while (true) {
+
+                long available = pool.get();
+
+                if (available < missing) {
+                    return false;
+                }
+
+                long moved = Math.min(available, missing + GRANT_BYTES);
+
+                if (pool.compareAndSet(available, available - moved)) {
+                    stripes.addAndGet(stripe, moved);
+                    return true;
+                }
+            }
+        }
+
+        private int stripeOfCurrentThread() {
+
+            long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+            return ((int) (h >>> 32) & stripeMask) * STRIPE_PADDING;
+        }
+    }
+}
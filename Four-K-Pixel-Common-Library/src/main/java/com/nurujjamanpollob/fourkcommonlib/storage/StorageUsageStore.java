@@ -0,0 +1,117 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.storage;
+
+import com.nurujjamanpollob.fourkcommonlib.model.StorageUsage;
+import com.nurujjamanpollob.fourkcommonlib.model.UploadCharge;
+
+import java.util.List;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Durable counters of {@link StorageUsage}, like a No-SQL collection changed with <code>$inc</code>.
+ * Every method is called from many threads, and increments of many servers must not be lost,
+ * so an implementation never reads a counter to write it back.
+ * Charges of {@link UploadCharge} record which user paid for which content, to give it back to that user.
+ */
+public interface StorageUsageStore {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param userId the user identifier
+     * @return current usage of the user, or null if nothing is stored yet
+     */
+    StorageUsage find(long userId);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Atomically add to the counters of a user, creating them at 0 if missing
+     * @param userId the user identifier
+     * @param bytes bytes to add, negative when files are deleted
+     * @param files number of files to add, negative when files are deleted
+     */
+    void increment(long userId, long bytes, long files);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Atomically record one more upload of a content charged to a user, creating the charge if missing
+     * @param contentId the content identifier
+     * @param userId the user identifier
+     * @param bytes the byte length of the content
+     */
+    void addCharge(String contentId, long userId, long bytes);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Atomically remove one upload of a content charged to a user
+     * @param contentId the content identifier
+     * @param userId the user identifier
+     * @return the removed charge with {@link UploadCharge#getUploads()} of 1, or null if the user has no upload of the content
+     */
+    UploadCharge removeCharge(String contentId, long userId);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Remove every charge of a content, like when its file is reclaimed
+     * @param contentId the content identifier
+     * @return the removed charges, an entry for each charged user
+     */
+    List<UploadCharge> removeCharges(String contentId);
+}
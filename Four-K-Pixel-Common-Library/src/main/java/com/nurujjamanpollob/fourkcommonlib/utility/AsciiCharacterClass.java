@@ -0,0 +1,137 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.utility;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Precomputed ASCII character classes, used to replace small {@link java.util.regex.Pattern} checks on hot validation paths.
+ * Each class is a 128 bit mask split into two longs, so a check is a shift and an AND without any allocation.
+ * Any character outside ASCII range never matches.
+ */
+public enum AsciiCharacterClass {
+
+    /**
+     * Same as <code>^[a-z\d]*$</code>
+     */
+    LOWER_ALPHA_NUMERIC("abcdefghijklmnopqrstuvwxyz0123456789"),
+
+    /**
+     * Same as <code>^[A-Za-z]*$</code>
+     */
+    ALPHA("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"),
+
+    /**
+     * Same as <code>^[A-Za-z\s\d-_,.():&]*$</code>, where \s is a single space
+     */
+    ADDRESS("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789 -_,.():&");
+
+    private final long lowMask;
+    private final long highMask;
+
+    AsciiCharacterClass(String members) {
+
+        long low = 0;
+        long high = 0;
+
+        for (int i = 0; i < members.length(); i++) {
+            char c = members.charAt(i);
+
+            if (c < 64) {
+                low |= 1L << c;
+            } else {
+                high |= 1L << (c - 64);
+            }
+        }
+
+        this.lowMask = low;
+        this.highMask = high;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param c the character to check
+     * @return true if the character is member of this class
+     */
+    public boolean contains(char c) {
+
+        if (c < 64) {
+            return (lowMask & (1L << c)) != 0;
+        }
+
+        return c < 128 && (highMask & (1L << (c - 64))) != 0;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param input the String to scan, must not be null
+     * @return true if every character of the String is member of this class, an empty String is matched.
+     */
+    public boolean matchesAll(CharSequence input) {
+
+        for (int i = 0, len = input.length(); i < len; i++) {
+
+            if (!contains(input.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
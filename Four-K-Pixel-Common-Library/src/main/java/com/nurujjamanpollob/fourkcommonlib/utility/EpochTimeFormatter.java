@@ -0,0 +1,286 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.utility;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Immutable and thread safe formatter of <a href="https://en.wikipedia.org/wiki/Unix_time">Unix Time</a> in milliseconds,
+ * backed by {@link DateTimeFormatter}. Instances are cached by pattern and zone, so a formatter is created once and shared by all threads.
+ *
+ * Patterns are {@link DateTimeFormatter} patterns, for the default pattern <code>yyyy-MM-dd 'at' HH:mm:ss z</code>
+ * the output is same as {@link java.text.SimpleDateFormat}.
+ *
+ * If every date field of the pattern comes before every time field, like the default pattern,
+ * {@link EpochTimeFormatter#formatAll(long[], String[])} formats the date part once per day,
+ * and reuses it for following times of the same day.
+ */
+public final class EpochTimeFormatter {
+
+    /**
+     * Default pattern of {@link UtilityCollection#unixEpochTimeToHumanReadableTimeConverter(Long)}
+     */
+    public static final String DEFAULT_PATTERN = "yyyy-MM-dd 'at' HH:mm:ss z";
+
+    /**
+     * Patterns come from code, not from users, so this limit is never expected to be reached.
+     * Formatters over this limit are still created, but not cached.
+     */
+    private static final int MAX_CACHED_FORMATTERS = 256;
+
+    private static final ConcurrentMap<Key, EpochTimeFormatter> CACHE = new ConcurrentHashMap<>();
+
+    private static final String DATE_LETTERS = "GuyDMLdQqYwWEecFg";
+    private static final String TIME_LETTERS = "aBhKkHmsSAnNvVzOXxZ";
+
+    private final String pattern;
+    private final ZoneId zone;
+    private final DateTimeFormatter formatter;
+
+    /**
+     * Formatter of date part, or null if the pattern can't be split into date and time part
+     */
+    private final DateTimeFormatter dateFormatter;
+
+    /**
+     * Formatter of time part, or null if the pattern has no time field
+     */
+    private final DateTimeFormatter timeFormatter;
+
+    private record Key(String pattern, ZoneId zone) {
+    }
+
+    private EpochTimeFormatter(String pattern, ZoneId zone) {
+
+        this.pattern = pattern;
+        this.zone = zone;
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(zone);
+
+        int split = dateTimeSplitIndex(pattern);
+
+        if (split < 0) {
+            this.dateFormatter = null;
+            this.timeFormatter = null;
+        } else {
+            this.dateFormatter = DateTimeFormatter.ofPattern(pattern.substring(0, split)).withZone(zone);
+            this.timeFormatter = split == pattern.length() ? null : DateTimeFormatter.ofPattern(pattern.substring(split)).withZone(zone);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get the cached formatter of pattern and zone, it's created on first use.
+     * @param pattern the {@link DateTimeFormatter} pattern
+     * @param zone the zone to format times in
+     * @return formatter of pattern and zone
+     * @throws IllegalArgumentException if the pattern is invalid
+     */
+    public static EpochTimeFormatter of(String pattern, ZoneId zone) {
+
+        Objects.requireNonNull(pattern, "pattern");
+        Objects.requireNonNull(zone, "zone");
+
+        Key key = new Key(pattern, zone);
+        EpochTimeFormatter cached = CACHE.get(key);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        if (CACHE.size() >= MAX_CACHED_FORMATTERS) {
+            return new EpochTimeFormatter(pattern, zone);
+        }
+
+        return CACHE.computeIfAbsent(key, k -> new EpochTimeFormatter(k.pattern(), k.zone()));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get the formatter of {@link EpochTimeFormatter#DEFAULT_PATTERN} in system default zone
+     * @return default formatter
+     */
+    public static EpochTimeFormatter getDefault() {
+        return of(DEFAULT_PATTERN, ZoneId.systemDefault());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Format a single time
+     * @param epochMillis the unix time in milliseconds
+     * @return formatted time
+     */
+    public String format(long epochMillis) {
+        return formatter.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Format many times into a preallocated output, like timestamps of a feed page.
+     * Times of a feed are mostly of same few days, so the date part is formatted once per day and reused,
+     * only the time part is formatted for every time.
+     * The output can be reused for the next page, every used slot is overwritten.
+     * @param epochMillis the unix times in milliseconds
+     * @param output the output, <code>output[i]</code> is set to formatted <code>epochMillis[i]</code>
+     * @return the same output instance, for chaining
+     * @throws IllegalArgumentException if output is shorter than epochMillis
+     */
+    public String[] formatAll(long[] epochMillis, String[] output) {
+
+        if (output.length < epochMillis.length) {
+            throw new IllegalArgumentException("Output length " + output.length + " is shorter than input length " + epochMillis.length);
+        }
+
+        // Pattern can't be split, format every time completely
+        if (dateFormatter == null) {
+            for (int i = 0; i < epochMillis.length; i++) {
+                output[i] = format(epochMillis[i]);
+            }
+            return output;
+        }
+
+        // Date part of last seen day, valid for [dayStart, dayEnd)
+        long dayStart = 1;
+        long dayEnd = 0;
+        String datePart = null;
+
+        for (int i = 0; i < epochMillis.length; i++) {
+
+            long time = epochMillis[i];
+            ZonedDateTime dateTime = Instant.ofEpochMilli(time).atZone(zone);
+
+            if (time < dayStart || time >= dayEnd) {
+                LocalDate day = dateTime.toLocalDate();
+                dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+                dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                datePart = dateFormatter.format(dateTime);
+            }
+
+            output[i] = timeFormatter == null ? datePart : datePart.concat(timeFormatter.format(dateTime));
+        }
+
+        return output;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the pattern of this formatter
+     */
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the zone of this formatter
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find where date part of pattern ends, that is the first time field,
+     * literals between the last date field and the first time field belong to the date part.
+     * @param pattern the pattern to split
+     * @return the split index, pattern length if there is no time field,
+     * or -1 if a date field comes after a time field or the pattern has optional sections
+     */
+    private static int dateTimeSplitIndex(String pattern) {
+
+        int firstTimeField = -1;
+        boolean quoted = false;
+
+        for (int i = 0; i < pattern.length(); i++) {
+
+            char c = pattern.charAt(i);
+
+            if (c == '\'') {
+                quoted = !quoted;
+                continue;
+            }
+
+            if (quoted) {
+                continue;
+            }
+
+            if (c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+                return -1;
+            }
+
+            if (TIME_LETTERS.indexOf(c) >= 0) {
+                if (firstTimeField < 0) {
+                    firstTimeField = i;
+                }
+            } else if (DATE_LETTERS.indexOf(c) >= 0 && firstTimeField >= 0) {
+                return -1;
+            }
+        }
+
+        return firstTimeField < 0 ? pattern.length() : firstTimeField;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.utility;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Facts of an image read from its format header by {@link ImageHeaderReader}, without decoding any pixel.
+ * Width and height are of stored pixels, an image with a rotating orientation is displayed with them swapped,
+ * see {@link ImageHeader#displayWidth()}.
+ * @param mimeType the image mime type
+ * @param width the stored width in pixels
+ * @param height the stored height in pixels
+ * @param bitDepth bits per channel sample, like 8 or 16
+ * @param orientation the EXIF orientation, 1 to 8, 1 if the image has none
+ */
+public record ImageHeader(String mimeType, int width, int height, int bitDepth, int orientation) {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true if the orientation turns the image by 90 or 270 degree, so width and height are swapped on display
+     */
+    public boolean isRotated() {
+        return orientation >= 5 && orientation <= 8;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return width of the image as displayed, after orientation is applied
+     */
+    public int displayWidth() {
+        return isRotated() ? height : width;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return height of the image as displayed, after orientation is applied
+     */
+    public int displayHeight() {
+        return isRotated() ? width : height;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Check a minimum resolution regardless of landscape or portrait,
+     * a 3840x2160 rule accepts both 3840x2160 and 2160x3840 images
+     * @param minLongEdge minimum length of longer edge in pixels
+     * @param minShortEdge minimum length of shorter edge in pixels
+     * @return true if both edges of the image are at least as long
+     */
+    public boolean isAtLeast(int minLongEdge, int minShortEdge) {
+        return Math.max(width, height) >= minLongEdge && Math.min(width, height) >= minShortEdge;
+    }
+}
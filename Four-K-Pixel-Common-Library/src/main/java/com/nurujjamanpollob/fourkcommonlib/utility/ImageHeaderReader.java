@@ -0,0 +1,510 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.utility;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Read width, height, bit depth and orientation of an image from its format header, never decoding pixels.
+ * Only the structures holding these facts are read with small positional reads:
+ * PNG IHDR chunk, GIF logical screen, JPEG SOFn and EXIF APP1 segments, WebP VP8X, VP8 and VP8L headers and EXIF chunk,
+ * and TIFF image file directories, including DNG sub directories of the full resolution image.
+ * Reading a 15MB 4K image costs a few reads of some bytes each, instead of a multi megabyte decode.
+ * This class should not accept constructor.
+ */
+public final class ImageHeaderReader {
+
+    private static final int TIFF_TAG_NEW_SUBFILE_TYPE = 254;
+    private static final int TIFF_TAG_IMAGE_WIDTH = 256;
+    private static final int TIFF_TAG_IMAGE_LENGTH = 257;
+    private static final int TIFF_TAG_BITS_PER_SAMPLE = 258;
+    private static final int TIFF_TAG_ORIENTATION = 274;
+    private static final int TIFF_TAG_SUB_IFDS = 330;
+
+    private static final int TIFF_TYPE_SHORT = 3;
+
+    /**
+     * Upper bound of walked JPEG segments, WebP chunks, TIFF entries and sub directories, so a crafted file can't loop forever
+     */
+    private static final int MAX_STRUCTURES = 1024;
+
+    private static final int MAX_SUB_IFDS = 8;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Suppress default constructor
+     */
+    private ImageHeaderReader() {
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read image facts from the header of a file
+     * @param path the image file
+     * @return the facts, or null if the file is not a PNG, GIF, JPEG, WebP or TIFF image, or its header is damaged
+     * @throws IOException if the file can't be opened or read
+     */
+    public static ImageHeader read(Path path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read image facts from the header of an open file, with positional reads only,
+     * so the channel position is not changed
+     * @param channel the image file channel
+     * @return the facts, or null if the file is not a supported image, or its header is damaged
+     * @throws IOException if the file can't be read
+     */
+    public static ImageHeader read(FileChannel channel) throws IOException {
+
+        ByteBuffer header = readAt(channel, 0, 32);
+        String mimeType = ImageMimeSniffer.sniff(header);
+
+        if (mimeType == null) {
+            return null;
+        }
+
+        try {
+            return switch (mimeType) {
+                case ImageMimeSniffer.MIME_PNG -> png(header);
+                case ImageMimeSniffer.MIME_GIF -> gif(header);
+                case ImageMimeSniffer.MIME_JPEG -> jpeg(channel);
+                case ImageMimeSniffer.MIME_WEBP -> webp(channel, header);
+                case ImageMimeSniffer.MIME_TIFF, ImageMimeSniffer.MIME_DNG -> valid(tiff(channel, 0, mimeType));
+                default -> null;
+            };
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated header
+            return null;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote IHDR is always the first chunk, width and height are at 16 and 20, bit depth at 24
+     */
+    private static ImageHeader png(ByteBuffer header) {
+
+        header.order(ByteOrder.BIG_ENDIAN);
+
+        if (header.get(12) != 'I' || header.get(13) != 'H' || header.get(14) != 'D' || header.get(15) != 'R') {
+            return null;
+        }
+
+        return valid(new ImageHeader(ImageMimeSniffer.MIME_PNG, header.getInt(16), header.getInt(20), header.get(24) & 0xFF, 1));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Logical screen size follows the signature, bit depth is the color resolution of packed field
+     */
+    private static ImageHeader gif(ByteBuffer header) {
+
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        int bitDepth = ((header.get(10) >> 4) & 0x07) + 1;
+
+        return valid(new ImageHeader(ImageMimeSniffer.MIME_GIF, header.getShort(6) & 0xFFFF, header.getShort(8) & 0xFFFF, bitDepth, 1));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Walk segments until the first start of frame, skipping every segment body,
+     * orientation is read from EXIF APP1 segment which comes before the frame
+     */
+    private static ImageHeader jpeg(FileChannel channel) throws IOException {
+
+        long position = 2;
+        int orientation = 1;
+
+        for (int i = 0; i < MAX_STRUCTURES; i++) {
+
+            ByteBuffer segment = readAt(channel, position, 10);
+
+            if (segment.remaining() < 4 || (segment.get(0) & 0xFF) != 0xFF) {
+                return null;
+            }
+
+            int marker = segment.get(1) & 0xFF;
+
+            // Fill byte before a marker
+            if (marker == 0xFF) {
+                position++;
+                continue;
+            }
+
+            // Markers without length, TEM and RSTn
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                position += 2;
+                continue;
+            }
+
+            // End of image or start of scan before any frame
+            if (marker == 0xD9 || marker == 0xDA) {
+                return null;
+            }
+
+            int length = segment.getShort(2) & 0xFFFF;
+
+            if (isStartOfFrame(marker)) {
+
+                ByteBuffer frame = readAt(channel, position + 4, 5);
+                int bitDepth = frame.get(0) & 0xFF;
+                int height = frame.getShort(1) & 0xFFFF;
+                int width = frame.getShort(3) & 0xFFFF;
+
+                return valid(new ImageHeader(ImageMimeSniffer.MIME_JPEG, width, height, bitDepth, orientation));
+            }
+
+            if (marker == 0xE1 && segment.remaining() >= 10
+                    && segment.get(4) == 'E' && segment.get(5) == 'x' && segment.get(6) == 'i' && segment.get(7) == 'f'
+                    && segment.get(8) == 0 && segment.get(9) == 0) {
+
+                ImageHeader exif = tiff(channel, position + 10, ImageMimeSniffer.MIME_JPEG);
+
+                if (exif != null) {
+                    orientation = exif.orientation();
+                }
+            }
+
+            if (length < 2) {
+                return null;
+            }
+
+            position += 2 + length;
+        }
+
+        return null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true for SOF0 to SOF15, except DHT, JPG and DAC markers which share the range
+     */
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote First chunk tells the WebP kind, extended VP8X has canvas size and may have an EXIF chunk for orientation,
+     * simple lossy VP8 and lossless VP8L have the size in their bitstream header
+     */
+    private static ImageHeader webp(FileChannel channel, ByteBuffer header) throws IOException {
+
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (header.get(12) == 'V' && header.get(13) == 'P' && header.get(14) == '8' && header.get(15) == 'X') {
+
+            int flags = header.get(20) & 0xFF;
+            int width = 1 + readUnsigned24(header, 24);
+            int height = 1 + readUnsigned24(header, 27);
+            int orientation = (flags & 0x08) != 0 ? webpOrientation(channel, header) : 1;
+
+            return valid(new ImageHeader(ImageMimeSniffer.MIME_WEBP, width, height, 8, orientation));
+        }
+
+        if (header.get(12) == 'V' && header.get(13) == 'P' && header.get(14) == '8' && header.get(15) == ' ') {
+
+            // Key frame start code, then 14 bit width and height, upper 2 bits are scaling
+            if ((header.get(23) & 0xFF) != 0x9D || (header.get(24) & 0xFF) != 0x01 || (header.get(25) & 0xFF) != 0x2A) {
+                return null;
+            }
+
+            return valid(new ImageHeader(ImageMimeSniffer.MIME_WEBP, header.getShort(26) & 0x3FFF, header.getShort(28) & 0x3FFF, 8, 1));
+        }
+
+        if (header.get(12) == 'V' && header.get(13) == 'P' && header.get(14) == '8' && header.get(15) == 'L') {
+
+            if ((header.get(20) & 0xFF) != 0x2F) {
+                return null;
+            }
+
+            // 14 bit width minus one, then 14 bit height minus one
+            int bits = header.getInt(21);
+            int width = 1 + (bits & 0x3FFF);
+            int height = 1 + ((bits >>> 14) & 0x3FFF);
+
+            return valid(new ImageHeader(ImageMimeSniffer.MIME_WEBP, width, height, 8, 1));
+        }
+
+        return null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Walk chunks after VP8X to the EXIF chunk, and read orientation from its TIFF structure
+     */
+    private static int webpOrientation(FileChannel channel, ByteBuffer header) throws IOException {
+
+        long riffEnd = 8 + (header.getInt(4) & 0xFFFFFFFFL);
+        long position = 12 + 8 + (header.getInt(16) & 0xFFFFFFFFL);
+
+        for (int i = 0; i < MAX_STRUCTURES && position + 8 <= riffEnd; i++) {
+
+            ByteBuffer chunk = readAt(channel, position, 8).order(ByteOrder.LITTLE_ENDIAN);
+
+            if (chunk.remaining() < 8) {
+                return 1;
+            }
+
+            long size = chunk.getInt(4) & 0xFFFFFFFFL;
+
+            if (chunk.get(0) == 'E' && chunk.get(1) == 'X' && chunk.get(2) == 'I' && chunk.get(3) == 'F') {
+
+                long data = position + 8;
+                ByteBuffer prefix = readAt(channel, data, 6);
+
+                // Some writers keep the JPEG style Exif prefix
+                if (prefix.remaining() == 6 && prefix.get(0) == 'E' && prefix.get(1) == 'x' && prefix.get(2) == 'i' && prefix.get(3) == 'f') {
+                    data += 6;
+                }
+
+                ImageHeader exif = tiff(channel, data, ImageMimeSniffer.MIME_WEBP);
+                return exif == null ? 1 : exif.orientation();
+            }
+
+            // Chunks are padded to even size
+            position += 8 + size + (size & 1);
+        }
+
+        return 1;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read the first image file directory of a TIFF structure at base offset, offsets inside are relative to base.
+     * If the first directory is a reduced resolution preview, like in DNG, size comes from the first full resolution sub directory.
+     * The EXIF block of JPEG and WebP is the same structure, where only orientation is used.
+     */
+    private static ImageHeader tiff(FileChannel channel, long base, String mimeType) throws IOException {
+
+        ByteBuffer header = readAt(channel, base, 8);
+
+        if (header.remaining() < 8) {
+            return null;
+        }
+
+        ByteOrder order;
+
+        if (header.get(0) == 'I' && header.get(1) == 'I') {
+            order = ByteOrder.LITTLE_ENDIAN;
+        } else if (header.get(0) == 'M' && header.get(1) == 'M') {
+            order = ByteOrder.BIG_ENDIAN;
+        } else {
+            return null;
+        }
+
+        header.order(order);
+
+        if ((header.getShort(2) & 0xFFFF) != 42) {
+            return null;
+        }
+
+        long[] first = directory(channel, base, header.getInt(4) & 0xFFFFFFFFL, order);
+
+        if (first == null) {
+            return null;
+        }
+
+        long[] image = first;
+
+        // Reduced resolution preview, the full image is in a sub directory
+        if ((first[4] & 1) != 0 && first[5] > 0) {
+
+            long[] subDirectories = subDirectoryOffsets(channel, base, first, order);
+
+            for (long offset : subDirectories) {
+
+                long[] sub = directory(channel, base, offset, order);
+
+                if (sub != null && (sub[4] & 1) == 0) {
+                    image = sub;
+                    break;
+                }
+            }
+        }
+
+        int orientation = first[3] >= 1 && first[3] <= 8 ? (int) first[3] : 1;
+
+        return new ImageHeader(mimeType, (int) image[0], (int) image[1], (int) image[2], orientation);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read tags of one image file directory
+     * @return width, height, bits per sample, orientation, new subfile type, sub directory count and sub directory value,
+     * or null if the directory is outside file
+     */
+    private static long[] directory(FileChannel channel, long base, long offset, ByteOrder order) throws IOException {
+
+        if (offset < 8) {
+            return null;
+        }
+
+        ByteBuffer countBuffer = readAt(channel, base + offset, 2).order(order);
+
+        if (countBuffer.remaining() < 2) {
+            return null;
+        }
+
+        int count = Math.min(countBuffer.getShort(0) & 0xFFFF, MAX_STRUCTURES);
+        ByteBuffer entries = readAt(channel, base + offset + 2, count * 12).order(order);
+
+        // width, height, bits, orientation, subfile type, sub directory count, sub directory value
+        long[] tags = {0, 0, 8, 1, 0, 0, 0};
+
+        for (int i = 0; i + 12 <= entries.remaining(); i += 12) {
+
+            int tag = entries.getShort(i) & 0xFFFF;
+            int type = entries.getShort(i + 2) & 0xFFFF;
+            long valueCount = entries.getInt(i + 4) & 0xFFFFFFFFL;
+            long value = type == TIFF_TYPE_SHORT ? entries.getShort(i + 8) & 0xFFFF : entries.getInt(i + 8) & 0xFFFFFFFFL;
+
+            switch (tag) {
+                case TIFF_TAG_NEW_SUBFILE_TYPE -> tags[4] = value;
+                case TIFF_TAG_IMAGE_WIDTH -> tags[0] = value;
+                case TIFF_TAG_IMAGE_LENGTH -> tags[1] = value;
+                case TIFF_TAG_BITS_PER_SAMPLE -> tags[2] = valueCount * 2 <= 4
+                        ? value
+                        : firstShortAt(channel, base + (entries.getInt(i + 8) & 0xFFFFFFFFL), order);
+                case TIFF_TAG_ORIENTATION -> tags[3] = value;
+                case TIFF_TAG_SUB_IFDS -> {
+                    tags[5] = valueCount;
+                    tags[6] = entries.getInt(i + 8) & 0xFFFFFFFFL;
+                }
+                default -> {
+                    // Not needed
+                }
+            }
+        }
+
+        return tags;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return offsets of sub directories, inline if there is only one, otherwise read from the offset array
+     */
+    private static long[] subDirectoryOffsets(FileChannel channel, long base, long[] directory, ByteOrder order) throws IOException {
+
+        int count = (int) Math.min(directory[5], MAX_SUB_IFDS);
+
+        if (count == 1) {
+            return new long[]{directory[6]};
+        }
+
+        ByteBuffer offsets = readAt(channel, base + directory[6], count * 4).order(order);
+        long[] result = new long[offsets.remaining() / 4];
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] = offsets.getInt(i * 4) & 0xFFFFFFFFL;
+        }
+
+        return result;
+    }
+
+    private static long firstShortAt(FileChannel channel, long position, ByteOrder order) throws IOException {
+
+        ByteBuffer value = readAt(channel, position, 2).order(order);
+        return value.remaining() < 2 ? 8 : value.getShort(0) & 0xFFFF;
+    }
+
+    private static int readUnsigned24(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xFF) | (buffer.get(index + 1) & 0xFF) << 8 | (buffer.get(index + 2) & 0xFF) << 16;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the header if both dimensions are positive, null otherwise
+     */
+    private static ImageHeader valid(ImageHeader header) {
+        return header != null && header.width() > 0 && header.height() > 0 ? header : null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read up to length bytes at a position, fewer at end of file
+     * @return buffer from 0 to number of read bytes
+     */
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.utility;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Detect mime type of image formats accepted by the application from magic numbers in file header.
+ * Only first {@link ImageMimeSniffer#HEADER_SIZE} bytes are read through a {@link FileChannel},
+ * into a direct buffer pooled per thread, so sniffing a 15MB 4K image costs one small read.
+ * Recognised formats are PNG, JPEG, GIF, WebP, TIFF, DNG and HEIF/HEIC,
+ * for other content {@link ImageMimeSniffer#sniff(Path)} returns null, and the caller may use a slower full detector.
+ * This class should not accept constructor.
+ */
+public final class ImageMimeSniffer {
+
+    /**
+     * Maximum bytes read from file header, large enough to hold the first TIFF directory of a DNG file
+     */
+    public static final int HEADER_SIZE = 1024;
+
+    public static final String MIME_PNG = "image/png";
+    public static final String MIME_JPEG = "image/jpeg";
+    public static final String MIME_GIF = "image/gif";
+    public static final String MIME_WEBP = "image/webp";
+    public static final String MIME_TIFF = "image/tiff";
+    public static final String MIME_DNG = "image/x-adobe-dng";
+    public static final String MIME_HEIC = "image/heic";
+    public static final String MIME_HEIF = "image/heif";
+
+    /**
+     * TIFF tag of DNGVersion, present in first directory of every DNG file
+     */
+    private static final int TIFF_TAG_DNG_VERSION = 0xC612;
+
+    private static final ThreadLocal<ByteBuffer> HEADER_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(HEADER_SIZE));
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Suppress default constructor
+     */
+    private ImageMimeSniffer() {
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read file header and detect image mime type.
+     * @param path the file to sniff
+     * @return the image mime type, or null if the header is not a recognised image format
+     * @throws IOException if the file can't be opened or read
+     */
+    public static String sniff(Path path) throws IOException {
+
+        ByteBuffer buffer = HEADER_BUFFER.get();
+        buffer.clear();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            // Fill buffer or stop at end of file
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // keep reading
+            }
+        }
+
+        buffer.flip();
+        return sniff(buffer);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Detect image mime type from header bytes between position and limit of buffer.
+     * The buffer position, limit and byte order are not changed.
+     * @param header the first bytes of a file
+     * @return the image mime type, or null if the header is not a recognised image format
+     */
+    public static String sniff(ByteBuffer header) {
+
+        int start = header.position();
+        int length = header.remaining();
+
+        if (length >= 8 && matches(header, start, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return MIME_PNG;
+        }
+
+        if (length >= 3 && matches(header, start, 0xFF, 0xD8, 0xFF)) {
+            return MIME_JPEG;
+        }
+
+        if (length >= 6 && (matches(header, start, 'G', 'I', 'F', '8', '7', 'a') || matches(header, start, 'G', 'I', 'F', '8', '9', 'a'))) {
+            return MIME_GIF;
+        }
+
+        if (length >= 12 && matches(header, start, 'R', 'I', 'F', 'F') && matches(header, start + 8, 'W', 'E', 'B', 'P')) {
+            return MIME_WEBP;
+        }
+
+        if (length >= 8 && (matches(header, start, 'I', 'I', 0x2A, 0x00) || matches(header, start, 'M', 'M', 0x00, 0x2A))) {
+            return isDng(header, start, length) ? MIME_DNG : MIME_TIFF;
+        }
+
+        // BigTIFF
+        if (length >= 4 && (matches(header, start, 'I', 'I', 0x2B, 0x00) || matches(header, start, 'M', 'M', 0x00, 0x2B))) {
+            return MIME_TIFF;
+        }
+
+        if (length >= 12 && matches(header, start + 4, 'f', 't', 'y', 'p')) {
+            return heifMimeType(header, start + 8);
+        }
+
+        return null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Compare bytes at offset with expected unsigned values
+     */
+    private static boolean matches(ByteBuffer buffer, int offset, int... expected) {
+
+        for (int i = 0; i < expected.length; i++) {
+            if ((buffer.get(offset + i) & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Look for DNGVersion tag in the first TIFF directory, as far as it's inside the header.
+     * Tags in a directory are sorted ascending, so the scan stops at first larger tag.
+     */
+    private static boolean isDng(ByteBuffer header, int start, int length) {
+
+        ByteOrder order = header.get(start) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+
+        long directoryOffset = readInt(header, start + 4, order) & 0xFFFFFFFFL;
+
+        if (directoryOffset < 8 || directoryOffset + 2 > length) {
+            return false;
+        }
+
+        int entryCount = readShort(header, start + (int) directoryOffset, order);
+        int entryOffset = (int) directoryOffset + 2;
+
+        for (int i = 0; i < entryCount && entryOffset + 12 <= length; i++, entryOffset += 12) {
+
+            int tag = readShort(header, start + entryOffset, order);
+
+            if (tag == TIFF_TAG_DNG_VERSION) {
+                return true;
+            }
+
+            if (tag > TIFF_TAG_DNG_VERSION) {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Map ISO base media major brand to HEIF mime type, null for other brands like mp4 video.
+     */
+    private static String heifMimeType(ByteBuffer header, int brandOffset) {
+
+        if (matches(header, brandOffset, 'h', 'e', 'i', 'c') || matches(header, brandOffset, 'h', 'e', 'i', 'x')
+                || matches(header, brandOffset, 'h', 'e', 'v', 'c') || matches(header, brandOffset, 'h', 'e', 'v', 'x')
+                || matches(header, brandOffset, 'h', 'e', 'i', 'm') || matches(header, brandOffset, 'h', 'e', 'i', 's')) {
+            return MIME_HEIC;
+        }
+
+        if (matches(header, brandOffset, 'm', 'i', 'f', '1') || matches(header, brandOffset, 'm', 's', 'f', '1')
+                || matches(header, brandOffset, 'h', 'e', 'i', 'f')) {
+            return MIME_HEIF;
+        }
+
+        return null;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read unsigned 16 bit value at absolute index
+     */
+    static int readShort(ByteBuffer buffer, int index, ByteOrder order) {
+
+        int b0 = buffer.get(index) & 0xFF;
+        int b1 = buffer.get(index + 1) & 0xFF;
+
+        return order == ByteOrder.LITTLE_ENDIAN ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read 32 bit value at absolute index
+     */
+    static int readInt(ByteBuffer buffer, int index, ByteOrder order) {
+
+        int high = readShort(buffer, order == ByteOrder.LITTLE_ENDIAN ? index + 2 : index, order);
+        int low = readShort(buffer, order == ByteOrder.LITTLE_ENDIAN ? index : index + 2, order);
+
+        return (high << 16) | low;
+    }
+}
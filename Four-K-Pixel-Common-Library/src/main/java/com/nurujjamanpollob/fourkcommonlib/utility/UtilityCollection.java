@@ -69,6 +69,7 @@ import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.time.DateTimeException;
 import java.time.Month;
+import java.time.ZoneId;
 import java.util.Date;
 import java.util.regex.Pattern;
 
@@ -219,13 +220,30 @@ public class UtilityCollection {
      * use this method {@link UtilityCollection#unixEpochTimeToHumanReadableTimeConverter(Long, SimpleDateFormat)}.
      * @param unixTimeEpoch the unix time long to format as human-readable String.
      * @return Human-readable Unix Epoch time in <pre><code>yyyy-MM-dd 'at' HH:mm:ss z</code></pre> format.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Uses the shared {@link EpochTimeFormatter#getDefault()}, instead of creating a {@link SimpleDateFormat} on every call.
+     * To format many times at once, like a feed page, use {@link EpochTimeFormatter#formatAll(long[], String[])}.
      */
     public static String unixEpochTimeToHumanReadableTimeConverter(Long unixTimeEpoch){
 
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd 'at' HH:mm:ss z");
-        Date date = new Date(unixTimeEpoch);
+        return EpochTimeFormatter.getDefault().format(unixTimeEpoch);
+
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Method to convert a <a href="https://en.wikipedia.org/wiki/Unix_time">Unix Time</a> to a human-readable format,
+     * with a {@link java.time.format.DateTimeFormatter} pattern in given zone.
+     * The formatter is cached by pattern and zone, and safe to call from any thread, see {@link EpochTimeFormatter}.
+     * @param unixTimeEpoch the unix time long to format as human-readable String.
+     * @param pattern the {@link java.time.format.DateTimeFormatter} pattern, like <code>yyyy-MM-dd 'at' HH:mm:ss z</code>
+     * @param zone the zone to represent the time in
+     * @return Human-readable Unix Epoch time in given pattern
+     */
+    public static String unixEpochTimeToHumanReadableTimeConverter(Long unixTimeEpoch, String pattern, ZoneId zone){
 
-        return formatter.format(date);
+        return EpochTimeFormatter.of(pattern, zone).format(unixTimeEpoch);
 
     }
 
@@ -240,6 +258,10 @@ public class UtilityCollection {
      * @param unixTimeEpoch the unix time long to format as human-readable String.
      * @param simpleDateFormat the {@link SimpleDateFormat} to format the unix time to a human-readable format.
      * @return Human-readable Unix Epoch time in your preferred {@link SimpleDateFormat}
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * {@link SimpleDateFormat} is not thread safe, a formatter shared between threads must not be passed here.
+     * Prefer {@link UtilityCollection#unixEpochTimeToHumanReadableTimeConverter(Long, String, ZoneId)}, which is safe to share.
      */
     public static String unixEpochTimeToHumanReadableTimeConverter(Long unixTimeEpoch, SimpleDateFormat simpleDateFormat){
 
@@ -253,6 +275,10 @@ public class UtilityCollection {
      * @apiNote This method returns file mime type from {@link Magic#getMagicMatch(File, boolean)},
      * There are not much information regarding File Mime type reading process.
      *
+     * Updated by Nurujjaman Pollob 2022
+     * The file header is checked first with {@link ImageMimeSniffer}, which reads only first few hundred bytes
+     * and recognise accepted image formats. {@link Magic} is used only if the header is not recognised.
+     *
      * @param filePath the file absolute path, to find the file in a specific location and get its content type.
      * @return The content type of the file, or null if the content type cannot be determined.
      * @throws IOException there is not much information on this exception,
@@ -260,6 +286,12 @@ public class UtilityCollection {
      */
     public static String fileMimeTypeFromPath(String filePath) throws IOException {
 
+        String imageMimeType = ImageMimeSniffer.sniff(Path.of(filePath));
+
+        if(imageMimeType != null){
+            return imageMimeType;
+        }
+
         File file = new File(filePath);
 
         MagicMatch match;
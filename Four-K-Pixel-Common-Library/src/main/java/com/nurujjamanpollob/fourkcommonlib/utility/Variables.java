@@ -74,4 +74,28 @@ public class Variables {
      * which is fairly high for an image file
      */
     public static long UPLOAD_FILE_MAX_SIZE = 15728640;
+
+    /**
+     * @apiNote Time limit in milliseconds to validate all attachments of a single post,
+     * checks still running after this limit are cancelled and the post is rejected
+     */
+    public static long ATTACHMENT_VALIDATION_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * @apiNote Root directory of the content addressed attachment store,
+     * used by {@link com.nurujjamanpollob.fourkcommonlib.storage.ContentStore#getDefault()}
+     */
+    public static String CONTENT_STORE_DIRECTORY = "uploads/content";
+
+    /**
+     * @apiNote Directory of generated image derivatives,
+     * used by {@link com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator#getDefault()}
+     */
+    public static String DERIVATIVE_CACHE_DIRECTORY = "uploads/derivatives";
+
+    /**
+     * @apiNote Directory of generated deep zoom tile pyramids,
+     * used by {@link com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramidGenerator#getDefault()}
+     */
+    public static String TILE_CACHE_DIRECTORY = "uploads/tiles";
 }
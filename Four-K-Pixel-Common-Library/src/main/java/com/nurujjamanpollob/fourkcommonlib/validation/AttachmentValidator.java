@@ -0,0 +1,271 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.validation;
+
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadata;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadataCache;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageHeader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Validate attachment files of a {@link com.nurujjamanpollob.fourkcommonlib.model.Post} concurrently.
+ * Each attachment needs a stat and a mime sniff, which is mostly disk wait,
+ * so a gallery post checks its files in parallel on a shared, bounded pool of daemon threads.
+ * The first rejected file cancels the remaining checks, and the whole post has a time limit.
+ * This class should not accept constructor.
+ */
+public final class AttachmentValidator {
+
+    /**
+     * Number of attachment checking threads, the work is IO bound, so more threads than processors
+     */
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * Maximum number of queued checks, when full the posting thread runs the check itself
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    /**
+     * @apiNote Outcome of validating every attachment of a post
+     */
+    public enum Outcome {
+
+        /**
+         * Every attachment is an image within size limit
+         */
+        VALID,
+
+        /**
+         * At least one attachment is missing, not an image or too large
+         */
+        INVALID,
+
+        /**
+         * The checks did not finish in time, or the caller was interrupted
+         */
+        TIMED_OUT
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Suppress default constructor
+     */
+    private AttachmentValidator() {
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate every attachment path concurrently, see {@link AttachmentValidator#isValidImageWithinSizeLimit(String, PostValidationOptions)}.
+     * When one attachment is invalid, or time is over, the remaining checks are cancelled.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Missing attachments are invalid. A single attachment is checked on the pool too,
+     * so the time limit of options applies to it like to a gallery post.
+     * @param attachmentPaths the attachment absolute paths, or null
+     * @param options the size limit, accepted mime types and time limit for all attachments of the post
+     * @return the outcome of validation
+     */
+    public static Outcome validateAll(String[] attachmentPaths, PostValidationOptions options) {
+
+        if (attachmentPaths == null) {
+            return Outcome.INVALID;
+        }
+
+        if (attachmentPaths.length == 0) {
+            return Outcome.VALID;
+        }
+
+        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(EXECUTOR);
+        List<Future<Boolean>> futures = new ArrayList<>(attachmentPaths.length);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.attachmentTimeoutMillis());
+
+        try {
+            for (String attachmentPath : attachmentPaths) {
+                futures.add(completionService.submit(() -> isValidImageWithinSizeLimit(attachmentPath, options)));
+            }
+
+            for (int completed = 0; completed < futures.size(); completed++) {
+
+                Future<Boolean> future = completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+                // Time is over
+                if (future == null) {
+                    return Outcome.TIMED_OUT;
+                }
+
+                if (!future.get()) {
+                    return Outcome.INVALID;
+                }
+            }
+
+            return Outcome.VALID;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Outcome.TIMED_OUT;
+        } catch (ExecutionException e) {
+            // Unexpected failure while checking a file, treat as invalid file
+            return Outcome.INVALID;
+        } finally {
+            // Fail fast, no-op for finished checks
+            for (Future<Boolean> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote method to validate user uploaded attachment, which should be not null and must be image file and size under 15MB
+     * @param filePath the attachment absolute path
+     * @return false if an attachment file is not found on server, or is not an image file, or image file with larger size(15MB >), true otherwise
+     */
+    public static boolean isValidImageWithinSizeLimit(String filePath) {
+        return isValidImageWithinSizeLimit(filePath, PostValidationOptions.defaults());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote method to validate user uploaded attachment, which should be not null and must be an accepted mime type within size limit of options
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Size and mime type come from {@link AttachmentMetadataCache#getDefault()},
+     * so validating an unchanged file again, like after a post is edited, costs a single stat.
+     * A content identifier is resolved to its file by {@link ContentStore#resolve(String)}.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * The minimum resolution of options is checked with dimensions from image header, see {@link com.nurujjamanpollob.fourkcommonlib.utility.ImageHeaderReader}.
+     * @param filePath the attachment absolute path, or content identifier
+     * @param options the size limit, accepted mime types and minimum resolution
+     * @return false if an attachment file is not found on server, or is not an accepted mime type, or larger than size limit,
+     * or below minimum resolution, true otherwise
+     */
+    public static boolean isValidImageWithinSizeLimit(String filePath, PostValidationOptions options) {
+
+        if (filePath == null) {
+            return false;
+        }
+
+        AttachmentMetadata metadata;
+
+        try {
+            metadata = AttachmentMetadataCache.getDefault().get(ContentStore.resolve(filePath));
+        } catch (Exception e) {
+            // The file is not found, or can't be read
+            return false;
+        }
+
+        /*
+        // maxAttachmentSize is the max file size in the byte,
+        // which is 15MB for a single file by default
+         */
+        if (metadata.size() > options.maxAttachmentSize() || !options.isMimeTypeAllowed(metadata.mimeType())) {
+            return false;
+        }
+
+        if (!options.hasMinimumResolution()) {
+            return true;
+        }
+
+        ImageHeader header = metadata.toImageHeader();
+
+        return header != null && header.isAtLeast(options.minImageLongEdge(), options.minImageShortEdge());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create the shared pool with named daemon threads.
+     * When the queue is full the check runs on the submitting thread, which slow down posting instead of failing it.
+     */
+    private static ThreadPoolExecutor createExecutor() {
+
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                THREADS,
+                THREADS,
+                30L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "attachment-validation-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.validation;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.InvalidPostException;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Validate large batches of {@link User} or {@link Post}, for example an import from partner site,
+ * on a dedicated {@link ForkJoinPool} with a configurable parallelism cap.
+ * Validation of an item never stops the batch, every item gets an entry in {@link BulkValidationReport}.
+ * Users wait for password encoding on {@link com.nurujjamanpollob.fourkcommonlib.security.PasswordHashingExecutor},
+ * so a user batch runs on a plain pool of the same parallelism instead, where a waiting thread is not a stalled worker.
+ * If the caller is interrupted, the running batch is cancelled.
+ *
+ * An instance owns its pools, so it should be closed when it's not needed anymore.
+ * <pre>
+ *     <code>
+ *     try (BulkValidation bulkValidation = new BulkValidation(8)) {
+ *         BulkValidationReport&lt;User&gt; report = bulkValidation.validateUsers(users);
+ *     }
+ *     </code>
+ * </pre>
+ */
+public final class BulkValidation implements AutoCloseable {
+
+    /**
+     * Reusable result per pool thread
+     */
+    private static final ThreadLocal<UserValidationResult> WORKER_RESULT = ThreadLocal.withInitial(UserValidationResult::new);
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    private final ForkJoinPool pool;
+    private final ExecutorService userPool;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create bulk validator, which use all available processors.
+     */
+    public BulkValidation() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create bulk validator with a parallelism cap.
+     * @param parallelism maximum number of threads used to validate a batch
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public BulkValidation(int parallelism) {
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        this.pool = new ForkJoinPool(parallelism);
+        this.userPool = createUserPool(parallelism);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the parallelism cap of this validator
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate a collection of {@link User} in parallel, see {@link UserValidation#validateUser(UserValidationResult)}.
+     * Valid users get their password encoded, same as single user validation.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Users are validated on a plain pool, not on the fork join pool, as each one waits for bcrypt.
+     * @param users the users to validate, null item is reported as invalid
+     * @return report with one entry per user, in collection iteration order
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public BulkValidationReport<User> validateUsers(Collection<User> users) throws InterruptedException {
+
+        return runOnUserPool(new ArrayList<>(users));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate a stream of {@link Post} in parallel, see {@link PostValidation#validatePost()}.
+     * The stream is consumed by this method, and collected before the parallel validation starts,
+     * so a sequential source like a file reader is read by one thread only.
+     * @param posts the posts to validate, null item is reported as invalid
+     * @return report with one entry per post, in stream encounter order
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public BulkValidationReport<Post> validatePosts(Stream<Post> posts) throws InterruptedException {
+
+        return validatePosts(posts, PostValidationOptions.defaults());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate a stream of {@link Post} in parallel with given options, see {@link PostValidation#validatePost(PostValidationOptions)}.
+     * For more information see {@link BulkValidation#validatePosts(Stream)}
+     * @param posts the posts to validate, null item is reported as invalid
+     * @param options the options used for every post of this batch
+     * @return report with one entry per post, in stream encounter order
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    public BulkValidationReport<Post> validatePosts(Stream<Post> posts, PostValidationOptions options) throws InterruptedException {
+
+        PostValidator validator = new PostValidator(options);
+        return run(posts.toList(), post -> postViolations(post, validator));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Shutdown the pools of this validator, running batch is completed first.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        userPool.shutdown();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Run the validator over item indexes as parallel stream inside own pool,
+     * so the parallelism cap is respected, and the common pool is not blocked by validation IO.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * If the caller is interrupted, the submitted task is cancelled, and items not started yet are skipped.
+     */
+    private <T> BulkValidationReport<T> run(List<T> items, Function<T, List<String>> validator) throws InterruptedException {
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ForkJoinTask<List<BulkValidationReport.Entry<T>>> task = pool.submit(() -> IntStream.range(0, items.size())
+                .parallel()
+                .mapToObj(index -> {
+
+                    // Cancelling a fork join task does not stop its running subtasks
+                    if (cancelled.get()) {
+                        throw new CancellationException("Bulk validation is cancelled");
+                    }
+
+                    T item = items.get(index);
+                    return new BulkValidationReport.Entry<>(index, item, validator.apply(item));
+                })
+                .toList());
+
+        try {
+            return new BulkValidationReport<>(task.get());
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            // Validators catch their own failure, so this is a bug in this class
+            throw new IllegalStateException("Bulk validation failed", e.getCause());
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate users on the plain pool, one task per thread takes the next index until every user is validated,
+     * so a thread waiting for password encoding holds no other user.
+     * If the caller is interrupted, the tasks are interrupted, and users not started yet are skipped.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * A task stops when its thread is interrupted, like by a validator restoring the interrupt flag,
+     * so every user left without an entry is reported as not validated, and the report stays complete.
+     */
+    private BulkValidationReport<User> runOnUserPool(List<User> users) throws InterruptedException {
+
+        @SuppressWarnings("unchecked")
+        BulkValidationReport.Entry<User>[] entries = new BulkValidationReport.Entry[users.size()];
+        AtomicInteger nextIndex = new AtomicInteger();
+        int tasks = Math.min(getParallelism(), users.size());
+        List<Future<?>> futures = new ArrayList<>(tasks);
+
+        try {
+            for (int i = 0; i < tasks; i++) {
+                futures.add(userPool.submit(() -> {
+
+                    int index;
+
+                    while (!Thread.currentThread().isInterrupted() && (index = nextIndex.getAndIncrement()) < users.size()) {
+                        User user = users.get(index);
+                        entries[index] = new BulkValidationReport.Entry<>(index, user, userViolations(user));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            for (int index = 0; index < entries.length; index++) {
+                if (entries[index] == null) {
+                    entries[index] = new BulkValidationReport.Entry<>(index, users.get(index),
+                            List.of("User is not validated, the batch was interrupted"));
+                }
+            }
+
+            return new BulkValidationReport<>(List.of(entries));
+
+        } catch (ExecutionException e) {
+            // Validators catch their own failure, so this is a bug in this class
+            throw new IllegalStateException("Bulk validation failed", e.getCause());
+        } finally {
+            // No-op for finished tasks, stops the batch if the caller is interrupted
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Collect the violation messages of a user, with one reusable result per pool thread.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * A failure of the validator is the violation of that user, same as a post, so one user never aborts the batch.
+     */
+    private static List<String> userViolations(User user) {
+
+        if (user == null) {
+            return List.of("User can't be null");
+        }
+
+        try {
+            UserValidationResult result = WORKER_RESULT.get();
+            new UserValidation(user).validateUser(result);
+
+            if (result.isValid()) {
+                return List.of();
+            }
+
+            List<String> messages = new ArrayList<>(result.getViolations().size());
+            for (UserViolation violation : result.getViolations()) {
+                messages.add(violation.getMessage());
+            }
+
+            return List.copyOf(messages);
+        } catch (RuntimeException e) {
+            // For example a missing required field, should not abort the whole batch
+            return List.of("User can't be validated: " + e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Collect the violation message of a post, {@link PostValidation} stops at first violation.
+     */
+    private static List<String> postViolations(Post post, PostValidator validator) {
+
+        if (post == null) {
+            return List.of("Post can't be null");
+        }
+
+        try {
+            validator.validate(post);
+            return List.of();
+        } catch (InvalidPostException e) {
+            return List.of(e.getMessage());
+        } catch (RuntimeException e) {
+            // For example missing attachment array, should not abort the whole batch
+            return List.of("Post can't be validated: " + e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create the plain pool of user batches, with named daemon threads
+     */
+    private static ExecutorService createUserPool(int parallelism) {
+
+        int poolNumber = POOL_NUMBER.incrementAndGet();
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-user-validation-" + poolNumber + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Wait until the pools of this validator are terminated, after {@link BulkValidation#close()}
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of timeout
+     * @return true if terminated, false if timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        return pool.awaitTermination(timeout, unit)
+                && userPool.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.validation;
+
+import java.util.List;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Immutable per-item report produced by {@link BulkValidation}.
+ * Entries are kept in the same order as the validated input, so entry at index i belongs to input item i.
+ * @param <T> the validated model type, {@link com.nurujjamanpollob.fourkcommonlib.model.User} or {@link com.nurujjamanpollob.fourkcommonlib.model.Post}
+ */
+public final class BulkValidationReport<T> {
+
+    private final List<Entry<T>> entries;
+    private final int invalidCount;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param entries the entries in input order, should be immutable
+     */
+    BulkValidationReport(List<Entry<T>> entries) {
+
+        this.entries = entries;
+
+        int invalid = 0;
+        for (Entry<T> entry : entries) {
+            if (!entry.isValid()) {
+                invalid++;
+            }
+        }
+        this.invalidCount = invalid;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return every entry, in input order
+     */
+    public List<Entry<T>> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return only the entries that have at least one violation, in input order
+     */
+    public List<Entry<T>> getInvalidEntries() {
+        return entries.stream().filter(entry -> !entry.isValid()).toList();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of validated items
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of items with at least one violation
+     */
+    public int getInvalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true if every item is valid
+     */
+    public boolean isAllValid() {
+        return invalidCount == 0;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validation outcome of a single item.
+     * @param index the position of item in validated input
+     * @param item the validated item
+     * @param violations violation messages of this item, empty if it's valid
+     */
+    public record Entry<T>(int index, T item, List<String> violations) {
+
+        /**
+         * @author Nurujjaman Pollob 2022
+         * @return true if this item has no violation
+         */
+        public boolean isValid() {
+            return violations.isEmpty();
+        }
+    }
+}
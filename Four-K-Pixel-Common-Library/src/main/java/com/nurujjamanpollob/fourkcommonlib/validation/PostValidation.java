@@ -60,10 +60,23 @@
 package com.nurujjamanpollob.fourkcommonlib.validation;
 
 import com.nurujjamanpollob.fourkcommonlib.exception.InvalidPostException;
+import com.nurujjamanpollob.fourkcommonlib.id.UserIdStrategy;
+import com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator;
+import com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramidGenerator;
 import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadataCache;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentReaper;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.storage.StorageQuota;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageHeader;
 import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
 import com.nurujjamanpollob.fourkcommonlib.utility.Variables;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
 
 /**
  * @author Nurujjaman Pollob 2022
@@ -71,26 +84,17 @@ import com.nurujjamanpollob.fourkcommonlib.utility.Variables;
  */
 public record PostValidation(Post postToValidate) {
 
-    private static boolean debugDeleteFileIfInvalid;
     /**
      * @author Nurujjaman Pollob 2022
      * @apiNote Invoking this method will validate all method value from {@link Post}
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Uses {@link PostValidationOptions#defaults()}, attachments are never deleted.
      * @throws InvalidPostException if the validation methods throws {@link InvalidPostException}
      */
     public void validatePost() throws InvalidPostException{
 
-        // Validate post title
-        validatePostTitle();
-
-        // Validate post description
-        validatePostDescription();
-
-        // Validate post tags
-        validatePostTags();
-
-        // Validate post attachments(Image expected)
-        validateAttachments();
-
+        validatePost(PostValidationOptions.defaults());
     }
 
     /**
@@ -99,12 +103,42 @@ public record PostValidation(Post postToValidate) {
      * @param debugDeleteAttachment used to delete attachment files,
      *                              if an attachment file is missing, file is not a image file,
      *                              or larger than approved file byte length, declared here: {@link Variables#UPLOAD_FILE_MAX_SIZE}
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * The deletion policy applies only to this call, it's no longer stored in a static field shared by every thread.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Only file paths are deleted as before, content identifiers may be shared by other posts and are never released by this method,
+     * see {@link PostValidationOptions#withOwnedAttachments(Set)}.
      * @throws InvalidPostException if the validation methods throws {@link InvalidPostException}
      */
     @SuppressWarnings({"unused"})
     public void validatePost(Boolean debugDeleteAttachment) throws InvalidPostException{
 
-        debugDeleteFileIfInvalid = debugDeleteAttachment;
+        Set<String> filePaths = new HashSet<>();
+        String[] attachmentsPath = postToValidate.getImageFilesLocation();
+
+        if (attachmentsPath != null) {
+            for (String attachment : attachmentsPath) {
+                if (attachment != null && !ContentStore.isContentId(attachment)) {
+                    filePaths.add(attachment);
+                }
+            }
+        }
+
+        validatePost(PostValidationOptions.defaults()
+                .withDeleteAttachmentsIfInvalid(debugDeleteAttachment)
+                .withOwnedAttachments(filePaths));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Invoking this method will validate all method value from {@link Post}, with per-call options.
+     * Safe to call concurrently from many threads, see {@link PostValidator} for a reusable validator.
+     * @param options the deletion policy, size limit, allowed mime types and timeout of this validation
+     * @throws InvalidPostException if the validation methods throws {@link InvalidPostException}
+     */
+    public void validatePost(PostValidationOptions options) throws InvalidPostException{
 
         // Validate post title
         validatePostTitle();
@@ -116,7 +150,7 @@ public record PostValidation(Post postToValidate) {
         validatePostTags();
 
         // Validate post attachments(Image expected)
-        validateAttachments();
+        validateAttachments(options);
 
     }
 
@@ -172,53 +206,202 @@ public record PostValidation(Post postToValidate) {
     /**
      * @author Nurujjaman Pollob 2022
      * @apiNote method to validate user uploaded attachments, which should be not null and must be image file and size under 15MB
-     * @throws InvalidPostException if an attachment file is not found on server, or is not an image file, or image file with larger size(15MB >)
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Attachments are checked concurrently by {@link AttachmentValidator}, the first invalid file cancels the remaining checks,
+     * and all checks must finish within {@link PostValidationOptions#attachmentTimeoutMillis()}.
+     * Size limit, accepted mime types and deletion policy come from options.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Invalid attachments are deleted in background by {@link AttachmentReaper#getDefault()},
+     * they are deleted on this thread only if the reaper does not accept them.
+     * An attachment in {@link ContentStore} may be shared by other posts, so only its reference is released.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Only attachments added by this request are deleted or released, see {@link PostValidationOptions#ownedAttachments()},
+     * so a client can't delete a file of another post by naming it in its own post.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * If {@link PostValidationOptions#generateDerivatives()} is set, attachments of an accepted post are queued
+     * to {@link DerivativeGenerator#getDefault()}, without waiting for them.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Header facts of attachments of an accepted post are stored in {@link Post#setImageHeaders(ImageHeader[])},
+     * an attachment below {@link PostValidationOptions#minImageLongEdge()} or {@link PostValidationOptions#minImageShortEdge()} is rejected.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * If {@link PostValidationOptions#generateDerivatives()} is set, placeholders computed in the derivative pass
+     * are stored in {@link Post#setImagePlaceholders(String[])}, without waiting for them,
+     * a placeholder not generated yet is null and filled in when the post is read, see {@link DerivativeGenerator#fillPlaceholders(Post)}.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * If {@link PostValidationOptions#generateTiles()} is set, attachments of an accepted post are queued
+     * to {@link TilePyramidGenerator#getDefault()}, without waiting for them.
+     * @param options the options of this validation
+     * @throws InvalidPostException if an attachment file is not found on server, or is not an image file, or image file with larger size(15MB >),
+     * or the attachments can't be validated in time
      */
-    private void validateAttachments() throws InvalidPostException{
+    private void validateAttachments(PostValidationOptions options) throws InvalidPostException{
 
         String[] attachmentsPath = postToValidate().getImageFilesLocation();
 
-        for(String s : attachmentsPath){
+        AttachmentValidator.Outcome outcome = AttachmentValidator.validateAll(attachmentsPath, options);
+
+        if (outcome != AttachmentValidator.Outcome.VALID){
+
+            // Delete attachment if found invalid
+            if(options.deleteAttachmentsIfInvalid() && attachmentsPath != null) {
+                deleteAttachments(attachmentsPath, postToValidate.getSiteUsername(), options);
+            }
+
+            if (outcome == AttachmentValidator.Outcome.TIMED_OUT){
+                throw new InvalidPostException("It seems the attachments can't be validated in time, please try again");
+            }
 
-           if (!isFileIsValidImageAndSizeWithinMaxLimit(s)){
+            throw new InvalidPostException("It seems this file is not an image file, or the file is empty or the image length is more than 15MB,"
+                    + " or the image resolution is below minimum");
+        }
+
+        if (attachmentsPath != null) {
+            postToValidate.setImageHeaders(readImageHeaders(attachmentsPath));
+        }
 
-               // Delete attachment if found invalid
-              if(debugDeleteFileIfInvalid) {
-                  UtilityCollection.deleteFiles(attachmentsPath);
-              }
-               throw new InvalidPostException("It seems this file is not an image file, or the file is empty or the image length is more than 15MB");
-           }
+        if (options.generateDerivatives() && attachmentsPath != null) {
+            postToValidate.setImagePlaceholders(generateDerivatives(attachmentsPath));
+        }
+
+        if (options.generateTiles() && attachmentsPath != null) {
+            generateTiles(attachmentsPath);
         }
     }
 
     /**
      * @author Nurujjaman Pollob 2022
-     * @apiNote method to validate user uploaded attachment, which should be not null and must be image file and size under 15MB
-     * @return false if an attachment file is not found on server, or is not an image file, or image file with larger size(15MB >), true otherwise
+     * @apiNote Get header facts of accepted attachments, from {@link AttachmentMetadataCache#getDefault()} where validation left them
+     * @param attachmentsPath the attachment paths or content identifiers
+     * @return facts in order of attachments, null for an attachment whose header can't be parsed
      */
-    private boolean isFileIsValidImageAndSizeWithinMaxLimit(String filePath) {
-
-        // Get file length
-        long fileLength = UtilityCollection.checkAndGetFileLength(filePath);
+    private static ImageHeader[] readImageHeaders(String[] attachmentsPath) {
 
-        /*
-        // fileLength -1 means a file is not found
-        // Variables.UPLOAD_FILE_MAX_SIZE is the max file size in the byte,
-        // which is 15MB for a single file now
-         */
-        if(fileLength != -1 && fileLength <= Variables.UPLOAD_FILE_MAX_SIZE){
+        ImageHeader[] headers = new ImageHeader[attachmentsPath.length];
 
+        for (int i = 0; i < attachmentsPath.length; i++) {
             try {
-              // Is mime type image?
-              return UtilityCollection.fileMimeTypeFromPath(filePath).contains("image");
-            } catch (Exception e) {
-                return false;
+                headers[i] = AttachmentMetadataCache.getDefault().get(ContentStore.resolve(attachmentsPath[i])).toImageHeader();
+            } catch (IOException e) {
+                // Deleted after validation, the post is saved without facts of it
+                headers[i] = null;
+            }
+        }
+
+        return headers;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Queue accepted attachments for derivative generation, a full queue skips them,
+     * and the client falls back to the original image
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Placeholders already in cache are returned at once, with {@link DerivativeGenerator#findPlaceholder(String)},
+     * so an attachment uploaded before is never decoded again and is saved with the post.
+     * Other attachments are queued without waiting, so validation never blocks on image decoding,
+     * their placeholders are filled in when the post is read, see {@link DerivativeGenerator#fillPlaceholders(Post)}.
+     * @param attachmentsPath the attachment paths or content identifiers
+     * @return placeholders in order of attachments, null for an attachment which is not generated yet
+     */
+    private static String[] generateDerivatives(String[] attachmentsPath) {
+
+        DerivativeGenerator generator = DerivativeGenerator.getDefault();
+        String[] placeholders = new String[attachmentsPath.length];
+
+        for (int i = 0; i < attachmentsPath.length; i++) {
+
+            if (attachmentsPath[i] == null) {
+                continue;
+            }
+
+            placeholders[i] = generator.findPlaceholder(attachmentsPath[i]);
+
+            // A failed or skipped attachment keeps null, and the client falls back to the original image
+            if (placeholders[i] == null) {
+                generator.submit(attachmentsPath[i]);
+            }
+        }
+
+        return placeholders;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Queue accepted attachments for tile pyramid generation, an image too small for tiles is skipped by the generator,
+     * and a full queue skips them, the client falls back to the largest derivative
+     * @param attachmentsPath the attachment paths or content identifiers
+     */
+    private static void generateTiles(String[] attachmentsPath) {
+
+        TilePyramidGenerator generator = TilePyramidGenerator.getDefault();
+
+        for (String attachment : attachmentsPath) {
+            if (attachment != null) {
+                generator.submit(attachment);
             }
         }
+    }
 
-        /*
-        Either the file is not found, or it's size it too long
-         */
-        return false;
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Give back storage quota of one upload of a released content, if a quota is configured
+     * @param contentId the released content identifier
+     * @param siteUsername the username who uploaded it
+     */
+    private static void freeQuota(String contentId, String siteUsername) {
+
+        StorageQuota quota = StorageQuota.getDefault();
+
+        if (quota == null || siteUsername == null) {
+            return;
+        }
+
+        try {
+            quota.free(contentId, UserIdStrategy.getDefault().generateUserId(siteUsername));
+        } catch (RuntimeException ignored) {
+            // The post is rejected anyway, its usage is only not given back
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Release content identifiers from {@link ContentStore#getDefault()}, and queue file paths for deletion
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Attachments not owned by this request are skipped, see {@link PostValidationOptions#isOwnedAttachment(String)}
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Storage quota charged for a released content is given back to the user of the post, see {@link StorageQuota#free(String, long)}
+     * @param attachmentsPath the attachment paths or content identifiers
+     * @param siteUsername the username of the post, who uploaded its owned attachments
+     * @param options the options of this validation
+     */
+    private static void deleteAttachments(String[] attachmentsPath, String siteUsername, PostValidationOptions options) {
+
+        for (String attachment : attachmentsPath) {
+
+            if (!options.isOwnedAttachment(attachment)) {
+                continue;
+            }
+
+            if (ContentStore.isContentId(attachment)) {
+                try {
+                    ContentStore.getDefault().release(attachment);
+                } catch (IOException e) {
+                    // Released anyway, the file is reclaimed by a later sweep
+                }
+
+                freeQuota(attachment, siteUsername);
+            } else if (!AttachmentReaper.getDefault().submit(Path.of(attachment))) {
+                UtilityCollection.deleteFiles(new String[]{attachment});
+            }
+        }
     }
 }
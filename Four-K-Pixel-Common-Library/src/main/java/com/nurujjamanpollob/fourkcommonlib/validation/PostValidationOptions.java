@@ -0,0 +1,371 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.validation;
+
+import com.nurujjamanpollob.fourkcommonlib.utility.Variables;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Immutable per-call options of {@link PostValidation}, so concurrent validations never share a mutable setting.
+ * Use {@link PostValidationOptions#defaults()} and the <code>with</code> methods to derive a customised copy.
+ *
+ * Updated by Nurujjaman Pollob 2022
+ * Options are a class with a private constructor instead of a record, every copy is made through a private builder,
+ * so a new option is not a new constructor argument of the public API, and <code>with</code> methods change only their own option.
+ */
+public final class PostValidationOptions {
+
+    /**
+     * Longer edge of a 4K UHD image, see {@link PostValidationOptions#withMinimumResolution(int, int)}
+     */
+    public static final int UHD_LONG_EDGE = 3840;
+
+    /**
+     * Shorter edge of a 4K UHD image
+     */
+    public static final int UHD_SHORT_EDGE = 2160;
+
+    private final boolean deleteAttachmentsIfInvalid;
+    private final long maxAttachmentSize;
+    private final Set<String> allowedMimeTypes;
+    private final long attachmentTimeoutMillis;
+    private final boolean generateDerivatives;
+    private final boolean generateTiles;
+    private final int minImageLongEdge;
+    private final int minImageShortEdge;
+    private final Set<String> ownedAttachments;
+
+    /**
+     * Mutable copy of every option, only used to create options, a field starts at its default
+     */
+    private static final class Builder {
+
+        private boolean deleteAttachmentsIfInvalid;
+        private long maxAttachmentSize = Variables.UPLOAD_FILE_MAX_SIZE;
+        private Set<String> allowedMimeTypes = Set.of();
+        private long attachmentTimeoutMillis = Variables.ATTACHMENT_VALIDATION_TIMEOUT_MILLIS;
+        private boolean generateDerivatives;
+        private boolean generateTiles;
+        private int minImageLongEdge;
+        private int minImageShortEdge;
+        private Set<String> ownedAttachments = Set.of();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate and copy options of a builder
+     * @throws IllegalArgumentException if size limit or timeout is not positive, or a minimum resolution edge is negative
+     */
+    private PostValidationOptions(Builder builder) {
+
+        if (builder.maxAttachmentSize < 1 || builder.attachmentTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Attachment size limit and timeout must be positive");
+        }
+
+        if (builder.minImageLongEdge < 0 || builder.minImageShortEdge < 0) {
+            throw new IllegalArgumentException("Minimum image resolution must not be negative");
+        }
+
+        this.deleteAttachmentsIfInvalid = builder.deleteAttachmentsIfInvalid;
+        this.maxAttachmentSize = builder.maxAttachmentSize;
+        this.allowedMimeTypes = builder.allowedMimeTypes == null ? Set.of() : Set.copyOf(builder.allowedMimeTypes);
+        this.attachmentTimeoutMillis = builder.attachmentTimeoutMillis;
+        this.generateDerivatives = builder.generateDerivatives;
+        this.generateTiles = builder.generateTiles;
+        this.minImageLongEdge = builder.minImageLongEdge;
+        this.minImageShortEdge = builder.minImageShortEdge;
+        this.ownedAttachments = builder.ownedAttachments == null ? Set.of() : Set.copyOf(builder.ownedAttachments);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Options same as previous behaviour, no attachment deletion, any image mime type,
+     * size limit {@link Variables#UPLOAD_FILE_MAX_SIZE} and timeout {@link Variables#ATTACHMENT_VALIDATION_TIMEOUT_MILLIS} read at call time.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * No derivative generation.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * No minimum resolution.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * No tile pyramid generation.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * No owned attachments, so nothing is deleted even if deletion is enabled.
+     * @return default options
+     */
+    public static PostValidationOptions defaults() {
+        return new PostValidationOptions(new Builder());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param deleteAttachmentsIfInvalid the new deletion policy
+     * @return copy of this options with the deletion policy
+     */
+    public PostValidationOptions withDeleteAttachmentsIfInvalid(boolean deleteAttachmentsIfInvalid) {
+        return with(builder -> builder.deleteAttachmentsIfInvalid = deleteAttachmentsIfInvalid);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param maxAttachmentSize the new size limit in bytes
+     * @return copy of this options with the size limit
+     */
+    public PostValidationOptions withMaxAttachmentSize(long maxAttachmentSize) {
+        return with(builder -> builder.maxAttachmentSize = maxAttachmentSize);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param allowedMimeTypes the accepted mime types, empty for any image mime type
+     * @return copy of this options with the accepted mime types
+     */
+    public PostValidationOptions withAllowedMimeTypes(Set<String> allowedMimeTypes) {
+        return with(builder -> builder.allowedMimeTypes = allowedMimeTypes);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param attachmentTimeoutMillis the new time limit in milliseconds
+     * @return copy of this options with the time limit
+     */
+    public PostValidationOptions withAttachmentTimeoutMillis(long attachmentTimeoutMillis) {
+        return with(builder -> builder.attachmentTimeoutMillis = attachmentTimeoutMillis);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param generateDerivatives true to generate derivatives of accepted attachments
+     * @return copy of this options with the derivative generation policy
+     */
+    public PostValidationOptions withGenerateDerivatives(boolean generateDerivatives) {
+        return with(builder -> builder.generateDerivatives = generateDerivatives);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param generateTiles true to generate tile pyramids of large accepted attachments
+     * @return copy of this options with the tile pyramid generation policy
+     */
+    public PostValidationOptions withGenerateTiles(boolean generateTiles) {
+        return with(builder -> builder.generateTiles = generateTiles);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Require a minimum resolution of every attachment, landscape or portrait,
+     * like {@link PostValidationOptions#UHD_LONG_EDGE} and {@link PostValidationOptions#UHD_SHORT_EDGE} for 4K only posts.
+     * Dimensions are read from image headers, and an attachment of unknown dimensions is rejected.
+     * @param minImageLongEdge minimum pixels of longer edge, 0 for no minimum
+     * @param minImageShortEdge minimum pixels of shorter edge, 0 for no minimum
+     * @return copy of this options with the minimum resolution
+     */
+    public PostValidationOptions withMinimumResolution(int minImageLongEdge, int minImageShortEdge) {
+
+        return with(builder -> {
+            builder.minImageLongEdge = minImageLongEdge;
+            builder.minImageShortEdge = minImageShortEdge;
+        });
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Set attachments added by this request, like content identifiers returned by its own uploads.
+     * Only these attachments are deleted or released if the post is rejected,
+     * any other attachment of the post is left to its owner.
+     * @param ownedAttachments the attachment locations added by this request
+     * @return copy of this options with the owned attachments
+     */
+    public PostValidationOptions withOwnedAttachments(Set<String> ownedAttachments) {
+        return with(builder -> builder.ownedAttachments = ownedAttachments);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true to delete owned attachments of the post from disk in background, if an attachment is rejected
+     */
+    public boolean deleteAttachmentsIfInvalid() {
+        return deleteAttachmentsIfInvalid;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return maximum byte length of a single attachment
+     */
+    public long maxAttachmentSize() {
+        return maxAttachmentSize;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return accepted attachment mime types, an empty set accepts any image mime type
+     */
+    public Set<String> allowedMimeTypes() {
+        return allowedMimeTypes;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return time limit in milliseconds to validate all attachments of the post
+     */
+    public long attachmentTimeoutMillis() {
+        return attachmentTimeoutMillis;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true to queue every attachment of an accepted post for derivative generation,
+     * see {@link com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator#getDefault()}
+     */
+    public boolean generateDerivatives() {
+        return generateDerivatives;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true to queue every attachment of an accepted post for deep zoom tile pyramid generation,
+     * see {@link com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramidGenerator#getDefault()}
+     */
+    public boolean generateTiles() {
+        return generateTiles;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return minimum pixels of longer edge of an attachment, 0 for no minimum
+     */
+    public int minImageLongEdge() {
+        return minImageLongEdge;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return minimum pixels of shorter edge of an attachment, 0 for no minimum
+     */
+    public int minImageShortEdge() {
+        return minImageShortEdge;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return attachments added by the request creating the post, only these are deleted or released
+     * if the post is rejected, an attachment shared with other posts is never deleted by a client
+     */
+    public Set<String> ownedAttachments() {
+        return ownedAttachments;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param attachment an attachment location of the post
+     * @return true if the attachment is added by this request, and may be deleted or released if the post is rejected
+     */
+    public boolean isOwnedAttachment(String attachment) {
+        return attachment != null && ownedAttachments.contains(attachment);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true if a minimum resolution is required
+     */
+    public boolean hasMinimumResolution() {
+        return minImageLongEdge > 0 || minImageShortEdge > 0;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param mimeType the detected mime type of an attachment, may be null
+     * @return true if the mime type is accepted by this options
+     */
+    public boolean isMimeTypeAllowed(String mimeType) {
+
+        if (mimeType == null) {
+            return false;
+        }
+
+        return allowedMimeTypes.isEmpty() ? mimeType.contains("image") : allowedMimeTypes.contains(mimeType);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Copy every option into a builder, change it and create new options, this options are not changed
+     */
+    private PostValidationOptions with(Consumer<Builder> change) {
+
+        Builder builder = new Builder();
+        builder.deleteAttachmentsIfInvalid = deleteAttachmentsIfInvalid;
+        builder.maxAttachmentSize = maxAttachmentSize;
+        builder.allowedMimeTypes = allowedMimeTypes;
+        builder.attachmentTimeoutMillis = attachmentTimeoutMillis;
+        builder.generateDerivatives = generateDerivatives;
+        builder.generateTiles = generateTiles;
+        builder.minImageLongEdge = minImageLongEdge;
+        builder.minImageShortEdge = minImageShortEdge;
+        builder.ownedAttachments = ownedAttachments;
+
+        change.accept(builder);
+        return new PostValidationOptions(builder);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.validation;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.InvalidPostException;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Reusable and thread safe {@link Post} validator, bound to immutable {@link PostValidationOptions}.
+ * One instance can be shared by every request thread, it has no mutable state.
+ */
+public final class PostValidator {
+
+    private final PostValidationOptions options;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create validator with {@link PostValidationOptions#defaults()}
+     */
+    public PostValidator() {
+        this(PostValidationOptions.defaults());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param options the options used for every validation of this instance
+     */
+    public PostValidator(PostValidationOptions options) {
+
+        if (options == null) {
+            throw new IllegalArgumentException("Post validation options can't be null");
+        }
+
+        this.options = options;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the options of this validator
+     */
+    public PostValidationOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate a post with options of this validator, see {@link PostValidation#validatePost(PostValidationOptions)}
+     * @param post the post to validate
+     * @throws InvalidPostException if the post is invalid
+     */
+    public void validate(Post post) throws InvalidPostException {
+        new PostValidation(post).validatePost(options);
+    }
+}
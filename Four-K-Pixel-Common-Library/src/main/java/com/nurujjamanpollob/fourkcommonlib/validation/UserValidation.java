@@ -61,107 +61,217 @@ package com.nurujjamanpollob.fourkcommonlib.validation;
 
 import com.nurujjamanpollob.fourkcommonlib.exception.InvalidUserException;
 import com.nurujjamanpollob.fourkcommonlib.model.User;
+import com.nurujjamanpollob.fourkcommonlib.security.PasswordHashingExecutor;
+import com.nurujjamanpollob.fourkcommonlib.utility.AsciiCharacterClass;
 import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.time.LocalDate;
-import java.time.Period;
-import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.temporal.ChronoField;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Record that used to validate an instance of {@link com.nurujjamanpollob.fourkcommonlib.model.User}
  * before saving in database, or update in database.
+ *
+ * Updated by Nurujjaman Pollob 2022
+ * Validation now collects every violation into a reusable {@link UserValidationResult} without throwing,
+ * character checks use {@link AsciiCharacterClass} instead of compiling a {@link java.util.regex.Pattern} per call,
+ * and the minimum age cutoff date is computed once per day.
+ * {@link UserValidation#validateUser()} is kept as exception based wrapper.
+ * Password encoding runs on {@link PasswordHashingExecutor}, use {@link UserValidation#validateUserAsync()} to not block the caller.
  */
 public record UserValidation(User userToValidate) {
 
+    /**
+     * Minimum age of a user to use this website
+     */
+    private static final int MINIMUM_USER_AGE = 13;
+
+    /**
+     * Per thread result instance, used by {@link UserValidation#validateUser()} so the wrapper does not allocate
+     */
+    private static final ThreadLocal<UserValidationResult> THREAD_RESULT = ThreadLocal.withInitial(UserValidationResult::new);
+
+    /**
+     * Latest birthdate allowed for {@link UserValidation#MINIMUM_USER_AGE}, refreshed when the day changes
+     */
+    private static volatile MinimumAgeCutoff minimumAgeCutoff = MinimumAgeCutoff.computeNow();
+
     /**
      * @author Nurujjaman Pollob 2022
      * Method to invoke all private method inside this class, and validate {@link User} instance.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Now a wrapper of {@link UserValidation#validateUser(UserValidationResult)},
+     * throws the first violation found, in the same order as before.
+     * @throws InvalidUserException if the user has at least one violation
      */
     public void validateUser() throws InvalidUserException {
 
+        UserValidationResult result = THREAD_RESULT.get();
+
+        validateUser(result);
+
+        try {
+            result.throwIfInvalid();
+        } finally {
+            result.reset();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Exception free validation, every violation of {@link User} instance is collected into result.
+     * The result is reset before validation, so the same instance can be reused for many users.
+     * The password is encoded with {@link BCryptPasswordEncoder} only if no violation is found,
+     * the caller thread waits for {@link PasswordHashingExecutor#getDefault()} to encode it.
+     * @param result the reusable result to collect violations into
+     * @return the same result instance, for chaining
+     */
+    public UserValidationResult validateUser(UserValidationResult result) {
+
+        validateUserFields(result);
+
+        // Encode password, only if every field is valid
+        if(result.isValid()){
+            encodePasswordBlocking(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate {@link User} instance without blocking the caller for password encoding,
+     * using {@link PasswordHashingExecutor#getDefault()}.
+     * For more information see {@link UserValidation#validateUserAsync(PasswordHashingExecutor)}
+     * @return future of validated user, with encoded password
+     */
+    public CompletableFuture<User> validateUserAsync() {
+        return validateUserAsync(PasswordHashingExecutor.getDefault());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate {@link User} instance without blocking the caller for password encoding.
+     * Fields are validated on the caller thread, which is cheap, and the password is encoded on the given executor.
+     * The returned future is completed exceptionally with {@link InvalidUserException} of first violation,
+     * or with {@link com.nurujjamanpollob.fourkcommonlib.exception.PasswordHashingRejectedException} if the executor is busy.
+     * @param hashingExecutor the executor to encode password on
+     * @return future of validated user, with encoded password
+     */
+    public CompletableFuture<User> validateUserAsync(PasswordHashingExecutor hashingExecutor) {
+
+        UserValidationResult result = THREAD_RESULT.get();
+
+        try {
+            validateUserFields(result);
+            result.throwIfInvalid();
+        } catch (InvalidUserException e) {
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            result.reset();
+        }
+
+        String password = userToValidate().getPassword();
+
+        // Already encoded, nothing to wait for
+        if(UtilityCollection.isPasswordEncodedWithBcryptPasswordEncryptor(password)){
+            return CompletableFuture.completedFuture(userToValidate);
+        }
+
+        return hashingExecutor.encodeAsync(password).thenApply(encodedPassword -> {
+            userToValidate.setPassword(encodedPassword);
+            return userToValidate;
+        });
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate every field of {@link User} instance into result, the password is not encoded here.
+     * @param result the result to collect violations into, it's reset first
+     */
+    private void validateUserFields(UserValidationResult result) {
+
+        result.reset();
+
         // Validate User Name
-        validateUserName();
+        validateUserName(result);
 
         // Validate user age
-        validateUserBirthInformation();
+        validateUserBirthInformation(result);
 
         // Validate first name
-        validateFirstName();
+        validateName(userToValidate().getUserFirstName(), UserViolation.FIRST_NAME_LENGTH, UserViolation.FIRST_NAME_INVALID_CHARACTER, result);
 
         // Validate last name
-        validateLastName();
+        validateName(userToValidate().getUserLastname(), UserViolation.LAST_NAME_LENGTH, UserViolation.LAST_NAME_INVALID_CHARACTER, result);
 
         //Validate User Address line One
-        validateUserAddressLineOne();
+        validateAddressInformation(userToValidate().getUserAddressLineOne(), false,
+                UserViolation.ADDRESS_LINE_ONE_LENGTH, UserViolation.ADDRESS_LINE_ONE_INVALID_CHARACTER, result);
 
         // Validate address line two
-        validateUserAddressLineTwo();
+        validateAddressInformation(userToValidate().getUserAddressLineTwo(), true,
+                UserViolation.ADDRESS_LINE_TWO_LENGTH, UserViolation.ADDRESS_LINE_TWO_INVALID_CHARACTER, result);
 
         // Validate user city
-        validateUserCity();
+        validateAddressInformation(userToValidate().getUserCityName(), false,
+                UserViolation.CITY_LENGTH, UserViolation.CITY_INVALID_CHARACTER, result);
 
         // Validate user country
-        validateUserCountryName();
+        validateUserCountryName(result);
 
         // Validate user bio
-        validateUserBio();
+        validateUserBioAndDetails(userToValidate().getUserBio(), 2, 100, UserViolation.BIO_LENGTH, result);
 
         // Validate user short description
-        validateUserShortDescription();
+        validateUserBioAndDetails(userToValidate().getUserShortDescription(), 15, 500, UserViolation.SHORT_DESCRIPTION_LENGTH, result);
 
         // Validate user hobby
-        validateUserHobby();
+        validateUserHobby(result);
 
         // Validate user recovery question
-        validateRecoveryQuestion();
+        validatePasswordAndRecoveryQuestion(userToValidate().getUserRecoveryQuestion(), 12, 256,
+                UserViolation.RECOVERY_QUESTION_LENGTH, UserViolation.RECOVERY_QUESTION_LINE_BREAK, result);
 
         // Validate password
-        validatePassword();
-
-
-
-
-
+        validatePasswordAndRecoveryQuestion(userToValidate().getPassword(), 6, 128,
+                UserViolation.PASSWORD_LENGTH, UserViolation.PASSWORD_LINE_BREAK, result);
     }
 
     /**
      * @author Nurujjaman Pollob 2022
-     * @apiNote Method that validate a username
-     * @throws InvalidUserException if the username length is too short, long or contains not allowed character
+     * @apiNote Method that validate a username, the username length should be between 3 - 20 character,
+     * and contains only <code>a-z 0-9</code>
+     * @param result the result to collect violation into
      */
-    private void validateUserName() throws InvalidUserException {
+    private void validateUserName(UserValidationResult result) {
 
         // Get username for User Object
         String username = userToValidate().getUserName();
 
         // Check if username is null
         if(null == username){
-            throw new InvalidUserException("Username can't be null");
+            result.addViolation(UserViolation.USERNAME_NULL);
+            return;
         }
-        /*
-        Check if username length is between 3 - 20 character
-        If now throw InvalidUserException
-         */
 
+        // Check if username length is between 3 - 20 character
         int charLen = username.length();
         if(charLen < 3 || charLen > 20){
-            throw new InvalidUserException("The username is too long or too short!");
+            result.addViolation(UserViolation.USERNAME_LENGTH);
+            return;
         }
 
-
-        // Create Username Pattern
-        Pattern userNamePattern = Pattern.compile("^[a-z\\d]*$");
-
-        // Create Matcher
-        Matcher uNameMatcher = userNamePattern.matcher(username);
-
         // Username contains invalid character
-        if(!uNameMatcher.matches()){
-
-            throw new InvalidUserException("The Username contains invalid character");
+        if(!AsciiCharacterClass.LOWER_ALPHA_NUMERIC.matchesAll(username)){
+            result.addViolation(UserViolation.USERNAME_INVALID_CHARACTER);
         }
 
     }
@@ -169,112 +279,56 @@ public record UserValidation(User userToValidate) {
     /**
      * @author Nurujjaman Pollob 2022
      * @apiNote Method to Validate a User birthday information.
-     * If User is younger than 13 year, then will throw {@link InvalidUserException}
-     * @throws InvalidUserException if user birthday information is younger than 13 year from current date.
+     * If User is younger than 13 year, or the birthday is not a valid calendar date, a violation is recorded.
+     * @param result the result to collect violation into
      */
-    private void validateUserBirthInformation() throws InvalidUserException{
-
-        int day = userToValidate().getUserBirthDay();
-        int month = userToValidate.getUserBirthMonth();
-        int year = userToValidate.getUserBirthYear();
-
-        // User Birthday
-        LocalDate bDay = LocalDate.of(year, UtilityCollection.getMonthInstanceFromInteger(month), day);
+    private void validateUserBirthInformation(UserValidationResult result) {
 
-        // Today's date
-        LocalDate today = LocalDate.now();
+        Integer day = userToValidate().getUserBirthDay();
+        Integer month = userToValidate.getUserBirthMonth();
+        Integer year = userToValidate.getUserBirthYear();
 
-        // User age period
-        Period age = Period.between(bDay, today);
+        // Missing or impossible date, like 30 February
+        if(day == null || month == null || year == null
+                || !ChronoField.YEAR.range().isValidValue(year)
+                || month < 1 || month > 12
+                || day < 1 || day > Month.of(month).length(Year.isLeap(year))){
 
-        // Get user age from period
-        int userAge = age.getYears();
+            result.addViolation(UserViolation.BIRTH_DATE_INVALID);
+            return;
+        }
 
         // The user is younger
-        if(userAge < 13){
-            throw new InvalidUserException("The user is younger to use this website.");
+        if(packDate(year, month, day) > currentMinimumAgeCutoff().latestBirthDate){
+            result.addViolation(UserViolation.USER_TOO_YOUNG);
         }
 
     }
 
     /**
      * @author Nurujjaman Pollob 2022
-     * @apiNote Method to validate User First name
-     * @throws InvalidUserException if the user first name contains character other than a-z,A-Z or the name length is not between 3 - 16
-     */
-    private void validateFirstName() throws InvalidUserException{
-        validateName(userToValidate().getUserFirstName());
-
-    }
-
-    /**
-     * @author Nurujjaman Pollob 2022
-     * @apiNote Method to validate User First name
-     * @throws InvalidUserException if the user first name contains character other than a-z,A-Z or the name length is not between 3 - 16
+     * @apiNote Method to validate User First name or Last name
+     * The name should contain only <code>a-z A-Z</code>, and the name length should be between 3 - 16
+     * @param name the name to validate
+     * @param lengthViolation violation to record if the name is null or length is out of range
+     * @param characterViolation violation to record if the name contains invalid character
+     * @param result the result to collect violation into
      */
-    private void validateLastName() throws  InvalidUserException{
-        validateName(userToValidate().getUserLastname());
-    }
-
-    /**
-     * @author Nurujjaman Pollob 2022
-     * @apiNote Method to validate User Full name(First + Last)
-     * @throws InvalidUserException if the user first name contains character other than a-z,A-Z or the name length is not between 3 - 16
-     */
-    private void validateName(String name) throws InvalidUserException {
+    private void validateName(String name, UserViolation lengthViolation, UserViolation characterViolation, UserValidationResult result) {
 
         if(name == null || name.length() > 16 || name.length() < 3){
-            throw new InvalidUserException("The Name can't be null or the name cant be shorter than 3 character or more than 16 characters");
+            result.addViolation(lengthViolation);
+            return;
         }
-        // Create name pattern
-        Pattern namePattern = Pattern.compile("^[A-Za-z]*$");
-
-        Matcher matcher = namePattern.matcher(name);
 
         // Contains invalid character
-        if(!matcher.matches()){
-            throw new InvalidUserException("User First name or last name is invalid");
+        if(!AsciiCharacterClass.ALPHA.matchesAll(name)){
+            result.addViolation(characterViolation);
         }
 
 
     }
 
-    /**
-     * @author Nurujjaman Pollob 2022
-     *
-     * @apiNote Method to validate user address line one.
-     * For more information see {@link UserValidation#validateAddressInformation(String, boolean)}
-     */
-    private void validateUserAddressLineOne() throws InvalidUserException {
-
-        validateAddressInformation(userToValidate().getUserAddressLineOne(), false);
-
-    }
-
-    /**
-     * @author Nurujjaman Pollob 2022
-     *
-     * @apiNote Method to validate user address line two.
-     * For more information see {@link UserValidation#validateAddressInformation(String, boolean)}
-     */
-    private void validateUserAddressLineTwo() throws InvalidUserException {
-
-        validateAddressInformation(userToValidate().getUserAddressLineTwo(), true);
-
-    }
-
-    /**
-     * @author Nurujjaman Pollob 2022
-     *
-     * @apiNote Method to validate user city
-     * For more information see {@link UserValidation#validateAddressInformation(String, boolean)}
-     */
-    private void validateUserCity() throws InvalidUserException {
-
-        validateAddressInformation(userToValidate().getUserCityName(), false);
-
-    }
-
     /**
      * @author Nurujjaman Pollob 2022
      *
@@ -282,55 +336,38 @@ public record UserValidation(User userToValidate) {
      *
      * @param userAddress the user address to check for validity
      * @param isOptional used to determine if address option is optional, so the checker can skip the minimum length and user is allowed to skip this field.
-     *
-     * @throws InvalidUserException if there is character other than
-     * <code>A-Z a-z 0-9 whitespace comma colon semicolon first bracket(open & close) & </code>
-     * or user Address length is not between 5 - 200 character
+     * @param lengthViolation violation to record if address length is not between 5 - 200 character (max 200 for optional address)
+     * @param characterViolation violation to record if there is character other than
+     * <code>A-Z a-z 0-9 whitespace hyphen underscore comma dot colon first bracket(open & close) & </code>
+     * @param result the result to collect violation into
      */
-    private void validateAddressInformation(String userAddress, boolean isOptional) throws InvalidUserException{
-
+    private void validateAddressInformation(String userAddress, boolean isOptional,
+                                            UserViolation lengthViolation, UserViolation characterViolation,
+                                            UserValidationResult result) {
 
         if(!isOptional) {
 
             // User address length is null, or it's length is not between 5 - 200 range
             if (userAddress == null || userAddress.length() < 5 || userAddress.length() > 200) {
-                throw new InvalidUserException("The user address may be null or the address length is too long or short");
+                result.addViolation(lengthViolation);
+                return;
             }
-            // check address
-            checkAddress(userAddress);
         }else {
-            // Optional address length is too long
-            if(userAddress != null && userAddress.length() > 200){
-                throw new InvalidUserException("The Optional address line is too long. it should be under 200 characters");
+            // Optional address is null, so nothing to check
+            if(userAddress == null){
+                return;
             }
 
-            // Optional address is not null, so let's check
-            if(userAddress != null){
-                checkAddress(userAddress);
+            // Optional address length is too long
+            if(userAddress.length() > 200){
+                result.addViolation(lengthViolation);
+                return;
             }
         }
 
-
-    }
-
-    /**
-     * @author Nurujjaman Pollob 2022
-     *
-     * @apiNote Method that used to simply validate user address related information
-     * @param address the user address to check for validity
-     * @throws InvalidUserException if there is character other than
-     * <code>A-Z a-z 0-9 whitespace comma colon semicolon first bracket(open & close) & </code>
-     * or user Address length is not between 5 - 200 character
-     */
-    private void checkAddress(String address) throws InvalidUserException {
-
-        //Create address Pattern
-        Pattern addressPattern = Pattern.compile("^[A-Za-z\s\\d-_,.():&]*$");
-        Matcher matcher = addressPattern.matcher(address);
-
         // Contains invalid character
-        if (!matcher.matches()) {
-            throw new InvalidUserException("The user address contains invalid character, allowed character is > A-Z a-z 0-9 whitespace comma colon semicolon first bracket(open & close) & <");
+        if (!AsciiCharacterClass.ADDRESS.matchesAll(userAddress)) {
+            result.addViolation(characterViolation);
         }
 
     }
@@ -339,97 +376,70 @@ public record UserValidation(User userToValidate) {
     /**
      * @author Nurujjaman Pollob 2022
      *
-     * @apiNote Method to validate user country code or name, which should contains alphabets only.
-     *
-     * @throws InvalidUserException if the country code or name has invalid character,
-     * or it's name length is not between 2 - 50 character.
+     * @apiNote Method to validate user country code or name, which should contains alphabets only,
+     * and it's name length should be between 2 - 50 character.
+     * @param result the result to collect violation into
      */
-    private void validateUserCountryName() throws InvalidUserException{
+    private void validateUserCountryName(UserValidationResult result) {
 
         String country = userToValidate.getUserCountryName();
 
         if(country == null || country.length() < 2 || country.length() > 50){
-            throw new InvalidUserException("The country name or code length is too short or too long!");
+            result.addViolation(UserViolation.COUNTRY_LENGTH);
+            return;
         }
-        // Create country name matching pattern
-        Pattern countryNamePattern = Pattern.compile("^[A-Za-z]*$");
-        Matcher matcher = countryNamePattern.matcher(country);
 
         // Country name/code has invalid character
-        if(!matcher.matches()){
-
-            throw new InvalidUserException("The user country name or code seems contains invalid character!");
+        if(!AsciiCharacterClass.ALPHA.matchesAll(country)){
+            result.addViolation(UserViolation.COUNTRY_INVALID_CHARACTER);
         }
 
     }
 
-
     /**
      * @author Nurujjaman Pollob 2022
-     * @apiNote This method used to validate user bio
-     * For more information see {@link UserValidation#validateUserBioAndDetails(String, int, int)}
-     * @throws InvalidUserException if the input string is null or the length is not between 2-100 character
+     * @apiNote This method used to validate user hobby, which is optional,
+     * if present the length should be between 3-150 character
+     * For more information see {@link UserValidation#validateUserBioAndDetails(String, int, int, UserViolation, UserValidationResult)}
+     * @param result the result to collect violation into
      */
-    private void validateUserBio() throws InvalidUserException {
-
-        validateUserBioAndDetails(userToValidate().getUserBio(), 2, 100);
-    }
-
-    /**
-     * @author Nurujjaman Pollob 2022
-     * @apiNote This method used to validate user short description
-     * For more information see {@link UserValidation#validateUserBioAndDetails(String, int, int)}
-     * @throws InvalidUserException if the input string is null or the length is not between 15-500 character
-     */
-    private void validateUserShortDescription() throws InvalidUserException {
-
-        validateUserBioAndDetails(userToValidate.getUserShortDescription(), 15, 500);
-    }
-
-    /**
-     * @author Nurujjaman Pollob 2022
-     * @apiNote This method used to validate user hobby
-     * For more information see {@link UserValidation#validateUserBioAndDetails(String, int, int)}
-     * @throws InvalidUserException if the input string is null or the length is not between 3-150 character
-     */
-    private void validateUserHobby() throws InvalidUserException{
+    private void validateUserHobby(UserValidationResult result) {
 
         String hobby = userToValidate.getUserHobby(); // Optional Field
 
         // Allows not null and empty Strings
         if(hobby != null && hobby.length() != 0) {
 
-            validateUserBioAndDetails(hobby, 3, 150);
+            validateUserBioAndDetails(hobby, 3, 150, UserViolation.HOBBY_LENGTH, result);
         }
     }
 
     /**
      * @author Nurujjaman Pollob 2022
-     * @apiNote Method to validate password, and also encrypt a password if it's not encrypted by {@link BCryptPasswordEncoder}
-     * For more information, see {@link UserValidation#validatePasswordAndRecoveryQuestion(String, int, int)}
-     * @throws InvalidUserException if password is null, contains new line character, or length is not between 6 - 128
+     * @apiNote Method to encrypt a password if it's not encrypted by {@link BCryptPasswordEncoder}
+     * The hashing runs on {@link PasswordHashingExecutor#getDefault()}, so the number of threads busy in bcrypt is bounded,
+     * the caller thread waits for the result.
+     * If the executor rejects the request or hashing fails, {@link UserViolation#PASSWORD_HASHING_FAILED} is recorded.
+     * @param result the result to collect violation into
      */
-    private void validatePassword() throws InvalidUserException {
+    private void encodePasswordBlocking(UserValidationResult result) {
 
         String password = userToValidate().getPassword();
-        validatePasswordAndRecoveryQuestion(password, 6, 128);
 
         // Check if password encrypted with BcryptPasswordEncoder
         // If not encrypt it and assign to user object
-        if(!UtilityCollection.isPasswordEncodedWithBcryptPasswordEncryptor(password)){
-            userToValidate.setPassword(new BCryptPasswordEncoder().encode(password));
+        if(UtilityCollection.isPasswordEncodedWithBcryptPasswordEncryptor(password)){
+            return;
         }
-    }
 
-    /**
-     * @author Nurujjaman Pollob 2022
-     * @apiNote Method to validate user secret question, and also encrypt a password if it's not encrypted by {@link BCryptPasswordEncoder}
-     * For more information, see {@link UserValidation#validatePasswordAndRecoveryQuestion(String, int, int)}
-     * @throws InvalidUserException if password is null, contains new line character, or length is not between 12 - 256
-     */
-    private void validateRecoveryQuestion() throws InvalidUserException{
-
-        validatePasswordAndRecoveryQuestion(userToValidate().getUserRecoveryQuestion(), 12, 256);
+        try {
+            userToValidate.setPassword(PasswordHashingExecutor.getDefault().encodeAsync(password).get());
+        } catch (ExecutionException e) {
+            result.addViolation(UserViolation.PASSWORD_HASHING_FAILED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.addViolation(UserViolation.PASSWORD_HASHING_FAILED);
+        }
     }
 
     /**
@@ -438,25 +448,30 @@ public record UserValidation(User userToValidate) {
      * @apiNote This method used to validate password or recovery question length and compare it with minLimit and maxLimit,
      * Also checks for new line character, if there is one new line character
      * or the passed secretString length is less than minLimit or higher than maxLimit,
-     * it should throw {@link InvalidUserException}
+     * a violation is recorded.
      * @param secretString the secret String to validate
      * @param minLimit the minimum length for secretString
      * @param maxLimit the maximum length for secretString
-     * @throws InvalidUserException if the String length is lower than minLimit, or higher than maxLimit or contains new line or the secretString is null.
+     * @param lengthViolation violation to record if the String is null, or length is out of range
+     * @param lineBreakViolation violation to record if the String contains new line
+     * @param result the result to collect violation into
      */
-    private void validatePasswordAndRecoveryQuestion(String secretString, int minLimit, int maxLimit) throws InvalidUserException{
+    private void validatePasswordAndRecoveryQuestion(String secretString, int minLimit, int maxLimit,
+                                                     UserViolation lengthViolation, UserViolation lineBreakViolation,
+                                                     UserValidationResult result) {
 
         // Check for secret sting nullity and limit
         if(secretString == null || secretString.length() < minLimit || secretString.length() > maxLimit){
-
-            throw new InvalidUserException("The password secret message is null or it is too small or too long");
+            result.addViolation(lengthViolation);
+            return;
         }
 
         // Containing linebreak is not allowed
-        if (secretString.contains("\n")){
-            throw new InvalidUserException("Password or recovery question seems invalid!");
+        if (secretString.indexOf('\n') >= 0){
+            result.addViolation(lineBreakViolation);
         }
     }
+
     /**
      * @author Nurujjaman Pollob 2022
      *
@@ -465,14 +480,58 @@ public record UserValidation(User userToValidate) {
      * @param userDetails The user details need to be tested
      * @param maxCharLimit sets max char limit for a user details.
      * @param minCharLimit sets min char limit for a user details
-     * @throws InvalidUserException if the passed userDetails is null, or it either character limit from maxCharLimit is crossed
+     * @param violation violation to record if the passed userDetails is null, or it either character limit from maxCharLimit is crossed
      * or the userDetails has fewer character then minCharLimit
+     * @param result the result to collect violation into
      */
-    private void validateUserBioAndDetails(String userDetails, int minCharLimit, int maxCharLimit) throws InvalidUserException{
+    private void validateUserBioAndDetails(String userDetails, int minCharLimit, int maxCharLimit, UserViolation violation, UserValidationResult result) {
 
         if(userDetails == null || userDetails.length() < minCharLimit || userDetails.length() > maxCharLimit){
+            result.addViolation(violation);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Pack a date into a comparable <code>yyyyMMdd</code> long, without creating {@link LocalDate} instance
+     */
+    private static long packDate(long year, int month, int day) {
+        return year * 10000 + month * 100L + day;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get the minimum age cutoff for today, it's recomputed only when the cached one is expired at midnight.
+     */
+    private static MinimumAgeCutoff currentMinimumAgeCutoff() {
+
+        MinimumAgeCutoff cutoff = minimumAgeCutoff;
+
+        if(System.currentTimeMillis() >= cutoff.validUntilMillis){
+            cutoff = MinimumAgeCutoff.computeNow();
+            minimumAgeCutoff = cutoff;
+        }
+
+        return cutoff;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Immutable holder of latest allowed birthdate for {@link UserValidation#MINIMUM_USER_AGE},
+     * and the time in millis until it's valid, which is the next midnight in system default zone.
+     * A user born on latestBirthDate or before is at least 13 year old, same as {@link java.time.Period#between(LocalDate, LocalDate)} years.
+     */
+    private record MinimumAgeCutoff(long latestBirthDate, long validUntilMillis) {
+
+        private static MinimumAgeCutoff computeNow() {
+
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate today = LocalDate.now(zone);
+            LocalDate latest = today.minusYears(MINIMUM_USER_AGE);
 
-            throw new InvalidUserException("It seems user provided details null or it's too short or too long");
+            return new MinimumAgeCutoff(
+                    packDate(latest.getYear(), latest.getMonthValue(), latest.getDayOfMonth()),
+                    today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
         }
     }
 
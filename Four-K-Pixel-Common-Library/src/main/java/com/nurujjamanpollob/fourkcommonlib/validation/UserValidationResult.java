@@ -0,0 +1,142 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.validation;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.InvalidUserException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Mutable holder that collects every {@link UserViolation} found by {@link UserValidation#validateUser(UserValidationResult)}.
+ * Backed by an {@link EnumSet}, so adding a violation does not allocate,
+ * and an instance can be reused for many users by calling {@link UserValidationResult#reset()}.
+ * This class is not thread safe, use one instance per thread.
+ */
+public final class UserValidationResult {
+
+    private final EnumSet<UserViolation> violations = EnumSet.noneOf(UserViolation.class);
+    private final Set<UserViolation> readOnlyViolations = Collections.unmodifiableSet(violations);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Clear all collected violations, so this instance can be used for another validation.
+     */
+    public void reset() {
+        violations.clear();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param violation the violation to record
+     */
+    void addViolation(UserViolation violation) {
+        violations.add(violation);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return true if no violation is recorded, false otherwise
+     */
+    public boolean isValid() {
+        return violations.isEmpty();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param violation the violation to look for
+     * @return true if the violation is recorded
+     */
+    public boolean hasViolation(UserViolation violation) {
+        return violations.contains(violation);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return read only view of recorded violations, in validation order
+     */
+    public Set<UserViolation> getViolations() {
+        return readOnlyViolations;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the first violation in validation order, or null if this result is valid
+     */
+    public UserViolation getFirstViolation() {
+        return violations.isEmpty() ? null : violations.iterator().next();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Throw the first recorded violation as {@link InvalidUserException}, used to keep exception based API compatible.
+     * @throws InvalidUserException if this result has a violation
+     */
+    public void throwIfInvalid() throws InvalidUserException {
+
+        UserViolation first = getFirstViolation();
+
+        if (first != null) {
+            throw new InvalidUserException(first.getMessage());
+        }
+    }
+}
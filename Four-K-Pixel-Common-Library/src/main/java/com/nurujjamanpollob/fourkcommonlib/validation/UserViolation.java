@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib.validation;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Enum that holds every rule a {@link com.nurujjamanpollob.fourkcommonlib.model.User} can violate while validated by {@link UserValidation}.
+ * The constants are declared in the same order the validation runs,
+ * so iterating a {@link java.util.EnumSet} of this type returns violations in validation order.
+ * Messages are the same as the messages previously thrown with {@link com.nurujjamanpollob.fourkcommonlib.exception.InvalidUserException}.
+ */
+public enum UserViolation {
+
+    USERNAME_NULL("Username can't be null"),
+    USERNAME_LENGTH("The username is too long or too short!"),
+    USERNAME_INVALID_CHARACTER("The Username contains invalid character"),
+    BIRTH_DATE_INVALID("The user birth date is missing or not a valid calendar date"),
+    USER_TOO_YOUNG("The user is younger to use this website."),
+    FIRST_NAME_LENGTH("The Name can't be null or the name cant be shorter than 3 character or more than 16 characters"),
+    FIRST_NAME_INVALID_CHARACTER("User First name or last name is invalid"),
+    LAST_NAME_LENGTH("The Name can't be null or the name cant be shorter than 3 character or more than 16 characters"),
+    LAST_NAME_INVALID_CHARACTER("User First name or last name is invalid"),
+    ADDRESS_LINE_ONE_LENGTH("The user address may be null or the address length is too long or short"),
+    ADDRESS_LINE_ONE_INVALID_CHARACTER("The user address contains invalid character, allowed character is > A-Z a-z 0-9 whitespace comma colon semicolon first bracket(open & close) & <"),
+    ADDRESS_LINE_TWO_LENGTH("The Optional address line is too long. it should be under 200 characters"),
+    ADDRESS_LINE_TWO_INVALID_CHARACTER("The user address contains invalid character, allowed character is > A-Z a-z 0-9 whitespace comma colon semicolon first bracket(open & close) & <"),
+    CITY_LENGTH("The user address may be null or the address length is too long or short"),
+    CITY_INVALID_CHARACTER("The user address contains invalid character, allowed character is > A-Z a-z 0-9 whitespace comma colon semicolon first bracket(open & close) & <"),
+    COUNTRY_LENGTH("The country name or code length is too short or too long!"),
+    COUNTRY_INVALID_CHARACTER("The user country name or code seems contains invalid character!"),
+    BIO_LENGTH("It seems user provided details null or it's too short or too long"),
+    SHORT_DESCRIPTION_LENGTH("It seems user provided details null or it's too short or too long"),
+    HOBBY_LENGTH("It seems user provided details null or it's too short or too long"),
+    RECOVERY_QUESTION_LENGTH("The password secret message is null or it is too small or too long"),
+    RECOVERY_QUESTION_LINE_BREAK("Password or recovery question seems invalid!"),
+    PASSWORD_LENGTH("The password secret message is null or it is too small or too long"),
+    PASSWORD_LINE_BREAK("Password or recovery question seems invalid!"),
+    PASSWORD_HASHING_FAILED("The password can't be encoded now, the server is busy, please try again later");
+
+    private final String message;
+
+    UserViolation(String message) {
+        this.message = message;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the human-readable message of this violation
+     */
+    public String getMessage() {
+        return message;
+    }
+}
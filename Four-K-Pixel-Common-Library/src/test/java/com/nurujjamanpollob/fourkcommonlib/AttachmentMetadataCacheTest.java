@@ -0,0 +1,167 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadata;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadataCache;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageMimeSniffer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadataCache}
+ */
+public class AttachmentMetadataCacheTest {
+
+    private static final String VALID_IMAGE = "testfiles/image/test-normal-image.png";
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Facts of an image should be read once, and then answered from cache while the file is unchanged
+     */
+    @Test
+    public void testUnchangedFileIsAnsweredFromCache() throws Exception {
+
+        AttachmentMetadataCache cache = new AttachmentMetadataCache(64);
+
+        AttachmentMetadata first = cache.get(Path.of(VALID_IMAGE));
+        AttachmentMetadata second = cache.get(Path.of(VALID_IMAGE).toAbsolutePath());
+
+        assertSame(first, second);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        assertEquals(Files.size(Path.of(VALID_IMAGE)), first.size());
+        assertEquals(ImageMimeSniffer.MIME_PNG, first.mimeType());
+        assertEquals(512, first.width());
+        assertEquals(512, first.height());
+        assertNull(first.contentHash());
+
+        AttachmentMetadata hashed = cache.getWithContentHash(Path.of(VALID_IMAGE));
+        assertEquals("82169eee2272d7eddfdf1109cf5a277aaa9858a5a09435bfa918ff5d1136434d", hashed.contentHash());
+        assertSame(hashed, cache.getWithContentHash(Path.of(VALID_IMAGE)));
+        assertSame(hashed, cache.get(Path.of(VALID_IMAGE)));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A modified file should be read again, and a deleted file should not be answered from cache
+     */
+    @Test
+    public void testModifiedAndDeletedFilesAreReadAgain() throws Exception {
+
+        AttachmentMetadataCache cache = new AttachmentMetadataCache(64);
+        Path file = Files.createTempFile("attachment-metadata-test", ".png");
+
+        try {
+            Files.copy(Path.of(VALID_IMAGE), file, StandardCopyOption.REPLACE_EXISTING);
+            assertEquals(ImageMimeSniffer.MIME_PNG, cache.get(file).mimeType());
+
+            // Same name, other content
+            Files.writeString(file, "not an image anymore");
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+
+            AttachmentMetadata modified = cache.get(file);
+            assertEquals(2, cache.getMissCount());
+            assertEquals(20, modified.size());
+            assertFalse(modified.hasDimensions());
+
+            Files.delete(file);
+            assertThrows(NoSuchFileException.class, () -> cache.get(file));
+            assertEquals(0, cache.size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote The cache should never hold more files than its capacity
+     */
+    @Test
+    public void testCacheIsBounded() throws Exception {
+
+        AttachmentMetadataCache cache = new AttachmentMetadataCache(16);
+        Path directory = Files.createTempDirectory("attachment-metadata-test");
+
+        try {
+            for (int i = 0; i < 200; i++) {
+                Path file = Files.copy(Path.of(VALID_IMAGE), directory.resolve("image-" + i + ".png"));
+                cache.get(file);
+                assertTrue(cache.size() <= 16);
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentReaper;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentReaperMetrics;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.storage.ReferencedAttachments;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.storage.AttachmentReaper}
+ */
+public class AttachmentReaperTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Submitted files should be deleted in background,
+     * and metrics should count deleted and missing files with reclaimed bytes
+     */
+    @Test
+    public void testSubmittedFilesAreDeleted() throws Exception {
+
+        Path directory = Files.createTempDirectory("attachment-reaper-test");
+
+        try (AttachmentReaper reaper = new AttachmentReaper()) {
+
+            String[] files = new String[300];
+            for (int i = 0; i < files.length; i++) {
+                files[i] = Files.write(directory.resolve("image-" + i + ".png"), new byte[100]).toString();
+            }
+
+            assertTrue(reaper.submit(files));
+            assertTrue(reaper.submit(directory.resolve("missing.png")));
+            assertTrue(reaper.awaitIdle(Duration.ofSeconds(30)));
+
+            for (String file : files) {
+                assertFalse(Files.exists(Path.of(file)));
+            }
+
+            AttachmentReaperMetrics metrics = reaper.getMetrics();
+            assertEquals(301, metrics.submittedCount());
+            assertEquals(300, metrics.deletedCount());
+            assertEquals(1, metrics.missingCount());
+            assertEquals(30000, metrics.reclaimedBytes());
+            assertTrue(metrics.maxDeletionLatencyNanos() >= metrics.averageDeletionLatencyNanos());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A directory should never be deleted, and a closed reaper should reject requests
+     */
+    @Test
+    public void testDirectoryIsNotDeletedAndClosedReaperRejects() throws Exception {
+
+        Path directory = Files.createTempDirectory("attachment-reaper-test");
+        Path nested = Files.createDirectory(directory.resolve("nested"));
+        Files.write(nested.resolve("image.png"), new byte[10]);
+
+        try {
+            AttachmentReaper reaper = new AttachmentReaper();
+
+            assertTrue(reaper.submit(nested));
+            assertTrue(reaper.awaitIdle(Duration.ofSeconds(30)));
+            assertTrue(Files.exists(nested.resolve("image.png")));
+            assertEquals(1, reaper.getMetrics().failedCount());
+
+            reaper.close();
+
+            assertFalse(reaper.submit(nested.resolve("image.png")));
+            assertEquals(1, reaper.getMetrics().rejectedCount());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Sweep should delete only files older than grace period, which no post references
+     */
+    @Test
+    public void testSweepDeletesOnlyOldUnreferencedFiles() throws Exception {
+
+        Path directory = Files.createTempDirectory("attachment-reaper-test");
+        Path nested = Files.createDirectory(directory.resolve("2022"));
+
+        Path referenced = Files.write(directory.resolve("referenced.png"), new byte[10]);
+        Path orphan = Files.write(nested.resolve("orphan.png"), new byte[20]);
+        Path fresh = Files.write(directory.resolve("fresh.png"), new byte[30]);
+
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+        Files.setLastModifiedTime(referenced, old);
+        Files.setLastModifiedTime(orphan, old);
+
+        // Referenced through a relative, not normalized location
+        String referencedLocation = directory.resolve("2022/../referenced.png").toString();
+        List<Post> posts = List.of(new Post("nurujjamanpollob", "Title", null, new String[]{referencedLocation}, null, System.currentTimeMillis()));
+
+        try (AttachmentReaper reaper = new AttachmentReaper(directory, ReferencedAttachments.fromPosts(() -> posts),
+                Duration.ofHours(1), Duration.ofHours(1))) {
+
+            assertEquals(1, reaper.sweep());
+            assertTrue(reaper.awaitIdle(Duration.ofSeconds(30)));
+
+            assertTrue(Files.exists(referenced));
+            assertTrue(Files.exists(fresh));
+            assertFalse(Files.exists(orphan));
+
+            AttachmentReaperMetrics metrics = reaper.getMetrics();
+            assertEquals(1, metrics.sweepCount());
+            assertEquals(1, metrics.orphanCount());
+            assertEquals(20, metrics.reclaimedBytes());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Content root and its staging directory should be swept once, keeping content counted by the store,
+     * and the missing legacy directory should be skipped
+     */
+    @Test
+    public void testContentStoreDirectoriesAreSwept() throws Exception {
+
+        Path directory = Files.createTempDirectory("attachment-reaper-test");
+
+        try {
+            ContentStore store = new ContentStore(directory.resolve("content"));
+            String counted = "a".repeat(64);
+            String orphanContent = "b".repeat(64);
+
+            Path countedFile = Files.write(Files.createDirectories(store.pathOf(counted).getParent()).resolve(counted), new byte[10]);
+            Path orphanFile = Files.write(Files.createDirectories(store.pathOf(orphanContent).getParent()).resolve(orphanContent), new byte[20]);
+            Path staging = Files.write(store.getStagingDirectory().resolve("resumable-1.part"), new byte[30]);
+
+            FileTime old = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+            Files.setLastModifiedTime(countedFile, old);
+            Files.setLastModifiedTime(orphanFile, old);
+            Files.setLastModifiedTime(staging, old);
+
+            ReferencedAttachments referenced = () -> Set.of(store.pathOf(counted));
+            List<Path> directories = List.of(store.getRoot(), store.getStagingDirectory(), directory.resolve("legacy"));
+
+            try (AttachmentReaper reaper = new AttachmentReaper(directories, referenced, Duration.ofHours(1), Duration.ofHours(1))) {
+
+                assertEquals(2, reaper.sweep());
+                assertTrue(reaper.awaitIdle(Duration.ofSeconds(30)));
+
+                assertTrue(Files.exists(countedFile));
+                assertFalse(Files.exists(orphanFile));
+                assertFalse(Files.exists(staging));
+                assertEquals(50, reaper.getMetrics().reclaimedBytes());
+            }
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A content added after the sweep loaded its references should be kept by the store,
+     * and only the reclaimed content should be told to the listener
+     */
+    @Test
+    public void testContentReferencedAfterSweepIsKept() throws Exception {
+
+        Path directory = Files.createTempDirectory("attachment-reaper-test");
+
+        try {
+            ContentStore store = new ContentStore(directory.resolve("content"));
+            byte[] sha256 = new byte[32];
+            Arrays.fill(sha256, (byte) 0x0c);
+
+            String added = store.add(Files.write(store.getStagingDirectory().resolve("upload.part"), new byte[10]), sha256);
+            String orphanContent = "d".repeat(64);
+            Path orphanFile = Files.write(Files.createDirectories(store.pathOf(orphanContent).getParent()).resolve(orphanContent), new byte[20]);
+
+            FileTime old = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+            Files.setLastModifiedTime(store.pathOf(added), old);
+            Files.setLastModifiedTime(orphanFile, old);
+
+            // References loaded before the content was added
+            ReferencedAttachments referenced = Set::of;
+            List<String> reclaimed = new CopyOnWriteArrayList<>();
+            List<Path> directories = List.of(store.getRoot(), store.getStagingDirectory());
+
+            try (AttachmentReaper reaper = new AttachmentReaper(directories, store, referenced,
+                    Duration.ofHours(1), Duration.ofHours(1), reclaimed::add)) {
+
+                assertEquals(2, reaper.sweep());
+                assertTrue(reaper.awaitIdle(Duration.ofSeconds(30)));
+
+                assertTrue(Files.exists(store.pathOf(added)));
+                assertFalse(Files.exists(orphanFile));
+                assertEquals(List.of(orphanContent), reclaimed);
+                assertEquals(1, reaper.getMetrics().deletedCount());
+                assertEquals(1, reaper.getMetrics().missingCount());
+                assertEquals(20, reaper.getMetrics().reclaimedBytes());
+                assertEquals(1, store.getDeletedCount());
+            }
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its content
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentUploader;
+import com.nurujjamanpollob.fourkcommonlib.storage.DirectBufferPool;
+import com.nurujjamanpollob.fourkcommonlib.storage.UploadedAttachment;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageMimeSniffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.storage.AttachmentUploader}
+ */
+public class AttachmentUploaderTest {
+
+    private static final String VALID_IMAGE = "testfiles/image/test-normal-image.png";
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote An image upload should be stored with same content, and no staging file should be left
+     */
+    @Test
+    public void testImageIsStored() throws Exception {
+
+        Path directory = Files.createTempDirectory("attachment-uploader-test");
+
+        try {
+            AttachmentUploader uploader = new AttachmentUploader(directory, new DirectBufferPool(BUFFER_SIZE, 4), 15728640);
+            byte[] image = Files.readAllBytes(Path.of(VALID_IMAGE));
+
+            UploadedAttachment uploaded = uploader.upload(new ByteArrayInputStream(image));
+
+            assertEquals(ImageMimeSniffer.MIME_PNG, uploaded.mimeType());
+            assertEquals(image.length, uploaded.size());
+            assertTrue(uploaded.location().endsWith(".png"));
+            assertArrayEquals(image, Files.readAllBytes(Path.of(uploaded.location())));
+            assertEquals(0, countFiles(directory.resolve(".staging")));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Empty, non image and too large uploads should be rejected, nothing should be left on disk,
+     * and a too large upload should not be read much after the size limit
+     */
+    @Test
+    public void testRejectedUploadsLeaveNothing() throws Exception {
+
+        Path directory = Files.createTempDirectory("attachment-uploader-test");
+
+        try {
+            AttachmentUploader uploader = new AttachmentUploader(directory, new DirectBufferPool(BUFFER_SIZE, 4), 100_000);
+
+            UploadRejectedException empty = assertThrows(UploadRejectedException.class,
+                    () -> uploader.upload(new ByteArrayInputStream(new byte[0])));
+            assertEquals(UploadRejectedException.Reason.EMPTY, empty.getReason());
+
+            UploadRejectedException text = assertThrows(UploadRejectedException.class,
+                    () -> uploader.upload(new ByteArrayInputStream("just a text file".repeat(1000).getBytes(StandardCharsets.UTF_8))));
+            assertEquals(UploadRejectedException.Reason.NOT_AN_IMAGE, text.getReason());
+
+            // 10MB with PNG signature
+            byte[] large = new byte[10 * 1024 * 1024];
+            byte[] header = Arrays.copyOf(Files.readAllBytes(Path.of(VALID_IMAGE)), 64);
+            System.arraycopy(header, 0, large, 0, header.length);
+            ByteArrayInputStream largeStream = new ByteArrayInputStream(large);
+
+            UploadRejectedException tooLarge = assertThrows(UploadRejectedException.class, () -> uploader.upload(largeStream));
+            assertEquals(UploadRejectedException.Reason.TOO_LARGE, tooLarge.getReason());
+            assertTrue(large.length - largeStream.available() <= 100_000 + BUFFER_SIZE);
+
+            assertEquals(0, countFiles(directory.resolve(".staging")));
+            assertEquals(1, countFiles(directory));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote 200 concurrent uploads should all be stored, with no more buffers than the pool allows
+     */
+    @Test
+    public void testConcurrentUploadsShareBoundedBuffers() throws Exception {
+
+        Path directory = Files.createTempDirectory("attachment-uploader-test");
+        DirectBufferPool pool = new DirectBufferPool(BUFFER_SIZE, 32);
+        ExecutorService executor = Executors.newFixedThreadPool(200);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UploadedAttachment>> results = new ArrayList<>();
+
+        try {
+            AttachmentUploader uploader = new AttachmentUploader(directory, pool, 15728640);
+            byte[] image = Files.readAllBytes(Path.of(VALID_IMAGE));
+
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try (InputStream body = new ByteArrayInputStream(image)) {
+                        return uploader.upload(body);
+                    }
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<UploadedAttachment> result : results) {
+                assertEquals(image.length, result.get(60, TimeUnit.SECONDS).size());
+            }
+
+            assertEquals(200, countFiles(directory) - 1);
+            assertTrue(pool.getAllocatedCount() <= 32);
+            assertEquals(0, pool.getInUseCount());
+        } finally {
+            executor.shutdownNow();
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Count entries of a directory, not recursive
+     */
+    private static long countFiles(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its content
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
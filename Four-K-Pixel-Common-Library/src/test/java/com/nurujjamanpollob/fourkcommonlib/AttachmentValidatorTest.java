@@ -0,0 +1,109 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.validation.AttachmentValidator;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidationOptions;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.validation.AttachmentValidator}
+ */
+public class AttachmentValidatorTest {
+
+    private static final String VALID_IMAGE = "testfiles/image/test-normal-image.png";
+
+    private static final String MISSING_IMAGE = "testfiles/image/missing-image.png";
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Missing attachments should be invalid, and no attachment is valid
+     */
+    @Test
+    public void testNullAttachmentsAreInvalid() {
+
+        PostValidationOptions options = PostValidationOptions.defaults();
+
+        assertEquals(AttachmentValidator.Outcome.INVALID, AttachmentValidator.validateAll(null, options));
+        assertEquals(AttachmentValidator.Outcome.VALID, AttachmentValidator.validateAll(new String[0], options));
+        assertEquals(AttachmentValidator.Outcome.INVALID, AttachmentValidator.validateAll(new String[]{null}, options));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Single attachment should get the same outcome as in a gallery post
+     */
+    @Test
+    public void testSingleAttachmentOutcome() {
+
+        PostValidationOptions options = PostValidationOptions.defaults();
+
+        assertEquals(AttachmentValidator.Outcome.VALID, AttachmentValidator.validateAll(new String[]{VALID_IMAGE}, options));
+        assertEquals(AttachmentValidator.Outcome.INVALID, AttachmentValidator.validateAll(new String[]{MISSING_IMAGE}, options));
+        assertEquals(AttachmentValidator.Outcome.INVALID,
+                AttachmentValidator.validateAll(new String[]{VALID_IMAGE}, options.withMaxAttachmentSize(1)));
+        assertEquals(AttachmentValidator.Outcome.VALID,
+                AttachmentValidator.validateAll(new String[]{VALID_IMAGE, VALID_IMAGE}, options));
+        assertEquals(AttachmentValidator.Outcome.INVALID,
+                AttachmentValidator.validateAll(new String[]{VALID_IMAGE, MISSING_IMAGE}, options));
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.User;
+import com.nurujjamanpollob.fourkcommonlib.security.PasswordHashingExecutor;
+import com.nurujjamanpollob.fourkcommonlib.validation.BulkValidation;
+import com.nurujjamanpollob.fourkcommonlib.validation.BulkValidationReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class to test {@link com.nurujjamanpollob.fourkcommonlib.validation.BulkValidation} batch validation
+ */
+public class BulkValidationTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create a user, which is valid if username is valid
+     */
+    private static User createUser(String userName) {
+
+        // Already encoded, skip hashing
+        return createUser(userName, "$2a$10$6Yo4UW7jAWZEcM63u2OZludKALQku4SNFGvCG.fN789AyLisbywGO");
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create a user with given password, which is valid if username is valid
+     */
+    private static User createUser(String userName, String password) {
+
+        return new User(
+                userName,
+                password,
+                "Nurujjaman",
+                "Pollob",
+                "Address Line One",
+                "Address Line Two",
+                "Dinajpur",
+                "Bangladesh",
+                "User short description",
+                "User Bio",
+                "User hobby goes here",
+                "recovery question goes",
+                1998,
+                12,
+                7,
+                11111,
+                false,
+                true,
+                false,
+                true
+        );
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate a batch of users with a mix of valid and invalid usernames,
+     * every entry should keep input order, and only invalid users should have violations
+     */
+    @Test
+    public void testValidateUsersReportsEveryItemInOrder() throws InterruptedException {
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            // Every tenth username has capital latter
+            users.add(createUser(i % 10 == 0 ? "Pollob" + i : "pollob" + i));
+        }
+
+        try (BulkValidation bulkValidation = new BulkValidation(4)) {
+
+            BulkValidationReport<User> report = bulkValidation.validateUsers(users);
+
+            assertEquals(1000, report.size());
+            assertEquals(100, report.getInvalidCount());
+            assertFalse(report.isAllValid());
+
+            for (BulkValidationReport.Entry<User> entry : report.getEntries()) {
+
+                assertSame(users.get(entry.index()), entry.item());
+                assertEquals(entry.index() % 10 != 0, entry.isValid());
+            }
+
+            assertEquals(List.of("The Username contains invalid character"), report.getInvalidEntries().get(0).violations());
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate a stream of posts, with invalid title and null post,
+     * the batch should not stop at first invalid post
+     */
+    @Test
+    public void testValidatePostsDoesNotStopAtInvalidPost() throws InterruptedException {
+
+        Post missingTitle = new Post("nurujjamanpollob", null, "Post description",
+                new String[]{"testfiles/image/test-normal-image.png"}, "Testing", System.currentTimeMillis());
+
+        Post missingAttachments = new Post("nurujjamanpollob", "Post title", "Post description",
+                null, "Testing", System.currentTimeMillis());
+
+        try (BulkValidation bulkValidation = new BulkValidation(2)) {
+
+            BulkValidationReport<Post> report = bulkValidation.validatePosts(Stream.of(missingTitle, null, missingAttachments));
+
+            assertEquals(3, report.size());
+            assertEquals(3, report.getInvalidCount());
+            assertTrue(report.getEntries().get(0).violations().get(0).contains("Post title is missing"));
+            assertEquals(List.of("Post can't be null"), report.getEntries().get(1).violations());
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Interrupted caller should cancel the running user batch, which waits for password encoding,
+     * so the pools terminate long before every password of the batch could be encoded by one slow hashing thread
+     */
+    @Test
+    public void testInterruptedUserBatchIsCancelled() throws InterruptedException {
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(createUser("pollob" + i, "password-of-user-" + i));
+        }
+
+        PasswordHashingExecutor previous = PasswordHashingExecutor.getDefault();
+        PasswordHashingExecutor slowExecutor = new PasswordHashingExecutor(1, PasswordHashingExecutor.DEFAULT_QUEUE_CAPACITY, 14);
+        PasswordHashingExecutor.setDefault(slowExecutor);
+
+        BulkValidation bulkValidation = new BulkValidation(2);
+
+        try {
+            Thread.currentThread().interrupt();
+            assertThrows(InterruptedException.class, () -> bulkValidation.validateUsers(users));
+            assertFalse(Thread.interrupted());
+
+            // Slow executor is still the default, an uncancelled batch would keep encoding
+            bulkValidation.close();
+            assertTrue(bulkValidation.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            bulkValidation.close();
+            PasswordHashingExecutor.setDefault(previous);
+            slowExecutor.close();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A user whose validation throws should be reported as that user's violation, the batch should go on
+     */
+    @Test
+    public void testFailingUserDoesNotStopBatch() throws InterruptedException {
+
+        User failing = new User() {
+            @Override
+            public String getUserBio() {
+                throw new IllegalStateException("Bio is not loaded");
+            }
+        };
+
+        try (BulkValidation bulkValidation = new BulkValidation(2)) {
+
+            BulkValidationReport<User> report = bulkValidation.validateUsers(List.of(createUser("pollob1"), failing, createUser("pollob2")));
+
+            assertEquals(3, report.size());
+            assertEquals(1, report.getInvalidCount());
+            assertEquals(List.of("User can't be validated: java.lang.IllegalStateException: Bio is not loaded"),
+                    report.getEntries().get(1).violations());
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A worker interrupted in the middle of a batch stops,
+     * the users it did not start should be reported as not validated instead of failing the report
+     */
+    @Test
+    public void testUsersSkippedByInterruptedWorkerAreReported() throws InterruptedException {
+
+        User interrupting = new User() {
+            @Override
+            public String getUserBio() {
+                Thread.currentThread().interrupt();
+                return "User Bio";
+            }
+        };
+
+        List<User> users = List.of(createUser("pollob1"), interrupting, createUser("pollob2"), createUser("pollob3"));
+
+        try (BulkValidation bulkValidation = new BulkValidation(1)) {
+
+            BulkValidationReport<User> report = bulkValidation.validateUsers(users);
+
+            assertEquals(4, report.size());
+            assertTrue(report.getEntries().get(0).isValid());
+
+            for (int i = 2; i < users.size(); i++) {
+                assertSame(users.get(i), report.getEntries().get(i).item());
+                assertEquals(List.of("User is not validated, the batch was interrupted"), report.getEntries().get(i).violations());
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Parallelism less than one is not allowed
+     */
+    @Test
+    public void testInvalidParallelismIsRejected() {
+
+        assertThrows(IllegalArgumentException.class, () -> new BulkValidation(0));
+    }
+}
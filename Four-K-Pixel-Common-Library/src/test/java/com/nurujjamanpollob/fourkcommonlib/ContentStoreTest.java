@@ -0,0 +1,260 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.InvalidPostException;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentUploader;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.storage.DirectBufferPool;
+import com.nurujjamanpollob.fourkcommonlib.storage.UploadedAttachment;
+import com.nurujjamanpollob.fourkcommonlib.validation.AttachmentValidator;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidation;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidationOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.storage.ContentStore}
+ */
+public class ContentStoreTest {
+
+    private static final String VALID_IMAGE = "testfiles/image/test-normal-image.png";
+
+    private static final String VALID_IMAGE_SHA256 = "82169eee2272d7eddfdf1109cf5a277aaa9858a5a09435bfa918ff5d1136434d";
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Same image uploaded many times should be stored once in sharded layout,
+     * and deleted only when its last reference is released
+     */
+    @Test
+    public void testSameContentIsStoredOnceAndReferenceCounted() throws Exception {
+
+        Path directory = Files.createTempDirectory("content-store-test");
+
+        try {
+            ContentStore store = new ContentStore(directory);
+            AttachmentUploader uploader = new AttachmentUploader(store, new DirectBufferPool(8192, 4), 15728640);
+            byte[] image = Files.readAllBytes(Path.of(VALID_IMAGE));
+
+            for (int i = 0; i < 5; i++) {
+                UploadedAttachment uploaded = uploader.upload(new ByteArrayInputStream(image));
+                assertEquals(VALID_IMAGE_SHA256, uploaded.location());
+            }
+
+            Path stored = directory.resolve("82").resolve("16").resolve(VALID_IMAGE_SHA256);
+            assertEquals(stored, store.pathOf(VALID_IMAGE_SHA256));
+            assertArrayEquals(image, Files.readAllBytes(stored));
+            assertEquals(1, countFiles(directory));
+
+            assertEquals(5, store.getReferenceCount(VALID_IMAGE_SHA256));
+            assertEquals(1, store.getStoredCount());
+            assertEquals(4, store.getDeduplicatedCount());
+            assertEquals(4L * image.length, store.getDeduplicatedBytes());
+
+            for (int i = 0; i < 4; i++) {
+                assertFalse(store.release(VALID_IMAGE_SHA256));
+            }
+            assertTrue(Files.exists(stored));
+
+            assertTrue(store.release(VALID_IMAGE_SHA256));
+            assertFalse(Files.exists(stored));
+            assertFalse(store.retain(VALID_IMAGE_SHA256));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Reference counts should be restored from posts, ignoring legacy file paths
+     */
+    @Test
+    public void testReferenceCountsAreRebuiltFromPosts() throws Exception {
+
+        Path directory = Files.createTempDirectory("content-store-test");
+
+        try {
+            ContentStore store = new ContentStore(directory);
+
+            List<Post> posts = List.of(
+                    createPost(VALID_IMAGE_SHA256, VALID_IMAGE),
+                    createPost(VALID_IMAGE_SHA256),
+                    createPost("0".repeat(64)));
+
+            store.rebuildReferenceCounts(posts);
+
+            assertEquals(2, store.getReferenceCount(VALID_IMAGE_SHA256));
+            assertEquals(1, store.getReferenceCount("0".repeat(64)));
+            assertEquals(0, store.getReferenceCount(VALID_IMAGE));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Only 64 lower case hex characters are content identifiers, and attachment validation should resolve them
+     */
+    @Test
+    public void testContentIdIsResolvedForValidation() throws Exception {
+
+        assertTrue(ContentStore.isContentId(VALID_IMAGE_SHA256));
+        assertFalse(ContentStore.isContentId(VALID_IMAGE_SHA256.toUpperCase()));
+        assertFalse(ContentStore.isContentId(VALID_IMAGE));
+        assertFalse(ContentStore.isContentId(null));
+
+        Path directory = Files.createTempDirectory("content-store-test");
+
+        try {
+            ContentStore store = new ContentStore(directory);
+            ContentStore.setDefault(store);
+
+            String contentId = new AttachmentUploader(store, new DirectBufferPool(8192, 1), 15728640)
+                    .upload(new ByteArrayInputStream(Files.readAllBytes(Path.of(VALID_IMAGE))))
+                    .location();
+
+            assertEquals(store.pathOf(contentId), ContentStore.resolve(contentId));
+            assertEquals(Path.of(VALID_IMAGE), ContentStore.resolve(VALID_IMAGE));
+            assertTrue(AttachmentValidator.isValidImageWithinSizeLimit(contentId));
+            assertFalse(AttachmentValidator.isValidImageWithinSizeLimit("0".repeat(64)));
+        } finally {
+            // Next use creates the default store again
+            ContentStore.setDefault(null);
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A content of unknown count should never be deleted, and a rejected post should release only attachments it owns
+     */
+    @Test
+    public void testContentOfUnknownCountIsNotDeleted() throws Exception {
+
+        Path directory = Files.createTempDirectory("content-store-test");
+
+        try {
+            ContentStore store = new ContentStore(directory);
+            ContentStore.setDefault(store);
+
+            // Stored by another post before restart, its count is not rebuilt
+            Path stored = store.pathOf(VALID_IMAGE_SHA256);
+            Files.createDirectories(stored.getParent());
+            Files.copy(Path.of(VALID_IMAGE), stored);
+
+            assertFalse(store.release(VALID_IMAGE_SHA256));
+            assertTrue(Files.exists(stored));
+
+            Post post = createPost(VALID_IMAGE_SHA256, "0".repeat(64));
+            PostValidationOptions options = PostValidationOptions.defaults().withDeleteAttachmentsIfInvalid(true);
+
+            assertTrue(store.retain(VALID_IMAGE_SHA256));
+            assertThrows(InvalidPostException.class, () -> new PostValidation(post).validatePost(options));
+            assertEquals(1, store.getReferenceCount(VALID_IMAGE_SHA256));
+
+            assertThrows(InvalidPostException.class, () -> new PostValidation(post)
+                    .validatePost(options.withOwnedAttachments(Set.of(VALID_IMAGE_SHA256))));
+            assertEquals(0, store.getReferenceCount(VALID_IMAGE_SHA256));
+            assertFalse(Files.exists(stored));
+        } finally {
+            ContentStore.setDefault(null);
+            deleteDirectory(directory);
+        }
+    }
+
+    private static Post createPost(String... attachments) {
+        return new Post("nurujjamanpollob", "Title", null, attachments, null, System.currentTimeMillis());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Count regular files of a directory, recursive
+     */
+    private static long countFiles(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its content
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.imaging.BlurHash;
+import com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator;
+import com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGeneratorMetrics;
+import com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeSet;
+import com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeSize;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidation;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidationOptions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator}
+ */
+public class DerivativeGeneratorTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Sizes should fit the bounding box with aspect ratio kept, turned for portrait, and never scale up
+     */
+    @Test
+    public void testSizeFitsBoundingBox() {
+
+        assertArrayEquals(new int[]{1280, 720}, DerivativeSize.HD_720.fit(3840, 2160));
+        assertArrayEquals(new int[]{720, 1280}, DerivativeSize.HD_720.fit(2160, 3840));
+        assertArrayEquals(new int[]{320, 240}, DerivativeSize.THUMBNAIL.fit(4000, 3000));
+        assertArrayEquals(new int[]{1920, 480}, DerivativeSize.FULL_HD_1080.fit(4000, 1000));
+        assertNull(DerivativeSize.QHD_1440.fit(2560, 1440));
+        assertNull(DerivativeSize.THUMBNAIL.fit(100, 50));
+        assertEquals(DerivativeSize.FULL_HD_1080, DerivativeSize.fromName("1080p"));
+        assertNull(DerivativeSize.fromName("4k"));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Every size smaller than the image should be generated once, and read from cache on next request
+     */
+    @Test
+    public void testDerivativesAreGeneratedAndCached() throws Exception {
+
+        Path directory = Files.createTempDirectory("derivative-generator-test");
+
+        try (DerivativeGenerator generator = new DerivativeGenerator(directory.resolve("derivatives"), 2)) {
+
+            Path image = writeImage(directory.resolve("image.jpg"), 1800, 1350, "jpg");
+
+            DerivativeSet derivatives = generator.submit(image.toString()).get(30, TimeUnit.SECONDS);
+
+            assertFalse(derivatives.isCached());
+            assertNull(derivatives.get(DerivativeSize.QHD_1440));
+            assertDimensions(derivatives.get(DerivativeSize.FULL_HD_1080), 1440, 1080);
+            assertDimensions(derivatives.get(DerivativeSize.HD_720), 960, 720);
+            assertDimensions(derivatives.get(DerivativeSize.THUMBNAIL), 320, 240);
+            assertEquals(derivatives.get(DerivativeSize.THUMBNAIL), generator.findCached(derivatives.key(), DerivativeSize.THUMBNAIL));
+
+            DerivativeSet cached = generator.submit(image.toString()).get(30, TimeUnit.SECONDS);
+
+            assertTrue(cached.isCached());
+            assertEquals(derivatives.files(), cached.files());
+            assertEquals(28, derivatives.placeholder().length());
+            assertEquals(derivatives.placeholder(), cached.placeholder());
+            assertEquals(derivatives.placeholder(), generator.findPlaceholder(derivatives.key()));
+
+            DerivativeGeneratorMetrics metrics = generator.getMetrics();
+            assertEquals(1, metrics.generatedCount());
+            assertEquals(1, metrics.cacheHitCount());
+            assertEquals(3, metrics.derivativeCount());
+            assertTrue(metrics.averageDecodeNanos() > 0);
+            assertTrue(metrics.averageResizeNanos() > 0);
+            assertTrue(metrics.averageEncodeNanos() > 0);
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Transparent images should keep transparency in PNG derivatives
+     */
+    @Test
+    public void testTransparentImageIsWrittenAsPng() throws Exception {
+
+        Path directory = Files.createTempDirectory("derivative-generator-test");
+
+        try (DerivativeGenerator generator = new DerivativeGenerator(directory.resolve("derivatives"), 1)) {
+
+            Path image = writeImage(directory.resolve("image.png"), 600, 400, "png");
+
+            DerivativeSet derivatives = generator.submit(image.toString()).get(30, TimeUnit.SECONDS);
+
+            assertEquals(1, derivatives.files().size());
+            Path thumbnail = derivatives.get(DerivativeSize.THUMBNAIL);
+            assertTrue(thumbnail.getFileName().toString().endsWith(".png"));
+            assertTrue(ImageIO.read(thumbnail.toFile()).getColorModel().hasAlpha());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote An image smaller than every size should still get a placeholder
+     */
+    @Test
+    public void testSmallImageHasPlaceholder() throws Exception {
+
+        Path directory = Files.createTempDirectory("derivative-generator-test");
+
+        try (DerivativeGenerator generator = new DerivativeGenerator(directory.resolve("derivatives"), 1)) {
+
+            Path image = writeImage(directory.resolve("image.jpg"), 200, 100, "jpg");
+
+            DerivativeSet derivatives = generator.submit(image.toString()).get(30, TimeUnit.SECONDS);
+
+            assertTrue(derivatives.files().isEmpty());
+            assertEquals(28, derivatives.placeholder().length());
+            assertNull(generator.findPlaceholder("0".repeat(64)));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A solid color should encode its color as the average, after size flag and maximum of other components
+     */
+    @Test
+    public void testBlurHashOfSolidColor() {
+
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+
+        try {
+            graphics.setColor(Color.RED);
+            graphics.fillRect(0, 0, 8, 8);
+        } finally {
+            graphics.dispose();
+        }
+
+        String hash = BlurHash.encode(image);
+
+        assertEquals(28, hash.length());
+        assertEquals('L', hash.charAt(0));
+        assertEquals("TI:j", hash.substring(2, 6));
+        assertEquals("00TI:j", BlurHash.encode(image, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.encode(image, 0, 3));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A file which is not an image should fail its future, without leaving anything in cache
+     */
+    @Test
+    public void testUnreadableImageFails() throws Exception {
+
+        Path directory = Files.createTempDirectory("derivative-generator-test");
+
+        try (DerivativeGenerator generator = new DerivativeGenerator(directory.resolve("derivatives"), 1)) {
+
+            Path text = Files.writeString(directory.resolve("text.jpg"), "not an image");
+
+            CompletableFuture<DerivativeSet> future = generator.submit(text.toString());
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(30, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, exception.getCause());
+            assertEquals(1, generator.getMetrics().failedCount());
+            assertEquals(0, countFiles(generator.getCacheDirectory()));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Post validation should not wait for derivatives, a cached placeholder should be saved with the post,
+     * and one generated later should be filled in when the post is read
+     */
+    @Test
+    public void testPostValidationDoesNotWaitForPlaceholders() throws Exception {
+
+        Path directory = Files.createTempDirectory("derivative-generator-test");
+
+        try (DerivativeGenerator generator = new DerivativeGenerator(directory.resolve("derivatives"), 1)) {
+
+            ContentStore store = new ContentStore(directory.resolve("content"));
+            ContentStore.setDefault(store);
+            DerivativeGenerator.setDefault(generator);
+
+            Path image = writeImage(directory.resolve("image.jpg"), 1800, 1350, "jpg");
+            String contentId = store.add(image, MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(image)));
+            PostValidationOptions options = PostValidationOptions.defaults().withGenerateDerivatives(true);
+
+            Post post = new Post("nurujjamanpollob", "Title", null, new String[]{contentId}, null, System.currentTimeMillis());
+            new PostValidation(post).validatePost(options);
+
+            // Queued by validation, joined here
+            String placeholder = generator.submit(contentId).get(30, TimeUnit.SECONDS).placeholder();
+            assertEquals(28, placeholder.length());
+
+            // Not written into the post later, it's filled in when the post is read
+            assertEquals(1, post.getImagePlaceholders().length);
+            assertNull(post.getImagePlaceholders()[0]);
+            assertSame(post, generator.fillPlaceholders(post));
+            assertEquals(placeholder, post.getImagePlaceholders()[0]);
+
+            // Cached placeholder is saved with the next post at once
+            Post cachedPost = new Post("nurujjamanpollob", "Title", null, new String[]{contentId}, null, System.currentTimeMillis());
+            new PostValidation(cachedPost).validatePost(options);
+            assertEquals(placeholder, cachedPost.getImagePlaceholders()[0]);
+
+            // A post saved before placeholders gets an array of its attachments
+            Post oldPost = new Post("nurujjamanpollob", "Title", null, new String[]{contentId, null}, null, System.currentTimeMillis());
+            generator.fillPlaceholders(oldPost);
+            assertArrayEquals(new String[]{placeholder, null}, oldPost.getImagePlaceholders());
+        } finally {
+            // Next use creates the default generator and store again
+            DerivativeGenerator.setDefault(null);
+            ContentStore.setDefault(null);
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Write a gradient image, with transparency if format is png
+     */
+    private static Path writeImage(Path file, int width, int height, String format) throws IOException {
+
+        boolean alpha = format.equals("png");
+        BufferedImage image = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+
+        try {
+            for (int x = 0; x < width; x += 10) {
+                graphics.setColor(new Color(x * 255 / width, 128, 255 - x * 255 / width, alpha ? 128 : 255));
+                graphics.fillRect(x, 0, 10, height);
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        ImageIO.write(image, format, file.toFile());
+        return file;
+    }
+
+    private static void assertDimensions(Path file, int width, int height) throws IOException {
+
+        assertNotNull(file);
+        BufferedImage image = ImageIO.read(file.toFile());
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Count regular files of a directory, recursive
+     */
+    private static long countFiles(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its content
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.utility.EpochTimeFormatter;
+import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.utility.EpochTimeFormatter}
+ */
+public class EpochTimeFormatterTest {
+
+    /**
+     * 2022-11-06, clocks in New York go back from 02:00 to 01:00, so the day has 25 hours
+     */
+    private static final long NEW_YORK_DST_END_DAY = 1667707200000L;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote The default pattern should give same output as {@link SimpleDateFormat} did before,
+     * in zones with and without daylight saving time
+     */
+    @Test
+    public void testDefaultPatternMatchesSimpleDateFormat() {
+
+        long[] times = randomTimes(new Random(7), 500);
+
+        for (String zoneId : new String[]{"UTC", "Asia/Dhaka", "America/New_York"}) {
+
+            SimpleDateFormat simpleDateFormat = new SimpleDateFormat(EpochTimeFormatter.DEFAULT_PATTERN);
+            simpleDateFormat.setTimeZone(TimeZone.getTimeZone(zoneId));
+            EpochTimeFormatter formatter = EpochTimeFormatter.of(EpochTimeFormatter.DEFAULT_PATTERN, ZoneId.of(zoneId));
+
+            for (long time : times) {
+                assertEquals(simpleDateFormat.format(new Date(time)), formatter.format(time));
+            }
+        }
+
+        assertEquals(
+                EpochTimeFormatter.getDefault().format(NEW_YORK_DST_END_DAY),
+                UtilityCollection.unixEpochTimeToHumanReadableTimeConverter(NEW_YORK_DST_END_DAY));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Bulk formatting reuses date part of same day, output should be same as formatting one by one,
+     * for unsorted times, times around a 25 hour day, and patterns which can't be split into date and time part
+     */
+    @Test
+    public void testFormatAllMatchesSingleFormat() {
+
+        long[] times = randomTimes(new Random(11), 300);
+
+        // Every 15 minutes of the 25 hour day, and the days around it
+        for (int i = 0; i < 200; i++) {
+            times[i] = NEW_YORK_DST_END_DAY - 12 * 60 * 60 * 1000L + i * 15 * 60 * 1000L;
+        }
+
+        ZoneId newYork = ZoneId.of("America/New_York");
+        String[] patterns = {EpochTimeFormatter.DEFAULT_PATTERN, "dd MMM yyyy", "HH:mm:ss", "HH:mm 'on' dd/MM/yyyy", "yyyy-MM-dd['T'HH:mm]"};
+
+        for (String pattern : patterns) {
+
+            EpochTimeFormatter formatter = EpochTimeFormatter.of(pattern, newYork);
+            String[] output = formatter.formatAll(times, new String[times.length]);
+
+            for (int i = 0; i < times.length; i++) {
+                assertEquals(formatter.format(times[i]), output[i]);
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Formatter should be created once for pattern and zone, and output must not be shorter than input
+     */
+    @Test
+    public void testFormatterIsCachedAndOutputIsChecked() {
+
+        EpochTimeFormatter formatter = EpochTimeFormatter.of("dd MMM yyyy", ZoneId.of("Asia/Dhaka"));
+
+        assertSame(formatter, EpochTimeFormatter.of("dd MMM yyyy", ZoneId.of("Asia/Dhaka")));
+        assertNotSame(formatter, EpochTimeFormatter.of("dd MMM yyyy", ZoneId.of("UTC")));
+        assertThrows(IllegalArgumentException.class, () -> formatter.formatAll(new long[3], new String[2]));
+    }
+
+    private static long[] randomTimes(Random random, int count) {
+
+        long[] times = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            // Between 2000 and 2040
+            times[i] = 946684800000L + (long) (random.nextDouble() * 40 * 365 * 24 * 60 * 60 * 1000L);
+        }
+
+        return times;
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageHeader;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageHeaderReader;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageMimeSniffer;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.utility.ImageHeaderReader}
+ */
+public class ImageHeaderReaderTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote PNG size and bit depth should be read from IHDR chunk
+     */
+    @Test
+    public void testPngHeader() throws Exception {
+
+        ImageHeader header = ImageHeaderReader.read(Path.of("testfiles/image/test-normal-image.png"));
+
+        assertEquals(ImageMimeSniffer.MIME_PNG, header.mimeType());
+        assertEquals(512, header.width());
+        assertEquals(512, header.height());
+        assertEquals(1, header.orientation());
+
+        Path file = Files.createTempFile("image-header-test", ".png");
+
+        try {
+            ImageIO.write(new BufferedImage(300, 200, BufferedImage.TYPE_USHORT_GRAY), "png", file.toFile());
+            assertEquals(new ImageHeader(ImageMimeSniffer.MIME_PNG, 300, 200, 16, 1), ImageHeaderReader.read(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote JPEG size should be read from start of frame, and orientation from EXIF segment before it
+     */
+    @Test
+    public void testJpegHeaderWithExifOrientation() throws Exception {
+
+        byte[] jpeg = encode(new BufferedImage(640, 360, BufferedImage.TYPE_INT_RGB), "jpg");
+        byte[] exif = exifWithOrientation(6);
+
+        ByteBuffer withExif = ByteBuffer.allocate(jpeg.length + 10 + exif.length);
+        withExif.put((byte) 0xFF).put((byte) 0xD8);
+        withExif.put((byte) 0xFF).put((byte) 0xE1).putShort((short) (2 + 6 + exif.length));
+        withExif.put(new byte[]{'E', 'x', 'i', 'f', 0, 0}).put(exif);
+        withExif.put(jpeg, 2, jpeg.length - 2);
+
+        ImageHeader plain = read(jpeg, ".jpg");
+        ImageHeader rotated = read(withExif.array(), ".jpg");
+
+        assertEquals(new ImageHeader(ImageMimeSniffer.MIME_JPEG, 640, 360, 8, 1), plain);
+        assertEquals(new ImageHeader(ImageMimeSniffer.MIME_JPEG, 640, 360, 8, 6), rotated);
+        assertTrue(rotated.isRotated());
+        assertEquals(360, rotated.displayWidth());
+        assertEquals(640, rotated.displayHeight());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote TIFF and GIF sizes should be read from image file directory and logical screen descriptor
+     */
+    @Test
+    public void testTiffAndGifHeaders() throws Exception {
+
+        BufferedImage image = new BufferedImage(123, 45, BufferedImage.TYPE_INT_RGB);
+
+        assertEquals(new ImageHeader(ImageMimeSniffer.MIME_TIFF, 123, 45, 8, 1), read(encode(image, "tiff"), ".tiff"));
+
+        ImageHeader gif = read(encode(image, "gif"), ".gif");
+        assertEquals(ImageMimeSniffer.MIME_GIF, gif.mimeType());
+        assertEquals(123, gif.width());
+        assertEquals(45, gif.height());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Extended WebP should give canvas size and EXIF orientation, lossless WebP its bitstream size
+     */
+    @Test
+    public void testWebpHeaders() throws Exception {
+
+        byte[] exif = exifWithOrientation(8);
+        ByteBuffer extended = ByteBuffer.allocate(12 + 18 + 8 + exif.length).order(ByteOrder.LITTLE_ENDIAN);
+        extended.put(new byte[]{'R', 'I', 'F', 'F'}).putInt(extended.capacity() - 8).put(new byte[]{'W', 'E', 'B', 'P'});
+        extended.put(new byte[]{'V', 'P', '8', 'X'}).putInt(10).put((byte) 0x08).put(new byte[3]);
+        putUnsigned24(extended, 3840 - 1);
+        putUnsigned24(extended, 2160 - 1);
+        extended.put(new byte[]{'E', 'X', 'I', 'F'}).putInt(exif.length).put(exif);
+
+        assertEquals(new ImageHeader(ImageMimeSniffer.MIME_WEBP, 3840, 2160, 8, 8), read(extended.array(), ".webp"));
+
+        ByteBuffer lossless = ByteBuffer.allocate(12 + 8 + 6).order(ByteOrder.LITTLE_ENDIAN);
+        lossless.put(new byte[]{'R', 'I', 'F', 'F'}).putInt(lossless.capacity() - 8).put(new byte[]{'W', 'E', 'B', 'P'});
+        lossless.put(new byte[]{'V', 'P', '8', 'L'}).putInt(5).put((byte) 0x2F).putInt((4096 - 1) | ((2304 - 1) << 14));
+
+        assertEquals(new ImageHeader(ImageMimeSniffer.MIME_WEBP, 4096, 2304, 8, 1), read(lossless.array(), ".webp"));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Damaged headers and other content should give null, never an exception
+     */
+    @Test
+    public void testDamagedHeadersAreUnknown() throws Exception {
+
+        byte[] jpeg = encode(new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB), "jpg");
+
+        assertNull(read(Arrays.copyOf(jpeg, 20), ".jpg"));
+        assertNull(read(Arrays.copyOf(Files.readAllBytes(Path.of("testfiles/image/test-normal-image.png")), 20), ".png"));
+        assertNull(read("this is a text file".getBytes(), ".txt"));
+        assertNull(read(new byte[]{'I', 'I', 0x2A, 0, (byte) 0xFF, (byte) 0xFF, 0, 0}, ".tiff"));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Minimum resolution should be checked regardless of landscape or portrait
+     */
+    @Test
+    public void testMinimumResolution() {
+
+        assertTrue(new ImageHeader(ImageMimeSniffer.MIME_JPEG, 3840, 2160, 8, 1).isAtLeast(3840, 2160));
+        assertTrue(new ImageHeader(ImageMimeSniffer.MIME_JPEG, 2160, 3840, 8, 1).isAtLeast(3840, 2160));
+        assertFalse(new ImageHeader(ImageMimeSniffer.MIME_JPEG, 3840, 2000, 8, 1).isAtLeast(3840, 2160));
+        assertFalse(new ImageHeader(ImageMimeSniffer.MIME_JPEG, 1920, 1080, 8, 1).isAtLeast(3840, 2160));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Big endian TIFF structure with a single orientation tag, as found in EXIF blocks
+     */
+    private static byte[] exifWithOrientation(int orientation) {
+
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 2 + 12 + 4).order(ByteOrder.BIG_ENDIAN);
+        tiff.put(new byte[]{'M', 'M'}).putShort((short) 42).putInt(8);
+        tiff.putShort((short) 1);
+        tiff.putShort((short) 274).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putInt(0);
+
+        return tiff.array();
+    }
+
+    private static void putUnsigned24(ByteBuffer buffer, int value) {
+        buffer.put((byte) value).put((byte) (value >> 8)).put((byte) (value >> 16));
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(image, format, output));
+        return output.toByteArray();
+    }
+
+    private static ImageHeader read(byte[] content, String suffix) throws IOException {
+
+        Path file = Files.createTempFile("image-header-test", suffix);
+
+        try {
+            Files.write(file, content);
+            return ImageHeaderReader.read(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageMimeSniffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.utility.ImageMimeSniffer} class.
+ */
+public class ImageMimeSnifferTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create a header buffer from ASCII text and raw bytes
+     */
+    private static ByteBuffer header(Object... parts) {
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+
+        for (Object part : parts) {
+            if (part instanceof String text) {
+                buffer.put(text.getBytes(StandardCharsets.US_ASCII));
+            } else {
+                buffer.put((byte) (int) (Integer) part);
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Sniff png image from disk, should be image/png
+     */
+    @Test
+    public void testSniffPngFileFromDisk() throws IOException {
+
+        assertEquals(ImageMimeSniffer.MIME_PNG, ImageMimeSniffer.sniff(Path.of("testfiles/image/test-normal-image.png")));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Sniff a text file renamed to png, should not be recognised
+     */
+    @Test
+    public void testSniffTextFileWithImageExtensionIsNotRecognised() throws IOException {
+
+        assertNull(ImageMimeSniffer.sniff(Path.of("testfiles/image/not-a-image-file.png")));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Sniff every accepted image format from header bytes
+     */
+    @Test
+    public void testSniffAcceptedFormatsFromHeader() {
+
+        assertEquals(ImageMimeSniffer.MIME_JPEG, ImageMimeSniffer.sniff(header(0xFF, 0xD8, 0xFF, 0xE0)));
+        assertEquals(ImageMimeSniffer.MIME_GIF, ImageMimeSniffer.sniff(header("GIF89a")));
+        assertEquals(ImageMimeSniffer.MIME_WEBP, ImageMimeSniffer.sniff(header("RIFF", 0, 0, 0, 0, "WEBPVP8 ")));
+        assertEquals(ImageMimeSniffer.MIME_TIFF, ImageMimeSniffer.sniff(header("MM", 0x00, 0x2A, 0, 0, 0, 8, 0, 0)));
+        assertEquals(ImageMimeSniffer.MIME_HEIC, ImageMimeSniffer.sniff(header(0, 0, 0, 24, "ftypheic")));
+        assertEquals(ImageMimeSniffer.MIME_HEIF, ImageMimeSniffer.sniff(header(0, 0, 0, 24, "ftypmif1")));
+        assertNull(ImageMimeSniffer.sniff(header(0, 0, 0, 24, "ftypisom")));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A little endian TIFF with DNGVersion tag in first directory should be detected as DNG
+     */
+    @Test
+    public void testSniffDngFromTiffDirectory() {
+
+        ByteBuffer buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 'I').put((byte) 'I').putShort((short) 0x2A).putInt(8);
+
+        // Directory with two entries, NewSubfileType and DNGVersion
+        buffer.putShort((short) 2);
+        buffer.putShort((short) 0x00FE).putShort((short) 4).putInt(1).putInt(0);
+        buffer.putShort((short) 0xC612).putShort((short) 1).putInt(4).putInt(0x00000401);
+
+        assertEquals(ImageMimeSniffer.MIME_DNG, ImageMimeSniffer.sniff(buffer.flip()));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Sniffing should not move buffer position
+     */
+    @Test
+    public void testSniffDoesNotChangeBufferPosition() {
+
+        ByteBuffer buffer = header(0xFF, 0xD8, 0xFF, 0xE0);
+        ImageMimeSniffer.sniff(buffer);
+
+        assertEquals(0, buffer.position());
+        assertEquals(4, buffer.limit());
+    }
+}
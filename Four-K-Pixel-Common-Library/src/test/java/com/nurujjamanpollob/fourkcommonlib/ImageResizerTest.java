@@ -0,0 +1,234 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.imaging.ImageResizer;
+import com.nurujjamanpollob.fourkcommonlib.imaging.ImageResizerMetrics;
+import com.nurujjamanpollob.fourkcommonlib.imaging.ResizedImage;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentUploader;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.storage.DirectBufferPool;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.imaging.ImageResizer}
+ */
+public class ImageResizerTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Requested widths should round up to the nearest bucket, and stop at the largest bucket
+     */
+    @Test
+    public void testWidthIsRoundedUpToBucket() {
+
+        assertEquals(160, ImageResizer.bucketOf(1));
+        assertEquals(320, ImageResizer.bucketOf(320));
+        assertEquals(640, ImageResizer.bucketOf(600));
+        assertEquals(1080, ImageResizer.bucketOf(1000));
+        assertEquals(3840, ImageResizer.bucketOf(10000));
+        assertThrows(IllegalArgumentException.class, () -> ImageResizer.bucketOf(0));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Concurrent requests of same image and bucket should generate the image only once,
+     * and later requests should be answered from cache
+     */
+    @Test
+    public void testConcurrentRequestsShareOneGeneration() throws Exception {
+
+        Path directory = Files.createTempDirectory("image-resizer-test");
+        ExecutorService clients = Executors.newFixedThreadPool(32);
+
+        try (ImageResizer resizer = new ImageResizer(new ContentStore(directory.resolve("content")), directory.resolve("resized"), 2)) {
+
+            String contentId = storeImage(directory, 2000, 1000);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<ResizedImage>> results = new ArrayList<>();
+
+            for (int i = 0; i < 100; i++) {
+                int width = 600 + i % 40;
+                results.add(clients.submit(() -> {
+                    start.await();
+                    return resizer.resize(contentId, width).get(30, TimeUnit.SECONDS);
+                }));
+            }
+
+            start.countDown();
+
+            Path file = null;
+
+            for (Future<ResizedImage> result : results) {
+
+                ResizedImage resized = result.get(30, TimeUnit.SECONDS);
+                assertFalse(resized.original());
+                assertEquals(640, resized.width());
+                assertEquals("image/jpeg", resized.mimeType());
+
+                if (file == null) {
+                    file = resized.file();
+                }
+                assertEquals(file, resized.file());
+            }
+
+            BufferedImage image = ImageIO.read(file.toFile());
+            assertEquals(640, image.getWidth());
+            assertEquals(320, image.getHeight());
+
+            ImageResizerMetrics metrics = resizer.getMetrics();
+            assertEquals(1, metrics.generatedCount());
+            assertEquals(100, metrics.requestCount());
+            assertEquals(99, metrics.joinedCount() + metrics.cacheHitCount());
+
+            assertEquals(file, resizer.resize(contentId, 640).get(30, TimeUnit.SECONDS).file());
+            assertEquals(1, resizer.getMetrics().generatedCount());
+        } finally {
+            clients.shutdownNow();
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote An image not wider than the bucket should be answered with the original, without generating anything
+     */
+    @Test
+    public void testSmallImageIsNotScaledUp() throws Exception {
+
+        Path directory = Files.createTempDirectory("image-resizer-test");
+
+        try (ImageResizer resizer = new ImageResizer(new ContentStore(directory.resolve("content")), directory.resolve("resized"), 1)) {
+
+            String contentId = storeImage(directory, 500, 300);
+
+            CompletableFuture<ResizedImage> future = resizer.resize(contentId, 600);
+
+            assertTrue(future.isDone());
+            ResizedImage resized = future.get();
+            assertTrue(resized.original());
+            assertEquals(500, resized.width());
+            assertEquals(0, resizer.getMetrics().generatedCount());
+            assertEquals(1, resizer.getMetrics().originalCount());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Store a gradient JPEG image in content store of test directory
+     */
+    private static String storeImage(Path directory, int width, int height) throws IOException, UploadRejectedException {
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+
+        try {
+            for (int x = 0; x < width; x += 10) {
+                graphics.setColor(new Color(x * 255 / width, 64, 255 - x * 255 / width));
+                graphics.fillRect(x, 0, 10, height);
+            }
+        } finally {
+            graphics.dispose();
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", output);
+
+        AttachmentUploader uploader = new AttachmentUploader(new ContentStore(directory.resolve("content")), new DirectBufferPool(8192, 4), 15728640);
+        return uploader.upload(new ByteArrayInputStream(output.toByteArray())).location();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its content
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
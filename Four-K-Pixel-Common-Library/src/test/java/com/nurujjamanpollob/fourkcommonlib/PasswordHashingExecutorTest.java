@@ -0,0 +1,197 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.InvalidUserException;
+import com.nurujjamanpollob.fourkcommonlib.exception.PasswordHashingRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.model.User;
+import com.nurujjamanpollob.fourkcommonlib.security.PasswordHashingExecutor;
+import com.nurujjamanpollob.fourkcommonlib.security.PasswordHashingMetrics;
+import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class to test {@link com.nurujjamanpollob.fourkcommonlib.security.PasswordHashingExecutor} hashing and backpressure
+ */
+public class PasswordHashingExecutorTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Encode a password, the result should be a bcrypt hash, and metrics should count it
+     */
+    @Test
+    public void testEncodeAsyncProducesBcryptHashAndMetrics() throws Exception {
+
+        try (PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 4, 4)) {
+
+            String encoded = executor.encodeAsync("password goes here").get();
+
+            assertTrue(UtilityCollection.isPasswordEncodedWithBcryptPasswordEncryptor(encoded));
+
+            PasswordHashingMetrics metrics = executor.getMetrics();
+            assertEquals(1, metrics.submittedCount());
+            assertEquals(1, metrics.completedCount());
+            assertEquals(0, metrics.rejectedCount());
+            assertTrue(metrics.totalHashNanos() > 0);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote With one worker and one queue slot, the third request should be rejected immediately,
+     * while the first is still running with a high cost factor
+     */
+    @Test
+    public void testFullQueueIsRejectedImmediately() {
+
+        try (PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1, 14)) {
+
+            executor.encodeAsync("first password");
+            executor.encodeAsync("second password");
+            CompletableFuture<String> rejected = executor.encodeAsync("third password");
+
+            assertTrue(rejected.isCompletedExceptionally());
+
+            ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+            assertTrue(exception.getCause() instanceof PasswordHashingRejectedException);
+            assertEquals(1, executor.getMetrics().rejectedCount());
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Out of range cost factor is not allowed
+     */
+    @Test
+    public void testInvalidCostFactorIsRejected() {
+
+        assertThrows(IllegalArgumentException.class, () -> new PasswordHashingExecutor(1, 1, 3));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create a user asynchronously, the future should complete with encoded password
+     */
+    @Test
+    public void testCreateUserWithPreValidationAsync() throws Exception {
+
+        User user = User.createWithPreValidationAsync(
+                "nurujjamanpollob",
+                "password goes here",
+                "Nurujjaman",
+                "Pollob",
+                "Address Line One",
+                null,
+                "Dinajpur",
+                "Bangladesh",
+                "User short description",
+                "User Bio",
+                null,
+                "recovery question goes",
+                1998,
+                12,
+                7,
+                11111,
+                false,
+                true,
+                false,
+                true).get();
+
+        assertTrue(UtilityCollection.isPasswordEncodedWithBcryptPasswordEncryptor(user.getPassword()));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create an invalid user asynchronously, the future should fail with {@link InvalidUserException}
+     */
+    @Test
+    public void testCreateInvalidUserWithPreValidationAsyncFails() {
+
+        CompletableFuture<User> future = User.createWithPreValidationAsync(
+                "Nurujjamanpollob", // Invalid username, has capital latter
+                "password goes here",
+                "Nurujjaman",
+                "Pollob",
+                "Address Line One",
+                null,
+                "Dinajpur",
+                "Bangladesh",
+                "User short description",
+                "User Bio",
+                null,
+                "recovery question goes",
+                1998,
+                12,
+                7,
+                11111,
+                false,
+                true,
+                false,
+                true);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+        assertTrue(exception.getCause() instanceof InvalidUserException);
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.imaging.NearDuplicate;
+import com.nurujjamanpollob.fourkcommonlib.imaging.PerceptualHash;
+import com.nurujjamanpollob.fourkcommonlib.imaging.PerceptualHashIndex;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.imaging.PerceptualHash}
+ * and {@link com.nurujjamanpollob.fourkcommonlib.imaging.PerceptualHashIndex}
+ */
+public class PerceptualHashTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A resized and re-encoded copy should hash a few bits apart, a different image far apart
+     */
+    @Test
+    public void testCopiesHashNear() throws IOException {
+
+        Path directory = Files.createTempDirectory("perceptual-hash-test");
+
+        try {
+            BufferedImage original = drawScene(1920, 1080, false);
+            Path png = directory.resolve("original.png");
+            ImageIO.write(original, "png", png.toFile());
+
+            Path copy = directory.resolve("copy.jpg");
+            ImageIO.write(scale(original, 1280, 720), "jpg", copy.toFile());
+
+            Path other = directory.resolve("other.png");
+            ImageIO.write(drawScene(1920, 1080, true), "png", other.toFile());
+
+            long originalHash = PerceptualHash.dHash(png);
+
+            assertTrue(PerceptualHash.distance(originalHash, PerceptualHash.dHash(original)) <= 2);
+            assertTrue(PerceptualHash.distance(originalHash, PerceptualHash.dHash(copy)) <= 4);
+            assertTrue(PerceptualHash.distance(originalHash, PerceptualHash.dHash(other)) > 16);
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Search should find exactly what a linear scan finds, at every radius
+     */
+    @Test
+    public void testIndexSearchMatchesLinearScan() {
+
+        Random random = new Random(42);
+        PerceptualHashIndex index = new PerceptualHashIndex();
+        List<NearDuplicate> all = new ArrayList<>();
+
+        long base = random.nextLong();
+
+        for (int i = 0; i < 5000; i++) {
+
+            // Half of hashes are flipped copies of base, so every radius has matches
+            long hash = i % 2 == 0 ? random.nextLong() : flipBits(base, random, random.nextInt(PerceptualHashIndex.MAX_RADIUS + 3));
+            index.add("image-" + i, hash);
+            all.add(new NearDuplicate("image-" + i, hash, 0));
+        }
+
+        assertEquals(5000, index.size());
+
+        for (int radius = 0; radius <= PerceptualHashIndex.MAX_RADIUS; radius++) {
+
+            long query = flipBits(base, random, 1);
+            List<NearDuplicate> expected = new ArrayList<>();
+
+            for (NearDuplicate entry : all) {
+
+                int distance = PerceptualHash.distance(query, entry.hash());
+
+                if (distance <= radius) {
+                    expected.add(new NearDuplicate(entry.key(), entry.hash(), distance));
+                }
+            }
+
+            expected.sort(Comparator.comparingInt(NearDuplicate::distance).thenComparing(NearDuplicate::key));
+            assertEquals(expected, index.search(query, radius));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> index.search(base, PerceptualHashIndex.MAX_RADIUS + 1));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Adding a key again should replace its hash, and a removed key should not be found
+     */
+    @Test
+    public void testIndexReplaceAndRemove() {
+
+        PerceptualHashIndex index = new PerceptualHashIndex();
+
+        index.add("a", 0L);
+        index.add("b", 0b111L);
+        assertEquals(List.of("a", "b"), index.search(0L, 3).stream().map(NearDuplicate::key).toList());
+
+        index.add("a", -1L);
+        assertEquals(Long.valueOf(-1L), index.get("a"));
+        assertEquals(List.of("b"), index.search(0L, 3).stream().map(NearDuplicate::key).toList());
+
+        assertTrue(index.remove("b"));
+        assertFalse(index.remove("b"));
+        assertNull(index.get("b"));
+        assertTrue(index.search(0L, 3).isEmpty());
+
+        index.add("c", 1L);
+        assertEquals(2, index.size());
+        assertEquals(List.of(new NearDuplicate("c", 1L, 0)), index.search(1L, 0));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Flip a number of distinct random bits of a hash
+     */
+    private static long flipBits(long hash, Random random, int bits) {
+
+        long mask = 0;
+
+        while (Long.bitCount(mask) < bits) {
+            mask |= 1L << random.nextInt(64);
+        }
+
+        return hash ^ mask;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Draw shapes on a gradient, mirrored to draw a different scene
+     */
+    private static BufferedImage drawScene(int width, int height, boolean mirrored) {
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+
+        try {
+            for (int x = 0; x < width; x += 8) {
+                int shade = mirrored ? 255 - x * 255 / width : x * 255 / width;
+                graphics.setColor(new Color(shade, 100, 255 - shade));
+                graphics.fillRect(x, 0, 8, height);
+            }
+
+            graphics.setColor(Color.WHITE);
+            graphics.fillOval(mirrored ? width / 8 : width / 2, height / 4, width / 3, height / 2);
+            graphics.setColor(Color.BLACK);
+            graphics.fillRect(mirrored ? width / 2 : width / 10, mirrored ? height / 10 : height / 2, width / 4, height / 3);
+        } finally {
+            graphics.dispose();
+        }
+
+        return image;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return scaled;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its content
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.InvalidPostException;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentReaper;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageMimeSniffer;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidation;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidationOptions;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test class for {@link com.nurujjamanpollob.fourkcommonlib.validation.PostValidationOptions},
+ * to prove concurrent post validations with different options do not affect each other.
+ */
+public class PostValidationConcurrencyTest {
+
+    private static final String VALID_IMAGE = "testfiles/image/test-normal-image.png";
+
+    private static final int THREADS = 32;
+
+    private static final int VALIDATIONS = 4000;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create a post with given attachments
+     */
+    private static Post createPost(String... attachments) {
+
+        return new Post(
+                "nurujjamanpollob",
+                "Nature and beauty, watch my shot, and follow me!",
+                "Post description",
+                attachments,
+                "#Image #Validating",
+                System.currentTimeMillis());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate the same image at high concurrency with alternating size limit and mime type options,
+     * every validation should get the outcome of its own options
+     */
+    @Test
+    public void testConcurrentValidationsWithDifferentOptionsHaveNoCrossTalk() throws Exception {
+
+        PostValidator defaultValidator = new PostValidator();
+        PostValidator tinySizeValidator = new PostValidator(PostValidationOptions.defaults().withMaxAttachmentSize(1));
+        PostValidator jpegOnlyValidator = new PostValidator(PostValidationOptions.defaults().withAllowedMimeTypes(Set.of(ImageMimeSniffer.MIME_JPEG)));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>(VALIDATIONS);
+
+        try {
+            for (int i = 0; i < VALIDATIONS; i++) {
+
+                PostValidator validator = i % 3 == 0 ? defaultValidator : i % 3 == 1 ? tinySizeValidator : jpegOnlyValidator;
+                boolean expectValid = i % 3 == 0;
+
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        validator.validate(createPost(VALID_IMAGE, VALID_IMAGE));
+                        return expectValid;
+                    } catch (InvalidPostException e) {
+                        return !expectValid;
+                    }
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(60, TimeUnit.SECONDS), "Validation outcome does not match its own options");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Validate invalid posts concurrently, where half of validations delete attachments,
+     * only attachments of those validations should be deleted
+     */
+    @Test
+    public void testConcurrentDeletionPolicyIsPerCall() throws Exception {
+
+        Path directory = Files.createTempDirectory("post-validation-concurrency-test");
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        List<Path> keptFiles = new ArrayList<>();
+        List<Path> deletedFiles = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 400; i++) {
+
+                Path image = directory.resolve("image-" + i + ".png");
+                Files.copy(Path.of(VALID_IMAGE), image);
+                boolean delete = i % 2 == 0;
+                (delete ? deletedFiles : keptFiles).add(image);
+
+                // Second attachment is missing, so the post is invalid
+                Post post = createPost(image.toString(), directory.resolve("missing-" + i + ".png").toString());
+
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return assertThrows(InvalidPostException.class, () -> new PostValidation(post).validatePost(delete));
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+
+            // Attachments are deleted in background
+            assertTrue(AttachmentReaper.getDefault().awaitIdle(Duration.ofSeconds(30)));
+
+            for (Path kept : keptFiles) {
+                assertTrue(Files.exists(kept), "Attachment deleted by another validation's policy");
+            }
+
+            for (Path deleted : deletedFiles) {
+                assertFalse(Files.exists(deleted));
+            }
+        } finally {
+            executor.shutdownNow();
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its files
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        Files.deleteIfExists(directory);
+    }
+}
@@ -61,9 +61,17 @@ package com.nurujjamanpollob.fourkcommonlib;
 
 import com.nurujjamanpollob.fourkcommonlib.exception.InvalidPostException;
 import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageHeader;
 import com.nurujjamanpollob.fourkcommonlib.validation.PostValidation;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidationOptions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -497,10 +505,121 @@ public class PostValidationTest {
 
     }
 
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote This method validate a gallery post with 20 valid attachments, which are checked concurrently,
+     * and should not throw any exception
+     */
+    @Test
+    public void testPostGalleryAttachmentsAreValid(){
+
+        String[] attachments = new String[20];
+        Arrays.fill(attachments, "testfiles/image/test-normal-image.png");
+
+        userPost = new Post(
+                "nurujjamanpollob",
+                "Nature and beauty, watch my shot, and follow me!",
+                "Post description",
+                attachments,
+                "#Image #Gallery",
+                System.currentTimeMillis());
+
+        assertDoesNotThrow(()-> new PostValidation(userPost).validatePost());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote This method validate a gallery post, where one of 20 attachments is missing,
+     * should throw {@link InvalidPostException}, and the valid attachments should be kept on disk
+     */
+    @Test
+    public void testPostGalleryWithOneMissingAttachmentIsInvalid() throws IOException {
+
+        Path directory = Files.createTempDirectory("post-validation-test");
+        String[] attachments = new String[20];
+
+        for (int i = 0; i < attachments.length - 1; i++) {
+            Path copy = directory.resolve("image-" + i + ".png");
+            Files.copy(Path.of("testfiles/image/test-normal-image.png"), copy);
+            attachments[i] = copy.toString();
+        }
+
+        // Last attachment is missing on disk
+        attachments[attachments.length - 1] = directory.resolve("missing.png").toString();
+
+        userPost = new Post(
+                "nurujjamanpollob",
+                "Nature and beauty, watch my shot, and follow me!",
+                "Post description",
+                attachments,
+                "#Image #Gallery",
+                System.currentTimeMillis());
+
+        assertTrue(assertThrows(InvalidPostException.class, ()-> new PostValidation(userPost).validatePost()).getMessage().contains("It seems this file is not an image file"));
+
+        for (int i = 0; i < attachments.length - 1; i++) {
+            assertTrue(Files.exists(Path.of(attachments[i])));
+            Files.delete(Path.of(attachments[i]));
+        }
+
+        Files.delete(directory);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote An attachment below minimum resolution should be rejected with {@link InvalidPostException},
+     * and header facts of an accepted attachment should be stored in the post
+     */
+    @Test
+    public void testPostAttachmentMinimumResolution() throws InvalidPostException {
+
+        userPost = new Post(
+                "nurujjamanpollob",
+                "Nature and beauty, watch my shot, and follow me!",
+                "Post description",
+                new String[]{"testfiles/image/test-normal-image.png"},
+                "#Image #Nature",
+                System.currentTimeMillis());
+
+        PostValidationOptions uhdOnly = PostValidationOptions.defaults()
+                .withMinimumResolution(PostValidationOptions.UHD_LONG_EDGE, PostValidationOptions.UHD_SHORT_EDGE);
+
+        assertTrue(assertThrows(InvalidPostException.class, ()-> new PostValidation(userPost).validatePost(uhdOnly))
+                .getMessage().contains("the image resolution is below minimum"));
+        assertNull(userPost.getImageHeaders());
 
+        new PostValidation(userPost).validatePost(PostValidationOptions.defaults().withMinimumResolution(512, 512));
 
+        ImageHeader header = userPost.getImageHeaders()[0];
+        assertEquals(512, header.width());
+        assertEquals(512, header.height());
+        assertEquals("image/png", header.mimeType());
+    }
 
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A copy of options should change only its own option and keep the source unchanged,
+     * and invalid limits should be rejected
+     */
+    @Test
+    public void testPostValidationOptionsCopies() {
+
+        PostValidationOptions source = PostValidationOptions.defaults()
+                .withGenerateTiles(true)
+                .withOwnedAttachments(Set.of("testfiles/image/test-normal-image.png"));
 
+        PostValidationOptions copy = source.withMaxAttachmentSize(100).withMinimumResolution(512, 256);
 
+        assertEquals(100, copy.maxAttachmentSize());
+        assertEquals(512, copy.minImageLongEdge());
+        assertEquals(256, copy.minImageShortEdge());
+        assertTrue(copy.generateTiles());
+        assertTrue(copy.isOwnedAttachment("testfiles/image/test-normal-image.png"));
+        assertFalse(source.hasMinimumResolution());
+        assertEquals(PostValidationOptions.defaults().maxAttachmentSize(), source.maxAttachmentSize());
 
+        assertThrows(IllegalArgumentException.class, () -> source.withMaxAttachmentSize(0));
+        assertThrows(IllegalArgumentException.class, () -> source.withAttachmentTimeoutMillis(0));
+        assertThrows(IllegalArgumentException.class, () -> source.withMinimumResolution(-1, 0));
+    }
 }
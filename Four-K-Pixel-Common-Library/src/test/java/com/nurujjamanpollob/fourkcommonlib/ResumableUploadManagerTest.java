@@ -0,0 +1,266 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.storage.DirectBufferPool;
+import com.nurujjamanpollob.fourkcommonlib.storage.ResumableUploadManager;
+import com.nurujjamanpollob.fourkcommonlib.storage.ResumableUploadStatus;
+import com.nurujjamanpollob.fourkcommonlib.storage.UploadedAttachment;
+import com.nurujjamanpollob.fourkcommonlib.utility.ImageMimeSniffer;
+import com.nurujjamanpollob.fourkcommonlib.validation.PostValidationOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.storage.ResumableUploadManager}
+ */
+public class ResumableUploadManagerTest {
+
+    private static final String VALID_IMAGE = "testfiles/image/test-normal-image.png";
+
+    private static final int BUFFER_SIZE = 1024;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote An upload sent in chunks, with a dropped connection in between, should be stored with same content
+     */
+    @Test
+    public void testUploadIsResumedAfterDrop() throws Exception {
+
+        Path directory = Files.createTempDirectory("resumable-upload-manager-test");
+
+        try {
+            ContentStore store = new ContentStore(directory);
+            ResumableUploadManager manager = newManager(store, ResumableUploadManager.DEFAULT_EXPIRE_AFTER_MILLIS);
+            byte[] image = Files.readAllBytes(Path.of(VALID_IMAGE));
+
+            ResumableUploadStatus created = manager.create(image.length);
+            assertEquals(0, created.offset());
+            assertEquals(image.length, Files.size(store.getStagingDirectory().resolve("resumable-" + created.uploadId() + ".part")));
+
+            // Connection drops after 2500 bytes, only complete buffers reached the file
+            assertThrows(IOException.class,
+                    () -> manager.append(created.uploadId(), 0, new DroppingInputStream(image, 2500)));
+            ResumableUploadStatus dropped = manager.getStatus(created.uploadId());
+            assertEquals(2 * BUFFER_SIZE, dropped.offset());
+
+            UploadRejectedException mismatch = assertThrows(UploadRejectedException.class,
+                    () -> manager.append(created.uploadId(), 0, new ByteArrayInputStream(image)));
+            assertEquals(UploadRejectedException.Reason.OFFSET_MISMATCH, mismatch.getReason());
+
+            UploadRejectedException incomplete = assertThrows(UploadRejectedException.class,
+                    () -> manager.finish(created.uploadId()));
+            assertEquals(UploadRejectedException.Reason.INCOMPLETE, incomplete.getReason());
+
+            ResumableUploadStatus resumed = manager.append(created.uploadId(), dropped.offset(),
+                    new ByteArrayInputStream(Arrays.copyOfRange(image, (int) dropped.offset(), image.length)));
+            assertTrue(resumed.isComplete());
+
+            UploadedAttachment uploaded = manager.finish(created.uploadId());
+
+            assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(image)), uploaded.location());
+            assertEquals(ImageMimeSniffer.MIME_PNG, uploaded.mimeType());
+            assertEquals(image.length, uploaded.size());
+            assertArrayEquals(image, Files.readAllBytes(store.pathOf(uploaded.location())));
+            assertEquals(0, manager.getUploadCount());
+            assertEquals(0, countFiles(store.getStagingDirectory()));
+
+            UploadRejectedException unknown = assertThrows(UploadRejectedException.class,
+                    () -> manager.getStatus(created.uploadId()));
+            assertEquals(UploadRejectedException.Reason.UNKNOWN_UPLOAD, unknown.getReason());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Too large, overflowing and non image uploads should be rejected, without staging files left
+     */
+    @Test
+    public void testRejectedUploadsLeaveNothing() throws Exception {
+
+        Path directory = Files.createTempDirectory("resumable-upload-manager-test");
+
+        try {
+            ContentStore store = new ContentStore(directory);
+            ResumableUploadManager manager = newManager(store, ResumableUploadManager.DEFAULT_EXPIRE_AFTER_MILLIS);
+
+            assertEquals(UploadRejectedException.Reason.EMPTY,
+                    assertThrows(UploadRejectedException.class, () -> manager.create(0)).getReason());
+            assertEquals(UploadRejectedException.Reason.TOO_LARGE,
+                    assertThrows(UploadRejectedException.class, () -> manager.create(100_001)).getReason());
+
+            ResumableUploadStatus small = manager.create(10);
+            UploadRejectedException overflow = assertThrows(UploadRejectedException.class,
+                    () -> manager.append(small.uploadId(), 0, new ByteArrayInputStream(new byte[11])));
+            assertEquals(UploadRejectedException.Reason.TOO_LARGE, overflow.getReason());
+            assertTrue(manager.cancel(small.uploadId()));
+            assertFalse(manager.cancel(small.uploadId()));
+
+            byte[] text = "just a text file".repeat(100).getBytes(StandardCharsets.UTF_8);
+            ResumableUploadStatus created = manager.create(text.length);
+            manager.append(created.uploadId(), 0, new ByteArrayInputStream(text));
+
+            UploadRejectedException notImage = assertThrows(UploadRejectedException.class, () -> manager.finish(created.uploadId()));
+            assertEquals(UploadRejectedException.Reason.NOT_AN_IMAGE, notImage.getReason());
+            assertEquals(0, manager.getUploadCount());
+            assertEquals(0, countFiles(store.getStagingDirectory()));
+            assertEquals(0, store.getStoredCount());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote An upload without a chunk for the expiry time should be dropped with its staging file
+     */
+    @Test
+    public void testIdleUploadExpires() throws Exception {
+
+        Path directory = Files.createTempDirectory("resumable-upload-manager-test");
+
+        try {
+            ContentStore store = new ContentStore(directory);
+            ResumableUploadManager manager = newManager(store, 1);
+
+            ResumableUploadStatus created = manager.create(100);
+            Thread.sleep(20);
+
+            assertEquals(1, manager.sweepExpired(true));
+            assertEquals(UploadRejectedException.Reason.UNKNOWN_UPLOAD,
+                    assertThrows(UploadRejectedException.class, () -> manager.getStatus(created.uploadId())).getReason());
+            assertEquals(0, countFiles(store.getStagingDirectory()));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static ResumableUploadManager newManager(ContentStore store, long expireAfterMillis) {
+
+        PostValidationOptions options = PostValidationOptions.defaults().withMaxAttachmentSize(100_000);
+        return new ResumableUploadManager(store, new DirectBufferPool(BUFFER_SIZE, 4), options, expireAfterMillis, 16);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stream which fails like a dropped connection after some bytes
+     */
+    private static final class DroppingInputStream extends InputStream {
+
+        private final byte[] content;
+        private final int dropAt;
+        private int position;
+
+        private DroppingInputStream(byte[] content, int dropAt) {
+            this.content = content;
+            this.dropAt = dropAt;
+        }
+
+        @Override
+        public int read() throws IOException {
+
+            if (position >= dropAt) {
+                throw new IOException("Connection reset");
+            }
+
+            return content[position++] & 0xFF;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Count entries of a directory, not recursive
+     */
+    private static long countFiles(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its content
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.id.SnowflakeIdGenerator;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.id.SnowflakeIdGenerator} and post identifiers.
+ */
+public class SnowflakeIdGeneratorTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Many threads create identifiers at once, every identifier should be unique,
+     * and identifiers seen by a single thread should be increasing
+     */
+    @Test
+    public void testConcurrentCreatorsGetUniqueIncreasingIds() throws Exception {
+
+        int threads = 16;
+        int idsPerThread = 100_000;
+
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] ids = new long[idsPerThread];
+                    for (int i = 0; i < idsPerThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+
+            start.countDown();
+
+            long[] all = new long[threads * idsPerThread];
+            int offset = 0;
+
+            for (Future<long[]> future : futures) {
+
+                long[] ids = future.get(60, TimeUnit.SECONDS);
+
+                for (int i = 1; i < ids.length; i++) {
+                    assertTrue(ids[i] > ids[i - 1]);
+                }
+
+                System.arraycopy(ids, 0, all, offset, ids.length);
+                offset += ids.length;
+            }
+
+            Arrays.sort(all);
+            for (int i = 1; i < all.length; i++) {
+                assertNotEquals(all[i - 1], all[i]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote The identifier should contain time and node id,
+     * and when the clock stands still the sequence moves to next millisecond after 4096 identifiers
+     */
+    @Test
+    public void testIdLayoutAndSequenceExhaustion() {
+
+        long now = SnowflakeIdGenerator.DEFAULT_EPOCH_MILLIS + 1_000_000;
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1023, SnowflakeIdGenerator.DEFAULT_EPOCH_MILLIS, () -> now);
+
+        long first = generator.nextId();
+        assertEquals(now, generator.extractTimestampMillis(first));
+        assertEquals(1023, SnowflakeIdGenerator.extractNodeId(first));
+
+        long last = first;
+        for (int i = 1; i < 4097; i++) {
+            last = generator.nextId();
+        }
+
+        assertEquals(now + 1, generator.extractTimestampMillis(last));
+        assertTrue(last > first);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote When the clock moves backwards, identifiers should still be increasing
+     */
+    @Test
+    public void testClockMovingBackwardsKeepsIdsIncreasing() {
+
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.DEFAULT_EPOCH_MILLIS + 5_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, SnowflakeIdGenerator.DEFAULT_EPOCH_MILLIS, clock::get);
+
+        long beforeJump = generator.nextId();
+        clock.addAndGet(-2_000);
+
+        assertTrue(generator.nextId() > beforeJump);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Every constructed post should get an identifier, and later post a greater one
+     */
+    @Test
+    public void testPostGetsTimeOrderedId() {
+
+        Post first = new Post("nurujjamanpollob", "First", null, new String[0], null, System.currentTimeMillis());
+        Post second = new Post("nurujjamanpollob", "Second", null, new String[0], null, System.currentTimeMillis());
+
+        assertNotNull(first.getPostId());
+        assertTrue(second.getPostId() > first.getPostId());
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.model.StorageUsage;
+import com.nurujjamanpollob.fourkcommonlib.model.UploadCharge;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.storage.QuotaReservation;
+import com.nurujjamanpollob.fourkcommonlib.storage.QuotaTier;
+import com.nurujjamanpollob.fourkcommonlib.storage.ResumableUploadManager;
+import com.nurujjamanpollob.fourkcommonlib.storage.ResumableUploadStatus;
+import com.nurujjamanpollob.fourkcommonlib.storage.StorageQuota;
+import com.nurujjamanpollob.fourkcommonlib.storage.StorageUsageStore;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.storage.StorageQuota}
+ */
+public class StorageQuotaTest {
+
+    private static final long GIB = 1L << 30;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Business account should get business tier, even if it's premium too
+     */
+    @Test
+    public void testTierOfAccount() {
+
+        assertEquals(QuotaTier.FREE, QuotaTier.of(false, false));
+        assertEquals(QuotaTier.PREMIUM, QuotaTier.of(true, false));
+        assertEquals(QuotaTier.BUSINESS, QuotaTier.of(false, true));
+        assertEquals(QuotaTier.BUSINESS, QuotaTier.of(true, true));
+        assertEquals(QuotaTier.FREE, QuotaTier.of(null));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Committed reservation should be stored with one increment, and unused bytes given back
+     */
+    @Test
+    public void testCommitIncrementsUsageOnce() throws Exception {
+
+        MemoryUsageStore store = new MemoryUsageStore();
+        StorageQuota quota = new StorageQuota(store, 4);
+
+        try (QuotaReservation reservation = quota.reserve(7, QuotaTier.FREE, 1000)) {
+            assertEquals(1, quota.getOpenAccountCount());
+            reservation.commit(600);
+            assertThrows(IllegalStateException.class, () -> reservation.commit(600));
+        }
+
+        assertEquals(1, store.increments.get());
+        assertEquals(600, quota.getUsage(7).getUsedBytes());
+        assertEquals(1, quota.getUsage(7).getUsedFiles());
+        assertEquals(0, quota.getOpenAccountCount());
+
+        // Closed without commit, nothing is stored
+        quota.reserve(7, QuotaTier.FREE, 1000).close();
+        assertEquals(1, store.increments.get());
+        assertEquals(0, quota.getUsage(8).getUsedBytes());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Reservation past byte or file quota should be rejected, and accepted again once space is given back
+     */
+    @Test
+    public void testReservationPastQuotaIsRejected() throws Exception {
+
+        MemoryUsageStore store = new MemoryUsageStore();
+        store.increment(1, QuotaTier.FREE.getMaxBytes() - 100, 10);
+        StorageQuota quota = new StorageQuota(store, 4);
+
+        QuotaReservation first = quota.reserve(1, QuotaTier.FREE, 60);
+
+        UploadRejectedException exceeded = assertThrows(UploadRejectedException.class, () -> quota.reserve(1, QuotaTier.FREE, 60));
+        assertEquals(UploadRejectedException.Reason.QUOTA_EXCEEDED, exceeded.getReason());
+
+        first.close();
+        quota.reserve(1, QuotaTier.FREE, 100).close();
+
+        // Upgrade while an upload is open raises the headroom of that account
+        try (QuotaReservation open = quota.reserve(1, QuotaTier.FREE, 100)) {
+            assertThrows(UploadRejectedException.class, () -> quota.reserve(1, QuotaTier.FREE, 1));
+            quota.reserve(1, QuotaTier.PREMIUM, GIB).close();
+            assertFalse(open.isFinished());
+        }
+
+        store.increment(2, 0, QuotaTier.FREE.getMaxFiles());
+        UploadRejectedException files = assertThrows(UploadRejectedException.class, () -> quota.reserve(2, QuotaTier.FREE, 1));
+        assertEquals(UploadRejectedException.Reason.QUOTA_EXCEEDED, files.getReason());
+
+        quota.free(2, QuotaTier.FREE, 0, 1);
+        quota.reserve(2, QuotaTier.FREE, 1).close();
+        assertEquals(0, quota.getOpenAccountCount());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Concurrent uploads of one user should never reserve or store more than the quota
+     */
+    @Test
+    public void testConcurrentReservationsStayWithinQuota() throws Exception {
+
+        MemoryUsageStore store = new MemoryUsageStore();
+        StorageQuota quota = new StorageQuota(store, 8);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger overbooked = new AtomicInteger();
+        AtomicInteger committed = new AtomicInteger();
+        AtomicLong openBytes = new AtomicLong();
+
+        try {
+            List<Future<?>> results = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+
+                    for (int round = 0; round < 200; round++) {
+                        try (QuotaReservation reservation = quota.reserve(3, QuotaTier.FREE, GIB / 2)) {
+                            accepted.incrementAndGet();
+
+                            if (openBytes.addAndGet(GIB / 2) > QuotaTier.FREE.getMaxBytes()) {
+                                overbooked.incrementAndGet();
+                            }
+
+                            if (round % 50 == 0) {
+                                reservation.commit(GIB / 1024);
+                                committed.incrementAndGet();
+                            }
+
+                            openBytes.addAndGet(-GIB / 2);
+                        } catch (UploadRejectedException ignored) {
+                            // Over quota, tried again next round
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(accepted.get() > 0);
+        assertEquals(0, overbooked.get());
+        assertEquals(0, quota.getOpenAccountCount());
+
+        StorageUsage usage = quota.getUsage(3);
+        assertEquals(committed.get(), usage.getUsedFiles());
+        assertEquals(committed.get() * (GIB / 1024), usage.getUsedBytes());
+
+        // Everything not committed is back, so the rest of quota can be reserved at once
+        long left = QuotaTier.FREE.getMaxBytes() - usage.getUsedBytes();
+        quota.reserve(3, QuotaTier.FREE, left).close();
+        assertThrows(UploadRejectedException.class, () -> quota.reserve(3, QuotaTier.FREE, left + 1));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Resumable upload should commit its reservation when stored, and give it back when cancelled
+     */
+    @Test
+    public void testResumableUploadHoldsReservation() throws Exception {
+
+        Path directory = Files.createTempDirectory("storage-quota-test");
+
+        try {
+            MemoryUsageStore store = new MemoryUsageStore();
+            StorageQuota quota = new StorageQuota(store, 4);
+            ResumableUploadManager manager = new ResumableUploadManager(new ContentStore(directory));
+            byte[] image = Files.readAllBytes(Path.of("testfiles/image/test-normal-image.png"));
+
+            ResumableUploadStatus cancelled = manager.create(image.length, quota.reserve(5, QuotaTier.FREE, image.length));
+            assertEquals(1, quota.getOpenAccountCount());
+            assertTrue(manager.cancel(cancelled.uploadId()));
+            assertEquals(0, quota.getOpenAccountCount());
+            assertEquals(0, quota.getUsage(5).getUsedBytes());
+
+            ResumableUploadStatus stored = manager.create(image.length, quota.reserve(5, QuotaTier.FREE, image.length));
+            manager.append(stored.uploadId(), 0, new ByteArrayInputStream(image));
+            manager.finish(stored.uploadId());
+
+            assertEquals(image.length, quota.getUsage(5).getUsedBytes());
+            assertEquals(1, quota.getUsage(5).getUsedFiles());
+            assertEquals(0, quota.getOpenAccountCount());
+
+            // Rejected at creation, the reservation is given back
+            QuotaReservation tooSmall = quota.reserve(5, QuotaTier.FREE, 1);
+            assertThrows(IllegalArgumentException.class, () -> manager.create(image.length, tooSmall));
+            assertTrue(tooSmall.isFinished());
+            assertEquals(0, quota.getOpenAccountCount());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Every upload of a deduplicated content is charged to its uploader, and given back on release or reclaim
+     */
+    @Test
+    public void testChargeOfContentIsGivenBack() throws Exception {
+
+        MemoryUsageStore store = new MemoryUsageStore();
+        StorageQuota quota = new StorageQuota(store, 4);
+        String contentId = "a".repeat(64);
+
+        // Same content uploaded twice by one user and once by another
+        quota.reserve(1, QuotaTier.FREE, 100).commit(contentId, 100);
+        quota.reserve(1, QuotaTier.FREE, 100).commit(contentId, 100);
+        quota.reserve(2, QuotaTier.FREE, 100).commit(contentId, 100);
+
+        assertEquals(200, quota.getUsage(1).getUsedBytes());
+        assertEquals(2, quota.getUsage(1).getUsedFiles());
+        assertEquals(100, quota.getUsage(2).getUsedBytes());
+
+        // Released reference gives back one upload, only to its own uploader
+        assertTrue(quota.free(contentId, 1));
+        assertFalse(quota.free(contentId, 3));
+        assertEquals(100, quota.getUsage(1).getUsedBytes());
+        assertEquals(1, quota.getUsage(1).getUsedFiles());
+
+        // Reclaimed content gives back every remaining upload
+        assertEquals(2, quota.freeAll(contentId));
+        assertEquals(0, quota.freeAll(contentId));
+        assertEquals(0, quota.getUsage(1).getUsedBytes());
+        assertEquals(0, quota.getUsage(1).getUsedFiles());
+        assertEquals(0, quota.getUsage(2).getUsedBytes());
+        assertEquals(0, quota.getOpenAccountCount());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Usage counters in memory, incremented atomically like a No-SQL <code>$inc</code>
+     */
+    private static final class MemoryUsageStore implements StorageUsageStore {
+
+        private final Map<Long, long[]> counters = new ConcurrentHashMap<>();
+        private final AtomicInteger increments = new AtomicInteger();
+        private final Map<String, UploadCharge> charges = new ConcurrentHashMap<>();
+
+        @Override
+        public StorageUsage find(long userId) {
+
+            long[] counter = counters.get(userId);
+
+            if (counter == null) {
+                return null;
+            }
+
+            synchronized (counter) {
+                return new StorageUsage(userId, counter[0], counter[1]);
+            }
+        }
+
+        @Override
+        public void increment(long userId, long bytes, long files) {
+
+            long[] counter = counters.computeIfAbsent(userId, id -> new long[2]);
+
+            synchronized (counter) {
+                counter[0] += bytes;
+                counter[1] += files;
+            }
+
+            increments.incrementAndGet();
+        }
+
+        @Override
+        public synchronized void addCharge(String contentId, long userId, long bytes) {
+            charges.merge(UploadCharge.idOf(contentId, userId), new UploadCharge(contentId, userId, bytes, 1),
+                    (charge, added) -> new UploadCharge(contentId, userId, bytes, charge.getUploads() + 1));
+        }
+
+        @Override
+        public synchronized UploadCharge removeCharge(String contentId, long userId) {
+
+            String id = UploadCharge.idOf(contentId, userId);
+            UploadCharge charge = charges.get(id);
+
+            if (charge == null || charge.getUploads() < 1) {
+                return null;
+            }
+
+            charges.put(id, new UploadCharge(contentId, userId, charge.getBytes(), charge.getUploads() - 1));
+            return new UploadCharge(contentId, userId, charge.getBytes(), 1);
+        }
+
+        @Override
+        public synchronized List<UploadCharge> removeCharges(String contentId) {
+
+            List<UploadCharge> removed = new ArrayList<>();
+            charges.values().removeIf(charge -> charge.getContentId().equals(contentId) && removed.add(charge));
+
+            return removed;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its content
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramid;
+import com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramidGenerator;
+import com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramidGeneratorMetrics;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramidGenerator}
+ */
+public class TilePyramidGeneratorTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Every level should be cut in 256 pixel tiles, edge tiles cropped, down to a single pixel level
+     */
+    @Test
+    public void testPyramidIsGeneratedAndCached() throws Exception {
+
+        Path directory = Files.createTempDirectory("tile-pyramid-generator-test");
+
+        try (TilePyramidGenerator generator = new TilePyramidGenerator(directory.resolve("tiles"), 1)) {
+
+            Path image = writeImage(directory.resolve("image.png"), 3000, 1700);
+
+            TilePyramid pyramid = generator.submit(image.toString()).get(60, TimeUnit.SECONDS);
+
+            assertFalse(pyramid.isCached());
+            assertEquals(3000, pyramid.width());
+            assertEquals(1700, pyramid.height());
+            assertEquals(12, pyramid.maxLevel());
+            assertEquals("jpg", pyramid.format());
+            assertTrue(Files.readString(pyramid.descriptor()).contains("<Size Width=\"3000\" Height=\"1700\"/>"));
+
+            // 3000x1700 is 12x7 tiles, the last ones 184x164
+            assertDimensions(generator.findTile(pyramid.key(), 12, 0, 0), 256, 256);
+            assertDimensions(generator.findTile(pyramid.key(), 12, 11, 6), 184, 164);
+            assertNull(generator.findTile(pyramid.key(), 12, 12, 0));
+
+            // 1500x850 is 6x4 tiles, 750x425 fits 3x2
+            assertDimensions(generator.findTile(pyramid.key(), 11, 5, 3), 220, 82);
+            assertDimensions(generator.findTile(pyramid.key(), 10, 2, 1), 238, 169);
+            assertDimensions(generator.findTile(pyramid.key(), 0, 0, 0), 1, 1);
+
+            // Left half is red and right half blue, at every level
+            BufferedImage tile = ImageIO.read(generator.findTile(pyramid.key(), 8, 0, 0).toFile());
+            assertEquals(188, tile.getWidth());
+            assertColorNear(Color.RED, tile.getRGB(10, 50));
+            assertColorNear(Color.BLUE, tile.getRGB(180, 50));
+
+            TilePyramid cached = generator.submit(image.toString()).get(60, TimeUnit.SECONDS);
+
+            assertTrue(cached.isCached());
+            assertEquals(pyramid.descriptor(), cached.descriptor());
+            assertEquals(pyramid.maxLevel(), generator.findCached(pyramid.key()).maxLevel());
+
+            TilePyramidGeneratorMetrics metrics = generator.getMetrics();
+            assertEquals(1, metrics.generatedCount());
+            assertEquals(1, metrics.cacheHitCount());
+            // 84 + 24 + 6 + 2 at levels 12 to 9, and one tile for each of levels 8 to 0
+            assertEquals(125, metrics.tileCount());
+            assertTrue(metrics.averageGenerateNanos() > 0);
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote An image not larger than the largest derivative should be skipped, without anything in cache
+     */
+    @Test
+    public void testSmallImageIsSkipped() throws Exception {
+
+        Path directory = Files.createTempDirectory("tile-pyramid-generator-test");
+
+        try (TilePyramidGenerator generator = new TilePyramidGenerator(directory.resolve("tiles"), 1)) {
+
+            Path image = writeImage(directory.resolve("image.png"), 2560, 1440);
+
+            assertNull(generator.submit(image.toString()).get(60, TimeUnit.SECONDS));
+            assertEquals(1, generator.getMetrics().skippedCount());
+            assertNull(generator.findCached("0".repeat(64)));
+
+            try (Stream<Path> files = Files.walk(generator.getCacheDirectory())) {
+                assertEquals(0, files.filter(Files::isRegularFile).count());
+            }
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Write an image, left half red and right half blue
+     */
+    private static Path writeImage(Path file, int width, int height) throws IOException {
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+
+        try {
+            graphics.setColor(Color.RED);
+            graphics.fillRect(0, 0, width / 2, height);
+            graphics.setColor(Color.BLUE);
+            graphics.fillRect(width / 2, 0, width - width / 2, height);
+        } finally {
+            graphics.dispose();
+        }
+
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    private static void assertDimensions(Path file, int width, int height) throws IOException {
+
+        assertNotNull(file);
+        BufferedImage image = ImageIO.read(file.toFile());
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+
+    private static void assertColorNear(Color expected, int rgb) {
+
+        Color actual = new Color(rgb);
+        assertTrue(Math.abs(expected.getRed() - actual.getRed()) < 16
+                && Math.abs(expected.getGreen() - actual.getGreen()) < 16
+                && Math.abs(expected.getBlue() - actual.getBlue()) < 16, "Unexpected color " + actual);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Delete temporary test directory and its content
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelineCursor;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelinePage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.model.TimelineCursor}
+ */
+public class TimelineCursorTest {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Cursor should survive its URL safe token, at any value
+     */
+    @Test
+    public void testCursorRoundTrip() {
+
+        for (TimelineCursor cursor : List.of(
+                new TimelineCursor(1_656_000_000_000L, 123_456_789_012L),
+                new TimelineCursor(0, 0),
+                new TimelineCursor(Long.MIN_VALUE, Long.MAX_VALUE))) {
+
+            String token = cursor.encode();
+
+            assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+            assertEquals(cursor, TimelineCursor.decode(token));
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Anything else than a cursor token should be rejected
+     */
+    @Test
+    public void testForeignTokenIsRejected() {
+
+        assertThrows(IllegalArgumentException.class, () -> TimelineCursor.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> TimelineCursor.decode("AAAA"));
+
+        // Right length, unknown version
+        String token = new TimelineCursor(1, 2).encode();
+        assertThrows(IllegalArgumentException.class, () -> TimelineCursor.decode("B" + token.substring(1)));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Page should point after its last post only if one more post was read
+     */
+    @Test
+    public void testPageHasNextOnlyWithExtraPost() {
+
+        List<Post> fetched = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            fetched.add(new Post("user", "Post " + i, "Description", new String[0], "tags", 1000L - i));
+        }
+
+        TimelinePage last = TimelinePage.of(fetched.subList(0, 3), 3);
+        assertEquals(3, last.posts().size());
+        assertNull(last.next());
+
+        TimelinePage page = TimelinePage.of(fetched, 3);
+        assertEquals(3, page.posts().size());
+        assertEquals(TimelineCursor.after(fetched.get(2)), TimelineCursor.decode(page.next()));
+        assertEquals(998L, TimelineCursor.decode(page.next()).postCreationTime());
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkcommonlib;
+
+import com.nurujjamanpollob.fourkcommonlib.id.SnowflakeIdGenerator;
+import com.nurujjamanpollob.fourkcommonlib.id.UserIdStrategy;
+import com.nurujjamanpollob.fourkcommonlib.id.UsernameHash;
+import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkcommonlib.id.UserIdStrategy} implementations.
+ */
+public class UserIdStrategyTest {
+
+    private static final int USERNAME_COUNT = 5_000_000;
+
+    private static final char[] USERNAME_CHARACTERS = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create valid usernames, a half are sequential like <code>user123</code>, other half random 3 - 20 character
+     */
+    private static String createUsername(int index, Random random) {
+
+        if (index % 2 == 0) {
+            return "user" + index;
+        }
+
+        char[] name = new char[3 + random.nextInt(18)];
+        for (int i = 0; i < name.length; i++) {
+            name[i] = USERNAME_CHARACTERS[random.nextInt(USERNAME_CHARACTERS.length)];
+        }
+
+        // Append index to keep usernames distinct
+        return new String(name) + index;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Count equal neighbours of a sorted array
+     */
+    private static int countCollisions(long[] ids) {
+
+        Arrays.sort(ids);
+
+        int collisions = 0;
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] == ids[i - 1]) {
+                collisions++;
+            }
+        }
+
+        return collisions;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Hash millions of distinct usernames, 64 bit hash should have no collision,
+     * while previous 32 bit converter collides
+     */
+    @Test
+    public void testUsernameHashCollisionRateOverMillionsOfUsernames() {
+
+        Random random = new Random(7);
+        long[] hashIds = new long[USERNAME_COUNT];
+        long[] legacyIds = new long[USERNAME_COUNT];
+
+        for (int i = 0; i < USERNAME_COUNT; i++) {
+            String username = createUsername(i, random);
+            hashIds[i] = UserIdStrategy.USERNAME_HASH.generateUserId(username);
+            legacyIds[i] = UserIdStrategy.LEGACY_BIG_INTEGER.generateUserId(username);
+            assertTrue(hashIds[i] >= 0);
+        }
+
+        assertEquals(0, countCollisions(hashIds));
+        assertTrue(countCollisions(legacyIds) > 0);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Username hash should be deterministic, and stable between releases because it's stored in database
+     */
+    @Test
+    public void testUsernameHashIsDeterministic() {
+
+        assertEquals(UsernameHash.hash("nurujjamanpollob"), UsernameHash.hash(new String("nurujjamanpollob")));
+        assertNotEquals(UsernameHash.hash("nurujjamanpollob"), UsernameHash.hash("nurujjamanpollog"));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Default strategy should compute the identifiers existing user documents are keyed by
+     */
+    @Test
+    public void testDefaultStrategyFindsLegacyUsers() {
+
+        assertSame(UserIdStrategy.LEGACY_BIG_INTEGER, UserIdStrategy.getDefault());
+        assertEquals(UtilityCollection.stringToBigIntegerConverter("nurujjamanpollob").intValue(),
+                UserIdStrategy.getDefault().generateUserId("nurujjamanpollob"));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Time ordered strategy should create increasing identifiers of the generator node
+     */
+    @Test
+    public void testTimeOrderedStrategyIsIncreasing() {
+
+        UserIdStrategy strategy = UserIdStrategy.timeOrdered(new SnowflakeIdGenerator(5));
+
+        long previous = -1;
+        for (int i = 0; i < 100_000; i++) {
+            long id = strategy.generateUserId("nurujjamanpollob");
+            assertTrue(id > previous);
+            assertEquals(5, SnowflakeIdGenerator.extractNodeId(id));
+            previous = id;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Default strategy also finds users by username, a time ordered strategy should be rejected as default
+     */
+    @Test
+    public void testTimeOrderedStrategyCanNotBeDefault() {
+
+        UserIdStrategy strategy = UserIdStrategy.timeOrdered(new SnowflakeIdGenerator(5));
+
+        assertFalse(strategy.isDeterministic());
+        assertTrue(UserIdStrategy.USERNAME_HASH.isDeterministic());
+        assertThrows(IllegalArgumentException.class, () -> UserIdStrategy.setDefault(strategy));
+        assertSame(UserIdStrategy.LEGACY_BIG_INTEGER, UserIdStrategy.getDefault());
+    }
+}
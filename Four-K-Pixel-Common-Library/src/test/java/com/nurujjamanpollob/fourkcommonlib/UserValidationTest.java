@@ -61,7 +61,10 @@ package com.nurujjamanpollob.fourkcommonlib;
 
 import com.nurujjamanpollob.fourkcommonlib.exception.InvalidUserException;
 import com.nurujjamanpollob.fourkcommonlib.model.User;
+import com.nurujjamanpollob.fourkcommonlib.utility.UtilityCollection;
 import com.nurujjamanpollob.fourkcommonlib.validation.UserValidation;
+import com.nurujjamanpollob.fourkcommonlib.validation.UserValidationResult;
+import com.nurujjamanpollob.fourkcommonlib.validation.UserViolation;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -1866,4 +1869,148 @@ public class UserValidationTest {
 
     }
 
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote This test method validate a user with several invalid fields through {@link UserValidation#validateUser(UserValidationResult)},
+     * every violation should be collected in validation order, and no exception should be thrown
+     */
+    @Test
+    public void testValidateUserCollectsAllViolationsWithoutThrowing(){
+
+        User user = new User(
+                "Nurujjamanpollob", // Invalid username, has capital latter
+                "password goes here",
+                "Nurujjaman1", // Invalid first name, has numeric character
+                "Pollob",
+                "Address line one",
+                null,
+                "Dinajpur",
+                "B", // Invalid country, too short
+                "User short description goes here.",
+                "User Bio",
+                null,
+                "recovery question goes here",
+                1998,
+                12,
+                7,
+                11111,
+                false,
+                true,
+                false,
+                true
+        );
+
+        UserValidationResult result = assertDoesNotThrow(() -> new UserValidation(user).validateUser(new UserValidationResult()));
+
+        assertFalse(result.isValid());
+        assertEquals(3, result.getViolations().size());
+        assertEquals(UserViolation.USERNAME_INVALID_CHARACTER, result.getFirstViolation());
+        assertTrue(result.hasViolation(UserViolation.FIRST_NAME_INVALID_CHARACTER));
+        assertTrue(result.hasViolation(UserViolation.COUNTRY_LENGTH));
+
+        // Invalid user password should not be encoded
+        assertEquals("password goes here", user.getPassword());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote This test method reuse one {@link UserValidationResult} for an invalid and then a valid user,
+     * the previous violations should not leak into next validation
+     */
+    @Test
+    public void testValidationResultIsReusable(){
+
+        UserValidationResult result = new UserValidationResult();
+
+        new UserValidation(new User(
+                "nu", // Too short username
+                "password goes here",
+                "Nurujjaman",
+                "Pollob",
+                "Address line one",
+                null,
+                "Dinajpur",
+                "Bangladesh",
+                "User short description goes here.",
+                "User Bio",
+                null,
+                "recovery question goes here",
+                1998,
+                12,
+                7,
+                11111,
+                false,
+                true,
+                false,
+                true
+        )).validateUser(result);
+
+        assertTrue(result.hasViolation(UserViolation.USERNAME_LENGTH));
+
+        User validUser = new User(
+                "nurujjamanpollob",
+                "password goes here",
+                "Nurujjaman",
+                "Pollob",
+                "Address line one",
+                null,
+                "Dinajpur",
+                "Bangladesh",
+                "User short description goes here.",
+                "User Bio",
+                null,
+                "recovery question goes here",
+                1998,
+                12,
+                7,
+                11111,
+                false,
+                true,
+                false,
+                true
+        );
+
+        new UserValidation(validUser).validateUser(result);
+
+        assertTrue(result.isValid());
+        assertNull(result.getFirstViolation());
+
+        // Valid user password should be encoded
+        assertTrue(UtilityCollection.isPasswordEncodedWithBcryptPasswordEncryptor(validUser.getPassword()));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote This test method validate a user with an impossible birthday(30 February),
+     * which should throw {@link InvalidUserException} instead of {@link java.time.DateTimeException}
+     */
+    @Test
+    public void testUserBirthDateIsInvalidBecauseDayIsOutOfMonth(){
+
+        InvalidUserException invalidUserException = assertThrows(InvalidUserException.class, () -> new UserValidation(new User(
+                "nurujjamanpollob",
+                "password goes here",
+                "Nurujjaman",
+                "Pollob",
+                "Address line one",
+                null,
+                "Dinajpur",
+                "Bangladesh",
+                "User short description goes here.",
+                "User Bio",
+                null,
+                "recovery question goes here",
+                1998,
+                2, // Birth month
+                30, // Birth day
+                11111,
+                false,
+                true,
+                false,
+                true
+        )).validateUser());
+
+        assertTrue(invalidUserException.getMessage().contains("The user birth date is missing or not a valid calendar date"));
+    }
+
 }
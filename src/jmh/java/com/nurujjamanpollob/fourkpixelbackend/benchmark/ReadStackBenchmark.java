@@ -0,0 +1,239 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.benchmark;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.User;
+import com.nurujjamanpollob.fourkpixelbackend.FourKPixelBackendApplication;
+import com.nurujjamanpollob.fourkpixelbackend.reactive.ReactiveApiServer;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.PostRepository;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Compare throughput of the servlet API with the reactive API on the same profile and feed reads,
+ * with embedded No-SQL database seeded with 1000 users and 20000 posts.
+ * Each operation is a burst of concurrent clients, every client sends one request on its own connection,
+ * so requests per second is the score multiplied by <code>clients</code>.
+ * The servlet stack serves at most a request per container thread, the reactive stack serves every client of a burst
+ * on a few event loop threads, the gap should grow with the number of clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+public class ReadStackBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int POSTS = 20000;
+
+    @Param({"servlet", "reactive"})
+    public String stack;
+
+    @Param({"200", "2000"})
+    public int clients;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private Random random;
+
+    @Setup
+    public void startApplication() {
+
+        context = new SpringApplicationBuilder(FourKPixelBackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "fourkpixel.reactive-port=0",
+                        "spring.mongodb.embedded.version=3.5.5")
+                .run();
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        PostRepository postRepository = context.getBean(PostRepository.class);
+
+        if (userRepository.count() < USERS) {
+            seed(userRepository, postRepository);
+        }
+
+        int port = "servlet".equals(stack)
+                ? ((ServletWebServerApplicationContext) context).getWebServer().getPort()
+                : context.getBean(ReactiveApiServer.class).getPort();
+
+        baseUrl = "http://localhost:" + port;
+        clientExecutor = Executors.newFixedThreadPool(8);
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        random = new Random(42);
+    }
+
+    @TearDown
+    public void stopApplication() {
+
+        clientExecutor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public int userProfiles() {
+
+        List<URI> uris = new ArrayList<>(clients);
+
+        for (int i = 0; i < clients; i++) {
+            uris.add(URI.create(baseUrl + "/api/v1/users/user" + random.nextInt(USERS)));
+        }
+
+        return burst(uris);
+    }
+
+    @Benchmark
+    public int latestPosts() {
+
+        List<URI> uris = new ArrayList<>(clients);
+
+        for (int i = 0; i < clients; i++) {
+            uris.add(URI.create(baseUrl + "/api/v1/posts?limit=20"));
+        }
+
+        return burst(uris);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Send every request at once and wait for all responses
+     * @return total body length, so responses are not optimized away
+     */
+    private int burst(List<URI> uris) {
+
+        List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>(uris.size());
+
+        for (URI uri : uris) {
+            responses.add(httpClient.sendAsync(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofByteArray()));
+        }
+
+        int length = 0;
+
+        for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+
+            HttpResponse<byte[]> received = response.join();
+
+            if (received.statusCode() != 200) {
+                throw new IllegalStateException(received.uri() + " answered " + received.statusCode());
+            }
+
+            length += received.body().length;
+        }
+
+        return length;
+    }
+
+    private static void seed(UserRepository userRepository, PostRepository postRepository) {
+
+        List<User> users = new ArrayList<>(USERS);
+
+        for (int i = 0; i < USERS; i++) {
+            users.add(new User("user" + i, "password", "First", "Last", "Line one", "Line two", "Dhaka", "Bangladesh",
+                    "Short description", "Bio of user " + i, "Photography", "Question", 1995, 1, 1,
+                    (int) (System.currentTimeMillis() / 1000), i % 10 == 0, i % 3 == 0, false, true));
+        }
+
+        userRepository.saveAll(users);
+
+        List<Post> posts = new ArrayList<>(POSTS);
+
+        for (int i = 0; i < POSTS; i++) {
+            posts.add(new Post("user" + (i % USERS), "Post " + i, "Description of post " + i,
+                    new String[]{"0".repeat(64)}, "wallpaper,4k", System.currentTimeMillis()));
+        }
+
+        postRepository.saveAll(posts);
+    }
+}
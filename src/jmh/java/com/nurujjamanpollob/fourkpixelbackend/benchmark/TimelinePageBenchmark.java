@@ -0,0 +1,159 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.benchmark;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelineCursor;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelinePage;
+import com.nurujjamanpollob.fourkpixelbackend.FourKPixelBackendApplication;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.PostRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Nurujjaman Pollob 2022
+ * @apiNote Measure latency of a timeline page at page 1 and page 10000 of one user with 200020 posts,
+ * on embedded No-SQL database. Pages are read after a cursor from the timeline index,
+ * so both scores should be about the same, where skip and limit grows with the page number.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+public class TimelinePageBenchmark {
+
+    private static final String USERNAME = "timeline-user";
+    private static final int PAGE_SIZE = 20;
+    private static final int POSTS = 10_001 * PAGE_SIZE;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"1", "10000"})
+    public int page;
+
+    private ConfigurableApplicationContext context;
+    private PostRepository postRepository;
+    private TimelineCursor after;
+
+    @Setup
+    public void startApplication() {
+
+        context = new SpringApplicationBuilder(FourKPixelBackendApplication.class)
+                .properties(
+                        "server.port=0",
+                        "fourkpixel.reactive-port=0",
+                        "spring.mongodb.embedded.version=3.5.5")
+                .run();
+
+        postRepository = context.getBean(PostRepository.class);
+
+        long newest = System.currentTimeMillis();
+        Post last = null;
+
+        for (int start = 0; start < POSTS; start += INSERT_BATCH) {
+
+            List<Post> batch = new ArrayList<>(INSERT_BATCH);
+
+            for (int i = start; i < start + INSERT_BATCH; i++) {
+
+                // Pairs of posts share a creation time, so pages also cross ties on post identifier
+                Post post = new Post(USERNAME, "Post " + i, "Description of post " + i,
+                        new String[]{"0".repeat(64)}, "wallpaper,4k", newest - i / 2);
+                batch.add(post);
+
+                // Newer post of a pair is first, so the last post before the page is the older of a pair
+                if (i == (page - 1) * PAGE_SIZE - 2) {
+                    last = post;
+                }
+            }
+
+            postRepository.insert(batch);
+        }
+
+        after = last == null ? null : TimelineCursor.after(last);
+    }
+
+    @TearDown
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public TimelinePage timelinePage() {
+        return postRepository.findTimeline(USERNAME, after, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.config;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.RenameCollectionOptions;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Moves documents of models whose collection was renamed, from the default collection of Spring Data
+ * to the collection now declared on the model, like <code>post</code> to <code>posts</code> of {@link Post},
+ * and <code>user</code> to <code>users</code> of {@link User}.
+ * It runs once when the bean is created, before any bean reads those collections,
+ * and renaming is a metadata change of the database, no document is copied.
+ *
+ * A legacy collection is renamed only if the new collection is missing or empty.
+ * If both hold documents the application does not start, they must be merged manually.
+ * Migration can be turned off with <code>fourkpixel.migrate-legacy-collections=false</code>,
+ * then the legacy collections must be renamed manually before start, or their documents are not found.
+ */
+@Component
+public class LegacyCollectionMigration {
+
+    /**
+     * Default collection of {@link Post} before it declared its collection
+     */
+    public static final String LEGACY_POST_COLLECTION = "post";
+
+    /**
+     * Default collection of {@link User} before it declared its collection
+     */
+    public static final String LEGACY_USER_COLLECTION = "user";
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param mongoTemplate the template of application database
+     * @param enabled false to skip migration
+     */
+    public LegacyCollectionMigration(MongoTemplate mongoTemplate,
+                                     @Value("${fourkpixel.migrate-legacy-collections:true}") boolean enabled) {
+
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Rename every legacy collection to the collection of its model
+     * @throws IllegalStateException if a legacy collection and its new collection both hold documents
+     */
+    @PostConstruct
+    public void migrate() {
+
+        if (!enabled) {
+            return;
+        }
+
+        rename(LEGACY_POST_COLLECTION, mongoTemplate.getCollectionName(Post.class));
+        rename(LEGACY_USER_COLLECTION, mongoTemplate.getCollectionName(User.class));
+    }
+
+    private void rename(String legacyCollection, String collection) {
+
+        if (legacyCollection.equals(collection) || !mongoTemplate.collectionExists(legacyCollection)) {
+            return;
+        }
+
+        if (mongoTemplate.collectionExists(collection) && mongoTemplate.estimatedCount(collection) > 0) {
+
+            if (mongoTemplate.estimatedCount(legacyCollection) == 0) {
+                return;
+            }
+
+            throw new IllegalStateException("Collections '" + legacyCollection + "' and '" + collection
+                    + "' both hold documents, merge them into '" + collection + "' and drop '" + legacyCollection + "' before start");
+        }
+
+        // An empty target is replaced, like one created by index creation of a previous start
+        mongoTemplate.getCollection(legacyCollection).renameCollection(
+                new MongoNamespace(mongoTemplate.getDb().getName(), collection),
+                new RenameCollectionOptions().dropTarget(true));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.config;
+
+import com.nurujjamanpollob.fourkcommonlib.id.SnowflakeIdGenerator;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import reactor.core.publisher.Mono;
+
+/**
+ * Post identifier assignment of Four K Pixel Application.
+ * A post made with its no-arg constructor, like one read from a request body, has no identifier,
+ * and a null <code>Long</code> identifier can't be generated by the database.
+ * It gets a time ordered identifier from {@link SnowflakeIdGenerator#getDefault()} right before it's first saved,
+ * by blocking and reactive repositories alike.
+ */
+@Configuration
+public class PostIdConfiguration {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Assign identifier of a post saved with a blocking repository or template
+     * @return the callback
+     */
+    @Bean
+    public BeforeConvertCallback<Post> postIdCallback() {
+        return (post, collection) -> assignPostId(post);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Assign identifier of a post saved with a reactive repository or template
+     * @return the callback
+     */
+    @Bean
+    public ReactiveBeforeConvertCallback<Post> reactivePostIdCallback() {
+        return (post, collection) -> Mono.just(assignPostId(post));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Assign a new identifier to a post without one, an assigned identifier is never changed
+     * @param post the post to save
+     * @return the same post
+     */
+    static Post assignPostId(Post post) {
+
+        if (post.getPostId() == null) {
+            post.setPostId(SnowflakeIdGenerator.getDefault().nextId());
+        }
+
+        return post;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nurujjamanpollob.fourkpixelbackend.reactive.ReactiveApiServer;
+import com.nurujjamanpollob.fourkpixelbackend.reactive.ReactiveReadHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Reactive API of Four K Pixel Application, served by {@link ReactiveApiServer} next to the servlet API.
+ * Its port can be set with <code>fourkpixel.reactive-port</code> property,
+ * and its number of event loop threads with <code>fourkpixel.reactive-threads</code>, one per processor if 0.
+ */
+@Configuration
+public class ReactiveApiConfiguration {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Routes of the reactive API, on the same paths as their servlet endpoints
+     * @param handler the handler of reactive reads
+     * @return the routes
+     */
+    @Bean
+    public RouterFunction<ServerResponse> reactiveReadRoutes(ReactiveReadHandler handler) {
+
+        return RouterFunctions.route()
+                .GET("/api/v1/users/{userName}", handler::getUserProfile)
+                .GET("/api/v1/users/{siteUsername}/posts", handler::getTimeline)
+                .GET("/api/v1/posts/{postId}", handler::getPost)
+                .GET("/api/v1/posts", handler::getLatestPosts)
+                .build();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Server of the reactive API, its JSON is written by the same object mapper as the servlet API
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Started after {@link LegacyCollectionMigration}, so the first request already reads the renamed collections.
+     * @param reactiveReadRoutes the routes to serve
+     * @param objectMapper the object mapper of application
+     * @param port the port to listen on
+     * @param threads the number of event loop threads, or 0 for one per processor
+     * @return the started server
+     */
+    @Bean(destroyMethod = "close")
+    @DependsOn("legacyCollectionMigration")
+    public ReactiveApiServer reactiveApiServer(RouterFunction<ServerResponse> reactiveReadRoutes, ObjectMapper objectMapper,
+                                               @Value("${fourkpixel.reactive-port:8081}") int port,
+                                               @Value("${fourkpixel.reactive-threads:0}") int threads) {
+
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+
+        return new ReactiveApiServer(RouterFunctions.toHttpHandler(reactiveReadRoutes, strategies), port,
+                threads > 0 ? threads : LoopResources.DEFAULT_IO_WORKER_COUNT);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.config;
+
+import com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator;
+import com.nurujjamanpollob.fourkcommonlib.imaging.ImageResizer;
+import com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramidGenerator;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentReaper;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentUploader;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.storage.ReferencedAttachments;
+import com.nurujjamanpollob.fourkcommonlib.storage.ResumableUploadManager;
+import com.nurujjamanpollob.fourkcommonlib.storage.StorageQuota;
+import com.nurujjamanpollob.fourkcommonlib.storage.StorageUsageStore;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.PostRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Storage related beans of Four K Pixel Application.
+ * Attachments are stored once per content in the content store,
+ * its directory can be set with <code>fourkpixel.content-directory</code> property.
+ * Fixed size derivatives are cached in <code>fourkpixel.derivative-directory</code>,
+ * images resized on request in <code>fourkpixel.resized-directory</code>,
+ * and deep zoom tile pyramids in <code>fourkpixel.tile-directory</code>.
+ * Orphaned attachments are swept every <code>fourkpixel.reaper-sweep-interval</code>,
+ * once older than <code>fourkpixel.reaper-grace-period</code>.
+ */
+@Configuration
+public class StorageConfiguration {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Content addressed store of attachments, it's also set as {@link ContentStore#getDefault()},
+     * so post validation resolves content identifiers in the same store
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Reference counts are rebuilt from attachments of saved posts when the bean is created,
+     * so before the web server accepts any upload or post, and after {@link LegacyCollectionMigration} moved legacy posts.
+     * @param contentDirectory the root directory of stored content
+     * @param postRepository the repository of posts referencing stored content
+     * @return the store
+     * @throws IOException if the directory can't be created
+     */
+    @Bean
+    @DependsOn("legacyCollectionMigration")
+    public ContentStore contentStore(@Value("${fourkpixel.content-directory:uploads/content}") String contentDirectory,
+                                     PostRepository postRepository) throws IOException {
+
+        ContentStore contentStore = new ContentStore(Path.of(contentDirectory));
+
+        try (Stream<Post> posts = postRepository.streamAttachments()) {
+            contentStore.rebuildReferenceCounts(posts::iterator);
+        }
+
+        ContentStore.setDefault(contentStore);
+
+        return contentStore;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Reaper of attachment files, it's also set as {@link AttachmentReaper#getDefault()},
+     * so files of rejected posts are deleted by the same worker.
+     * Content root, its staging directory and the legacy upload directory if set, are swept every sweep interval,
+     * and a file older than grace period is deleted if no post references it and the content store has no reference to it.
+     * Grace period must be longer than {@link ResumableUploadManager#DEFAULT_EXPIRE_AFTER_MILLIS},
+     * so staging file of a paused resumable upload is kept.
+     * Content files are deleted through the store, and storage quota charged for a reclaimed content is given back to its uploaders
+     * under lock of the content, so a new upload of same content is charged after the refund, see {@link StorageQuota#freeAll(String)}.
+     * @param contentStore the store of uploaded attachments
+     * @param storageQuota the quota charged for uploads
+     * @param postRepository the repository of posts referencing attachments
+     * @param legacyUploadDirectory the directory of attachment files stored before the content store, blank if none
+     * @param sweepInterval delay between sweeps
+     * @param orphanGracePeriod minimum age of an unreferenced file to be deleted
+     * @return the reaper
+     */
+    @Bean(destroyMethod = "close")
+    public AttachmentReaper attachmentReaper(ContentStore contentStore, StorageQuota storageQuota, PostRepository postRepository,
+                                             @Value("${fourkpixel.legacy-upload-directory:}") String legacyUploadDirectory,
+                                             @Value("${fourkpixel.reaper-sweep-interval:1h}") Duration sweepInterval,
+                                             @Value("${fourkpixel.reaper-grace-period:48h}") Duration orphanGracePeriod) {
+
+        List<Path> directories = new ArrayList<>(List.of(contentStore.getRoot(), contentStore.getStagingDirectory()));
+        if (!legacyUploadDirectory.isBlank()) {
+            directories.add(Path.of(legacyUploadDirectory));
+        }
+
+        ReferencedAttachments referencedAttachments = () -> {
+
+            Set<Path> referenced;
+            try (Stream<Post> posts = postRepository.streamAttachments()) {
+                referenced = new HashSet<>(ReferencedAttachments.fromPosts(() -> posts::iterator).load());
+            }
+
+            for (String contentId : contentStore.getReferencedContentIds()) {
+                referenced.add(contentStore.pathOf(contentId));
+            }
+
+            return referenced;
+        };
+
+        AttachmentReaper attachmentReaper = new AttachmentReaper(directories, contentStore, referencedAttachments,
+                sweepInterval, orphanGracePeriod, storageQuota::freeAll);
+        AttachmentReaper.setDefault(attachmentReaper);
+
+        return attachmentReaper;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Generator of image derivatives, with a worker per processor, it's also set as {@link DerivativeGenerator#getDefault()},
+     * so attachments accepted by post validation are generated into the same cache
+     * @param derivativeDirectory the directory of cached derivatives
+     * @return the generator
+     * @throws IOException if the directory can't be created
+     */
+    @Bean(destroyMethod = "close")
+    public DerivativeGenerator derivativeGenerator(@Value("${fourkpixel.derivative-directory:uploads/derivatives}") String derivativeDirectory) throws IOException {
+
+        DerivativeGenerator derivativeGenerator = new DerivativeGenerator(Path.of(derivativeDirectory));
+        DerivativeGenerator.setDefault(derivativeGenerator);
+
+        return derivativeGenerator;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Generator of deep zoom tile pyramids, it's also set as {@link TilePyramidGenerator#getDefault()},
+     * so large attachments accepted by post validation are tiled into the same cache
+     * @param tileDirectory the directory of cached pyramids
+     * @return the generator
+     * @throws IOException if the directory can't be created
+     */
+    @Bean(destroyMethod = "close")
+    public TilePyramidGenerator tilePyramidGenerator(@Value("${fourkpixel.tile-directory:uploads/tiles}") String tileDirectory) throws IOException {
+
+        TilePyramidGenerator tilePyramidGenerator = new TilePyramidGenerator(Path.of(tileDirectory));
+        TilePyramidGenerator.setDefault(tilePyramidGenerator);
+
+        return tilePyramidGenerator;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Resizer of stored images to requested width, with a worker per processor
+     * @param contentStore the store of original images
+     * @param resizedDirectory the directory of cached resized images
+     * @return the resizer
+     * @throws IOException if the directory can't be created
+     */
+    @Bean(destroyMethod = "close")
+    public ImageResizer imageResizer(ContentStore contentStore,
+                                     @Value("${fourkpixel.resized-directory:uploads/resized}") String resizedDirectory) throws IOException {
+        return new ImageResizer(contentStore, Path.of(resizedDirectory));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Uploader which streams attachments into content store
+     * @param contentStore the store to add uploaded attachments to
+     * @return the uploader
+     */
+    @Bean
+    public AttachmentUploader attachmentUploader(ContentStore contentStore) {
+        return new AttachmentUploader(contentStore);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Manager of resumable uploads, which are finalized into content store
+     * @param contentStore the store to add finalized uploads to
+     * @return the manager
+     */
+    @Bean
+    public ResumableUploadManager resumableUploadManager(ContentStore contentStore) {
+        return new ResumableUploadManager(contentStore);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Per user storage quota, reserved locally and counted in database
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * It's also set as {@link StorageQuota#getDefault()}, so a rejected post gives back quota of its uploads
+     * @param storageUsageStore the database counters of usage
+     * @return the quota
+     */
+    @Bean
+    public StorageQuota storageQuota(StorageUsageStore storageUsageStore) {
+
+        StorageQuota storageQuota = new StorageQuota(storageUsageStore);
+        StorageQuota.setDefault(storageQuota);
+
+        return storageQuota;
+    }
+}
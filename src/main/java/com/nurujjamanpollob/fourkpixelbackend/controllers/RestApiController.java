@@ -59,14 +59,682 @@
 
 package com.nurujjamanpollob.fourkpixelbackend.controllers;
 
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.id.UserIdStrategy;
+import com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator;
+import com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeSize;
+import com.nurujjamanpollob.fourkcommonlib.imaging.ImageResizer;
+import com.nurujjamanpollob.fourkcommonlib.imaging.NearDuplicate;
+import com.nurujjamanpollob.fourkcommonlib.imaging.PerceptualHashIndex;
+import com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramid;
+import com.nurujjamanpollob.fourkcommonlib.imaging.TilePyramidGenerator;
+import com.nurujjamanpollob.fourkcommonlib.imaging.ResizedImage;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelineCursor;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelinePage;
+import com.nurujjamanpollob.fourkcommonlib.model.UserProfile;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadata;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentMetadataCache;
+import com.nurujjamanpollob.fourkcommonlib.storage.AttachmentUploader;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkcommonlib.storage.QuotaReservation;
+import com.nurujjamanpollob.fourkcommonlib.storage.ResumableUploadManager;
+import com.nurujjamanpollob.fourkcommonlib.storage.ResumableUploadStatus;
+import com.nurujjamanpollob.fourkcommonlib.storage.UploadedAttachment;
+import com.nurujjamanpollob.fourkpixelbackend.serving.ImageDelivery;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.PostRepository;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.UserRepository;
+import com.nurujjamanpollob.fourkpixelbackend.services.NearDuplicateService;
+import com.nurujjamanpollob.fourkpixelbackend.services.StorageQuotaService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * Rest API controller of Four K Pixel Application.
  * All API Related method can be found here.
  *
+ * Posts are answered with placeholders of their images, including ones generated after the post was saved,
+ * see {@link DerivativeGenerator#fillPlaceholders(Post)}.
  */
-// TODO : Time to add some Rest Endpoint - QUEUED
 @RestController
 public class RestApiController {
+
+    private final AttachmentUploader attachmentUploader;
+    private final ContentStore contentStore;
+    private final ImageDelivery imageDelivery;
+    private final DerivativeGenerator derivativeGenerator;
+    private final ImageResizer imageResizer;
+    private final NearDuplicateService nearDuplicateService;
+    private final TilePyramidGenerator tilePyramidGenerator;
+    private final ResumableUploadManager resumableUploadManager;
+    private final StorageQuotaService storageQuotaService;
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+
+    /**
+     * Number of latest posts sent when no limit is requested
+     */
+    public static final int DEFAULT_FEED_LIMIT = 20;
+
+    /**
+     * Maximum number of latest posts sent at once
+     */
+    public static final int MAX_FEED_LIMIT = 100;
+
+    /**
+     * Time a request waits for its image to be resized, before answering 503
+     */
+    private static final long RESIZE_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Headers of resumable uploads, the byte offset received so far and the byte length of the whole upload
+     */
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
+    /**
+     * Header naming the site user an upload is accounted to, see {@link StorageQuotaService}
+     */
+    private static final String SITE_USERNAME = "Site-Username";
+
+    /**
+     * File name of a deep zoom tile, column and row, up to 5 digits each
+     */
+    private static final Pattern TILE_NAME_PATTERN = Pattern.compile("(\\d{1,5})_(\\d{1,5})\\.(jpg|png)");
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param attachmentUploader the uploader to stream attachments to disk
+     * @param contentStore the store of uploaded attachments
+     * @param imageDelivery the writer of stored images to responses
+     * @param derivativeGenerator the generator of fixed size derivatives
+     * @param imageResizer the resizer of images to requested width
+     * @param nearDuplicateService the finder of near duplicate images
+     * @param tilePyramidGenerator the generator of deep zoom tile pyramids
+     * @param resumableUploadManager the manager of resumable uploads
+     * @param storageQuotaService the storage quota of users
+     * @param userRepository the repository of users
+     * @param postRepository the repository of posts
+     */
+    public RestApiController(AttachmentUploader attachmentUploader, ContentStore contentStore,
+                             ImageDelivery imageDelivery, DerivativeGenerator derivativeGenerator, ImageResizer imageResizer,
+                             NearDuplicateService nearDuplicateService, TilePyramidGenerator tilePyramidGenerator,
+                             ResumableUploadManager resumableUploadManager, StorageQuotaService storageQuotaService,
+                             UserRepository userRepository, PostRepository postRepository) {
+        this.attachmentUploader = attachmentUploader;
+        this.contentStore = contentStore;
+        this.imageDelivery = imageDelivery;
+        this.derivativeGenerator = derivativeGenerator;
+        this.imageResizer = imageResizer;
+        this.nearDuplicateService = nearDuplicateService;
+        this.tilePyramidGenerator = tilePyramidGenerator;
+        this.resumableUploadManager = resumableUploadManager;
+        this.storageQuotaService = storageQuotaService;
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Public profile of a user, looked up by identifier computed from username, see {@link UserIdStrategy}.
+     * Also served by the reactive API, see {@link com.nurujjamanpollob.fourkpixelbackend.reactive.ReactiveReadHandler}
+     * @param userName the username
+     * @return 200 with profile, 404 if no user has the username
+     */
+    @GetMapping("/api/v1/users/{userName}")
+    public ResponseEntity<?> getUserProfile(@PathVariable String userName) {
+
+        return userRepository.findById(UserIdStrategy.getDefault().generateUserId(userName))
+                .<ResponseEntity<?>>map(user -> ResponseEntity.ok(UserProfile.of(user)))
+                .orElseGet(() -> errorResponse(HttpStatus.NOT_FOUND, "No user " + userName));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A post by identifier, also served by the reactive API
+     * @param postId the post identifier
+     * @return 200 with post, 404 if no post has the identifier
+     */
+    @GetMapping("/api/v1/posts/{postId}")
+    public ResponseEntity<?> getPost(@PathVariable long postId) {
+
+        return postRepository.findById(postId)
+                .map(derivativeGenerator::fillPlaceholders)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> errorResponse(HttpStatus.NOT_FOUND, "No post " + postId));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Latest posts, newest first. Post identifiers are time ordered, so it's read from the identifier index.
+     * Also served by the reactive API
+     * @param limit the number of posts, up to {@link RestApiController#MAX_FEED_LIMIT}
+     * @return 200 with posts, 400 if the limit is out of range
+     */
+    @GetMapping("/api/v1/posts")
+    public ResponseEntity<?> getLatestPosts(@RequestParam(defaultValue = "" + DEFAULT_FEED_LIMIT) int limit) {
+
+        if (limit < 1 || limit > MAX_FEED_LIMIT) {
+            return errorResponse(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_FEED_LIMIT);
+        }
+
+        List<Post> posts = postRepository.findAllBy(PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "postId")));
+        posts.forEach(derivativeGenerator::fillPlaceholders);
+
+        return ResponseEntity.ok(posts);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Timeline of a user, newest first, paged by an opaque cursor instead of skip and limit.
+     * The response has <code>next</code> token to send as <code>after</code> for the next page, null on the last page.
+     * Every page is a range scan of {@link Post#TIMELINE_INDEX}, so a deep page is as fast as the first one.
+     * Also served by the reactive API
+     * @param siteUsername the username
+     * @param limit the number of posts of a page, up to {@link RestApiController#MAX_FEED_LIMIT}
+     * @param after the <code>next</code> token of previous page, or null for the first page
+     * @return 200 with page, 400 if the limit is out of range or the token is not a cursor
+     */
+    @GetMapping("/api/v1/users/{siteUsername}/posts")
+    public ResponseEntity<?> getTimeline(@PathVariable String siteUsername,
+                                         @RequestParam(defaultValue = "" + DEFAULT_FEED_LIMIT) int limit,
+                                         @RequestParam(required = false) String after) {
+
+        if (limit < 1 || limit > MAX_FEED_LIMIT) {
+            return errorResponse(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + MAX_FEED_LIMIT);
+        }
+
+        TimelineCursor cursor;
+
+        try {
+            cursor = after == null ? null : TimelineCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            return errorResponse(HttpStatus.BAD_REQUEST, "Invalid cursor " + after);
+        }
+
+        TimelinePage page = postRepository.findTimeline(siteUsername, cursor, limit);
+        page.posts().forEach(derivativeGenerator::fillPlaceholders);
+
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Upload a single image attachment, the request body is the raw image.
+     * The body is streamed to disk and never held in memory, see {@link AttachmentUploader}.
+     * A body declared larger than size limit is rejected before it's read,
+     * and the transfer is stopped as soon as the size limit is crossed, or the first bytes are not an image.
+     * The returned location is the content identifier, to be referenced by the post of this attachment.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * The perceptual hash of stored attachment is computed in background, see {@link NearDuplicateService}
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * An upload with <code>Site-Username</code> header is accounted to storage quota of that user.
+     * The declared length, or the size limit if none, is reserved before the body is read, and the stored length is counted.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * <code>Site-Username</code> header is required, an upload of no existing user is rejected.
+     * The stored length is charged to the user also when the same content is stored already, see {@link StorageQuotaService}.
+     * @param request the upload request
+     * @param siteUsername the username of uploader
+     * @return 201 with stored attachment, 400 if empty or without username, 403 if no user has the username, 413 if too large,
+     * 415 if not an image, 503 if too many uploads are in progress, 507 if the user has no storage quota left
+     * @throws IOException if the body can't be read or stored
+     */
+    @PostMapping(value = "/api/v1/attachments", consumes = {"image/*", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> uploadAttachment(HttpServletRequest request,
+                                              @RequestHeader(SITE_USERNAME) String siteUsername) throws IOException {
+
+        long declaredLength = request.getContentLengthLong();
+
+        if (declaredLength > attachmentUploader.getMaxSize()) {
+            return errorResponse(HttpStatus.PAYLOAD_TOO_LARGE, "The image length is more than " + attachmentUploader.getMaxSize() + " bytes");
+        }
+
+        try (QuotaReservation reservation = storageQuotaService.reserve(siteUsername,
+                declaredLength > 0 ? declaredLength : attachmentUploader.getMaxSize())) {
+
+            UploadedAttachment uploaded = attachmentUploader.upload(request.getInputStream());
+            reservation.commit(uploaded.location(), uploaded.size());
+
+            nearDuplicateService.fingerprintAsync(uploaded.location());
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploaded);
+        } catch (UploadRejectedException e) {
+            return errorResponse(statusOf(e.getReason()), e.getMessage());
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Start a resumable upload of an attachment, see {@link ResumableUploadManager}.
+     * The byte length of the whole image is sent in <code>Upload-Length</code> header, and checked against size limit at once.
+     * Chunks are then sent to the returned location with <code>PATCH</code>.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * With <code>Site-Username</code> header, the whole length is reserved from storage quota of that user when the upload starts,
+     * so no chunk needs a quota check, and it's counted when the upload is finalized.
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * <code>Site-Username</code> header is required, an upload of no existing user is rejected.
+     * @param length the byte length of the whole upload
+     * @param siteUsername the username of uploader
+     * @return 201 with upload status and location, 400 if empty or without username, 403 if no user has the username,
+     * 413 if too large, 503 if too many uploads are unfinished, 507 if the user has no storage quota left
+     * @throws IOException if the staging file can't be created
+     */
+    @PostMapping("/api/v1/uploads")
+    public ResponseEntity<?> createUpload(@RequestHeader(UPLOAD_LENGTH) long length,
+                                          @RequestHeader(SITE_USERNAME) String siteUsername) throws IOException {
+
+        if (length > resumableUploadManager.getMaxSize()) {
+            return errorResponse(HttpStatus.PAYLOAD_TOO_LARGE, "The image length is more than " + resumableUploadManager.getMaxSize() + " bytes");
+        }
+
+        try {
+            ResumableUploadStatus status = resumableUploadManager.create(length, storageQuotaService.reserve(siteUsername, Math.max(0, length)));
+            return ResponseEntity.created(URI.create("/api/v1/uploads/" + status.uploadId()))
+                    .header(UPLOAD_OFFSET, Long.toString(status.offset()))
+                    .body(status);
+        } catch (UploadRejectedException e) {
+            return errorResponse(statusOf(e.getReason()), e.getMessage());
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Append a chunk to a resumable upload, the body is the raw chunk and <code>Upload-Offset</code> header
+     * must be the current offset. If the connection drops, the bytes received before are kept,
+     * and the client asks the offset with <code>GET</code> or <code>HEAD</code> and continues from there.
+     * @param uploadId the upload identifier
+     * @param offset the offset the chunk starts at
+     * @param request the request, its body is streamed to the staging file
+     * @return 204 with new <code>Upload-Offset</code>, 404 if the upload is unknown, 409 with current offset if the offset is not current,
+     * 413 if the chunk goes past the upload length, 503 if no buffer is free
+     * @throws IOException if the chunk can't be read or written
+     */
+    @PatchMapping(value = "/api/v1/uploads/{uploadId}", consumes = {"application/offset+octet-stream", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<?> appendUpload(@PathVariable String uploadId, @RequestHeader(UPLOAD_OFFSET) long offset,
+                                          HttpServletRequest request) throws IOException {
+
+        try {
+            ResumableUploadStatus status = resumableUploadManager.append(uploadId, offset, request.getInputStream());
+            return ResponseEntity.noContent()
+                    .header(UPLOAD_OFFSET, Long.toString(status.offset()))
+                    .cacheControl(CacheControl.noStore())
+                    .build();
+        } catch (UploadRejectedException e) {
+            return uploadErrorResponse(uploadId, e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Get progress of a resumable upload, also answered to <code>HEAD</code> with headers only
+     * @param uploadId the upload identifier
+     * @return 200 with upload status, <code>Upload-Offset</code> and <code>Upload-Length</code>, 404 if the upload is unknown
+     */
+    @GetMapping("/api/v1/uploads/{uploadId}")
+    public ResponseEntity<?> getUploadStatus(@PathVariable String uploadId) {
+
+        try {
+            ResumableUploadStatus status = resumableUploadManager.getStatus(uploadId);
+            return ResponseEntity.ok()
+                    .header(UPLOAD_OFFSET, Long.toString(status.offset()))
+                    .header(UPLOAD_LENGTH, Long.toString(status.length()))
+                    .cacheControl(CacheControl.noStore())
+                    .body(status);
+        } catch (UploadRejectedException e) {
+            return errorResponse(statusOf(e.getReason()), e.getMessage());
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Finalize a complete resumable upload, the assembled image is checked once with size and mime type checks
+     * of post validation and stored, like {@link RestApiController#uploadAttachment(HttpServletRequest, String)}
+     * @param uploadId the upload identifier
+     * @return 201 with stored attachment, 404 if the upload is unknown, 409 if it's not complete, 415 if not an accepted image
+     * @throws IOException if the image can't be stored
+     */
+    @PostMapping("/api/v1/uploads/{uploadId}/finalize")
+    public ResponseEntity<?> finalizeUpload(@PathVariable String uploadId) throws IOException {
+
+        try {
+            UploadedAttachment uploaded = resumableUploadManager.finish(uploadId);
+            nearDuplicateService.fingerprintAsync(uploaded.location());
+            return ResponseEntity.status(HttpStatus.CREATED).body(uploaded);
+        } catch (UploadRejectedException e) {
+            return uploadErrorResponse(uploadId, e);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Cancel an unfinished resumable upload, its received bytes are deleted
+     * @param uploadId the upload identifier
+     * @return 204 if cancelled, 404 if the upload is unknown
+     * @throws IOException if the staging file can't be deleted
+     */
+    @DeleteMapping("/api/v1/uploads/{uploadId}")
+    public ResponseEntity<?> cancelUpload(@PathVariable String uploadId) throws IOException {
+        return resumableUploadManager.cancel(uploadId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Download a stored image by its content identifier, see {@link ImageDelivery}.
+     * The content identifier is the SHA-256 of image, so it's also the entity tag,
+     * and the response may be cached forever.
+     * A single <code>Range</code> is answered with 206, and a matching <code>If-None-Match</code> with 304.
+     * @param contentId the content identifier
+     * @param request the request
+     * @param response the response
+     * @throws IOException if the image can't be read or the client is gone
+     */
+    @GetMapping("/api/v1/images/{contentId}")
+    public void downloadImage(@PathVariable String contentId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        if (!ContentStore.isContentId(contentId)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path file = contentStore.pathOf(contentId);
+        AttachmentMetadata metadata;
+
+        try {
+            metadata = AttachmentMetadataCache.getDefault().get(file);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String mimeType = metadata.mimeType() == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : metadata.mimeType();
+        imageDelivery.serve(file, metadata.size(), mimeType, "\"" + contentId + "\"", request, response);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Download a stored image resized to a width, like <code>/api/v1/images/{contentId}?width=600</code>.
+     * The width is rounded up to a size bucket of {@link ImageResizer}, the resized image is generated on first request
+     * and cached, concurrent first requests share one generation. An image not wider than the bucket is answered with the original.
+     * @param contentId the content identifier of original image
+     * @param width the requested width in pixels
+     * @param request the request
+     * @param response the response
+     * @throws IOException if the image can't be read or the client is gone
+     */
+    @GetMapping(value = "/api/v1/images/{contentId}", params = "width")
+    public void downloadResizedImage(@PathVariable String contentId, @RequestParam int width,
+                                     HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        if (!ContentStore.isContentId(contentId)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (width < 1) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Width must be positive");
+            return;
+        }
+
+        ResizedImage resized;
+
+        try {
+            resized = imageResizer.resize(contentId, width).get(RESIZE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        } catch (TimeoutException e) {
+            // Still generated in background, a retry is answered from cache
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        } catch (ExecutionException e) {
+
+            if (e.getCause() instanceof NoSuchFileException) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            if (e.getCause() instanceof RejectedExecutionException) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+
+            throw new IOException("Image " + contentId + " can't be resized", e.getCause());
+        }
+
+        String entityTag = resized.original() ? "\"" + contentId + "\"" : "\"" + contentId + "-w" + resized.width() + "\"";
+        String mimeType = resized.mimeType() == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : resized.mimeType();
+
+        imageDelivery.serve(resized.file(), Files.size(resized.file()), mimeType, entityTag, request, response);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Download a derivative of a stored image, like <code>thumb</code> or <code>1080p</code>, see {@link DerivativeSize}.
+     * Derivatives are generated once per content, so they are cached forever like the original.
+     * If the derivative is not generated yet, or the image already fits the size, generation is queued
+     * and the client is redirected to the original image, the redirect itself is not cached.
+     * @param contentId the content identifier of original image
+     * @param size the derivative size name
+     * @param request the request
+     * @param response the response
+     * @throws IOException if the image can't be read or the client is gone
+     */
+    @GetMapping("/api/v1/images/{contentId}/{size}")
+    public void downloadDerivative(@PathVariable String contentId, @PathVariable String size,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        DerivativeSize derivativeSize = DerivativeSize.fromName(size);
+
+        if (!ContentStore.isContentId(contentId) || derivativeSize == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path file = derivativeGenerator.findCached(contentId, derivativeSize);
+
+        if (file == null) {
+
+            if (!Files.exists(contentStore.pathOf(contentId))) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            derivativeGenerator.submit(contentId);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            response.setHeader(HttpHeaders.LOCATION, "/api/v1/images/" + contentId);
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            return;
+        }
+
+        String mimeType = file.getFileName().toString().endsWith(".png") ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE;
+        imageDelivery.serve(file, Files.size(file), mimeType, "\"" + contentId + "-" + derivativeSize.getName() + "\"", request, response);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Download the Deep Zoom descriptor of a large stored image, for viewers like OpenSeadragon,
+     * which then request only visible tiles from <code>pyramid_files</code> beside it, see {@link TilePyramidGenerator}.
+     * The pyramid is generated once per content, so the descriptor is cached forever like the image.
+     * If the pyramid is not generated yet, generation is queued and 503 is answered with <code>Retry-After</code>.
+     * @param contentId the content identifier of image
+     * @param request the request
+     * @param response the response
+     * @throws IOException if the descriptor can't be read or the client is gone
+     */
+    @GetMapping("/api/v1/images/{contentId}/pyramid.dzi")
+    public void downloadTilePyramid(@PathVariable String contentId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        if (!ContentStore.isContentId(contentId)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        TilePyramid pyramid = tilePyramidGenerator.findCached(contentId);
+
+        if (pyramid == null) {
+
+            AttachmentMetadata metadata;
+
+            try {
+                metadata = AttachmentMetadataCache.getDefault().get(contentStore.pathOf(contentId));
+            } catch (NoSuchFileException e) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            // Small enough to be shown whole from a derivative
+            if (!metadata.hasDimensions() || !TilePyramidGenerator.isTiled(metadata.width(), metadata.height())) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            tilePyramidGenerator.submit(contentId);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "2");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        imageDelivery.serve(pyramid.descriptor(), Files.size(pyramid.descriptor()), MediaType.APPLICATION_XML_VALUE,
+                "\"" + contentId + "-dzi\"", request, response);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Download a tile of a deep zoom pyramid, like <code>pyramid_files/12/3_2.jpg</code> for column 3 and row 2 of level 12.
+     * Tiles are cached forever, each has its own entity tag.
+     * @param contentId the content identifier of image
+     * @param level the pyramid level
+     * @param tile the tile file name, <code>column_row.format</code>
+     * @param request the request
+     * @param response the response
+     * @throws IOException if the tile can't be read or the client is gone
+     */
+    @GetMapping("/api/v1/images/{contentId}/pyramid_files/{level}/{tile}")
+    public void downloadTile(@PathVariable String contentId, @PathVariable int level, @PathVariable String tile,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        Matcher matcher = TILE_NAME_PATTERN.matcher(tile);
+        Path file = matcher.matches()
+                ? tilePyramidGenerator.findTile(contentId, level, Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))
+                : null;
+
+        if (file == null || !file.getFileName().toString().equals(tile)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String mimeType = tile.endsWith(".png") ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE;
+        imageDelivery.serve(file, Files.size(file), mimeType, "\"" + contentId + "-" + level + "-" + matcher.group(1) + "_" + matcher.group(2) + "\"",
+                request, response);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find stored images which look the same as an image, like resized or re-encoded copies,
+     * by Hamming distance of their perceptual hashes, see {@link NearDuplicateService}
+     * @param contentId the content identifier of image
+     * @param radius the maximum number of different bits, 0 to {@link PerceptualHashIndex#MAX_RADIUS}
+     * @return 200 with near duplicates nearest first, 400 if radius is out of range, 404 if the image is not stored,
+     * 415 if it can't be decoded
+     */
+    @GetMapping("/api/v1/images/{contentId}/near-duplicates")
+    public ResponseEntity<?> findNearDuplicates(@PathVariable String contentId,
+                                                @RequestParam(defaultValue = "" + NearDuplicateService.DEFAULT_RADIUS) int radius) {
+
+        if (!ContentStore.isContentId(contentId)) {
+            return errorResponse(HttpStatus.NOT_FOUND, "No image " + contentId);
+        }
+
+        if (radius < 0 || radius > PerceptualHashIndex.MAX_RADIUS) {
+            return errorResponse(HttpStatus.BAD_REQUEST, "Radius must be between 0 and " + PerceptualHashIndex.MAX_RADIUS);
+        }
+
+        try {
+            List<NearDuplicate> duplicates = nearDuplicateService.findNearDuplicates(contentId, radius);
+            return ResponseEntity.ok(duplicates);
+        } catch (NoSuchFileException e) {
+            return errorResponse(HttpStatus.NOT_FOUND, "No image " + contentId);
+        } catch (IOException e) {
+            return errorResponse(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Image " + contentId + " can't be decoded");
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Response of a rejected request, with the reason as message
+     */
+    private static ResponseEntity<Map<String, String>> errorResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("message", message));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Response of a rejected chunk or finalize, with current offset if the upload is still unfinished
+     */
+    private ResponseEntity<Map<String, String>> uploadErrorResponse(String uploadId, UploadRejectedException e) {
+
+        try {
+            ResumableUploadStatus status = resumableUploadManager.getStatus(uploadId);
+            return ResponseEntity.status(statusOf(e.getReason()))
+                    .header(UPLOAD_OFFSET, Long.toString(status.offset()))
+                    .body(Map.of("message", e.getMessage()));
+        } catch (UploadRejectedException finished) {
+            return errorResponse(statusOf(e.getReason()), e.getMessage());
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Response status of a rejected upload
+     */
+    private static HttpStatus statusOf(UploadRejectedException.Reason reason) {
+
+        return switch (reason) {
+            case EMPTY -> HttpStatus.BAD_REQUEST;
+            case TOO_LARGE -> HttpStatus.PAYLOAD_TOO_LARGE;
+            case NOT_AN_IMAGE -> HttpStatus.UNSUPPORTED_MEDIA_TYPE;
+            case BUSY -> HttpStatus.SERVICE_UNAVAILABLE;
+            case UNKNOWN_UPLOAD -> HttpStatus.NOT_FOUND;
+            case OFFSET_MISMATCH, INCOMPLETE -> HttpStatus.CONFLICT;
+            case QUOTA_EXCEEDED -> HttpStatus.INSUFFICIENT_STORAGE;
+            case UNKNOWN_USER -> HttpStatus.FORBIDDEN;
+        };
+    }
 }
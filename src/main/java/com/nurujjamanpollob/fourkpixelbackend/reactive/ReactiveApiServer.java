@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.reactive;
+
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Reactor Netty server of the reactive API, running side by side with the servlet container of
+ * {@link com.nurujjamanpollob.fourkpixelbackend.controllers.RestApiController} on its own port.
+ * Requests are served by a few event loop threads, a request waiting on database or a slow client holds no thread,
+ * so thousands of concurrent feed and profile reads are served without a thread each.
+ */
+public class ReactiveApiServer {
+
+    private final LoopResources loopResources;
+    private final DisposableServer server;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Bind the server and start serving at once
+     * @param httpHandler the handler of every request
+     * @param port the port to listen on, 0 for any free port
+     * @param threads the number of event loop threads
+     */
+    public ReactiveApiServer(HttpHandler httpHandler, int port, int threads) {
+
+        this.loopResources = LoopResources.create("reactive-api", threads, true);
+        this.server = HttpServer.create()
+                .port(port)
+                .runOn(loopResources)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return server.port();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stop listening, wait for open connections to close, and stop event loop threads
+     */
+    public void close() {
+
+        server.disposeNow();
+        loopResources.dispose();
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.reactive;
+
+import com.nurujjamanpollob.fourkcommonlib.id.UserIdStrategy;
+import com.nurujjamanpollob.fourkcommonlib.imaging.DerivativeGenerator;
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelineCursor;
+import com.nurujjamanpollob.fourkcommonlib.model.UserProfile;
+import com.nurujjamanpollob.fourkpixelbackend.controllers.RestApiController;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.ReactivePostRepository;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.ReactiveUserRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+/**
+ * Handlers of the reactive API, the same profile and post reads as {@link RestApiController},
+ * answered on event loop threads with non blocking repositories, so a slow client or query never holds a thread.
+ * Placeholders are filled into posts like the servlet API does, on a thread that may block,
+ * as a placeholder not in memory is read from disk, see {@link DerivativeGenerator#fillPlaceholders(Post)}.
+ */
+@Component
+public class ReactiveReadHandler {
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactivePostRepository postRepository;
+    private final DerivativeGenerator derivativeGenerator;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param userRepository the non blocking repository of users
+     * @param postRepository the non blocking repository of posts
+     * @param derivativeGenerator the generator of derivatives, with placeholders of images
+     */
+    public ReactiveReadHandler(ReactiveUserRepository userRepository, ReactivePostRepository postRepository,
+                               DerivativeGenerator derivativeGenerator) {
+
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.derivativeGenerator = derivativeGenerator;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Public profile of a user, see {@link RestApiController#getUserProfile(String)}
+     * @param request the request, with <code>userName</code> path variable
+     * @return 200 with profile, 404 if no user has the username
+     */
+    public Mono<ServerResponse> getUserProfile(ServerRequest request) {
+
+        String userName = request.pathVariable("userName");
+
+        return userRepository.findById(UserIdStrategy.getDefault().generateUserId(userName))
+                .flatMap(user -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(UserProfile.of(user)))
+                .switchIfEmpty(Mono.defer(() -> errorResponse(HttpStatus.NOT_FOUND, "No user " + userName)));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote A post by identifier, see {@link RestApiController#getPost(long)}
+     * @param request the request, with <code>postId</code> path variable
+     * @return 200 with post, 400 if the identifier is not a number, 404 if no post has it
+     */
+    public Mono<ServerResponse> getPost(ServerRequest request) {
+
+        String postId = request.pathVariable("postId");
+        long id;
+
+        try {
+            id = Long.parseLong(postId);
+        } catch (NumberFormatException e) {
+            return errorResponse(HttpStatus.BAD_REQUEST, "Post identifier must be a number");
+        }
+
+        return postRepository.findById(id)
+                .publishOn(Schedulers.boundedElastic())
+                .map(derivativeGenerator::fillPlaceholders)
+                .flatMap(post -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(post))
+                .switchIfEmpty(Mono.defer(() -> errorResponse(HttpStatus.NOT_FOUND, "No post " + postId)));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Latest posts, newest first, see {@link RestApiController#getLatestPosts(int)}.
+     * Posts are written to the response as they are read from database cursor.
+     * @param request the request, with optional <code>limit</code> query parameter
+     * @return 200 with posts, 400 if the limit is not between 1 and {@link RestApiController#MAX_FEED_LIMIT}
+     */
+    public Mono<ServerResponse> getLatestPosts(ServerRequest request) {
+
+        int limit;
+
+        try {
+            limit = request.queryParam("limit").map(Integer::parseInt).orElse(RestApiController.DEFAULT_FEED_LIMIT);
+        } catch (NumberFormatException e) {
+            limit = -1;
+        }
+
+        if (limit < 1 || limit > RestApiController.MAX_FEED_LIMIT) {
+            return errorResponse(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + RestApiController.MAX_FEED_LIMIT);
+        }
+
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(postRepository.findAllBy(PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "postId")))
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(derivativeGenerator::fillPlaceholders), Post.class);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Timeline of a user, newest first, see {@link RestApiController#getTimeline(String, int, String)}
+     * @param request the request, with <code>siteUsername</code> path variable, optional <code>limit</code> and <code>after</code> query parameters
+     * @return 200 with page, 400 if the limit is out of range or the token is not a cursor
+     */
+    public Mono<ServerResponse> getTimeline(ServerRequest request) {
+
+        int limit;
+        TimelineCursor after;
+
+        try {
+            limit = request.queryParam("limit").map(Integer::parseInt).orElse(RestApiController.DEFAULT_FEED_LIMIT);
+        } catch (NumberFormatException e) {
+            limit = -1;
+        }
+
+        if (limit < 1 || limit > RestApiController.MAX_FEED_LIMIT) {
+            return errorResponse(HttpStatus.BAD_REQUEST, "Limit must be between 1 and " + RestApiController.MAX_FEED_LIMIT);
+        }
+
+        try {
+            after = request.queryParam("after").map(TimelineCursor::decode).orElse(null);
+        } catch (IllegalArgumentException e) {
+            return errorResponse(HttpStatus.BAD_REQUEST, "Invalid cursor " + request.queryParam("after").orElse(""));
+        }
+
+        return postRepository.findTimeline(request.pathVariable("siteUsername"), after, limit)
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(page -> page.posts().forEach(derivativeGenerator::fillPlaceholders))
+                .flatMap(page -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(page));
+    }
+
+    private static Mono<ServerResponse> errorResponse(HttpStatus status, String message) {
+        return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON).bodyValue(Map.of("message", message));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.repositories;
+
+import com.nurujjamanpollob.fourkcommonlib.model.StorageUsage;
+import com.nurujjamanpollob.fourkcommonlib.model.UploadCharge;
+import com.nurujjamanpollob.fourkcommonlib.storage.StorageUsageStore;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Counters of {@link StorageUsage} in No-SQL database, changed with an upserted <code>$inc</code>,
+ * so increments of concurrent uploads on every server are applied by the database and never lost.
+ * Charges of uploads are kept the same way, in {@link UploadCharge} collection.
+ */
+@Repository
+public class MongoStorageUsageStore implements StorageUsageStore {
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param mongoTemplate the template of application database
+     */
+    public MongoStorageUsageStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find usage of a user by identifier
+     */
+    @Override
+    public StorageUsage find(long userId) {
+        return mongoTemplate.findById(userId, StorageUsage.class);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Increment both counters of a user in one update, the document is created if missing
+     */
+    @Override
+    public void increment(long userId, long bytes, long files) {
+
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("usedBytes", bytes).inc("usedFiles", files),
+                StorageUsage.class);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Increment uploads of the charge in one update, the document is created if missing
+     */
+    @Override
+    public void addCharge(String contentId, long userId, long bytes) {
+
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(UploadCharge.idOf(contentId, userId))),
+                new Update().inc("uploads", 1).set("bytes", bytes).setOnInsert("contentId", contentId).setOnInsert("userId", userId),
+                UploadCharge.class);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Decrement uploads of the charge only while it's positive, so concurrent removals never go below zero.
+     * A charge left at zero uploads is removed with the content, see {@link MongoStorageUsageStore#removeCharges(String)}
+     */
+    @Override
+    public UploadCharge removeCharge(String contentId, long userId) {
+
+        UploadCharge previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(UploadCharge.idOf(contentId, userId)).and("uploads").gt(0)),
+                new Update().inc("uploads", -1),
+                UploadCharge.class);
+
+        return previous == null ? null : new UploadCharge(contentId, userId, previous.getBytes(), 1);
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Remove every charge of the content, read with the removal
+     */
+    @Override
+    public List<UploadCharge> removeCharges(String contentId) {
+        return mongoTemplate.findAllAndRemove(Query.query(Criteria.where("contentId").is(contentId)), UploadCharge.class);
+    }
+}
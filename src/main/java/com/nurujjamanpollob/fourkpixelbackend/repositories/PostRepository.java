@@ -0,0 +1,138 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.repositories;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelineCursor;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelinePage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Repository of {@link Post}, keyed by time ordered post identifier.
+ */
+public interface PostRepository extends MongoRepository<Post, Long> {
+
+    /**
+     * Sort of a timeline, the order of {@link Post#TIMELINE_INDEX}
+     */
+    Sort TIMELINE_SORT = Sort.by(Sort.Direction.DESC, "postCreationTime", "postId");
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param pageable the page, with sort
+     * @return posts of the page
+     */
+    List<Post> findAllBy(Pageable pageable);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param siteUsername the username
+     * @param pageable the page, with sort
+     * @return first posts of a user
+     */
+    List<Post> findBySiteUsername(String siteUsername, Pageable pageable);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param siteUsername the username
+     * @param postCreationTime the creation time of last post of previous page
+     * @param postId the identifier of last post of previous page
+     * @param pageable the page, with sort
+     * @return posts of a user after the position, read as a range of {@link Post#TIMELINE_INDEX}
+     */
+    @Query("{'siteUsername': ?0, '$or': [{'postCreationTime': {'$lt': ?1}}, {'postCreationTime': ?1, '_id': {'$lt': ?2}}]}")
+    List<Post> findBySiteUsernameAfter(String siteUsername, long postCreationTime, long postId, Pageable pageable);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stream every post with attachments, with only <code>imageFilesLocation</code> field projected,
+     * like for {@link com.nurujjamanpollob.fourkcommonlib.storage.ContentStore#rebuildReferenceCounts(Iterable)}.
+     * The stream holds a database cursor, it must be closed.
+     * @return posts with attachments
+     */
+    @Query(value = "{'imageFilesLocation': {'$ne': null}}", fields = "{'imageFilesLocation': 1}")
+    Stream<Post> streamAttachments();
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read a page of timeline of a user, newest first, with one more post than the limit,
+     * see {@link TimelinePage#of(List, int)}. Every page is an index range scan, so its cost does not grow with its depth.
+     * @param siteUsername the username
+     * @param after the position to start after, or null for the first page
+     * @param limit the number of posts of a page
+     * @return the page
+     */
+    default TimelinePage findTimeline(String siteUsername, TimelineCursor after, int limit) {
+
+        Pageable pageable = PageRequest.of(0, limit + 1, TIMELINE_SORT);
+        List<Post> fetched = after == null
+                ? findBySiteUsername(siteUsername, pageable)
+                : findBySiteUsernameAfter(siteUsername, after.postCreationTime(), after.postId(), pageable);
+
+        return TimelinePage.of(fetched, limit);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.repositories;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelineCursor;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelinePage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non blocking repository of {@link Post}, keyed by time ordered post identifier, used by the reactive API,
+ * see {@link com.nurujjamanpollob.fourkpixelbackend.reactive.ReactiveApiServer}.
+ */
+public interface ReactivePostRepository extends ReactiveMongoRepository<Post, Long> {
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param pageable the page, with sort
+     * @return posts of the page, streamed as they are read from cursor
+     */
+    Flux<Post> findAllBy(Pageable pageable);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param siteUsername the username
+     * @param pageable the page, with sort
+     * @return first posts of a user
+     */
+    Flux<Post> findBySiteUsername(String siteUsername, Pageable pageable);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Same as {@link PostRepository#findBySiteUsernameAfter(String, long, long, Pageable)}
+     */
+    @Query("{'siteUsername': ?0, '$or': [{'postCreationTime': {'$lt': ?1}}, {'postCreationTime': ?1, '_id': {'$lt': ?2}}]}")
+    Flux<Post> findBySiteUsernameAfter(String siteUsername, long postCreationTime, long postId, Pageable pageable);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Same as {@link PostRepository#findTimeline(String, TimelineCursor, int)}
+     */
+    default Mono<TimelinePage> findTimeline(String siteUsername, TimelineCursor after, int limit) {
+
+        Pageable pageable = PageRequest.of(0, limit + 1, PostRepository.TIMELINE_SORT);
+        Flux<Post> fetched = after == null
+                ? findBySiteUsername(siteUsername, pageable)
+                : findBySiteUsernameAfter(siteUsername, after.postCreationTime(), after.postId(), pageable);
+
+        return fetched.collectList().map(posts -> TimelinePage.of(posts, limit));
+    }
+}
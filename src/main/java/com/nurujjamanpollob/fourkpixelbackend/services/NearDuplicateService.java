@@ -0,0 +1,231 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.services;
+
+import com.nurujjamanpollob.fourkcommonlib.imaging.NearDuplicate;
+import com.nurujjamanpollob.fourkcommonlib.imaging.PerceptualHash;
+import com.nurujjamanpollob.fourkcommonlib.imaging.PerceptualHashIndex;
+import com.nurujjamanpollob.fourkcommonlib.model.ImageFingerprint;
+import com.nurujjamanpollob.fourkcommonlib.storage.ContentStore;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.ImageFingerprintRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Finds near duplicates of uploaded images, like reposted or re-encoded copies of the same wallpaper,
+ * which have different content identifiers but almost the same {@link PerceptualHash}.
+ * Hashes are saved as {@link ImageFingerprint} and kept in a {@link PerceptualHashIndex},
+ * which is loaded from database when the application is ready.
+ */
+@Service
+public class NearDuplicateService {
+
+    /**
+     * Search radius used when none is requested, copies usually differ in a few bits,
+     * different images in about half of 64 bits
+     */
+    public static final int DEFAULT_RADIUS = 6;
+
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final ContentStore contentStore;
+    private final ImageFingerprintRepository fingerprintRepository;
+    private final PerceptualHashIndex index = new PerceptualHashIndex();
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param contentStore the store of uploaded images
+     * @param fingerprintRepository the repository of saved hashes
+     */
+    public NearDuplicateService(ContentStore contentStore, ImageFingerprintRepository fingerprintRepository) {
+
+        this.contentStore = contentStore;
+        this.fingerprintRepository = fingerprintRepository;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "image-fingerprint-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        });
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Load every saved hash into the index
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+
+        try (Stream<ImageFingerprint> fingerprints = fingerprintRepository.streamAllBy()) {
+            fingerprints.forEach(fingerprint -> index.add(fingerprint.getContentId(), fingerprint.getPerceptualHash()));
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Compute hash of an uploaded image in background, so upload response is not delayed by decoding.
+     * If the queue is full or the image can't be decoded, it's skipped, and its hash is computed on its first search.
+     * @param contentId the content identifier of image
+     */
+    public void fingerprintAsync(String contentId) {
+
+        try {
+            executor.execute(() -> {
+                try {
+                    fingerprint(contentId);
+                } catch (IOException ignored) {
+                    // Not decodable or deleted, tried again on its first search
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Computed on first search
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Hash of an image, computed and saved if not known yet
+     * @param contentId the content identifier of image
+     * @return the perceptual hash
+     * @throws java.nio.file.NoSuchFileException if the image is not stored
+     * @throws IOException if the image can't be read or decoded
+     */
+    public long fingerprint(String contentId) throws IOException {
+
+        Long known = index.get(contentId);
+
+        if (known != null) {
+            return known;
+        }
+
+        long hash = PerceptualHash.dHash(contentStore.pathOf(contentId));
+        fingerprintRepository.save(new ImageFingerprint(contentId, hash, System.currentTimeMillis()));
+        index.add(contentId, hash);
+
+        return hash;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Find stored images whose hash is within a radius of an image, the image itself is not included.
+     * Images deleted from content store since they were hashed are dropped from the index and database.
+     * @param contentId the content identifier of image
+     * @param radius the maximum number of different bits, up to {@link PerceptualHashIndex#MAX_RADIUS}
+     * @return near duplicates, nearest first
+     * @throws java.nio.file.NoSuchFileException if the image is not stored
+     * @throws IOException if the image can't be read or decoded
+     */
+    public List<NearDuplicate> findNearDuplicates(String contentId, int radius) throws IOException {
+
+        List<NearDuplicate> found = new ArrayList<>();
+
+        for (NearDuplicate duplicate : index.search(fingerprint(contentId), radius)) {
+
+            if (duplicate.key().equals(contentId)) {
+                continue;
+            }
+
+            if (!Files.exists(contentStore.pathOf(duplicate.key()))) {
+                index.remove(duplicate.key());
+                fingerprintRepository.deleteById(duplicate.key());
+                continue;
+            }
+
+            found.add(duplicate);
+        }
+
+        return found;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of images in the index
+     */
+    public int getIndexedCount() {
+        return index.size();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Stop fingerprint workers, queued images are computed on their first search
+     */
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.services;
+
+import com.nurujjamanpollob.fourkcommonlib.exception.UploadRejectedException;
+import com.nurujjamanpollob.fourkcommonlib.id.UserIdStrategy;
+import com.nurujjamanpollob.fourkcommonlib.model.User;
+import com.nurujjamanpollob.fourkcommonlib.storage.QuotaReservation;
+import com.nurujjamanpollob.fourkcommonlib.storage.QuotaTier;
+import com.nurujjamanpollob.fourkcommonlib.storage.StorageQuota;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.UserRepository;
+import org.springframework.stereotype.Service;
+
+/**
+ * Storage quota of site users, see {@link StorageQuota}.
+ * The tier of a user is read from its user document when an upload starts,
+ * and an upload without username, or with a username without user document, is rejected.
+ * Every upload is charged its full length, also when the same content is stored already,
+ * and given back when its reference is released or the content is reclaimed.
+ */
+@Service
+public class StorageQuotaService {
+
+    private final StorageQuota storageQuota;
+    private final UserRepository userRepository;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @param storageQuota the quota of every account
+     * @param userRepository the repository to read tier of users from
+     */
+    public StorageQuotaService(StorageQuota storageQuota, UserRepository userRepository) {
+
+        this.storageQuota = storageQuota;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Reserve quota of a user for an upload, with one user lookup, the reservation itself is local
+     *
+     * Updated by Nurujjaman Pollob 2022
+     * Every upload is accounted to a user, anonymous uploads are rejected.
+     * @param siteUsername the username of uploader
+     * @param bytes the bytes to reserve
+     * @return the open reservation
+     * @throws UploadRejectedException with {@link UploadRejectedException.Reason#QUOTA_EXCEEDED} if the user has no headroom left,
+     * or {@link UploadRejectedException.Reason#UNKNOWN_USER} if the username is blank or no user has it
+     */
+    public QuotaReservation reserve(String siteUsername, long bytes) throws UploadRejectedException {
+
+        if (siteUsername == null || siteUsername.isBlank()) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.UNKNOWN_USER, "An upload must name its user");
+        }
+
+        long userId = UserIdStrategy.getDefault().generateUserId(siteUsername);
+        User user = userRepository.findById(userId).orElse(null);
+
+        if (user == null) {
+            throw new UploadRejectedException(UploadRejectedException.Reason.UNKNOWN_USER, "No user " + siteUsername);
+        }
+
+        return storageQuota.reserve(userId, QuotaTier.of(user), bytes);
+    }
+}
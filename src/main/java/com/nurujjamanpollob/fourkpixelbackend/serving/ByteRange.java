@@ -0,0 +1,136 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.serving;
+
+/**
+ * A single byte range of an HTTP <code>Range</code> request header.
+ * @param start first byte position, inclusive
+ * @param end last byte position, inclusive
+ */
+public record ByteRange(long start, long end) {
+
+    /**
+     * The range can't be satisfied for the resource length, answered with 416
+     */
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Parse a <code>Range</code> header of a resource of given length.
+     * Only a single range is served, like <code>bytes=0-499</code>, <code>bytes=500-</code> or <code>bytes=-500</code>.
+     * A missing or malformed header, other units, and multiple ranges are ignored,
+     * which answers with whole resource, as allowed by RFC 7233.
+     * @param header the Range header value, or null
+     * @param length the byte length of resource
+     * @return the range, null to serve whole resource, or {@link ByteRange#UNSATISFIABLE}
+     */
+    public static ByteRange parse(String header, long length) {
+
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+
+        if (dash < 0) {
+            return null;
+        }
+
+        try {
+            // Suffix range, last n bytes
+            if (dash == 0) {
+
+                long suffixLength = Long.parseLong(spec.substring(1));
+
+                if (suffixLength <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+
+                return new ByteRange(Math.max(0, length - suffixLength), length - 1);
+            }
+
+            long start = Long.parseLong(spec.substring(0, dash));
+            // Open-ended range runs to the last byte, clamped below like a too long closed range
+            long end = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+
+            if (start < 0 || end < start) {
+                return null;
+            }
+
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+
+            return new ByteRange(start, Math.min(end, length - 1));
+
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @return number of bytes in this range
+     */
+    public long length() {
+        return end - start + 1;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend.serving;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Write stored images to HTTP responses without reading them into Java heap.
+ * On Tomcat the file is handed to the connector with sendfile, so the kernel copies it straight to the socket,
+ * otherwise it's copied with {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+ *
+ * A single byte range is served with 206, and <code>If-None-Match</code> is answered with 304 from the entity tag,
+ * so resumed and repeated downloads cost little or nothing.
+ */
+@Component
+public class ImageDelivery {
+
+    /**
+     * Stored content never changes, clients and proxies may cache it for a year
+     */
+    public static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Answer a GET or HEAD request of an immutable file
+     * @param file the file to send
+     * @param length byte length of the file
+     * @param mimeType content type of the file
+     * @param entityTag quoted strong entity tag of content, like <code>"sha256"</code>
+     * @param request the request
+     * @param response the response
+     * @throws IOException if the file can't be read or the client is gone
+     */
+    public void serve(Path file, long length, String mimeType, String entityTag,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        response.setHeader(HttpHeaders.ETAG, entityTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), entityTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // If-Range with other entity tag means the client's partial copy is stale, send whole file
+        String ifRange = request.getHeader("If-Range");
+        ByteRange range = ifRange == null || ifRange.equals(entityTag)
+                ? ByteRange.parse(request.getHeader(HttpHeaders.RANGE), length)
+                : null;
+
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        long start = 0;
+        long count = length;
+
+        if (range != null) {
+            start = range.start();
+            count = range.length();
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+
+        response.setContentType(mimeType);
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // The connector sends the file after this handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        transfer(file, start, count, response.getOutputStream());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Copy a part of file to output, without a heap copy of the file
+     */
+    private static void transfer(Path file, long start, long count, OutputStream output) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+            WritableByteChannel target = Channels.newChannel(output);
+            long position = start;
+            long end = start + count;
+
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new IOException("File is shorter than expected: " + file);
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Check an <code>If-None-Match</code> header against entity tag, weak tags compare equal as required for GET
+     */
+    private static boolean matchesAny(String ifNoneMatch, String entityTag) {
+
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+
+            String tag = candidate.trim();
+
+            if (tag.equals("*")) {
+                return true;
+            }
+
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+
+            if (tag.equals(entityTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend;
+
+import com.nurujjamanpollob.fourkpixelbackend.serving.ByteRange;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkpixelbackend.serving.ByteRange}
+ */
+public class ByteRangeTest {
+
+    private static final long LENGTH = 1000;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Closed range should be served as asked, and clamped to the last byte
+     */
+    @Test
+    public void testClosedRange() {
+
+        assertEquals(new ByteRange(0, 499), ByteRange.parse("bytes=0-499", LENGTH));
+        assertEquals(500, ByteRange.parse("bytes=0-499", LENGTH).length());
+        assertEquals(new ByteRange(900, 999), ByteRange.parse("bytes=900-5000", LENGTH));
+        assertEquals(new ByteRange(999, 999), ByteRange.parse("bytes=999-999", LENGTH));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Open-ended range should run to the last byte
+     */
+    @Test
+    public void testOpenEndedRange() {
+
+        assertEquals(new ByteRange(500, 999), ByteRange.parse("bytes=500-", LENGTH));
+        assertEquals(new ByteRange(0, 999), ByteRange.parse("bytes=0-", LENGTH));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Suffix range should be the last n bytes, or whole resource if it's longer than resource
+     */
+    @Test
+    public void testSuffixRange() {
+
+        assertEquals(new ByteRange(800, 999), ByteRange.parse("bytes=-200", LENGTH));
+        assertEquals(new ByteRange(0, 999), ByteRange.parse("bytes=-5000", LENGTH));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", LENGTH));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-200", 0));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Range starting at or past the end should be answered with 416
+     */
+    @Test
+    public void testStartPastEndIsUnsatisfiable() {
+
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=1000-", LENGTH));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=1500-2000", LENGTH));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=0-", 0));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Multiple ranges are not served, whole resource is sent instead
+     */
+    @Test
+    public void testMultipleRangesAreIgnored() {
+
+        assertNull(ByteRange.parse("bytes=0-99,200-299", LENGTH));
+        assertNull(ByteRange.parse("bytes=0-99, -100", LENGTH));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Missing or malformed header, and other units, should serve whole resource
+     */
+    @Test
+    public void testMalformedRangeIsIgnored() {
+
+        assertNull(ByteRange.parse(null, LENGTH));
+        assertNull(ByteRange.parse("", LENGTH));
+        assertNull(ByteRange.parse("items=0-9", LENGTH));
+        assertNull(ByteRange.parse("bytes=", LENGTH));
+        assertNull(ByteRange.parse("bytes=100", LENGTH));
+        assertNull(ByteRange.parse("bytes=abc-def", LENGTH));
+        assertNull(ByteRange.parse("bytes=500-100", LENGTH));
+        assertNull(ByteRange.parse("bytes=-", LENGTH));
+    }
+}
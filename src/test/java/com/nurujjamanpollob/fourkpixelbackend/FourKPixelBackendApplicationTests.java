@@ -62,7 +62,7 @@ package com.nurujjamanpollob.fourkpixelbackend;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "fourkpixel.reactive-port=0")
 class FourKPixelBackendApplicationTests {
 
     @Test
@@ -0,0 +1,281 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend;
+
+import com.nurujjamanpollob.fourkpixelbackend.serving.ImageDelivery;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkpixelbackend.serving.ImageDelivery}
+ */
+public class ImageDeliveryTest {
+
+    private static final String ENTITY_TAG = "\"abc123\"";
+
+    private static final String MIME_TYPE = "image/png";
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Request without conditions should get whole file with 200 and caching headers
+     */
+    @Test
+    public void testWholeFileIsServed() throws Exception {
+
+        Path file = createFile(1000);
+
+        try {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/image");
+            MockHttpServletResponse response = serve(file, request);
+
+            assertEquals(200, response.getStatus());
+            assertEquals(ENTITY_TAG, response.getHeader(HttpHeaders.ETAG));
+            assertEquals(ImageDelivery.IMMUTABLE_CACHE_CONTROL, response.getHeader(HttpHeaders.CACHE_CONTROL));
+            assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+            assertEquals(MIME_TYPE, response.getContentType());
+            assertEquals(1000, response.getContentLengthLong());
+            assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+            assertArrayEquals(Files.readAllBytes(file), response.getContentAsByteArray());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Single range should get only its bytes with 206 and Content-Range
+     */
+    @Test
+    public void testRangeIsServedPartially() throws Exception {
+
+        Path file = createFile(1000);
+
+        try {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/image");
+            request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+            MockHttpServletResponse response = serve(file, request);
+
+            assertEquals(206, response.getStatus());
+            assertEquals("bytes 100-199/1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+            assertEquals(100, response.getContentLengthLong());
+            assertArrayEquals(Arrays.copyOfRange(Files.readAllBytes(file), 100, 200), response.getContentAsByteArray());
+
+            // Matching If-Range still serves the range
+            request = new MockHttpServletRequest("GET", "/image");
+            request.addHeader(HttpHeaders.RANGE, "bytes=-10");
+            request.addHeader(HttpHeaders.IF_RANGE, ENTITY_TAG);
+            response = serve(file, request);
+
+            assertEquals(206, response.getStatus());
+            assertEquals("bytes 990-999/1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+            assertEquals(10, response.getContentAsByteArray().length);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote If-Range with other entity tag means stale partial copy, whole file should be sent with 200
+     */
+    @Test
+    public void testIfRangeMismatchServesWholeFile() throws Exception {
+
+        Path file = createFile(1000);
+
+        try {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/image");
+            request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+            request.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+            MockHttpServletResponse response = serve(file, request);
+
+            assertEquals(200, response.getStatus());
+            assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+            assertEquals(1000, response.getContentLengthLong());
+            assertArrayEquals(Files.readAllBytes(file), response.getContentAsByteArray());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Matching If-None-Match should get 304 without body, even with a Range
+     */
+    @Test
+    public void testMatchingEntityTagIsNotModified() throws Exception {
+
+        Path file = createFile(1000);
+
+        try {
+            for (String ifNoneMatch : new String[]{ENTITY_TAG, "W/" + ENTITY_TAG, "\"other\", " + ENTITY_TAG, "*"}) {
+
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", "/image");
+                request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+                request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+                MockHttpServletResponse response = serve(file, request);
+
+                assertEquals(304, response.getStatus());
+                assertEquals(ENTITY_TAG, response.getHeader(HttpHeaders.ETAG));
+                assertEquals(0, response.getContentAsByteArray().length);
+            }
+
+            // Other entity tag is not a match
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/image");
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+            assertEquals(200, serve(file, request).getStatus());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Range past the end should get 416 with length of the file
+     */
+    @Test
+    public void testUnsatisfiableRange() throws Exception {
+
+        Path file = createFile(1000);
+
+        try {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/image");
+            request.addHeader(HttpHeaders.RANGE, "bytes=1000-");
+            MockHttpServletResponse response = serve(file, request);
+
+            assertEquals(416, response.getStatus());
+            assertEquals("bytes */1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+            assertEquals(0, response.getContentAsByteArray().length);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote HEAD should get headers only, and connector with sendfile should get the file range instead of body
+     */
+    @Test
+    public void testHeadAndSendfileWriteNoBody() throws Exception {
+
+        Path file = createFile(1000);
+
+        try {
+            MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/image");
+            MockHttpServletResponse response = serve(file, request);
+
+            assertEquals(200, response.getStatus());
+            assertEquals(1000, response.getContentLengthLong());
+            assertEquals(0, response.getContentAsByteArray().length);
+
+            request = new MockHttpServletRequest("GET", "/image");
+            request.addHeader(HttpHeaders.RANGE, "bytes=10-19");
+            request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+            response = serve(file, request);
+
+            assertEquals(206, response.getStatus());
+            assertEquals(0, response.getContentAsByteArray().length);
+            assertEquals(file.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+            assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+            assertEquals(20L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Serve a file with test entity tag
+     */
+    private static MockHttpServletResponse serve(Path file, MockHttpServletRequest request) throws IOException {
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ImageDelivery().serve(file, Files.size(file), MIME_TYPE, ENTITY_TAG, request, response);
+
+        return response;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Create temporary file of distinct bytes
+     */
+    private static Path createFile(int length) throws IOException {
+
+        byte[] content = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+
+        Path file = Files.createTempFile("image-delivery-test", ".png");
+        Files.write(file, content);
+
+        return file;
+    }
+}
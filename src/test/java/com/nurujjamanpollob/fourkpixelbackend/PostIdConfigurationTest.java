@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.PostRepository;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.ReactivePostRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link com.nurujjamanpollob.fourkpixelbackend.config.PostIdConfiguration}, on embedded No-SQL database
+ */
+@SpringBootTest(properties = {
+        "fourkpixel.reactive-port=0",
+        "spring.mongodb.embedded.version=3.5.5"
+})
+public class PostIdConfigurationTest {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ReactivePostRepository reactivePostRepository;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Post made with no-arg constructor should get an identifier when saved, by both repositories
+     */
+    @Test
+    public void testPostWithoutIdentifierGetsOneOnSave() {
+
+        Post saved = postRepository.save(newPostWithoutId("post-id-blocking-user"));
+        assertNotNull(saved.getPostId());
+        assertTrue(postRepository.findById(saved.getPostId()).isPresent());
+
+        Post reactiveSaved = reactivePostRepository.save(newPostWithoutId("post-id-reactive-user")).block();
+        assertNotNull(reactiveSaved);
+        assertNotNull(reactiveSaved.getPostId());
+        assertTrue(reactiveSaved.getPostId() > saved.getPostId());
+        assertTrue(postRepository.findById(reactiveSaved.getPostId()).isPresent());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Identifier of a post should not change when it's saved again
+     */
+    @Test
+    public void testAssignedIdentifierIsKept() {
+
+        Post post = new Post("post-id-kept-user", "Title", "Description", null, "4k", System.currentTimeMillis());
+        Long postId = post.getPostId();
+
+        postRepository.save(post);
+        post.setPostTitle("New title");
+
+        assertEquals(postId, postRepository.save(post).getPostId());
+        assertEquals("New title", postRepository.findById(postId).orElseThrow().getPostTitle());
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Make a post like one read from a request body
+     */
+    private static Post newPostWithoutId(String siteUsername) {
+
+        Post post = new Post();
+        post.setSiteUsername(siteUsername);
+        post.setPostTitle("Title");
+        post.setPostDescription("Description");
+        post.setPostCreationTime(System.currentTimeMillis());
+
+        return post;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ *  Copyright (c) 2022 Nurujjaman Pollob, All right reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and limitations under the License.
+ *
+ *  If you have contributed in codebase,
+ *  and want to add your name or copyright in a particular class or method,
+ *  you must follow this following pattern:
+ *  <code>
+ *      // For a new method created by you,
+ *      //like this example method with name fooMethod()
+ *      //then use following format:
+ *
+ *     >>>
+ *     @author $Name and $CurrentYear.
+ *     $Documentation here.
+ *     $Notes
+ *     public boolean fooMethod(){}
+ *     <<<
+ *
+ *     // For an existing method
+ *
+ *     >>>
+ *     $Current Method Documentation(Update if needed)
+ *
+ *     Updated by $YourName
+ *     $Update summery
+ *     $Notes(If any)
+ *     <<<
+ *
+ *     // For a new class of file, that is not created by anyone else
+ *     >>>
+ *     Copyright (c) $CurrentYear $Name, All right reserved.
+ *
+ *     $Copyright Text.
+ *     $Notes(If Any)
+ *     <<<
+ *
+ *     // For a existing class, if you want to add your own copyright for your work.
+ *
+ *     >>>
+ *     $Current Copyright text
+ *
+ *     $YourCopyrightText
+ *     <<<
+ *
+ *     Done! Clean code!!
+ *  </code>
+ */
+
+package com.nurujjamanpollob.fourkpixelbackend;
+
+import com.nurujjamanpollob.fourkcommonlib.model.Post;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelineCursor;
+import com.nurujjamanpollob.fourkcommonlib.model.TimelinePage;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.PostRepository;
+import com.nurujjamanpollob.fourkpixelbackend.repositories.ReactivePostRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit test class for {@link PostRepository#findTimeline(String, TimelineCursor, int)}
+ * and {@link ReactivePostRepository#findTimeline(String, TimelineCursor, int)}, on embedded No-SQL database
+ */
+@SpringBootTest(properties = {
+        "fourkpixel.reactive-port=0",
+        "spring.mongodb.embedded.version=3.5.5"
+})
+public class TimelineRepositoryTest {
+
+    private static final int POSTS = 23;
+
+    private static final int PAGE_SIZE = 4;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ReactivePostRepository reactivePostRepository;
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Paging through posts created in the same millisecond should return every post once, in timeline order
+     */
+    @Test
+    public void testTimelinePagesCrossSameMillisecondPosts() {
+
+        List<Long> expected = insertPosts("timeline-blocking-user");
+
+        assertEquals(expected, readTimeline("timeline-blocking-user", postRepository::findTimeline));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Reactive repository should page the same as blocking repository
+     */
+    @Test
+    public void testReactiveTimelinePagesCrossSameMillisecondPosts() {
+
+        List<Long> expected = insertPosts("timeline-reactive-user");
+
+        assertEquals(expected, readTimeline("timeline-reactive-user",
+                (siteUsername, after, limit) -> reactivePostRepository.findTimeline(siteUsername, after, limit).block()));
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Insert posts of a user, and of another user that must not be read,
+     * where every few posts share a creation time, so pages end inside a run of same-millisecond posts
+     * @return identifiers of the user's posts, in timeline order
+     */
+    private List<Long> insertPosts(String siteUsername) {
+
+        long newest = System.currentTimeMillis();
+        List<Post> posts = new ArrayList<>();
+
+        for (int i = 0; i < POSTS; i++) {
+            // Creation times repeat out of identifier order, so ties are not in insertion order
+            posts.add(new Post(siteUsername, "Post " + i, "Description of post " + i,
+                    new String[]{"0".repeat(64)}, "wallpaper,4k", newest - i % 5));
+            posts.add(new Post(siteUsername + "-other", "Other post " + i, "Description of other post " + i,
+                    new String[]{"0".repeat(64)}, "wallpaper,4k", newest - i % 5));
+        }
+
+        postRepository.insert(posts);
+
+        return posts.stream()
+                .filter(post -> post.getSiteUsername().equals(siteUsername))
+                .sorted(Comparator.comparing(Post::getPostCreationTime).thenComparing(Post::getPostId).reversed())
+                .map(Post::getPostId)
+                .toList();
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read every page of a timeline, following next cursor of each page
+     * @return identifiers of the posts read, in order
+     */
+    private static List<Long> readTimeline(String siteUsername, TimelineReader reader) {
+
+        List<Long> read = new ArrayList<>();
+        TimelineCursor cursor = null;
+        int pages = 0;
+
+        do {
+            TimelinePage page = reader.read(siteUsername, cursor, PAGE_SIZE);
+            assertTrue(page.posts().size() <= PAGE_SIZE);
+
+            for (Post post : page.posts()) {
+                assertEquals(siteUsername, post.getSiteUsername());
+                read.add(post.getPostId());
+            }
+
+            cursor = page.next() == null ? null : TimelineCursor.decode(page.next());
+            assertTrue(++pages <= POSTS, "Timeline paging does not end");
+        } while (cursor != null);
+
+        assertEquals(read.size(), new HashSet<>(read).size(), "A post is read twice");
+        return read;
+    }
+
+    /**
+     * @author Nurujjaman Pollob 2022
+     * @apiNote Read a page of timeline, with a blocking or reactive repository
+     */
+    @FunctionalInterface
+    private interface TimelineReader {
+        TimelinePage read(String siteUsername, TimelineCursor after, int limit);
+    }
+}